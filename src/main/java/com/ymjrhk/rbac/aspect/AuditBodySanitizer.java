@@ -0,0 +1,237 @@
+package com.ymjrhk.rbac.aspect;
+
+import com.alibaba.fastjson2.JSONWriter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 审计日志请求体的脱敏序列化
+ *
+ * <p>每个类只在第一次遇到时生成一份“计划”（{@link ClassValue} 缓存）：
+ * <ul>
+ *   <li>Java Bean：本类声明的非静态字段，各自一个 MethodHandle getter，字段名是否敏感在生成计划时就判断好</li>
+ *   <li>Map：按 key 判断敏感字段（key 是运行时数据，只能逐个判断），value 递归</li>
+ *   <li>Collection / 数组：逐个元素递归</li>
+ *   <li>String / Number / Boolean / 枚举 / JDK 类型（如 LocalDateTime）：叶子，交给 fastjson2 原样输出</li>
+ * </ul>
+ * 直接写入 JSONWriter，不再构造中间的 LinkedHashMap / List 副本。
+ * 输出与原来“反射复制成 Map 再 JSON.toJSONString”一致：字段按声明顺序，Map 中值为 null 的项和 Bean 中为 null 的字段不输出，
+ * 敏感字段（即使为 null）输出为 ******。
+ * 嵌套超过 {@link #MAX_DEPTH} 层（如循环引用）时，更深的值输出为 null。
+ */
+final class AuditBodySanitizer {
+
+    /**
+     * 定义敏感字段名单
+     */
+    static final Set<String> SENSITIVE_FIELDS = Set.of(
+            "password",
+            "oldPassword",
+            "newPassword",
+            "confirmPassword",
+            "token",
+            "accessToken",
+            "refreshToken"
+    );
+
+    static final String MASK = "******";
+
+    private static final int MAX_DEPTH = 32;
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final Plan LEAF = (writer, value, depth) -> writeLeaf(writer, value);
+
+    private static final ClassValue<Plan> PLANS = new ClassValue<>() {
+        @Override
+        protected Plan computeValue(Class<?> type) {
+            return plan(type);
+        }
+    };
+
+    private AuditBodySanitizer() {
+    }
+
+    /**
+     * @param body
+     * @return 脱敏后的 JSON，body 为 null 时返回 null
+     */
+    static String toJson(Object body) {
+        if (body == null) {
+            return null;
+        }
+        try (JSONWriter writer = JSONWriter.of()) {
+            write(writer, body, 0);
+            return writer.toString();
+        }
+    }
+
+    private static void write(JSONWriter writer, Object value, int depth) {
+        if (value == null || depth > MAX_DEPTH) {
+            writer.writeNull();
+            return;
+        }
+        if (value instanceof String || value instanceof Long || value instanceof Integer) {
+            writeLeaf(writer, value); // 最常见的叶子，省掉一次计划查找
+            return;
+        }
+        PLANS.get(value.getClass()).write(writer, value, depth);
+    }
+
+    private static Plan plan(Class<?> type) {
+        if (Map.class.isAssignableFrom(type)) {
+            return AuditBodySanitizer::writeMap;
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return AuditBodySanitizer::writeCollection;
+        }
+        if (type.isArray()) {
+            return type.getComponentType().isPrimitive() ? LEAF : AuditBodySanitizer::writeArray;
+        }
+        if (isLeaf(type)) {
+            return LEAF;
+        }
+        return beanPlan(type);
+    }
+
+    private static boolean isLeaf(Class<?> type) {
+        return type == String.class
+                || Number.class.isAssignableFrom(type)
+                || type == Boolean.class
+                || type == Character.class
+                || type.isEnum()
+                // JDK 等其他模块的类型拿不到私有字段，交给 fastjson2 按它的方式输出
+                || !type.getModule().isOpen(type.getPackageName(), AuditBodySanitizer.class.getModule());
+    }
+
+    /**
+     * 常见类型直接写，其余交给 fastjson2 查找对应的 ObjectWriter（id 列表等大集合逐个 writeAny 比原来整体序列化还慢）
+     */
+    private static void writeLeaf(JSONWriter writer, Object value) {
+        if (value instanceof String s) {
+            writer.writeString(s);
+        } else if (value instanceof Long l) {
+            writer.writeInt64(l);
+        } else if (value instanceof Integer i) {
+            writer.writeInt32(i);
+        } else if (value instanceof Boolean b) {
+            writer.writeBool(b);
+        } else {
+            writer.writeAny(value);
+        }
+    }
+
+    private static Plan beanPlan(Class<?> type) {
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            return LEAF;
+        }
+        List<FieldPlan> fields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                continue;
+            }
+            String name = field.getName();
+            if (SENSITIVE_FIELDS.contains(name)) {
+                fields.add(new FieldPlan(name, null));
+                continue;
+            }
+            try {
+                fields.add(new FieldPlan(name, lookup.unreflectGetter(field).asType(GETTER_TYPE)));
+            } catch (IllegalAccessException ignored) {
+                // 取不到的字段忽略，避免影响整体日志记录
+            }
+        }
+        FieldPlan[] plans = fields.toArray(FieldPlan[]::new);
+        return (writer, value, depth) -> writeBean(writer, value, depth, plans);
+    }
+
+    private static void writeBean(JSONWriter writer, Object bean, int depth, FieldPlan[] fields) {
+        writer.startObject();
+        for (FieldPlan field : fields) {
+            if (field.getter == null) {
+                writer.writeName(field.name);
+                writer.writeColon();
+                writer.writeString(MASK);
+                continue;
+            }
+            Object value;
+            try {
+                value = (Object) field.getter.invokeExact(bean);
+            } catch (Throwable e) {
+                throw new IllegalStateException("读取字段失败：" + field.name, e);
+            }
+            if (value != null) {
+                writer.writeName(field.name);
+                writer.writeColon();
+                write(writer, value, depth + 1);
+            }
+        }
+        writer.endObject();
+    }
+
+    private static void writeMap(JSONWriter writer, Object value, int depth) {
+        writer.startObject();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            if (SENSITIVE_FIELDS.contains(key)) {
+                writer.writeName(key);
+                writer.writeColon();
+                writer.writeString(MASK);
+            } else if (entry.getValue() != null) {
+                writer.writeName(key);
+                writer.writeColon();
+                write(writer, entry.getValue(), depth + 1);
+            }
+        }
+        writer.endObject();
+    }
+
+    private static void writeCollection(JSONWriter writer, Object value, int depth) {
+        writer.startArray();
+        boolean first = true;
+        for (Object element : (Collection<?>) value) {
+            if (!first) {
+                writer.writeComma();
+            }
+            first = false;
+            write(writer, element, depth + 1);
+        }
+        writer.endArray();
+    }
+
+    private static void writeArray(JSONWriter writer, Object value, int depth) {
+        Object[] array = (Object[]) value;
+        writer.startArray();
+        for (int i = 0; i < array.length; i++) {
+            if (i > 0) {
+                writer.writeComma();
+            }
+            write(writer, array[i], depth + 1);
+        }
+        writer.endArray();
+    }
+
+    @FunctionalInterface
+    private interface Plan {
+
+        void write(JSONWriter writer, Object value, int depth);
+    }
+
+    /**
+     * @param getter 敏感字段为 null（不读取，直接输出 ******）
+     */
+    private record FieldPlan(String name, MethodHandle getter) {
+    }
+}
@@ -3,9 +3,11 @@ package com.ymjrhk.rbac.aspect;
 import com.alibaba.fastjson2.JSON;
 import com.ymjrhk.rbac.annotation.Audit;
 import com.ymjrhk.rbac.constant.SuccessConstant;
+import com.ymjrhk.rbac.context.TraceContext;
 import com.ymjrhk.rbac.context.UserContext;
 import com.ymjrhk.rbac.entity.AuditLog;
 import com.ymjrhk.rbac.service.AuditLogService;
+import com.ymjrhk.rbac.trace.Stage;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,10 +20,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
 import static com.ymjrhk.rbac.utils.IpUtil.getClientIp;
 
@@ -35,8 +40,6 @@ public class AuditLogAspect {
 
     @Around("@annotation(audit)")
     public Object around(ProceedingJoinPoint joinPoint, Audit audit) throws Throwable {
-        log.info("AOP 审计日志表开始接管...");
-
         ServletRequestAttributes attributes =
                 (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
 
@@ -47,6 +50,9 @@ public class AuditLogAspect {
 
         HttpServletRequest request = attributes.getRequest();
 
+        // 审计自身的耗时（不含 Controller 方法）记入请求轨迹
+        long auditStart = System.nanoTime();
+
         AuditLog auditLog = new AuditLog();
 
         String path = request.getRequestURI();
@@ -76,47 +82,39 @@ public class AuditLogAspect {
 //                              .toArray();
 //        auditLog.setRequestBody(serializeArgsSafely(args));
 
-        // 请求参数
+        // 请求参数：只记下引用，真正要写日志时才脱敏序列化（成功的 GET 不写日志，也就不序列化）
         Object body = extractRequestBody(joinPoint);
-        auditLog.setRequestBody(serializeBodySafely(body));
 
-        try {
-            log.debug("尝试运行 Controller 方法...");
-            Object result = joinPoint.proceed();
-            auditLog.setSuccess(SuccessConstant.SUCCESS);
-
-            // GET + 成功 → 不记录
-            if (!"GET".equalsIgnoreCase(method)) {
-                log.info("接口运行无异常且为创建或更新，正常记录审计日志...");
-                auditLogService.save(auditLog);
-            }
+        TraceContext.add(Stage.AUDIT, System.nanoTime() - auditStart);
 
-            return result;
+        Object result;
+        try {
+            result = joinPoint.proceed();
         } catch (Throwable t) { // Error（如 OOM）也会被记录
             auditLog.setSuccess(SuccessConstant.FAIL);
             auditLog.setErrorMessage(t.getMessage());
 
-            log.warn("接口出现异常，将记录到审计日志...");
-            auditLogService.save(auditLog);
+            save(auditLog, body);
 
             throw t;
-        } finally {
-            log.info("AOP 审计日志表结束接管...");
         }
+
+        auditLog.setSuccess(SuccessConstant.SUCCESS);
+
+        // GET + 成功 → 不记录
+        if (!"GET".equalsIgnoreCase(method)) {
+            save(auditLog, body);
+        }
+
+        return result;
     }
 
-    /**
-     * 定义敏感字段名单
-     */
-    private static final Set<String> SENSITIVE_FIELDS = Set.of(
-            "password",
-            "oldPassword",
-            "newPassword",
-            "confirmPassword",
-            "token",
-            "accessToken",
-            "refreshToken"
-    );
+    private void save(AuditLog auditLog, Object body) {
+        long start = System.nanoTime();
+        auditLog.setRequestBody(serializeBodySafely(body));
+        auditLogService.save(auditLog);
+        TraceContext.add(Stage.AUDIT, System.nanoTime() - start);
+    }
 
     /**
      * 从 Controller 方法参数中提取被 @RequestBody 标注的参数。（提取请求体）
@@ -136,35 +134,40 @@ public class AuditLogAspect {
      */
     private Object extractRequestBody(ProceedingJoinPoint joinPoint) {
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-
-        Parameter[] parameters = method.getParameters();
+        int[] bodyIndexes = REQUEST_BODY_INDEXES.computeIfAbsent(signature.getMethod(), AuditLogAspect::requestBodyIndexes);
         Object[] args = joinPoint.getArgs();
 
-        List<Object> bodies = new ArrayList<>();
-
-        for (int i = 0; i < parameters.length; i++) {
-            if (parameters[i].isAnnotationPresent(RequestBody.class)) {
-                bodies.add(args[i]);
-            }
-        }
-
-        if (bodies.isEmpty()) {
+        if (bodyIndexes.length == 0) {
             return null;
         }
 
         // 绝大多数 Controller 只有一个 @RequestBody
-        return bodies.size() == 1 ? bodies.getFirst() : bodies;
+        if (bodyIndexes.length == 1) {
+            return args[bodyIndexes[0]];
+        }
+        List<Object> bodies = new ArrayList<>(bodyIndexes.length);
+        for (int i : bodyIndexes) {
+            bodies.add(args[i]);
+        }
+        return bodies;
+    }
+
+    /**
+     * Controller 方法 -> @RequestBody 参数的下标（每个方法只查一次注解）
+     */
+    private static final Map<Method, int[]> REQUEST_BODY_INDEXES = new ConcurrentHashMap<>();
+
+    private static int[] requestBodyIndexes(Method method) {
+        Parameter[] parameters = method.getParameters();
+        return IntStream.range(0, parameters.length)
+                        .filter(i -> parameters[i].isAnnotationPresent(RequestBody.class))
+                        .toArray();
     }
 
     /**
      * 将请求体对象安全序列化为 JSON 字符串。（把请求体中敏感字段安全地脱敏）
      *
-     * <p>处理流程：
-     * <ol>
-     *   <li>先对对象进行递归脱敏</li>
-     *   <li>再将脱敏后的对象序列化为 JSON</li>
-     * </ol>
+     * <p>按类型预先生成的计划脱敏并直接写成 JSON（见 {@link AuditBodySanitizer}），不再反射复制出中间的 Map。
      *
      * <p>任何异常都不会影响业务流程，失败时返回占位字符串。
      */
@@ -174,8 +177,7 @@ public class AuditLogAspect {
         }
 
         try {
-            Object sanitized = sanitizeObject(body);
-            return JSON.toJSONString(sanitized);
+            return AuditBodySanitizer.toJson(body);
         } catch (Exception e) {
             // 审计日志不应影响主业务流程
             log.warn("审计日志序列化失败", e);
@@ -183,75 +185,6 @@ public class AuditLogAspect {
         }
     }
 
-    /**
-     * 对对象进行递归脱敏处理。（先遍历 Java 对象结构，把敏感字段的值替换掉，再把“干净对象”序列化成 JSON）
-     *
-     * <p>设计原则：
-     * <ul>
-     *   <li>脱敏发生在“对象层”，而不是 JSON 字符串层</li>
-     *   <li>根据对象实际类型（基本类型 / Map / Collection / Java Bean）分别处理</li>
-     *   <li>仅对命中的敏感字段替换值，其余字段递归处理</li>
-     * </ul>
-     *
-     * <p>返回值始终是一个“可安全序列化”的对象结构（Map / List / 基本类型）。
-     */
-    private Object sanitizeObject(Object obj) {
-        // null 直接返回，作为递归终止条件之一
-        if (obj == null) {
-            return null;
-        }
-
-        // 基本类型（叶子节点），无需脱敏也无需继续递归
-        if (obj instanceof String || obj instanceof Number || obj instanceof Boolean) {
-            return obj;
-        }
-
-        // 处理 Map 结构（常见于动态 JSON、反序列化对象）
-        // 按 key 判断是否为敏感字段，对 value 递归脱敏
-        if (obj instanceof Map<?, ?> map) {
-            Map<String, Object> copy = new LinkedHashMap<>();
-            map.forEach((k, v) -> {
-                String key = String.valueOf(k);
-                if (SENSITIVE_FIELDS.contains(key)) {
-                    // 命中敏感字段，直接替换为脱敏值
-                    copy.put(key, "******");
-                } else {
-                    // 非敏感字段，递归处理其 value
-                    copy.put(key, sanitizeObject(v));
-                }
-            });
-            return copy;
-        }
-
-        // 处理集合类型（List / Set 等）
-        // 对集合中的每个元素递归脱敏
-        if (obj instanceof Collection<?> col) {
-            return col.stream()
-                      .map(this::sanitizeObject)
-                      .toList();
-        }
-
-        // 处理普通 Java Bean（DTO / VO 等）
-        // 使用反射读取字段并构造安全的 Map 结构
-        Map<String, Object> result = new LinkedHashMap<>();
-        for (Field field : obj.getClass().getDeclaredFields()) {
-            field.setAccessible(true);
-            try {
-                Object value = field.get(obj);
-                if (SENSITIVE_FIELDS.contains(field.getName())) {
-                    // 字段名命中敏感字段，直接脱敏
-                    result.put(field.getName(), "******");
-                } else {
-                    // 非敏感字段，递归脱敏其值
-                    result.put(field.getName(), sanitizeObject(value));
-                }
-            } catch (IllegalAccessException ignored) {
-                // 反射失败时忽略该字段，避免影响整体日志记录
-            }
-        }
-        return result;
-    }
-
     /**
      * 隐藏掉密码字段（暂时不用这个方法了）
      *
@@ -261,7 +194,7 @@ public class AuditLogAspect {
     private String serializeArgsSafely(List<Object> args) {
         try {
             String json = JSON.toJSONString(args);
-            for (String field : SENSITIVE_FIELDS) {
+            for (String field : AuditBodySanitizer.SENSITIVE_FIELDS) {
                 json = json.replaceAll(
                         "(\"" + field + "\"\\s*:\\s*\")[^\"]*\"",
                         "$1******\""
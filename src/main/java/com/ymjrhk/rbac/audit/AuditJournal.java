@@ -0,0 +1,413 @@
+package com.ymjrhk.rbac.audit;
+
+import com.ymjrhk.rbac.entity.AuditLog;
+import com.ymjrhk.rbac.properties.AuditProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * 审计日志本地落盘（数据库写不进去时的兜底）
+ *
+ * <p>目录下是按序号递增的段文件 audit-00000000000000000001.seg，只追加；
+ * 每条记录 = 长度(int) + CRC32C(int) + {@link AuditLogCodec} 编码的内容。
+ * 当前段超过 segmentSize 后封存，新开下一个段。
+ *
+ * <p>回放进度记在 checkpoint 文件里（段序号 + 偏移），由 {@link AuditJournalReplayer} 推进；
+ * 进度之前的段文件会被删除。先写库、后记进度，所以崩溃后最多重复插入最后一批，不会丢。
+ *
+ * <p>启动时校验最后一个段：进程崩溃可能留下写了一半的记录，从第一条校验失败的记录处截断。
+ */
+@Component
+@ConditionalOnProperty(prefix = "rbac.audit.journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class AuditJournal implements AuditSpill {
+
+    private static final String SEGMENT_PREFIX = "audit-";
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    /**
+     * 记录头：长度 + CRC
+     */
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+
+    private final long segmentBytes;
+
+    private final boolean fsync;
+
+    private final Counter appendedCounter;
+
+    private final Counter corruptedCounter;
+
+    /**
+     * 当前写入的段（以下三个字段由 this 锁保护）
+     */
+    private FileChannel active;
+
+    private long activeSegment;
+
+    private long activeSize;
+
+    /**
+     * 回放进度（只有回放线程会推进）
+     */
+    private volatile JournalPosition checkpoint;
+
+    public AuditJournal(AuditProperties auditProperties, MeterRegistry meterRegistry) {
+        AuditProperties.Journal journal = auditProperties.getJournal();
+        if (journal.getSegmentSize().toBytes() <= HEADER_BYTES) {
+            throw new IllegalArgumentException("rbac.audit.journal.segment-size 太小");
+        }
+        this.directory = Path.of(journal.getDirectory());
+        this.segmentBytes = journal.getSegmentSize().toBytes();
+        this.fsync = journal.isFsync();
+
+        this.appendedCounter = Counter.builder("rbac.audit.journal.appended")
+                                      .description("写入本地日志文件的审计日志条数")
+                                      .register(meterRegistry);
+        this.corruptedCounter = Counter.builder("rbac.audit.journal.corrupted")
+                                       .description("回放时校验失败被跳过的记录段数")
+                                       .register(meterRegistry);
+        Gauge.builder("rbac.audit.journal.backlog", this, AuditJournal::backlogBytes)
+             .description("本地日志文件中尚未回放的字节数")
+             .baseUnit("bytes")
+             .register(meterRegistry);
+    }
+
+    /**
+     * 打开目录，恢复写入位置和回放进度
+     *
+     * @throws IOException
+     */
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> segments = listSegments();
+        JournalPosition saved = readCheckpoint();
+
+        if (segments.isEmpty()) {
+            activeSegment = saved == null ? 1 : saved.segment();
+            active = FileChannel.open(segmentPath(activeSegment), CREATE, READ, WRITE);
+            activeSize = 0;
+            checkpoint = new JournalPosition(activeSegment, 0);
+            return;
+        }
+
+        // 最后一个段可能有写了一半的记录：截断到最后一条完整记录
+        activeSegment = segments.get(segments.size() - 1);
+        active = FileChannel.open(segmentPath(activeSegment), READ, WRITE);
+        activeSize = validLength(active);
+        if (activeSize < active.size()) {
+            log.warn("审计日志文件 {} 尾部有 {} 字节不完整，已截断",
+                    segmentPath(activeSegment), active.size() - activeSize);
+            active.truncate(activeSize);
+            active.force(true);
+        }
+
+        JournalPosition first = new JournalPosition(segments.get(0), 0);
+        JournalPosition end = new JournalPosition(activeSegment, activeSize);
+        if (saved == null || saved.compareTo(first) < 0) {
+            checkpoint = first;
+        } else if (saved.compareTo(end) > 0) {
+            checkpoint = end; // 进度记录在截断掉的尾部之后
+        } else {
+            checkpoint = saved;
+        }
+        deleteSegmentsBefore(checkpoint.segment()); // 上次记完进度还没来得及删的
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.force(true);
+            active.close();
+            active = null;
+        }
+    }
+
+    /**
+     * 追加到当前段（写库失败或缓冲区满时调用）
+     *
+     * @param auditLogs
+     * @return 是否全部写入
+     */
+    @Override
+    public synchronized boolean spill(List<AuditLog> auditLogs) {
+        if (active == null) {
+            return false;
+        }
+        try {
+            for (AuditLog auditLog : auditLogs) {
+                if (auditLog.getCreateTime() == null) {
+                    auditLog.setCreateTime(LocalDateTime.now()); // 回放时保留原始时间
+                }
+                append(AuditLogCodec.encode(auditLog));
+            }
+            if (fsync) {
+                active.force(false);
+            }
+            appendedCounter.increment(auditLogs.size());
+            return true;
+        } catch (IOException e) {
+            log.error("审计日志写入本地文件失败，count={}", auditLogs.size(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 从回放进度开始读最多 max 条
+     *
+     * @param max
+     * @return 读到的日志，以及全部写库成功后应该提交的新进度
+     * @throws IOException
+     */
+    JournalBatch read(int max) throws IOException {
+        long lastSegment;
+        long lastSize;
+        synchronized (this) {
+            lastSegment = activeSegment;
+            lastSize = activeSize;
+        }
+
+        JournalPosition position = checkpoint;
+        List<AuditLog> logs = new ArrayList<>();
+        while (logs.size() < max) {
+            boolean sealed = position.segment() < lastSegment;
+            Path path = segmentPath(position.segment());
+            if (sealed && !Files.exists(path)) {
+                position = new JournalPosition(position.segment() + 1, 0);
+                continue;
+            }
+
+            long offset = position.offset();
+            long limit;
+            try (FileChannel channel = FileChannel.open(path, READ)) {
+                limit = sealed ? channel.size() : lastSize;
+                while (logs.size() < max && offset < limit) {
+                    ByteBuffer payload = readRecord(channel, offset, limit);
+                    if (payload == null) {
+                        corruptedCounter.increment();
+                        log.warn("审计日志文件 {} 在偏移 {} 处校验失败，跳过该段剩余 {} 字节",
+                                path, offset, limit - offset);
+                        offset = limit;
+                        break;
+                    }
+                    try {
+                        logs.add(AuditLogCodec.decode(payload));
+                    } catch (IllegalArgumentException e) {
+                        corruptedCounter.increment(); // CRC 对但解不出来（版本不认识），只跳过这一条
+                        log.warn("审计日志文件 {} 在偏移 {} 处的记录无法解析，已跳过", path, offset, e);
+                    }
+                    offset += HEADER_BYTES + payload.capacity();
+                }
+            }
+
+            if (offset < limit || !sealed) {
+                position = new JournalPosition(position.segment(), offset);
+                break;
+            }
+            position = new JournalPosition(position.segment() + 1, 0); // 这个段读完了
+        }
+        return new JournalBatch(logs, position);
+    }
+
+    /**
+     * 记录回放进度，删除已经回放完的段
+     *
+     * @param position
+     * @throws IOException
+     */
+    void commit(JournalPosition position) throws IOException {
+        if (position.equals(checkpoint)) {
+            return;
+        }
+        Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(
+                    (position.segment() + " " + position.offset()).getBytes(StandardCharsets.US_ASCII)));
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpoint = position;
+        deleteSegmentsBefore(position.segment());
+    }
+
+    JournalPosition checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * 尚未回放的字节数
+     *
+     * @return
+     */
+    public long backlogBytes() {
+        JournalPosition position = checkpoint;
+        if (position == null) {
+            return 0;
+        }
+        try {
+            long total = 0;
+            for (Long segment : listSegments()) {
+                if (segment >= position.segment()) {
+                    total += Files.size(segmentPath(segment));
+                }
+            }
+            return Math.max(0, total - position.offset());
+        } catch (IOException | UncheckedIOException e) {
+            return 0;
+        }
+    }
+
+    private void append(byte[] payload) throws IOException {
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (activeSize > 0 && activeSize + recordBytes > segmentBytes) {
+            rotate();
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(recordBytes);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        record.flip();
+
+        // 按位置写：上次写了一半失败的话，这次直接覆盖
+        long position = activeSize;
+        while (record.hasRemaining()) {
+            position += active.write(record, position);
+        }
+        activeSize = position;
+    }
+
+    private void rotate() throws IOException {
+        active.force(true);
+        active.close();
+        activeSegment++;
+        active = FileChannel.open(segmentPath(activeSegment), CREATE, READ, WRITE);
+        activeSize = 0;
+    }
+
+    /**
+     * 读一条记录的内容，不完整或 CRC 不对返回 null
+     */
+    private static ByteBuffer readRecord(FileChannel channel, long offset, long limit) throws IOException {
+        if (limit - offset < HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, offset);
+        header.flip();
+        int length = header.getInt();
+        int expectedCrc = header.getInt();
+        if (length <= 0 || length > limit - offset - HEADER_BYTES) {
+            return null;
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(channel, payload, offset + HEADER_BYTES);
+        CRC32C crc = new CRC32C();
+        crc.update(payload.array());
+        if ((int) crc.getValue() != expectedCrc) {
+            return null;
+        }
+        return payload.flip();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("审计日志文件意外结束");
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * 从头校验，返回最后一条完整记录的结束位置
+     */
+    private static long validLength(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long offset = 0;
+        ByteBuffer payload;
+        while ((payload = readRecord(channel, offset, size)) != null) {
+            offset += HEADER_BYTES + payload.capacity();
+        }
+        return offset;
+    }
+
+    private JournalPosition readCheckpoint() {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            String[] parts = Files.readString(path, StandardCharsets.US_ASCII).trim().split(" ");
+            return new JournalPosition(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (IOException | RuntimeException e) {
+            log.warn("审计日志回放进度文件损坏，从最早的段重新回放", e);
+            return null;
+        }
+    }
+
+    private void deleteSegmentsBefore(long segment) throws IOException {
+        for (Long s : listSegments()) {
+            if (s < segment) {
+                Files.deleteIfExists(segmentPath(s));
+            }
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                        .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                        .map(name -> Long.parseLong(
+                                name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                        .sorted()
+                        .toList();
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%020d", segment) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * 一次读取的结果
+     *
+     * @param logs
+     * @param next 这批全部写库成功后的新进度
+     */
+    record JournalBatch(List<AuditLog> logs, JournalPosition next) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.ymjrhk.rbac.audit;
+
+import com.ymjrhk.rbac.audit.AuditJournal.JournalBatch;
+import com.ymjrhk.rbac.mapper.AuditLogMapper;
+import com.ymjrhk.rbac.properties.AuditProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把本地落盘的审计日志回放到数据库
+ *
+ * <p>单个后台线程每隔 replayInterval 检查一次：有积压就按 batchSize 批量插入，
+ * 直到追上或写库失败（数据库还没恢复），失败时等下一轮重试。不占用请求线程。
+ */
+@Component
+@ConditionalOnProperty(prefix = "rbac.audit.journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class AuditJournalReplayer {
+
+    private final AuditJournal auditJournal;
+
+    private final AuditLogMapper auditLogMapper;
+
+    private final AuditProperties auditProperties;
+
+    private final Counter replayedCounter;
+
+    private ScheduledExecutorService scheduler;
+
+    public AuditJournalReplayer(AuditJournal auditJournal,
+                                AuditLogMapper auditLogMapper,
+                                AuditProperties auditProperties,
+                                MeterRegistry meterRegistry) {
+        this.auditJournal = auditJournal;
+        this.auditLogMapper = auditLogMapper;
+        this.auditProperties = auditProperties;
+        this.replayedCounter = Counter.builder("rbac.audit.journal.replayed")
+                                      .description("从本地日志文件回放到数据库的审计日志条数")
+                                      .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = auditProperties.getJournal().getReplayInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "audit-journal-replayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 启动后立即回放一次上次遗留的积压
+        scheduler.scheduleWithFixedDelay(this::replay, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(auditProperties.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 回放到追上为止，写库失败则留到下一轮
+     *
+     * @return 本轮回放的条数
+     */
+    int replay() {
+        int total = 0;
+        try {
+            int replayed;
+            while ((replayed = replayOnce()) > 0) {
+                total += replayed;
+            }
+            if (total > 0) {
+                log.info("已从本地文件回放 {} 条审计日志", total);
+            }
+        } catch (Exception e) {
+            log.warn("审计日志回放失败，{} ms 后重试：{}",
+                    auditProperties.getJournal().getReplayInterval().toMillis(), e.getMessage());
+        }
+        return total;
+    }
+
+    /**
+     * 回放一批：先写库，成功后再提交进度
+     *
+     * @return 本批条数，0 表示已追上
+     * @throws IOException
+     */
+    int replayOnce() throws IOException {
+        JournalBatch batch = auditJournal.read(auditProperties.getBatchSize());
+        if (!batch.logs().isEmpty()) {
+            auditLogMapper.batchInsert(batch.logs());
+            replayedCounter.increment(batch.logs().size());
+        }
+        auditJournal.commit(batch.next()); // 跳过损坏记录时也要推进
+        return batch.logs().size();
+    }
+}
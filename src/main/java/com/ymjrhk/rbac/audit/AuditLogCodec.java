@@ -0,0 +1,143 @@
+package com.ymjrhk.rbac.audit;
+
+import com.ymjrhk.rbac.entity.AuditLog;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 审计日志二进制编解码（落盘用）
+ *
+ * <p>格式：版本号(1 字节) + 各字段依次排列；
+ * Long / Integer 前面带 1 字节是否为 null，String 用 int 长度（-1 表示 null）+ UTF-8 字节，
+ * 时间存 UTC 秒 + 纳秒。
+ */
+final class AuditLogCodec {
+
+    private static final byte VERSION = 1;
+
+    private AuditLogCodec() {
+    }
+
+    static byte[] encode(AuditLog auditLog) {
+        byte[][] strings = {
+                utf8(auditLog.getUsername()),
+                utf8(auditLog.getPermissionId()),
+                utf8(auditLog.getPermissionName()),
+                utf8(auditLog.getPath()),
+                utf8(auditLog.getMethod()),
+                utf8(auditLog.getRequestBody()),
+                utf8(auditLog.getIp()),
+                utf8(auditLog.getErrorMessage())
+        };
+
+        int size = 1 + 9 + 5 + 13;
+        for (byte[] s : strings) {
+            size += 4 + (s == null ? 0 : s.length);
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.put(VERSION);
+        putLong(buf, auditLog.getUserId());
+        for (int i = 0; i < 7; i++) { // username ~ ip
+            putBytes(buf, strings[i]);
+        }
+        putInt(buf, auditLog.getSuccess());
+        putBytes(buf, strings[7]);
+        putTime(buf, auditLog.getCreateTime());
+        return buf.array();
+    }
+
+    /**
+     * @param buf
+     * @return
+     * @throws IllegalArgumentException 数据不完整或版本不认识
+     */
+    static AuditLog decode(ByteBuffer buf) {
+        try {
+            byte version = buf.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("不支持的审计日志记录版本：" + version);
+            }
+            AuditLog auditLog = new AuditLog();
+            auditLog.setUserId(getLong(buf));
+            auditLog.setUsername(getString(buf));
+            auditLog.setPermissionId(getString(buf));
+            auditLog.setPermissionName(getString(buf));
+            auditLog.setPath(getString(buf));
+            auditLog.setMethod(getString(buf));
+            auditLog.setRequestBody(getString(buf));
+            auditLog.setIp(getString(buf));
+            auditLog.setSuccess(getInt(buf));
+            auditLog.setErrorMessage(getString(buf));
+            auditLog.setCreateTime(getTime(buf));
+            return auditLog;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("审计日志记录不完整", e);
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer buf, byte[] bytes) {
+        if (bytes == null) {
+            buf.putInt(-1);
+            return;
+        }
+        buf.putInt(bytes.length);
+        buf.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buf.remaining()) {
+            throw new IllegalArgumentException("审计日志记录不完整");
+        }
+        String s = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+        buf.position(buf.position() + length);
+        return s;
+    }
+
+    private static void putLong(ByteBuffer buf, Long value) {
+        buf.put((byte) (value == null ? 0 : 1));
+        buf.putLong(value == null ? 0 : value);
+    }
+
+    private static Long getLong(ByteBuffer buf) {
+        boolean present = buf.get() != 0;
+        long value = buf.getLong();
+        return present ? value : null;
+    }
+
+    private static void putInt(ByteBuffer buf, Integer value) {
+        buf.put((byte) (value == null ? 0 : 1));
+        buf.putInt(value == null ? 0 : value);
+    }
+
+    private static Integer getInt(ByteBuffer buf) {
+        boolean present = buf.get() != 0;
+        int value = buf.getInt();
+        return present ? value : null;
+    }
+
+    private static void putTime(ByteBuffer buf, LocalDateTime time) {
+        buf.put((byte) (time == null ? 0 : 1));
+        buf.putLong(time == null ? 0 : time.toEpochSecond(ZoneOffset.UTC));
+        buf.putInt(time == null ? 0 : time.getNano());
+    }
+
+    private static LocalDateTime getTime(ByteBuffer buf) {
+        boolean present = buf.get() != 0;
+        long seconds = buf.getLong();
+        int nanos = buf.getInt();
+        return present ? LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC) : null;
+    }
+}
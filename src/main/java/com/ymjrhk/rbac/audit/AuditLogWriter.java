@@ -0,0 +1,308 @@
+package com.ymjrhk.rbac.audit;
+
+import com.ymjrhk.rbac.entity.AuditLog;
+import com.ymjrhk.rbac.mapper.AuditLogMapper;
+import com.ymjrhk.rbac.properties.AuditProperties;
+import com.ymjrhk.rbac.properties.AuditProperties.OverflowPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 审计日志批量写入器
+ *
+ * <p>请求线程只做一次无锁入队（{@link #submit}），1~2 个后台线程攒批后用多行 INSERT 写库：
+ * <ul>
+ *   <li>攒满 batchSize 条立即写</li>
+ *   <li>不满一批时，最早一条等待超过 flushInterval 也写</li>
+ * </ul>
+ * 没有日志时消费线程休眠，最长 flushInterval；生产者入队时发现有消费线程在休眠就唤醒它，空闲的服务不会空转。
+ * 缓冲区满时按 {@link OverflowPolicy} 处理，绝不向请求线程抛异常；写库失败的批次转入溢出存储（如果有）。
+ * 应用关闭时先停止接收，再把缓冲区中剩余的日志写完。
+ */
+@Component
+@Slf4j
+public class AuditLogWriter {
+
+    /**
+     * BLOCK 策略下生产者每次重试前的休眠时间
+     */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final AuditLogMapper auditLogMapper;
+
+    private final AuditProperties auditProperties;
+
+    private final AuditSpill auditSpill;
+
+    private final AuditRingBuffer<AuditLog> buffer;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final Counter droppedCounter;
+
+    private final Counter spilledCounter;
+
+    private final Counter writtenCounter;
+
+    private final Counter failedCounter;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private volatile List<Thread> drainers = List.of();
+
+    /**
+     * 正在休眠（或准备休眠）的消费线程数，生产者据此决定是否唤醒
+     */
+    private final AtomicInteger idleDrainers = new AtomicInteger();
+
+    private volatile boolean running;
+
+    public AuditLogWriter(AuditLogMapper auditLogMapper,
+                          AuditProperties auditProperties,
+                          @Nullable AuditSpill auditSpill, // 直接注入，保证关闭时先于溢出存储销毁
+                          MeterRegistry meterRegistry) {
+        if (auditProperties.getBatchSize() <= 0) {
+            throw new IllegalArgumentException("rbac.audit.batch-size 必须大于 0");
+        }
+        if (auditProperties.getDrainerThreads() < 1 || auditProperties.getDrainerThreads() > 2) {
+            throw new IllegalArgumentException("rbac.audit.drainer-threads 只能是 1 或 2");
+        }
+
+        this.auditLogMapper = auditLogMapper;
+        this.auditProperties = auditProperties;
+        this.auditSpill = auditSpill;
+        this.buffer = new AuditRingBuffer<>(auditProperties.getCapacity());
+        this.batchSize = auditProperties.getBatchSize();
+        this.flushIntervalNanos = auditProperties.getFlushInterval().toNanos();
+
+        Gauge.builder("rbac.audit.queue.depth", buffer, AuditRingBuffer::size)
+             .description("审计日志缓冲区中待写入的条数")
+             .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("rbac.audit.batch.size")
+                                                   .description("每次批量 INSERT 的条数")
+                                                   .register(meterRegistry);
+        this.droppedCounter = Counter.builder("rbac.audit.dropped")
+                                     .description("缓冲区满被丢弃的审计日志条数")
+                                     .register(meterRegistry);
+        this.spilledCounter = Counter.builder("rbac.audit.spilled")
+                                     .description("缓冲区满或写库失败转入溢出存储的审计日志条数")
+                                     .register(meterRegistry);
+        this.writtenCounter = Counter.builder("rbac.audit.written")
+                                     .description("成功写库的审计日志条数")
+                                     .register(meterRegistry);
+        this.failedCounter = Counter.builder("rbac.audit.failed")
+                                    .description("写库失败的审计日志条数")
+                                    .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (auditProperties.getOverflowPolicy() == OverflowPolicy.SPILL && auditSpill == null) {
+            log.warn("审计日志溢出策略为 SPILL，但没有配置溢出存储，缓冲区满时将直接丢弃");
+        }
+
+        running = true;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < auditProperties.getDrainerThreads(); i++) {
+            Thread drainer = new Thread(this::drainLoop, "audit-drainer-" + i);
+            drainer.setDaemon(true);
+            threads.add(drainer);
+        }
+        drainers = List.copyOf(threads);
+        drainers.forEach(Thread::start);
+        log.info("审计日志批量写入器已启动，capacity={}, batchSize={}, flushInterval={}, drainers={}, overflowPolicy={}",
+                buffer.capacity(), batchSize, auditProperties.getFlushInterval(),
+                drainers.size(), auditProperties.getOverflowPolicy());
+    }
+
+    /**
+     * 关闭时写完剩余日志（Spring 关闭钩子触发）
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+
+        long deadline = System.nanoTime() + auditProperties.getShutdownTimeout().toNanos();
+        for (Thread drainer : drainers) {
+            LockSupport.unpark(drainer);
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            try {
+                drainer.join(Math.max(1, remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        int left = buffer.size();
+        if (left > 0) {
+            log.warn("关闭超时，仍有 {} 条审计日志未写入", left);
+        }
+    }
+
+    /**
+     * 提交一条审计日志（请求线程调用，不抛异常）
+     *
+     * @param auditLog
+     * @return 是否进入缓冲区（或溢出存储）
+     */
+    public boolean submit(AuditLog auditLog) {
+        if (auditLog == null) {
+            return false;
+        }
+        if (offer(auditLog)) {
+            return true;
+        }
+
+        // 缓冲区满
+        return switch (auditProperties.getOverflowPolicy()) {
+            case BLOCK -> offerBlocking(auditLog);
+            case SPILL -> spill(auditLog);
+            case DROP -> drop();
+        };
+    }
+
+    /**
+     * 当前缓冲区中的条数
+     *
+     * @return
+     */
+    public int queueDepth() {
+        return buffer.size();
+    }
+
+    public long droppedCount() {
+        return (long) droppedCounter.count();
+    }
+
+    private boolean offerBlocking(AuditLog auditLog) {
+        long deadline = System.nanoTime() + auditProperties.getBlockTimeout().toNanos();
+        while (System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            if (offer(auditLog)) {
+                return true;
+            }
+        }
+        return drop();
+    }
+
+    /**
+     * 入队成功后，如果有消费线程在休眠就唤醒（消费线程忙时只多读一次 idleDrainers）
+     */
+    private boolean offer(AuditLog auditLog) {
+        if (!buffer.offer(auditLog)) {
+            return false;
+        }
+        if (idleDrainers.get() > 0) {
+            drainers.forEach(LockSupport::unpark);
+        }
+        return true;
+    }
+
+    private boolean spill(AuditLog auditLog) {
+        if (spillQuietly(List.of(auditLog))) {
+            spilledCounter.increment();
+            return true;
+        }
+        return drop();
+    }
+
+    private boolean spillQuietly(List<AuditLog> auditLogs) {
+        if (auditSpill == null) {
+            return false;
+        }
+        try {
+            return auditSpill.spill(auditLogs);
+        } catch (Exception e) {
+            log.warn("审计日志写入溢出存储失败", e);
+            return false;
+        }
+    }
+
+    private boolean drop() {
+        droppedCounter.increment();
+        return false;
+    }
+
+    /**
+     * 消费线程：攒批 → 多行 INSERT
+     */
+    private void drainLoop() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        long batchStart = 0;
+
+        // 停止后继续把缓冲区清空
+        while (running || !buffer.isEmpty()) {
+            boolean wasEmpty = batch.isEmpty();
+            int drained = buffer.drainTo(batch, batchSize - batch.size());
+            if (wasEmpty && !batch.isEmpty()) {
+                batchStart = System.nanoTime();
+            }
+
+            boolean full = batch.size() >= batchSize;
+            boolean due = !batch.isEmpty()
+                    && (!running || System.nanoTime() - batchStart >= flushIntervalNanos);
+            if (full || due) {
+                flush(batch);
+                batch.clear();
+                continue;
+            }
+
+            if (drained == 0) {
+                idle(batch.isEmpty() ? flushIntervalNanos : flushIntervalNanos - (System.nanoTime() - batchStart));
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * 休眠到有新日志入队（生产者唤醒）、手上的批次到期或停止
+     * <p>
+     * 先登记为空闲再检查缓冲区：生产者要么看到登记并唤醒（unpark 先于 park 也有效），要么这里看到它入队的日志
+     */
+    private void idle(long nanos) {
+        idleDrainers.incrementAndGet();
+        try {
+            if (running && buffer.isEmpty()) {
+                LockSupport.parkNanos(this, nanos);
+            }
+        } finally {
+            idleDrainers.decrementAndGet();
+        }
+    }
+
+    private void flush(List<AuditLog> batch) {
+        int size = batch.size();
+        batchSizeSummary.record(size);
+        try {
+            auditLogMapper.batchInsert(batch);
+            writtenCounter.increment(size);
+        } catch (Exception e) {
+            if (spillQuietly(batch)) {
+                spilledCounter.increment(size);
+                log.warn("批量保存审计日志失败，已转入溢出存储，count={}", size, e);
+                return;
+            }
+            failedCounter.increment(size);
+            log.error("批量保存审计日志失败，count={}", size, e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.ymjrhk.rbac.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形缓冲区（多生产者 / 多消费者）
+ *
+ * <p>每个槽位带一个序号：序号 == 写位置 表示可写，序号 == 写位置 + 1 表示可读。
+ * 生产者、消费者各自用 CAS 抢位置，不加锁；满了 offer 直接返回 false，由调用方决定溢出策略。
+ *
+ * @param <E>
+ */
+public class AuditRingBuffer<E> {
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final AtomicLongArray sequences;
+
+    /**
+     * 下一个写位置
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个读位置
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    public AuditRingBuffer(int requestedCapacity) {
+        if (requestedCapacity <= 0) {
+            throw new IllegalArgumentException("缓冲区容量必须大于 0");
+        }
+        // 至少 2 个槽位：容量为 1 时"可读"序号和下一个"可写"序号相同，无法区分
+        this.capacity = Math.max(2, Integer.highestOneBit(requestedCapacity - 1) << 1);
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入，缓冲区满时返回 false
+     *
+     * @param element
+     * @return
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.set(index, element);
+                    sequences.set(index, pos + 1); // 发布：消费者看到序号后才读
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false; // 满了
+            } else {
+                pos = tail.get(); // 被其他生产者抢先
+            }
+        }
+    }
+
+    /**
+     * 取出一个，为空时返回 null
+     *
+     * @return
+     */
+    public E poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E element = slots.get(index);
+                    slots.set(index, null);
+                    sequences.set(index, pos + capacity); // 槽位交还给下一圈的生产者
+                    return element;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null; // 空的（或生产者还没发布完）
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * 批量取出，最多 max 个
+     *
+     * @param sink
+     * @param max
+     * @return 实际取出的个数
+     */
+    public int drainTo(List<? super E> sink, int max) {
+        int count = 0;
+        while (count < max) {
+            E element = poll();
+            if (element == null) {
+                break;
+            }
+            sink.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 当前元素个数（并发下是近似值）
+     *
+     * @return
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
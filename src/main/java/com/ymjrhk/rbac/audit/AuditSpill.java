@@ -0,0 +1,19 @@
+package com.ymjrhk.rbac.audit;
+
+import com.ymjrhk.rbac.entity.AuditLog;
+
+import java.util.List;
+
+/**
+ * 审计日志溢出存储：缓冲区满（SPILL 策略）时接收放不下的日志
+ */
+public interface AuditSpill {
+
+    /**
+     * 保存放不下的日志，不能阻塞太久（在请求线程中调用）
+     *
+     * @param auditLogs
+     * @return 是否保存成功，失败时按丢弃计数
+     */
+    boolean spill(List<AuditLog> auditLogs);
+}
@@ -0,0 +1,16 @@
+package com.ymjrhk.rbac.audit;
+
+/**
+ * 日志文件中的位置：第几个段文件 + 段内字节偏移
+ *
+ * @param segment
+ * @param offset
+ */
+record JournalPosition(long segment, long offset) implements Comparable<JournalPosition> {
+
+    @Override
+    public int compareTo(JournalPosition other) {
+        int c = Long.compare(segment, other.segment);
+        return c != 0 ? c : Long.compare(offset, other.offset);
+    }
+}
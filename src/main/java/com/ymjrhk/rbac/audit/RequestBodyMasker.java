@@ -0,0 +1,229 @@
+package com.ymjrhk.rbac.audit;
+
+import com.ymjrhk.rbac.properties.AuditProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 参数错误（400）请求体的脱敏：直接扫描缓存的 UTF-8 字节，一遍完成
+ *
+ * <p>规则与原来的 AuditFailInterceptor.maskPasswordLinear 一致（best-effort，请求体不一定是合法 JSON）：
+ * <ul>
+ *   <li>每个 "..." 当作 key，后面跳过空白遇到 : 时看它的值</li>
+ *   <li>key 中包含任意一个敏感片段（{@link SensitiveKeyAutomaton}，ASCII 不区分大小写）且值是字符串时，
+ *       整个值替换为 "******"；缺少结束引号时一直替换到末尾</li>
+ *   <li>其余字节原样复制</li>
+ * </ul>
+ * 引号、冒号和 ASCII 空白都是单字节，UTF-8 多字节字符的每个字节都 ≥ 0x80，不会被误判；
+ * key 与冒号之间的非 ASCII 空白（如全角空格）也按空白跳过，与原来按字符判断的结果相同。
+ *
+ * <p>输出最多 maxBytes 字节：写满后立即停止扫描，不再处理后面的内容，
+ * 在 UTF-8 字符边界截断并以 {@link #TRUNCATED_MARKER} 结尾。输出缓冲区用完放回池里复用。
+ */
+@Component
+public class RequestBodyMasker {
+
+    static final byte[] MASKED_VALUE = "\"******\"".getBytes(StandardCharsets.US_ASCII);
+
+    static final String TRUNCATED_MARKER = "...[truncated]";
+
+    private static final byte[] MARKER = TRUNCATED_MARKER.getBytes(StandardCharsets.US_ASCII);
+
+    private static final int MIN_BYTES = 64;
+
+    /**
+     * 各长度的 UTF-8 序列能表示的最小码点（下标为字节数）
+     */
+    private static final int[] MIN_CODE_POINT = {0, 0, 0x80, 0x800, 0x10000};
+
+    private static final boolean[] ASCII_WHITESPACE = new boolean[0x80];
+
+    static {
+        for (int c = 0; c < 0x80; c++) {
+            ASCII_WHITESPACE[c] = Character.isWhitespace(c);
+        }
+    }
+
+    private final SensitiveKeyAutomaton keys;
+
+    private final int maxBytes;
+
+    private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    public RequestBodyMasker(AuditProperties auditProperties) {
+        this(auditProperties.getMask().getKeys(), (int) auditProperties.getMask().getMaxBodySize().toBytes());
+    }
+
+    /**
+     * @param keys     敏感 key 片段
+     * @param maxBytes 输出的最大字节数（含截断标记）
+     */
+    public RequestBodyMasker(Collection<String> keys, int maxBytes) {
+        if (maxBytes < MIN_BYTES) {
+            throw new IllegalArgumentException("脱敏后请求体长度上限不能小于 " + MIN_BYTES + "：" + maxBytes);
+        }
+        this.keys = new SensitiveKeyAutomaton(keys);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param body 原始请求体（UTF-8），可能不是合法 JSON
+     * @return 脱敏后的请求体，body 为 null 时返回 null
+     */
+    public String mask(byte[] body) {
+        if (body == null) {
+            return null;
+        }
+        byte[] out = buffers.poll();
+        if (out == null) {
+            out = new byte[maxBytes];
+        }
+        try {
+            return mask(body, out);
+        } finally {
+            buffers.offer(out);
+        }
+    }
+
+    /**
+     * 输出与输入只在被替换的值上不同：[start, i) 是还没复制、原样输出的一段，遇到要替换的值时才复制并写入 ******。
+     * o 是已写到的位置，可以超过 out.length（超出的部分不写入），超过即说明需要截断
+     */
+    private String mask(byte[] in, byte[] out) {
+        int n = in.length;
+        int limit = out.length;
+        int o = 0;
+        int start = 0;
+        int i = 0;
+        while (i < n) {
+            // 原样输出的部分已经写不下，后面的内容不再扫描
+            int room = limit - o - (i - start);
+            if (room <= 0) {
+                break;
+            }
+            int quote = indexOfQuote(in, i, Math.min(n, i + room));
+            if (quote < 0) {
+                i = Math.min(n, i + room);
+                continue;
+            }
+
+            int keyEnd = indexOfQuote(in, quote + 1, n);
+            if (keyEnd < 0) {
+                i = n;
+                break;
+            }
+            boolean sensitive = keys.matches(in, quote + 1, keyEnd);
+            i = skipWhitespace(in, keyEnd + 1);
+            if (i >= n || in[i] != ':') {
+                continue;
+            }
+            i = skipWhitespace(in, i + 1);
+
+            if (sensitive && i < n && in[i] == '"') {
+                int valueEnd = indexOfQuote(in, i + 1, n);
+                o = copy(in, start, i, out, o);
+                o = copy(MASKED_VALUE, 0, MASKED_VALUE.length, out, o);
+                i = valueEnd < 0 ? n : valueEnd + 1;
+                start = i;
+            }
+        }
+        o = copy(in, start, i, out, o);
+
+        if (i >= n && o <= limit) {
+            return new String(out, 0, o, StandardCharsets.UTF_8);
+        }
+        // 后面还有内容（每个剩余字节至少产生一个输出字节）或已经写不下：截断，给标记留出位置
+        int end = charBoundary(out, limit - MARKER.length);
+        System.arraycopy(MARKER, 0, out, end, MARKER.length);
+        return new String(out, 0, end + MARKER.length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 复制 in[from, to) 到 out[o...)，放不下的部分丢弃
+     *
+     * @return o + (to - from)
+     */
+    private static int copy(byte[] in, int from, int to, byte[] out, int o) {
+        int length = Math.min(to - from, out.length - o);
+        if (length > 0) {
+            System.arraycopy(in, from, out, o, length);
+        }
+        return o + (to - from);
+    }
+
+    private static int indexOfQuote(byte[] in, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (in[i] == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 从 i 开始第一个非空白字符的位置（按 Character.isWhitespace，含多字节的 Unicode 空白）
+     */
+    private static int skipWhitespace(byte[] in, int i) {
+        while (i < in.length) {
+            int b = in[i] & 0xff;
+            if (b < 0x80) {
+                if (!ASCII_WHITESPACE[b]) {
+                    return i;
+                }
+                i++;
+                continue;
+            }
+            int length = sequenceLength(b);
+            if (length == 0 || i + length > in.length) {
+                return i;
+            }
+            int codePoint = b & (0xff >> (length + 1));
+            for (int k = 1; k < length; k++) {
+                int next = in[i + k] & 0xff;
+                if ((next & 0xc0) != 0x80) {
+                    return i;
+                }
+                codePoint = codePoint << 6 | next & 0x3f;
+            }
+            // 过长编码、代理区等非法序列解码出来是 U+FFFD，不是空白
+            if (codePoint < MIN_CODE_POINT[length] || codePoint >= 0xd800 && codePoint <= 0xdfff
+                    || !Character.isWhitespace(codePoint)) {
+                return i;
+            }
+            i += length;
+        }
+        return i;
+    }
+
+    private static int sequenceLength(int lead) {
+        if (lead >= 0xc2 && lead <= 0xdf) {
+            return 2;
+        }
+        if (lead >= 0xe0 && lead <= 0xef) {
+            return 3;
+        }
+        if (lead >= 0xf0 && lead <= 0xf4) {
+            return 4;
+        }
+        return 0;
+    }
+
+    /**
+     * 调用时 out 已写满，end 之后还有已写入的字节
+     *
+     * @return 不超过 end 的最后一个 UTF-8 字符边界（不把多字节字符截成两半）
+     */
+    private static int charBoundary(byte[] out, int end) {
+        int i = end;
+        while (i > 0 && i > end - 4 && (out[i] & 0xc0) == 0x80) {
+            i--;
+        }
+        return i;
+    }
+}
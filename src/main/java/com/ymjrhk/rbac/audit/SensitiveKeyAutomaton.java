@@ -0,0 +1,118 @@
+package com.ymjrhk.rbac.audit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * 判断一段 UTF-8 字节（JSON key）中是否包含任意一个敏感片段：Aho-Corasick 自动机
+ *
+ * <p>构造时把 trie + 失败指针展开成完整的状态转移表（状态数 × 256），
+ * 匹配时每个字节查一次表，与片段个数无关，也不需要先解码成字符串、再 toLowerCase。
+ * 大小写只折叠 ASCII 字母（片段本身也按 ASCII 转小写）。
+ */
+final class SensitiveKeyAutomaton {
+
+    private static final int ALPHABET = 256;
+
+    /**
+     * 状态 s 读入字节 b 后的状态：transitions[s * 256 + b]
+     */
+    private final int[] transitions;
+
+    /**
+     * 到达该状态时已匹配到某个片段
+     */
+    private final boolean[] accepting;
+
+    /**
+     * @param keys 敏感片段，不能为空串
+     */
+    SensitiveKeyAutomaton(Collection<String> keys) {
+        List<int[]> trie = new ArrayList<>();
+        List<Boolean> accept = new ArrayList<>();
+        trie.add(newNode());
+        accept.add(false);
+
+        for (String key : keys) {
+            if (key == null || key.isEmpty()) {
+                throw new IllegalArgumentException("敏感 key 片段不能为空");
+            }
+            int state = 0;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                int c = fold(b);
+                if (trie.get(state)[c] < 0) {
+                    trie.get(state)[c] = trie.size();
+                    trie.add(newNode());
+                    accept.add(false);
+                }
+                state = trie.get(state)[c];
+            }
+            accept.set(state, true);
+        }
+
+        int states = trie.size();
+        this.transitions = new int[states * ALPHABET];
+        this.accepting = new boolean[states];
+        int[] fail = new int[states];
+
+        // 按 BFS 顺序补全转移：缺失的边指向失败状态的对应转移，匹配标记沿失败指针继承
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = trie.get(0)[c];
+            if (next < 0) {
+                transitions[c] = 0;
+            } else {
+                transitions[c] = next;
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        accepting[0] = accept.get(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            accepting[state] = accept.get(state) || accepting[fail[state]];
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = trie.get(state)[c];
+                if (next < 0) {
+                    transitions[state * ALPHABET + c] = transitions[fail[state] * ALPHABET + c];
+                } else {
+                    transitions[state * ALPHABET + c] = next;
+                    fail[next] = transitions[fail[state] * ALPHABET + c];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param bytes
+     * @param from  包含
+     * @param to    不包含
+     * @return [from, to) 中是否出现任意一个敏感片段
+     */
+    boolean matches(byte[] bytes, int from, int to) {
+        int state = 0;
+        for (int i = from; i < to; i++) {
+            state = transitions[state * ALPHABET + fold(bytes[i])];
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int fold(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b & 0xff;
+    }
+
+    private static int[] newNode() {
+        int[] node = new int[ALPHABET];
+        Arrays.fill(node, -1);
+        return node;
+    }
+}
@@ -0,0 +1,38 @@
+package com.ymjrhk.rbac.auth;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户授权快照：一次请求认证 + 鉴权所需的用户自身信息
+ * <p>
+ * 由 UserMapper.selectAuthorizationSnapshot 一条 SQL 查出，缓存在 USER_AUTHZ 下，
+ * AuthInterceptor 取出后放进 UserContext，PermissionInterceptor 直接使用，不再查数据库。
+ * 权限本身不在快照里：按 {@link #roleSet()} 到 ROLE_SET_PERMISSIONS 中取角色相同的用户共用的条目
+ */
+@Data
+public class AuthorizationSnapshot {
+    private Long userId;
+
+    private String username;
+
+    private Integer status;
+
+    private Integer authVersion;
+
+    /**
+     * 非禁用角色的 roleId（升序）
+     */
+    private List<Long> roleIds = new ArrayList<>();
+
+    /**
+     * 角色组合签名，即 ROLE_SET_PERMISSIONS 的 key（不是 getter，不会写进 Redis）
+     *
+     * @return
+     */
+    public String roleSet() {
+        return RoleSetPermissions.signature(roleIds);
+    }
+}
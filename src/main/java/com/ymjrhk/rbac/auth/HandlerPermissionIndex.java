@@ -0,0 +1,298 @@
+package com.ymjrhk.rbac.auth;
+
+import com.ymjrhk.rbac.constant.PermissionTypeConstant;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import org.springframework.util.AntPathMatcher;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 处理方法 -> 接口权限的预编译索引（不可变）
+ *
+ * <p>请求路径由 Spring 路由到哪个处理方法在启动时就确定了，所以“哪些 ACTION 权限能匹配这个接口”
+ * 也可以提前算好：把每条权限的 path 模式与处理方法的路由模式逐段比较，分成三类
+ * <ul>
+ *   <li>覆盖（covering）：匹配路由到该方法的所有请求，如 /api/users/** 之于 /api/users/{userId}</li>
+ *   <li>部分（partial）：只匹配其中一部分，如 /api/users/1 之于 /api/users/{userId}</li>
+ *   <li>不相交：一个请求都匹配不上，不记录</li>
+ * </ul>
+ * 鉴权时用户持有的权限位图与 covering 有交集即放行；只有持有 partial 中的权限时才需要按请求路径做模式匹配。
+ *
+ * <p>拿不准的情况一律回退到模式匹配（结果与原来一致）：比较不出结论的权限算作 partial；
+ * 路由模式中含 {id:\d+}、*、** 等变量 / 通配段、以 "/" 结尾（包括根路径 "/"），或未限定 HTTP 方法的处理方法
+ * 不进索引，{@link #get} 返回 null。
+ */
+public final class HandlerPermissionIndex {
+
+    public static final HandlerPermissionIndex EMPTY = new HandlerPermissionIndex(Map.of());
+
+    private static final AntPathMatcher SEGMENT_MATCHER = new AntPathMatcher();
+
+    /**
+     * 路由模式中的单段变量 {name}（不含正则约束）
+     */
+    private static final Pattern SEGMENT_VARIABLE = Pattern.compile("\\{[^{}:*]+}");
+
+    private static final String DOUBLE_STAR = "**";
+
+    // 逐段比较的结果，取值越大越“宽”
+    private static final int DISJOINT = 0;
+    private static final int PARTIAL = 1;
+    private static final int COVERING = 2;
+
+    /**
+     * 处理方法 -> 大写 HTTP 方法 -> 对应的权限
+     */
+    private final Map<Method, Map<String, HandlerPermissions>> handlers;
+
+    private HandlerPermissionIndex(Map<Method, Map<String, HandlerPermissions>> handlers) {
+        this.handlers = handlers;
+    }
+
+    /**
+     * 由路由表和全部 ACTION 权限构建索引
+     *
+     * @param routes
+     * @param permissions
+     * @return
+     */
+    public static HandlerPermissionIndex build(Collection<Route> routes, Collection<PermissionVO> permissions) {
+        List<CompiledPermission> compiled = new ArrayList<>();
+        for (PermissionVO permission : permissions) {
+            if (permission != null
+                    && Objects.equals(permission.getType(), PermissionTypeConstant.ACTION)
+                    && permission.getPermissionId() != null
+                    && permission.getPath() != null
+                    && permission.getMethod() != null) {
+                compiled.add(new CompiledPermission(permission));
+            }
+        }
+
+        Map<Method, Map<String, HandlerPermissions>> handlers = new HashMap<>();
+        Set<Method> unindexed = new HashSet<>();
+        for (Route route : routes) {
+            Map<String, HandlerPermissions> byMethod = index(route, compiled);
+            if (byMethod == null) {
+                unindexed.add(route.handler());
+                continue;
+            }
+            // 同一个方法映射了多次：取各次都覆盖的为 covering，其余能匹配上的都算 partial
+            handlers.merge(route.handler(), byMethod, HandlerPermissionIndex::merge);
+        }
+        handlers.keySet().removeAll(unindexed);
+
+        return handlers.isEmpty() ? EMPTY : new HandlerPermissionIndex(Map.copyOf(handlers));
+    }
+
+    /**
+     * 查询处理方法在某个 HTTP 方法下对应的权限
+     *
+     * @param handler
+     * @param httpMethod
+     * @return 不在索引中（需要回退到模式匹配）时返回 null
+     */
+    public HandlerPermissions get(Method handler, String httpMethod) {
+        Map<String, HandlerPermissions> byMethod = handlers.get(handler);
+        if (byMethod == null || httpMethod == null) {
+            return null;
+        }
+        return byMethod.get(httpMethod.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * 进入索引的处理方法个数
+     *
+     * @return
+     */
+    public int size() {
+        return handlers.size();
+    }
+
+    private static Map<String, HandlerPermissions> index(Route route, List<CompiledPermission> permissions) {
+        if (route.patterns().isEmpty() || route.httpMethods().isEmpty()) {
+            return null;
+        }
+
+        List<String[]> patterns = new ArrayList<>();
+        for (String pattern : route.patterns()) {
+            String[] tokens = routeTokens(pattern);
+            if (tokens == null) {
+                return null;
+            }
+            patterns.add(tokens);
+        }
+
+        Map<String, HandlerPermissions> byMethod = new HashMap<>();
+        for (String httpMethod : route.httpMethods()) {
+            String method = httpMethod.toUpperCase(Locale.ROOT);
+            List<Long> covering = new ArrayList<>();
+            List<Long> partial = new ArrayList<>();
+            for (CompiledPermission permission : permissions) {
+                if (!permission.method.equals(method)) {
+                    continue;
+                }
+                // 多个路由模式：每个都覆盖才算覆盖
+                int result = COVERING;
+                boolean matchesAny = false;
+                for (String[] pattern : patterns) {
+                    int r = permission.compare(pattern);
+                    result = Math.min(result, r);
+                    matchesAny |= r != DISJOINT;
+                }
+                if (result == COVERING) {
+                    covering.add(permission.id);
+                } else if (matchesAny) {
+                    partial.add(permission.id);
+                }
+            }
+            byMethod.put(method, new HandlerPermissions(PermissionBits.of(covering), PermissionBits.of(partial)));
+        }
+        return byMethod;
+    }
+
+    private static Map<String, HandlerPermissions> merge(Map<String, HandlerPermissions> a,
+                                                         Map<String, HandlerPermissions> b) {
+        Map<String, HandlerPermissions> merged = new HashMap<>(a);
+        b.forEach((method, p) -> merged.merge(method, p, (x, y) -> {
+            PermissionBits covering = x.covering().and(y.covering());
+            PermissionBits any = x.covering().or(x.partial()).or(y.covering()).or(y.partial());
+            return new HandlerPermissions(covering, any.andNot(covering));
+        }));
+        return merged;
+    }
+
+    /**
+     * 切分路由模式：只接受由字面量段和 {name} 段组成、以 "/" 开头且不以 "/" 结尾的模式
+     *
+     * @param pattern
+     * @return 其中 {name} 段统一表示为 null；不支持的模式返回 null
+     */
+    private static String[] routeTokens(String pattern) {
+        if (pattern == null || !pattern.startsWith("/") || pattern.endsWith("/")) {
+            return null;
+        }
+        String[] tokens = tokenize(pattern);
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (SEGMENT_VARIABLE.matcher(token).matches()) {
+                tokens[i] = null;
+            } else if (token.indexOf('*') >= 0 || token.indexOf('?') >= 0
+                    || token.indexOf('{') >= 0 || token.indexOf('}') >= 0) {
+                return null;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 与 AntPathMatcher 相同的切分方式：按 "/" 切分，忽略空段
+     */
+    private static String[] tokenize(String path) {
+        return Arrays.stream(path.split("/"))
+                     .filter(s -> !s.isEmpty())
+                     .toArray(String[]::new);
+    }
+
+    /**
+     * 一条路由：处理方法 + 路由模式 + 限定的 HTTP 方法
+     *
+     * @param handler     Controller 方法
+     * @param patterns    完整路径模式（含类上的前缀）
+     * @param httpMethods 为空表示不限 HTTP 方法（不进索引）
+     */
+    public record Route(Method handler, Set<String> patterns, Set<String> httpMethods) {
+    }
+
+    /**
+     * 切分好的权限模式
+     */
+    private static final class CompiledPermission {
+
+        private final long id;
+
+        private final String method;
+
+        /**
+         * 切分后的段；null 表示这条模式一个请求都匹配不上（不以 "/" 开头，或要求以 "/" 结尾）
+         */
+        private final String[] tokens;
+
+        private CompiledPermission(PermissionVO permission) {
+            this.id = permission.getPermissionId();
+            this.method = permission.getMethod().toUpperCase(Locale.ROOT);
+
+            String path = permission.getPath();
+            String[] tokens = tokenize(path);
+            boolean endsWithDoubleStar = tokens.length > 0 && DOUBLE_STAR.equals(tokens[tokens.length - 1]);
+            // AntPathMatcher：模式与路径必须同时以 "/" 开头；不以 "**" 结尾时结尾 "/" 也要一致，
+            // 而进索引的路由都以 "/" 开头、不以 "/" 结尾
+            boolean disjoint = !path.startsWith("/") || (path.endsWith("/") && !endsWithDoubleStar && tokens.length > 0);
+            this.tokens = disjoint ? null : tokens;
+        }
+
+        /**
+         * 与一条路由模式比较
+         *
+         * @param route routeTokens 的结果
+         * @return COVERING / PARTIAL / DISJOINT
+         */
+        private int compare(String[] route) {
+            if (tokens == null) {
+                return DISJOINT;
+            }
+            return compare(0, route, 0, new int[tokens.length + 1][route.length + 1]);
+        }
+
+        /**
+         * 权限模式 tokens[i..] 与路由模式 route[j..] 所有对齐方式中最宽的结果
+         * （一种对齐方式的结果取其中最窄的一段；memo 中存结果 + 1，0 表示未计算）
+         */
+        private int compare(int i, String[] route, int j, int[][] memo) {
+            if (memo[i][j] != 0) {
+                return memo[i][j] - 1;
+            }
+
+            int result;
+            if (i == tokens.length) {
+                result = j == route.length ? COVERING : DISJOINT;
+            } else if (DOUBLE_STAR.equals(tokens[i])) {
+                // "**" 吃掉零段，或吃掉一段后继续
+                result = compare(i + 1, route, j, memo);
+                if (result != COVERING && j < route.length) {
+                    result = Math.max(result, compare(i, route, j + 1, memo));
+                }
+            } else if (j == route.length) {
+                result = DISJOINT;
+            } else {
+                int segment = compareSegment(tokens[i], route[j]);
+                result = segment == DISJOINT ? DISJOINT : Math.min(segment, compare(i + 1, route, j + 1, memo));
+            }
+
+            memo[i][j] = result + 1;
+            return result;
+        }
+
+        /**
+         * 单段比较
+         *
+         * @param token 权限模式的一段
+         * @param route 路由模式的一段，null 表示 {name}（任意非空段）
+         * @return
+         */
+        private static int compareSegment(String token, String route) {
+            if ("*".equals(token) || SEGMENT_VARIABLE.matcher(token).matches()) {
+                return COVERING;
+            }
+            if (route == null) {
+                // 字面量 / 带通配的段对上路由变量：只有一部分请求能匹配
+                return PARTIAL;
+            }
+            if (token.indexOf('*') < 0 && token.indexOf('?') < 0 && token.indexOf('{') < 0) {
+                return token.equals(route) ? COVERING : DISJOINT;
+            }
+            return SEGMENT_MATCHER.match(token, route) ? COVERING : DISJOINT;
+        }
+    }
+}
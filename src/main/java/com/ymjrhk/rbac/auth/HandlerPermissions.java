@@ -0,0 +1,13 @@
+package com.ymjrhk.rbac.auth;
+
+/**
+ * 一个处理方法（+ HTTP 方法）与权限的对应关系，启动时由 {@link HandlerPermissionIndex} 预先算好
+ *
+ * @param covering 能匹配该处理方法所有请求的权限：持有其中任意一个即放行
+ * @param partial  只能匹配其中一部分请求的权限（如 /api/users/1 之于 /api/users/{userId}）：
+ *                 持有其中任意一个时，才需要按请求路径做模式匹配
+ */
+public record HandlerPermissions(PermissionBits covering, PermissionBits partial) {
+
+    public static final HandlerPermissions NONE = new HandlerPermissions(PermissionBits.EMPTY, PermissionBits.EMPTY);
+}
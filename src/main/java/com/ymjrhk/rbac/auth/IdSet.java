@@ -0,0 +1,23 @@
+package com.ymjrhk.rbac.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 反向索引的缓存值：一组 ID
+ * <p>
+ * 不直接缓存 Set&lt;Long&gt;：Redis 的 ObjectMapper 只给非 final 类型写类型信息，
+ * 小的 Long 反序列化回来会变成 Integer，contains(Long) 就查不到了。
+ * 包一层后字段声明了元素类型，反序列化结果一定是 Long。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdSet {
+
+    private Set<Long> ids = new HashSet<>();
+}
@@ -0,0 +1,289 @@
+package com.ymjrhk.rbac.auth;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ymjrhk.rbac.properties.JwtProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * JWT 签发与校验
+ *
+ * <p>秘钥和 header 都在启动时根据 JwtProperties 构建一次，之后只读、线程安全。
+ * 支持按 kid 轮换：用当前秘钥签发，当前秘钥和 verificationKeys 中的旧秘钥都能验签；
+ * 不带 kid 的老 token 按当前秘钥验签。
+ *
+ * <p>校验不经过 JwtParser（它会再解析一遍 header、再算一遍 HMAC），按顺序：
+ * <ol>
+ *   <li>结构：三段、只含 base64url 字符</li>
+ *   <li>header：必须与本服务签发的 header 逐字符相同（同时锁定算法和 kid），不用再解析</li>
+ *   <li>签名：HMAC 后与 token 中的签名逐字符比较（常量时间）</li>
+ * </ol>
+ * 伪造、篡改的 token 在反序列化之前就被拒绝；签名正确后只解析一次 payload，再检查 exp / nbf。
+ */
+@Component
+public class JwtCodec {
+
+    private static final SignatureAlgorithm ALGORITHM = SignatureAlgorithm.HS256;
+
+    private static final String KID = "kid";
+
+    /**
+     * 与 jjwt-jackson 默认的反序列化方式相同（数字按大小为 Integer / Long），claims 的类型与 JwtParser 解析出来的一致
+     */
+    private static final ObjectMapper PAYLOAD_MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> CLAIMS_TYPE = new TypeReference<>() {
+    };
+
+    private static final Base64.Encoder SIGNATURE_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    /**
+     * 签名输入（header.payload）的 ASCII 字节，每个线程复用（虚拟线程上相当于每个请求新分配 512 字节，可以忽略）
+     */
+    private static final ThreadLocal<byte[]> INPUT_BUFFER = ThreadLocal.withInitial(() -> new byte[512]);
+
+    private final String signingKeyId;
+
+    private final SecretKey signingKey;
+
+    private final long ttlMillis;
+
+    /**
+     * 所有可验签的 header → 秘钥
+     */
+    private final List<VerificationKey> verificationKeys;
+
+    public JwtCodec(JwtProperties jwtProperties) {
+        if (jwtProperties.getSecretKey() == null || jwtProperties.getKeyId() == null) {
+            throw new IllegalArgumentException("rbac.jwt.secret-key 和 rbac.jwt.key-id 不能为空");
+        }
+        this.signingKeyId = jwtProperties.getKeyId();
+        this.signingKey = hmacKey(jwtProperties.getSecretKey()); // 秘钥太短在启动时就报错
+        this.ttlMillis = jwtProperties.getTtl();
+
+        Map<String, SecretKey> keysById = new HashMap<>();
+        keysById.put(signingKeyId, signingKey);
+        jwtProperties.getVerificationKeys().forEach((kid, secret) -> {
+            if (!kid.equals(signingKeyId)) {
+                keysById.put(kid, hmacKey(secret));
+            }
+        });
+
+        List<VerificationKey> keys = new ArrayList<>();
+        keysById.forEach((kid, key) -> keys.add(new VerificationKey(headerOf(kid, key), key)));
+        keys.add(new VerificationKey(headerOf(null, signingKey), signingKey)); // 轮换前签发的、不带 kid 的 token
+        this.verificationKeys = List.copyOf(keys);
+    }
+
+    /**
+     * 签发 JWT
+     *
+     * @param claims
+     * @return
+     */
+    public String encode(Map<String, Object> claims) {
+        return Jwts.builder()
+                   .setHeaderParam(KID, signingKeyId)
+                   // 私有声明要先设置，写在标准声明之后会覆盖标准声明
+                   .setClaims(claims)
+                   .signWith(signingKey, ALGORITHM)
+                   .setExpiration(new Date(System.currentTimeMillis() + ttlMillis))
+                   .compact();
+    }
+
+    /**
+     * 校验并解析 JWT
+     *
+     * @param token
+     * @return
+     * @throws io.jsonwebtoken.JwtException 格式错误、签名不对或已过期
+     */
+    public Claims decode(String token) {
+        Claims claims = Jwts.claims(readClaims(verify(token)));
+
+        long now = System.currentTimeMillis();
+        Date expiration = claims.getExpiration();
+        if (expiration != null && now > expiration.getTime()) {
+            throw new ExpiredJwtException(null, claims, "JWT 已过期");
+        }
+        Date notBefore = claims.getNotBefore();
+        if (notBefore != null && now < notBefore.getTime()) {
+            throw new PrematureJwtException(null, claims, "JWT 尚未生效");
+        }
+        return claims;
+    }
+
+    /**
+     * 校验结构、header 和签名，不通过直接抛异常
+     *
+     * @param token
+     * @return 已验签的 payload（base64url 解码后的 JSON）
+     */
+    private ByteBuffer verify(String token) {
+        int length = token.length();
+        int firstDot = -1;
+        int secondDot = -1;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    throw new MalformedJwtException("JWT 段数不对");
+                }
+            } else if (!isBase64Url(c)) {
+                throw new MalformedJwtException("JWT 含有非法字符");
+            }
+        }
+        if (firstDot <= 0 || secondDot <= firstDot + 1 || secondDot == length - 1) {
+            throw new MalformedJwtException("JWT 段数不对");
+        }
+
+        VerificationKey key = findKey(token, firstDot);
+        if (key == null) {
+            throw new MalformedJwtException("JWT header 不是本服务签发的");
+        }
+
+        byte[] input = INPUT_BUFFER.get();
+        if (input.length < secondDot) {
+            input = new byte[Math.max(secondDot, input.length * 2)];
+            INPUT_BUFFER.set(input);
+        }
+        for (int i = 0; i < secondDot; i++) {
+            input[i] = (byte) token.charAt(i);
+        }
+
+        if (!signatureMatches(key, input, secondDot, token)) {
+            throw new SignatureException("JWT 签名不正确");
+        }
+
+        try {
+            return Base64.getUrlDecoder().decode(ByteBuffer.wrap(input, firstDot + 1, secondDot - firstDot - 1));
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("JWT payload 不是合法的 base64url", e);
+        }
+    }
+
+    private VerificationKey findKey(String token, int firstDot) {
+        for (VerificationKey key : verificationKeys) {
+            if (key.header.length() == firstDot && token.regionMatches(0, key.header, 0, firstDot)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private static boolean signatureMatches(VerificationKey key, byte[] input, int inputLength, String token) {
+        Mac mac = key.borrowMac();
+        mac.update(input, 0, inputLength);
+        byte[] expected = SIGNATURE_ENCODER.encode(mac.doFinal());
+        key.returnMac(mac); // 中途抛异常的 Mac 状态不确定，不放回
+
+        int offset = inputLength + 1;
+        if (token.length() - offset != expected.length) {
+            return false;
+        }
+        int diff = 0;
+        for (int i = 0; i < expected.length; i++) {
+            diff |= expected[i] ^ token.charAt(offset + i);
+        }
+        return diff == 0;
+    }
+
+    private static Map<String, Object> readClaims(ByteBuffer payload) {
+        try {
+            Map<String, Object> claims = PAYLOAD_MAPPER.readValue(payload.array(),
+                    payload.arrayOffset() + payload.position(), payload.remaining(), CLAIMS_TYPE);
+            if (claims == null) {
+                throw new MalformedJwtException("JWT payload 不是 JSON 对象");
+            }
+            return claims;
+        } catch (IOException e) {
+            throw new MalformedJwtException("JWT payload 不是合法的 JSON 对象", e);
+        }
+    }
+
+    private static boolean isBase64Url(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+    }
+
+    private static SecretKey hmacKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 用和 encode 相同的方式签一个空 token，取出 header 段
+     */
+    private static String headerOf(String kid, SecretKey key) {
+        var builder = Jwts.builder();
+        if (kid != null) {
+            builder.setHeaderParam(KID, kid);
+        }
+        String token = builder.setExpiration(new Date(0)).signWith(key, ALGORITHM).compact();
+        return token.substring(0, token.indexOf('.'));
+    }
+
+    /**
+     * Mac 不是线程安全的，用完放回池里复用（池里的个数不超过同时验签的线程数）。
+     * 不用 ThreadLocal：虚拟线程每个请求一个新线程，ThreadLocal 等于每次都重新 getInstance + init
+     */
+    private static final class VerificationKey {
+
+        private final String header;
+
+        private final SecretKey key;
+
+        private final Queue<Mac> macs = new ConcurrentLinkedQueue<>();
+
+        private VerificationKey(String header, SecretKey key) {
+            this.header = header;
+            this.key = key;
+        }
+
+        private Mac borrowMac() {
+            Mac mac = macs.poll();
+            if (mac != null) {
+                return mac;
+            }
+            try {
+                Mac m = Mac.getInstance(ALGORITHM.getJcaName());
+                m.init(key);
+                return m;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * doFinal 之后 Mac 已重置，可直接复用
+         */
+        private void returnMac(Mac mac) {
+            macs.offer(mac);
+        }
+    }
+}
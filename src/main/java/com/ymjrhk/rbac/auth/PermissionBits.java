@@ -0,0 +1,203 @@
+package com.ymjrhk.rbac.auth;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 一组 permissionId 的位图（不可变）
+ *
+ * <p>permissionId 是自增主键，同一批权限的 ID 很集中：只保存最小 ID 到最大 ID 之间的 64 位字，
+ * 几百条权限只占几个 long。鉴权时判断“用户持有的权限”与“接口需要的权限”是否有交集，
+ * 只需按字做几次与运算。
+ */
+public final class PermissionBits {
+
+    public static final PermissionBits EMPTY = new PermissionBits(0, new long[0]);
+
+    /**
+     * words[0] 对应的字下标（即 ID / 64）
+     */
+    private final int base;
+
+    private final long[] words;
+
+    private PermissionBits(int base, long[] words) {
+        this.base = base;
+        this.words = words;
+    }
+
+    /**
+     * 由 permissionId 构建位图（null 会被跳过）
+     *
+     * @param permissionIds
+     * @return
+     */
+    public static PermissionBits of(Collection<Long> permissionIds) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (Long id : permissionIds) {
+            if (id == null) {
+                continue;
+            }
+            if (id < 0 || id > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("permissionId 超出范围：" + id);
+            }
+            min = Math.min(min, id);
+            max = Math.max(max, id);
+        }
+        if (min > max) {
+            return EMPTY;
+        }
+
+        int base = (int) (min >>> 6);
+        long[] words = new long[(int) (max >>> 6) - base + 1];
+        for (Long id : permissionIds) {
+            if (id != null) {
+                words[(int) (id >>> 6) - base] |= 1L << id;
+            }
+        }
+        return new PermissionBits(base, words);
+    }
+
+    public boolean contains(long permissionId) {
+        if (permissionId < 0) {
+            return false;
+        }
+        long index = (permissionId >>> 6) - base;
+        return index >= 0 && index < words.length && (words[(int) index] & (1L << permissionId)) != 0;
+    }
+
+    /**
+     * 是否有交集
+     *
+     * @param other
+     * @return
+     */
+    public boolean intersects(PermissionBits other) {
+        int from = Math.max(base, other.base);
+        int to = Math.min(base + words.length, other.base + other.words.length);
+        for (int i = from; i < to; i++) {
+            if ((words[i - base] & other.words[i - other.base]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 交集
+     *
+     * @param other
+     * @return
+     */
+    public PermissionBits and(PermissionBits other) {
+        int from = Math.max(base, other.base);
+        int to = Math.min(base + words.length, other.base + other.words.length);
+        if (from >= to) {
+            return EMPTY;
+        }
+        long[] result = new long[to - from];
+        for (int i = from; i < to; i++) {
+            result[i - from] = words[i - base] & other.words[i - other.base];
+        }
+        return trim(from, result);
+    }
+
+    /**
+     * 并集
+     *
+     * @param other
+     * @return
+     */
+    public PermissionBits or(PermissionBits other) {
+        if (isEmpty()) {
+            return other;
+        }
+        if (other.isEmpty()) {
+            return this;
+        }
+        int from = Math.min(base, other.base);
+        int to = Math.max(base + words.length, other.base + other.words.length);
+        long[] result = new long[to - from];
+        for (int i = 0; i < words.length; i++) {
+            result[base - from + i] |= words[i];
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            result[other.base - from + i] |= other.words[i];
+        }
+        return new PermissionBits(from, result);
+    }
+
+    /**
+     * 差集（在自身中、不在 other 中）
+     *
+     * @param other
+     * @return
+     */
+    public PermissionBits andNot(PermissionBits other) {
+        long[] result = words.clone();
+        int from = Math.max(base, other.base);
+        int to = Math.min(base + words.length, other.base + other.words.length);
+        for (int i = from; i < to; i++) {
+            result[i - base] &= ~other.words[i - other.base];
+        }
+        return trim(base, result);
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    /**
+     * 去掉首尾的空字，保证“空”只有一种表示，equals 只需比较 base 和 words
+     */
+    private static PermissionBits trim(int base, long[] words) {
+        int from = 0;
+        int to = words.length;
+        while (from < to && words[from] == 0) {
+            from++;
+        }
+        while (to > from && words[to - 1] == 0) {
+            to--;
+        }
+        if (from == to) {
+            return EMPTY;
+        }
+        return new PermissionBits(base + from, from == 0 && to == words.length ? words : Arrays.copyOfRange(words, from, to));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof PermissionBits other && base == other.base && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * base + Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                if (sb.length() > 1) {
+                    sb.append(',');
+                }
+                sb.append(((long) (base + i) << 6) + bit);
+                word &= word - 1;
+            }
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,349 @@
+package com.ymjrhk.rbac.auth;
+
+import com.ymjrhk.rbac.constant.PermissionTypeConstant;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.*;
+
+/**
+ * 编译后的接口权限匹配器（替代 hasPermission 中对每条权限逐一 AntPathMatcher.match 的线性扫描）
+ *
+ * <p>把一组 ACTION 权限按 HTTP 方法编译成“路径段前缀树”（trie），
+ * 一次判定只需沿请求 URI 的各段向下走一遍，耗时与 URI 深度相关，与权限条数无关。
+ *
+ * <p>匹配语义与下面的循环<strong>完全一致</strong>：
+ * <pre>
+ * matcher.match(path, requestPath) &amp;&amp; method.equalsIgnoreCase(requestMethod)
+ * </pre>
+ * <ul>
+ *   <li>字面量段：精确匹配（HashMap 查找）</li>
+ *   <li>"*"：匹配任意一段</li>
+ *   <li>"**"：匹配零或多段</li>
+ *   <li>其余含 *、?、{var} 的段：交给 AntPathMatcher 做单段匹配，保证正则语义不走样</li>
+ *   <li>结尾 "/"：与 AntPathMatcher 一样，不以 "**" 结尾的模式要求两者结尾 "/" 一致，
+ *       且不含 "**" 的 "/a/*" 可以匹配 "/a/"</li>
+ * </ul>
+ *
+ * <p>实例不可变，编译完成后可被多个线程共享。
+ */
+@Slf4j
+public final class PermissionMatcher {
+
+    private static final String SEPARATOR = "/";
+
+    private static final String STAR = "*";
+
+    private static final String DOUBLE_STAR = "**";
+
+    /**
+     * 单段匹配用（只处理含通配符的单个路径段）
+     */
+    private static final AntPathMatcher SEGMENT_MATCHER = new AntPathMatcher();
+
+    /**
+     * 没有任何权限
+     */
+    public static final PermissionMatcher EMPTY = new PermissionMatcher(Map.of(), 0);
+
+    // 路径耗尽时，节点的接受条件
+    private static final int ACCEPT_ALWAYS = 1;        // 模式以 "**" 结尾，不关心结尾 "/"
+    private static final int ACCEPT_IF_SLASH = 1 << 1; // 请求路径必须以 "/" 结尾
+    private static final int ACCEPT_IF_NO_SLASH = 1 << 2; // 请求路径不能以 "/" 结尾
+
+    /**
+     * 大写 HTTP 方法 -> 前缀树根节点（[0] 不以 "/" 开头的模式，[1] 以 "/" 开头的模式）
+     */
+    private final Map<String, Node[]> roots;
+
+    /**
+     * 参与编译的 ACTION 权限条数
+     */
+    private final int size;
+
+    private PermissionMatcher(Map<String, Node[]> roots, int size) {
+        this.roots = roots;
+        this.size = size;
+    }
+
+    /**
+     * 把权限列表编译成匹配器（非 ACTION 权限、path / method 为空的权限会被跳过）
+     *
+     * @param permissions
+     * @return
+     */
+    public static PermissionMatcher compile(Collection<PermissionVO> permissions) {
+        if (permissions == null || permissions.isEmpty()) {
+            return EMPTY;
+        }
+
+        Map<String, Node[]> roots = new HashMap<>();
+        int size = 0;
+
+        for (PermissionVO permission : permissions) {
+            // 只处理接口权限
+            if (permission == null || !Objects.equals(permission.getType(), PermissionTypeConstant.ACTION)) {
+                continue;
+            }
+
+            String path = permission.getPath();
+            String method = permission.getMethod();
+
+            // 兜底防御
+            if (path == null || method == null) {
+                log.warn("权限配置不完整，permissionName={}", permission.getPermissionName());
+                continue;
+            }
+
+            Node[] methodRoots = roots.computeIfAbsent(normalizeMethod(method), m -> new Node[2]);
+            int rootIndex = path.startsWith(SEPARATOR) ? 1 : 0;
+            if (methodRoots[rootIndex] == null) {
+                methodRoots[rootIndex] = new Node(false);
+            }
+
+            insert(methodRoots[rootIndex], path);
+            size++;
+        }
+
+        return size == 0 ? EMPTY : new PermissionMatcher(roots, size);
+    }
+
+    /**
+     * 判断请求路径 + 方法是否命中任意一条权限
+     *
+     * @param requestPath
+     * @param requestMethod
+     * @return
+     */
+    public boolean matches(String requestPath, String requestMethod) {
+        if (requestPath == null || requestMethod == null || roots.isEmpty()) {
+            return false;
+        }
+
+        Node[] methodRoots = roots.get(normalizeMethod(requestMethod));
+        if (methodRoots == null) {
+            return false;
+        }
+
+        // AntPathMatcher：模式与路径必须同时以 "/" 开头或同时不以 "/" 开头
+        Node root = methodRoots[requestPath.startsWith(SEPARATOR) ? 1 : 0];
+        if (root == null) {
+            return false;
+        }
+
+        List<Node> current = new ArrayList<>(4);
+        List<Node> next = new ArrayList<>(4);
+        addWithClosure(current, root);
+
+        int length = requestPath.length();
+        int i = 0;
+        while (i < length && !current.isEmpty()) {
+            // 跳过分隔符（连续的 "/" 与 AntPathMatcher 一样视为一个）
+            if (requestPath.charAt(i) == '/') {
+                i++;
+                continue;
+            }
+
+            int end = requestPath.indexOf('/', i);
+            if (end < 0) {
+                end = length;
+            }
+            String segment = requestPath.substring(i, end);
+            i = end;
+
+            for (Node node : current) {
+                node.step(segment, next);
+            }
+
+            List<Node> tmp = current;
+            current = next;
+            next = tmp;
+            next.clear();
+        }
+
+        boolean trailingSlash = requestPath.endsWith(SEPARATOR);
+        for (Node node : current) {
+            if (node.accepts(trailingSlash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 参与编译的 ACTION 权限条数
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 把一条路径模式插入前缀树
+     *
+     * @param root
+     * @param pattern
+     */
+    private static void insert(Node root, String pattern) {
+        String[] tokens = tokenize(pattern);
+        boolean hasDoubleStar = Arrays.asList(tokens).contains(DOUBLE_STAR);
+
+        Node node = root;
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+
+            // AntPathMatcher 特例：不含 "**" 且最后一段为 "*" 时，"/a/*" 可以匹配 "/a/"
+            if (!hasDoubleStar && i == tokens.length - 1 && STAR.equals(token)) {
+                node.accept |= ACCEPT_IF_SLASH;
+            }
+
+            node = node.child(token);
+        }
+
+        // AntPathMatcher：只有以 "**" 结尾的模式不关心结尾 "/"，其余模式都要求两者结尾 "/" 一致
+        if (tokens.length > 0 && DOUBLE_STAR.equals(tokens[tokens.length - 1])) {
+            node.accept |= ACCEPT_ALWAYS;
+        } else {
+            node.accept |= pattern.endsWith(SEPARATOR) ? ACCEPT_IF_SLASH : ACCEPT_IF_NO_SLASH;
+        }
+    }
+
+    /**
+     * 与 AntPathMatcher 相同的切分方式：按 "/" 切分，忽略空段，不 trim
+     *
+     * @param path
+     * @return
+     */
+    private static String[] tokenize(String path) {
+        List<String> tokens = new ArrayList<>();
+        int length = path.length();
+        int i = 0;
+        while (i < length) {
+            if (path.charAt(i) == '/') {
+                i++;
+                continue;
+            }
+            int end = path.indexOf('/', i);
+            if (end < 0) {
+                end = length;
+            }
+            tokens.add(path.substring(i, end));
+            i = end;
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private static String normalizeMethod(String method) {
+        return method.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * 加入节点以及经 "**" 可零段到达的节点
+     *
+     * @param nodes
+     * @param node
+     */
+    private static void addWithClosure(List<Node> nodes, Node node) {
+        while (node != null) {
+            if (!containsIdentity(nodes, node)) {
+                nodes.add(node);
+            }
+            node = node.doubleStar;
+        }
+    }
+
+    private static boolean containsIdentity(List<Node> nodes, Node node) {
+        for (Node n : nodes) {
+            if (n == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 前缀树节点（编译完成后只读）
+     */
+    private static final class Node {
+
+        /**
+         * 是否是 "**" 节点（可以自环吃掉任意多段）
+         */
+        private final boolean selfLoop;
+
+        private final Map<String, Node> literals = new HashMap<>();
+
+        private final Map<String, Node> globs = new LinkedHashMap<>();
+
+        private Node star;
+
+        private Node doubleStar;
+
+        private int accept;
+
+        private Node(boolean selfLoop) {
+            this.selfLoop = selfLoop;
+        }
+
+        private Node child(String token) {
+            if (DOUBLE_STAR.equals(token)) {
+                if (selfLoop) {
+                    return this; // "**/**" 等价于 "**"
+                }
+                if (doubleStar == null) {
+                    doubleStar = new Node(true);
+                }
+                return doubleStar;
+            }
+
+            if (STAR.equals(token)) {
+                if (star == null) {
+                    star = new Node(false);
+                }
+                return star;
+            }
+
+            Map<String, Node> children = isLiteral(token) ? literals : globs;
+            return children.computeIfAbsent(token, t -> new Node(false));
+        }
+
+        private void step(String segment, List<Node> next) {
+            if (selfLoop) {
+                addWithClosure(next, this);
+            }
+
+            Node literal = literals.get(segment);
+            if (literal != null) {
+                addWithClosure(next, literal);
+            }
+
+            if (star != null) {
+                addWithClosure(next, star);
+            }
+
+            if (!globs.isEmpty()) {
+                for (Map.Entry<String, Node> entry : globs.entrySet()) {
+                    if (SEGMENT_MATCHER.match(entry.getKey(), segment)) {
+                        addWithClosure(next, entry.getValue());
+                    }
+                }
+            }
+        }
+
+        private boolean accepts(boolean trailingSlash) {
+            return (accept & ACCEPT_ALWAYS) != 0
+                    || (trailingSlash && (accept & ACCEPT_IF_SLASH) != 0)
+                    || (!trailingSlash && (accept & ACCEPT_IF_NO_SLASH) != 0);
+        }
+
+        private static boolean isLiteral(String token) {
+            return token.indexOf('*') < 0 && token.indexOf('?') < 0 && token.indexOf('{') < 0;
+        }
+    }
+}
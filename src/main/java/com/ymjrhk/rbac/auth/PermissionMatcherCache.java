@@ -0,0 +1,76 @@
+package com.ymjrhk.rbac.auth;
+
+import com.ymjrhk.rbac.vo.PermissionVO;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 已编译权限匹配器的本地缓存（有界 LRU）
+ *
+ * <p>以权限列表的内容作为 key：内容相同即匹配器相同，所以不存在“过期”问题，
+ * 权限变更后列表内容变了，自然会编译出新的匹配器，旧的按 LRU 淘汰。
+ * 拥有相同权限集合的用户也能共享同一个匹配器。
+ */
+public class PermissionMatcherCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final Map<List<PermissionVO>, PermissionMatcher> cache;
+
+    public PermissionMatcherCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public PermissionMatcherCache(int maxSize) {
+        // accessOrder = true，实现 LRU
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<PermissionVO>, PermissionMatcher> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 获取权限列表对应的匹配器，没有则编译并放入缓存
+     *
+     * @param permissions
+     * @return
+     */
+    public PermissionMatcher get(List<PermissionVO> permissions) {
+        if (permissions == null || permissions.isEmpty()) {
+            return PermissionMatcher.EMPTY;
+        }
+
+        synchronized (cache) {
+            PermissionMatcher matcher = cache.get(permissions);
+            if (matcher != null) {
+                return matcher;
+            }
+        }
+
+        // 编译放在锁外，避免阻塞其他用户
+        PermissionMatcher compiled = PermissionMatcher.compile(permissions);
+
+        synchronized (cache) {
+            // 复制一份作为 key，防止调用方后续修改列表
+            PermissionMatcher existing = cache.putIfAbsent(new ArrayList<>(permissions), compiled);
+            return existing != null ? existing : compiled;
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.ymjrhk.rbac.auth;
+
+import com.ymjrhk.rbac.vo.PermissionVO;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 一个角色组合（用户的非禁用角色集合）的有效权限
+ * <p>
+ * 用户数远多于角色组合数：按角色组合签名（升序 roleId 用逗号拼接，如 "1,5,9"）缓存在 ROLE_SET_PERMISSIONS 下，
+ * 角色相同的用户共用一个条目和一个编译后的匹配器；用户自己的授权快照里只存 roleId 列表。
+ */
+@Data
+public class RoleSetPermissions {
+    /**
+     * 角色组合签名
+     */
+    private String roleSet;
+
+    /**
+     * 是否包含（非禁用的）超级管理员角色
+     */
+    private boolean superAdmin;
+
+    /**
+     * 各角色非禁用权限的并集（所有类型，已去重）
+     */
+    private List<PermissionVO> permissions = new ArrayList<>();
+
+    /**
+     * 编译后的匹配器，不进 Redis；本地缓存中的条目是同一个对象，编译一次后一直可用
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient volatile PermissionMatcher matcher;
+
+    /**
+     * 持有的权限 ID 位图，同样不进 Redis，首次使用时生成
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient volatile PermissionBits bits;
+
+    /**
+     * 角色组合签名：升序去重后用逗号拼接，没有角色时为空串
+     *
+     * @param roleIds
+     * @return
+     */
+    public static String signature(Collection<Long> roleIds) {
+        return roleIds.stream()
+                      .distinct()
+                      .sorted()
+                      .map(String::valueOf)
+                      .collect(Collectors.joining(","));
+    }
+
+    /**
+     * 从签名还原 roleId 列表
+     *
+     * @param roleSet
+     * @return
+     */
+    public static List<Long> roleIds(String roleSet) {
+        if (roleSet == null || roleSet.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(roleSet.split(","))
+                     .map(Long::valueOf)
+                     .toList();
+    }
+
+    /**
+     * 判断是否允许访问请求路径 + 方法（超级管理员直接放行）
+     *
+     * @param requestPath
+     * @param requestMethod
+     * @return
+     */
+    public boolean permits(String requestPath, String requestMethod) {
+        if (superAdmin) {
+            return true;
+        }
+        return matcher().matches(requestPath, requestMethod);
+    }
+
+    /**
+     * 按处理方法预先算好的权限判定：与接口的 covering 权限有交集即放行，
+     * 只有持有 partial 权限时才按请求路径做模式匹配（超级管理员直接放行）
+     *
+     * @param required      处理方法对应的权限，null 表示处理方法不在索引中，按请求路径做模式匹配
+     * @param requestPath
+     * @param requestMethod
+     * @return
+     */
+    public boolean permits(HandlerPermissions required, String requestPath, String requestMethod) {
+        if (superAdmin) {
+            return true;
+        }
+        if (required == null) {
+            return matcher().matches(requestPath, requestMethod);
+        }
+        PermissionBits held = bits();
+        if (required.covering().intersects(held)) {
+            return true;
+        }
+        // 能匹配这个请求的权限要么在 covering 中，要么在 partial 中：没有持有 partial 就不可能匹配
+        return required.partial().intersects(held) && matcher().matches(requestPath, requestMethod);
+    }
+
+    /**
+     * 从共享缓存中取匹配器（权限内容相同的角色组合共用一个）
+     *
+     * @param matcherCache
+     */
+    public void compileWith(PermissionMatcherCache matcherCache) {
+        this.matcher = matcherCache.get(permissions);
+    }
+
+    private PermissionMatcher matcher() {
+        PermissionMatcher m = matcher;
+        if (m == null) {
+            // 从 Redis 反序列化出来的条目没有匹配器，首次使用时编译
+            m = PermissionMatcher.compile(permissions);
+            matcher = m;
+        }
+        return m;
+    }
+
+    private PermissionBits bits() {
+        PermissionBits b = bits;
+        if (b == null) {
+            b = PermissionBits.of(permissions.stream()
+                                             .map(PermissionVO::getPermissionId)
+                                             .toList());
+            bits = b;
+        }
+        return b;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ymjrhk.rbac.auth;
+
+import com.ymjrhk.rbac.constant.JwtClaimsConstant;
+import io.jsonwebtoken.Claims;
+
+/**
+ * 验签通过的 token 中 AuthInterceptor 用到的内容
+ *
+ * @param userId
+ * @param username
+ * @param authVersion
+ * @param expireAtMillis token 的 exp（毫秒），没有 exp 时为 Long.MAX_VALUE
+ */
+public record VerifiedToken(Long userId, String username, Integer authVersion, long expireAtMillis) {
+
+    public static VerifiedToken of(Claims claims) {
+        return new VerifiedToken(
+                Long.valueOf(claims.get(JwtClaimsConstant.USER_ID).toString()),
+                claims.get(JwtClaimsConstant.USERNAME).toString(),
+                Integer.valueOf(claims.get(JwtClaimsConstant.AUTH_VERSION).toString()),
+                claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime()
+        );
+    }
+}
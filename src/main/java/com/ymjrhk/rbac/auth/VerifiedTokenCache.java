@@ -0,0 +1,142 @@
+package com.ymjrhk.rbac.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 已验签 token 的本地缓存：同一个 token 在有效期内反复出现时，跳过验签和解析
+ *
+ * <p>以 token 本身为 key：ConcurrentHashMap 按其哈希定位、equals 精确比较，
+ * 所以不存在“指纹碰撞”冒用别人身份的问题。
+ * 条目在 min(token exp, 写入时刻 + ttl) 过期，绝不会比 token 活得更久。
+ *
+ * <p>这里只缓存“签名和 exp 是否有效”，authVersion、用户状态仍由调用方每次对照授权快照检查，
+ * 所以登出、改密码后旧 token 照样立即失效。
+ */
+public class VerifiedTokenCache {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    private final long ttlMillis;
+
+    private final LongSupplier clock;
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    public VerifiedTokenCache(int maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        this(maxSize, ttl, System::currentTimeMillis, meterRegistry);
+    }
+
+    VerifiedTokenCache(int maxSize, Duration ttl, LongSupplier clock, MeterRegistry meterRegistry) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("已验签 token 缓存容量必须大于 0");
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("已验签 token 缓存 TTL 必须大于 0");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+
+        this.hitCounter = Counter.builder("rbac.auth.token.cache")
+                                 .tag("result", "hit")
+                                 .description("已验签 token 缓存命中/未命中次数")
+                                 .register(meterRegistry);
+        this.missCounter = Counter.builder("rbac.auth.token.cache")
+                                  .tag("result", "miss")
+                                  .description("已验签 token 缓存命中/未命中次数")
+                                  .register(meterRegistry);
+        Gauge.builder("rbac.auth.token.cache.hit.ratio", this, VerifiedTokenCache::hitRatio)
+             .description("已验签 token 缓存命中率")
+             .register(meterRegistry);
+        Gauge.builder("rbac.auth.token.cache.size", entries, Map::size)
+             .description("已验签 token 缓存条目数")
+             .register(meterRegistry);
+    }
+
+    /**
+     * 读取，未命中或已过期返回 null
+     *
+     * @param token
+     * @return
+     */
+    public VerifiedToken get(String token) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            missCounter.increment();
+            return null;
+        }
+        if (clock.getAsLong() >= entry.expireAtMillis) {
+            entries.remove(token, entry);
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        return entry.value;
+    }
+
+    /**
+     * 放入验签通过的 token
+     *
+     * @param token
+     * @param verifiedToken
+     */
+    public void put(String token, VerifiedToken verifiedToken) {
+        long now = clock.getAsLong();
+        long expireAt = Math.min(verifiedToken.expireAtMillis(), now + ttlMillis);
+        if (expireAt <= now) {
+            return;
+        }
+        entries.put(token, new Entry(verifiedToken, expireAt));
+        if (entries.size() > maxSize) {
+            shrink();
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public double hitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    /**
+     * 超限时淘汰：先清过期条目，仍超限再淘汰到 90%
+     */
+    private synchronized void shrink() {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+
+        long now = clock.getAsLong();
+        entries.values().removeIf(entry -> now >= entry.expireAtMillis);
+
+        int target = Math.max(1, maxSize * 9 / 10);
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private record Entry(VerifiedToken value, long expireAtMillis) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.ymjrhk.rbac.cache;
+
+import com.alibaba.fastjson2.JSON;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * 订阅缓存失效广播，删除本节点的本地副本
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationListener implements MessageListener {
+
+    private final TwoLevelCacheManager cacheManager;
+
+    private final String nodeId;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        handle(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    void handle(String body) {
+        try {
+            CacheInvalidationMessage invalidation = JSON.parseObject(body, CacheInvalidationMessage.class);
+            if (invalidation == null || Objects.equals(invalidation.getNodeId(), nodeId)) {
+                return; // 自己发出的广播，本地已经删过
+            }
+            if (invalidation.getKeys() != null) {
+                invalidation.getKeys().forEach(key -> cacheManager.evictLocal(invalidation.getCacheName(), key));
+                return;
+            }
+            cacheManager.evictLocal(invalidation.getCacheName(), invalidation.getKey());
+        } catch (Exception e) {
+            log.warn("处理缓存失效广播失败，message={}", body, e);
+        }
+    }
+}
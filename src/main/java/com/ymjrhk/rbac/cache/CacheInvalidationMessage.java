@@ -0,0 +1,37 @@
+package com.ymjrhk.rbac.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 跨节点缓存失效广播消息
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationMessage {
+
+    /**
+     * 发出广播的节点，节点收到自己发出的消息时忽略
+     */
+    private String nodeId;
+
+    private String cacheName;
+
+    /**
+     * 为 null 表示清空整个缓存（allEntries = true）
+     */
+    private String key;
+
+    /**
+     * 批量失效：不为 null 时忽略 key，逐个删除
+     */
+    private List<String> keys;
+
+    public CacheInvalidationMessage(String nodeId, String cacheName, String key) {
+        this(nodeId, cacheName, key, null);
+    }
+}
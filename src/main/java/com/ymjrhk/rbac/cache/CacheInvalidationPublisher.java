@@ -0,0 +1,33 @@
+package com.ymjrhk.rbac.cache;
+
+import java.util.Collection;
+
+/**
+ * 缓存失效广播
+ */
+public interface CacheInvalidationPublisher {
+
+    /**
+     * 不广播（单节点 / 测试用）
+     */
+    CacheInvalidationPublisher NOOP = (cacheName, key) -> {
+    };
+
+    /**
+     * 通知其他节点删除本地副本
+     *
+     * @param cacheName
+     * @param key       为 null 时清空整个缓存
+     */
+    void publish(String cacheName, String key);
+
+    /**
+     * 批量通知，默认逐个广播
+     *
+     * @param cacheName
+     * @param keys
+     */
+    default void publishAll(String cacheName, Collection<String> keys) {
+        keys.forEach(key -> publish(cacheName, key));
+    }
+}
@@ -0,0 +1,190 @@
+package com.ymjrhk.rbac.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个两级缓存的指标（tag cache=缓存名）
+ * <ul>
+ *   <li>rbac.cache.gets{result=local-hit|remote-hit|miss}：读取结果</li>
+ *   <li>rbac.cache.remote.get：访问 Redis 的耗时（本地未命中时才会发生）</li>
+ *   <li>rbac.cache.load：未命中后加载（执行被 @Cacheable 标注的方法）的耗时</li>
+ *   <li>rbac.cache.local.size：本地条目数</li>
+ *   <li>rbac.cache.single-flight{result=coalesced|lease-wait|stale|duplicate}：被合并或没能避免的重复加载</li>
+ *   <li>rbac.cache.refresh{result=refreshed|skipped|discarded|failed|rejected}：提前刷新（只有配置了的缓存才有）</li>
+ *   <li>rbac.cache.negative{result=stored|hit}：负结果哨兵的写入和命中</li>
+ * </ul>
+ *
+ * <p>@Cacheable(sync = true) 在 get(key, valueLoader) 里加载，直接计时。
+ * 非 sync 的流程是 get 未命中 → 调用方法 → put，加载发生在缓存外面。
+ * 这里在同一线程上把“未命中”和紧随其后的同 key put 配对，两者之间的时间就是加载耗时；
+ * 方法返回 null 或抛异常时没有 put，下一次未命中会覆盖掉这条未配对的记录。
+ */
+public class CacheMetrics {
+
+    private final Counter localHits;
+
+    private final Counter remoteHits;
+
+    private final Counter misses;
+
+    private final Timer remoteGetTimer;
+
+    private final Timer loadTimer;
+
+    private final Counter coalesced;
+
+    private final Counter leaseWaits;
+
+    private final Counter staleServed;
+
+    private final Counter duplicates;
+
+    private final String cacheName;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 当前线程上最近一次未命中（每个缓存一个，嵌套加载不同缓存时互不覆盖）
+     */
+    private final ThreadLocal<PendingLoad> pendingLoad = new ThreadLocal<>();
+
+    public CacheMetrics(String cacheName, LocalCache local, MeterRegistry meterRegistry) {
+        this.cacheName = cacheName;
+        this.meterRegistry = meterRegistry;
+        this.localHits = gets(cacheName, "local-hit", meterRegistry);
+        this.remoteHits = gets(cacheName, "remote-hit", meterRegistry);
+        this.misses = gets(cacheName, "miss", meterRegistry);
+        this.remoteGetTimer = Timer.builder("rbac.cache.remote.get")
+                                   .description("两级缓存访问 Redis 的耗时")
+                                   .tag("cache", cacheName)
+                                   .publishPercentileHistogram()
+                                   .register(meterRegistry);
+        this.loadTimer = Timer.builder("rbac.cache.load")
+                              .description("缓存未命中后加载数据的耗时")
+                              .tag("cache", cacheName)
+                              .publishPercentileHistogram()
+                              .register(meterRegistry);
+        this.coalesced = singleFlight(cacheName, "coalesced", meterRegistry);
+        this.leaseWaits = singleFlight(cacheName, "lease-wait", meterRegistry);
+        this.staleServed = singleFlight(cacheName, "stale", meterRegistry);
+        this.duplicates = singleFlight(cacheName, "duplicate", meterRegistry);
+        Gauge.builder("rbac.cache.local.size", local, LocalCache::size)
+             .description("两级缓存本地条目数")
+             .tag("cache", cacheName)
+             .register(meterRegistry);
+    }
+
+    void localHit() {
+        localHits.increment();
+    }
+
+    void remoteHit(long remoteNanos) {
+        remoteHits.increment();
+        remoteGetTimer.record(remoteNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void miss(String localKey, long remoteNanos) {
+        misses.increment();
+        remoteGetTimer.record(remoteNanos, TimeUnit.NANOSECONDS);
+        pendingLoad.set(new PendingLoad(localKey, System.nanoTime()));
+    }
+
+    /**
+     * 写入时若与当前线程上一次未命中的 key 相同，记一次加载耗时
+     *
+     * @param localKey
+     */
+    void put(String localKey) {
+        PendingLoad pending = pendingLoad.get();
+        if (pending != null && pending.localKey.equals(localKey)) {
+            pendingLoad.remove();
+            loadTimer.record(System.nanoTime() - pending.startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void load(long loadNanos) {
+        misses.increment();
+        loadTimer.record(loadNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 本节点已有同 key 的加载在进行，等待它的结果
+     */
+    void coalesced() {
+        coalesced.increment();
+    }
+
+    /**
+     * 其他节点持有租约，等到了它写回 Redis 的值
+     */
+    void leaseWait() {
+        leaseWaits.increment();
+    }
+
+    /**
+     * 其他节点持有租约，先返回本地旧值
+     */
+    void staleServed() {
+        staleServed.increment();
+    }
+
+    /**
+     * 其他节点持有租约，但既没有旧值也没等到写回，只好自己再加载一次
+     */
+    void duplicate() {
+        duplicates.increment();
+    }
+
+    /**
+     * 提前刷新的结果：refreshed 已写回；skipped 查询剩余时间后发现还不需要刷新；
+     * discarded 加载结果为 null 或期间被失效；failed 加载失败；rejected 线程池已满
+     *
+     * @param result
+     */
+    void refresh(String result) {
+        Counter.builder("rbac.cache.refresh")
+               .description("两级缓存提前刷新次数")
+               .tag("cache", cacheName)
+               .tag("result", result)
+               .register(meterRegistry)
+               .increment();
+    }
+
+    /**
+     * 负结果哨兵：stored 写入；hit 命中（还原成 null 或重新抛出异常）
+     *
+     * @param result
+     */
+    void negative(String result) {
+        Counter.builder("rbac.cache.negative")
+               .description("两级缓存负结果哨兵的写入、命中次数")
+               .tag("cache", cacheName)
+               .tag("result", result)
+               .register(meterRegistry)
+               .increment();
+    }
+
+    private static Counter singleFlight(String cacheName, String result, MeterRegistry meterRegistry) {
+        return Counter.builder("rbac.cache.single-flight")
+                      .description("两级缓存加载去重：被合并的加载、租约等待、返回旧值、未能避免的重复加载")
+                      .tag("cache", cacheName)
+                      .tag("result", result)
+                      .register(meterRegistry);
+    }
+
+    private static Counter gets(String cacheName, String result, MeterRegistry meterRegistry) {
+        return Counter.builder("rbac.cache.gets")
+                      .description("两级缓存读取次数")
+                      .tag("cache", cacheName)
+                      .tag("result", result)
+                      .register(meterRegistry);
+    }
+
+    private record PendingLoad(String localKey, long startNanos) {
+    }
+}
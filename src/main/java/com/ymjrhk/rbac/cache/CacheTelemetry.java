@@ -0,0 +1,241 @@
+package com.ymjrhk.rbac.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redis 缓存的热 key 与值大小统计（经 {@link TelemetryRedisCacheWriter} 记录每次读写）
+ *
+ * <p>每个缓存一份：
+ * <ul>
+ *   <li>访问频率：Count-Min Sketch 估计每个 key 被读取的次数，另外维护估计次数最高的 topK 个 key
+ *       （记下最近一次看到的值大小，次数 × 大小就是它占用的带宽）</li>
+ *   <li>值大小：读、写各一个按 2 的幂分桶的直方图，总字节数同时作为指标 rbac.cache.remote.bytes{cache, op}</li>
+ * </ul>
+ * 访问累计 width × 10 次后 Sketch 和 topK 的计数减半，反映的是最近一段时间的热度。
+ * 请求线程上只有几次原子累加；只有估计次数超过 topK 门槛的 key 才解码成字符串、进入加锁的 topK 更新。
+ */
+public class CacheTelemetry {
+
+    private final int topK;
+
+    private final int sketchWidth;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, CacheStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * @param topK        每个缓存保留多少个热 key
+     * @param sketchWidth Sketch 每行的计数器数，2 的幂
+     * @param meterRegistry
+     */
+    public CacheTelemetry(int topK, int sketchWidth, MeterRegistry meterRegistry) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("热 key 数必须大于 0：" + topK);
+        }
+        if (sketchWidth <= 0 || Integer.bitCount(sketchWidth) != 1) {
+            throw new IllegalArgumentException("Count-Min Sketch 宽度必须是 2 的幂：" + sketchWidth);
+        }
+        this.topK = topK;
+        this.sketchWidth = sketchWidth;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 读取了一个 Redis key
+     *
+     * @param cacheName
+     * @param key       Redis key（带缓存前缀）
+     * @param value     未命中时为 null
+     */
+    void read(String cacheName, byte[] key, byte[] value) {
+        stats(cacheName).read(key, value);
+    }
+
+    void written(String cacheName, byte[] key, byte[] value) {
+        stats(cacheName).written(key, value);
+    }
+
+    /**
+     * @param top 每个缓存最多返回多少个热 key
+     * @return 缓存名 -> 统计（按缓存名排序）
+     */
+    public Map<String, Report> report(int top) {
+        Map<String, Report> reports = new TreeMap<>();
+        stats.forEach((cacheName, cacheStats) -> reports.put(cacheName, cacheStats.report(top)));
+        return reports;
+    }
+
+    /**
+     * @param cacheName
+     * @param top
+     * @return 还没有访问过的缓存返回 null
+     */
+    public Report report(String cacheName, int top) {
+        CacheStats cacheStats = stats.get(cacheName);
+        return cacheStats == null ? null : cacheStats.report(top);
+    }
+
+    private CacheStats stats(String cacheName) {
+        CacheStats cacheStats = stats.get(cacheName);
+        return cacheStats != null ? cacheStats : stats.computeIfAbsent(cacheName, this::newStats);
+    }
+
+    private CacheStats newStats(String cacheName) {
+        CacheStats cacheStats = new CacheStats(topK, new CountMinSketch(sketchWidth));
+        bytesCounter(cacheName, "read", cacheStats.reads);
+        bytesCounter(cacheName, "write", cacheStats.writes);
+        return cacheStats;
+    }
+
+    private void bytesCounter(String cacheName, String op, ValueSizeHistogram histogram) {
+        FunctionCounter.builder("rbac.cache.remote.bytes", histogram, ValueSizeHistogram::totalBytes)
+                       .description("两级缓存读写 Redis 的值字节数")
+                       .baseUnit("bytes")
+                       .tag("cache", cacheName)
+                       .tag("op", op)
+                       .register(meterRegistry);
+    }
+
+    /**
+     * @param hotKeys 按估计访问次数从高到低
+     * @param reads   读到的值大小（未命中不计）
+     * @param writes  写入的值大小
+     */
+    public record Report(List<HotKey> hotKeys, SizeStats reads, SizeStats writes) {
+    }
+
+    /**
+     * @param key      Redis key
+     * @param accesses 估计的访问次数（最近一段时间，可能高估）
+     * @param size     最近一次读写的值大小，-1 表示还没有见过
+     */
+    public record HotKey(String key, long accesses, int size) {
+    }
+
+    /**
+     * @param p50     百分位所在桶的上界（字节），下同
+     * @param buckets 桶上界 -> 次数，只列出非空的桶
+     */
+    public record SizeStats(long count, long totalBytes, long max, long p50, long p90, long p99,
+                            Map<String, Long> buckets) {
+    }
+
+    /**
+     * 单个缓存的统计
+     */
+    private static class CacheStats {
+
+        private final int capacity;
+
+        private final CountMinSketch sketch;
+
+        private final long agingPeriod;
+
+        private final AtomicLong accesses = new AtomicLong();
+
+        final ValueSizeHistogram reads = new ValueSizeHistogram();
+
+        final ValueSizeHistogram writes = new ValueSizeHistogram();
+
+        /**
+         * key -> [估计次数, 值大小]，由 this 保护
+         */
+        private final Map<String, int[]> hotKeys = new HashMap<>();
+
+        /**
+         * topK 已满时其中最小的估计次数，估计次数不超过它的 key 直接跳过
+         */
+        private volatile int threshold;
+
+        CacheStats(int capacity, CountMinSketch sketch) {
+            this.capacity = capacity;
+            this.sketch = sketch;
+            this.agingPeriod = sketch.width() * 10L;
+        }
+
+        void read(byte[] key, byte[] value) {
+            int size = value == null ? -1 : value.length;
+            if (value != null) {
+                reads.record(size);
+            }
+            int estimate = sketch.increment(key);
+            if (estimate > threshold) {
+                offer(key, estimate, size);
+            }
+            if (accesses.incrementAndGet() % agingPeriod == 0) {
+                age();
+            }
+        }
+
+        void written(byte[] key, byte[] value) {
+            writes.record(value.length);
+            // 只更新已在 topK 中的 key 的大小
+            if (sketch.estimate(key) >= threshold) {
+                synchronized (this) {
+                    int[] hot = hotKeys.get(new String(key, StandardCharsets.UTF_8));
+                    if (hot != null) {
+                        hot[1] = value.length;
+                    }
+                }
+            }
+        }
+
+        private synchronized void offer(byte[] key, int estimate, int size) {
+            String name = new String(key, StandardCharsets.UTF_8);
+            int[] hot = hotKeys.get(name);
+            if (hot != null) {
+                hot[0] = Math.max(hot[0], estimate);
+                if (size >= 0) {
+                    hot[1] = size;
+                }
+                updateThreshold();
+                return;
+            }
+            hotKeys.put(name, new int[]{estimate, size});
+            if (hotKeys.size() > capacity) {
+                hotKeys.entrySet().stream()
+                       .min(Comparator.comparingInt(e -> e.getValue()[0]))
+                       .ifPresent(e -> hotKeys.remove(e.getKey()));
+            }
+            updateThreshold();
+        }
+
+        private void updateThreshold() {
+            if (hotKeys.size() < capacity) {
+                threshold = 0;
+                return;
+            }
+            int min = Integer.MAX_VALUE;
+            for (int[] hot : hotKeys.values()) {
+                min = Math.min(min, hot[0]);
+            }
+            threshold = min;
+        }
+
+        private synchronized void age() {
+            sketch.halve();
+            hotKeys.values().forEach(hot -> hot[0] >>>= 1);
+            updateThreshold();
+        }
+
+        synchronized Report report(int top) {
+            List<HotKey> keys = hotKeys.entrySet().stream()
+                                       .sorted(Comparator.comparingInt((Map.Entry<String, int[]> e) -> e.getValue()[0]).reversed())
+                                       .limit(top)
+                                       .map(e -> new HotKey(e.getKey(), e.getValue()[0], e.getValue()[1]))
+                                       .toList();
+            return new Report(keys, reads.snapshot(), writes.snapshot());
+        }
+    }
+}
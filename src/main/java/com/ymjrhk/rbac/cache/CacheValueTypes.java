@@ -0,0 +1,51 @@
+package com.ymjrhk.rbac.cache;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 缓存值类型登记表：类型 <-> 一个字节的类型编号（1 ~ 255），CompactRedisSerializer 写编号而不是类名
+ *
+ * <p>编号写进了 Redis，一经使用不能改成别的类型；类型删除后编号也不要复用（旧条目会被当作未命中）。
+ * 泛型类型（如 List&lt;PermissionVO&gt;）按完整的参数化类型登记，反序列化时元素类型也是对的。
+ */
+public class CacheValueTypes {
+
+    private final Type[] types = new Type[256];
+
+    private final Map<Type, Integer> ids = new HashMap<>();
+
+    /**
+     * @param id   1 ~ 255
+     * @param type
+     * @return this
+     */
+    public CacheValueTypes register(int id, Type type) {
+        if (id < 1 || id > 255) {
+            throw new IllegalArgumentException("缓存值类型编号必须在 1 ~ 255 之间：" + id);
+        }
+        if (types[id] != null || ids.containsKey(type)) {
+            throw new IllegalArgumentException("缓存值类型编号或类型重复登记：" + id + " -> " + type.getTypeName());
+        }
+        types[id] = type;
+        ids.put(type, id);
+        return this;
+    }
+
+    /**
+     * @param type
+     * @return 未登记时返回 -1
+     */
+    int idOf(Type type) {
+        return ids.getOrDefault(type, -1);
+    }
+
+    /**
+     * @param id
+     * @return 未登记时返回 null
+     */
+    Type typeOf(int id) {
+        return types[id & 0xFF];
+    }
+}
@@ -0,0 +1,105 @@
+package com.ymjrhk.rbac.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 经过熔断器访问的远端（Redis）缓存，TwoLevelCache 的 remote
+ *
+ * <p>熔断中或 Redis 异常时：读当作未命中，写丢弃（本地照常写入），删除记下来等恢复后重放。
+ * 删除失败时立即熔断（{@link RedisCircuitBreaker#executeEviction}），否则积压不会被重放。
+ */
+public class CircuitBreakingCache implements Cache {
+
+    private final Cache delegate;
+
+    private final RedisCircuitBreaker circuitBreaker;
+
+    public CircuitBreakingCache(Cache delegate, RedisCircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return circuitBreaker.execute(() -> delegate.get(key), () -> null);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return circuitBreaker.execute(() -> delegate.get(key, type), () -> null);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            @SuppressWarnings("unchecked")
+            T value = (T) wrapper.get();
+            return value;
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        circuitBreaker.execute(() -> delegate.put(key, value), () -> {
+        });
+    }
+
+    /**
+     * 降级时返回 null（当作原来没有值），TwoLevelCache 随后删掉本地副本
+     */
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return circuitBreaker.execute(() -> delegate.putIfAbsent(key, value), () -> null);
+    }
+
+    @Override
+    public void evict(Object key) {
+        circuitBreaker.executeEviction(() -> delegate.evict(key), () -> defer(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return circuitBreaker.executeEviction(() -> delegate.evictIfPresent(key), () -> {
+            defer(key);
+            return false;
+        });
+    }
+
+    @Override
+    public void clear() {
+        circuitBreaker.executeEviction(delegate::clear, () -> defer(null));
+    }
+
+    @Override
+    public boolean invalidate() {
+        return circuitBreaker.executeEviction(delegate::invalidate, () -> {
+            defer(null);
+            return false;
+        });
+    }
+
+    private void defer(Object key) {
+        circuitBreaker.deferEviction(getName(), key == null ? null : TwoLevelCache.toLocalKey(key));
+    }
+}
@@ -0,0 +1,92 @@
+package com.ymjrhk.rbac.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Count-Min Sketch：固定内存估计每个 key 出现的次数（可能高估，不会低估）
+ *
+ * <p>DEPTH 行 × width 列计数器，每行用不同的哈希定位一个计数器，估计值取各行中的最小值。
+ * 计数器是原子的，多线程直接累加不加锁；{@link #halve()} 把全部计数减半（老化），
+ * 与并发累加交错时少算几次，对估计热度没有影响。
+ */
+class CountMinSketch {
+
+    private static final int DEPTH = 4;
+
+    private final AtomicIntegerArray counters;
+
+    private final int width;
+
+    private final int mask;
+
+    /**
+     * @param width 每行的计数器数，2 的幂
+     */
+    CountMinSketch(int width) {
+        if (width <= 0 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Count-Min Sketch 宽度必须是 2 的幂：" + width);
+        }
+        this.width = width;
+        this.mask = width - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * width);
+    }
+
+    /**
+     * 计数加一
+     *
+     * @param key
+     * @return 加一后的估计值
+     */
+    int increment(byte[] key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, h1, h2)));
+        }
+        return estimate;
+    }
+
+    int estimate(byte[] key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, h1, h2)));
+        }
+        return estimate;
+    }
+
+    void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+    }
+
+    int width() {
+        return width;
+    }
+
+    private int index(int row, int h1, int h2) {
+        return row * width + ((h1 + row * h2) & mask);
+    }
+
+    /**
+     * FNV-1a 再做一次 64 位混合，高低 32 位作为两个独立的哈希（第 i 行用 h1 + i * h2）
+     */
+    static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe53a87L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,34 @@
+package com.ymjrhk.rbac.cache;
+
+import java.time.Duration;
+
+/**
+ * 跨节点加载租约：同一个 key 同一时刻只让一个节点回源，其他节点短暂返回旧值或等待它写回
+ */
+public interface LoadLease {
+
+    /**
+     * 尝试获取租约；租约服务不可用时返回 true（自己加载）
+     *
+     * @param cacheName
+     * @param key
+     * @return
+     */
+    boolean tryAcquire(String cacheName, String key);
+
+    void release(String cacheName, String key);
+
+    /**
+     * 没拿到租约、也没有旧值可用时，最多等待持有者写回多久，超时后自己加载
+     *
+     * @return
+     */
+    Duration waitTimeout();
+
+    /**
+     * 本地条目过期多久以内还可以当作旧值返回
+     *
+     * @return
+     */
+    Duration maxStale();
+}
@@ -0,0 +1,172 @@
+package com.ymjrhk.rbac.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内近端缓存（有界 + 过期时间）
+ *
+ * <p>只做两件事：
+ * <ul>
+ *   <li>每个条目写入时记下过期时刻，读到过期条目就当作未命中并顺手删掉</li>
+ *   <li>条目数超过上限时先清过期条目，仍超限则按迭代顺序淘汰到 90%</li>
+ * </ul>
+ * 不追求精确 LRU，读路径只有一次 ConcurrentHashMap 查找，不加锁。
+ *
+ * <p>读到的过期条目移到一个旧值区（同样有上限），两级都未命中、其他节点正在加载时可以短暂返回旧值；
+ * evict / clear 同时清掉旧值，被主动失效的数据不会再被返回。
+ */
+public class LocalCache {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 读到时已过期的条目
+     */
+    private final ConcurrentHashMap<String, Entry> stale = new ConcurrentHashMap<>();
+
+    private final long ttlNanos;
+
+    private final int maxSize;
+
+    private final LongSupplier ticker;
+
+    public LocalCache(Duration ttl, int maxSize) {
+        this(ttl, maxSize, System::nanoTime);
+    }
+
+    LocalCache(Duration ttl, int maxSize, LongSupplier ticker) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("本地缓存 TTL 必须大于 0");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("本地缓存容量必须大于 0");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.ticker = ticker;
+    }
+
+    /**
+     * 读取，未命中或已过期返回 null
+     *
+     * @param key
+     * @return
+     */
+    public Object get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(ticker.getAsLong())) {
+            if (entries.remove(key, entry)) {
+                retire(key, entry);
+            }
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * 读取旧值：未过期的条目，或过期不超过 maxStale 的条目
+     *
+     * @param key
+     * @param maxStale
+     * @return
+     */
+    public Object getStale(String key, Duration maxStale) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = stale.get(key);
+        }
+        if (entry == null || ticker.getAsLong() - entry.expireAtNanos >= maxStale.toNanos()) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    public void put(String key, Object value) {
+        put(key, value, ttlNanos);
+    }
+
+    /**
+     * 写入一个存活时间更短的条目（如负结果哨兵），ttl 不会超过本地缓存的 TTL
+     *
+     * @param key
+     * @param value
+     * @param ttl
+     */
+    public void put(String key, Object value, Duration ttl) {
+        put(key, value, Math.min(ttl.toNanos(), ttlNanos));
+    }
+
+    private void put(String key, Object value, long ttlNanos) {
+        if (value == null) {
+            return;
+        }
+        entries.put(key, new Entry(value, ticker.getAsLong() + ttlNanos));
+        stale.remove(key);
+        if (entries.size() > maxSize) {
+            shrink();
+        }
+    }
+
+    public void evict(String key) {
+        entries.remove(key);
+        stale.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+        stale.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Duration getTtl() {
+        return Duration.ofNanos(ttlNanos);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private void retire(String key, Entry entry) {
+        stale.put(key, entry);
+        if (stale.size() > maxSize) {
+            // 旧值只是加载期间的兜底，超限直接整个丢掉
+            stale.clear();
+        }
+    }
+
+    /**
+     * 超限时淘汰：先清过期条目，仍超限再淘汰到 90%
+     */
+    private synchronized void shrink() {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+
+        long now = ticker.getAsLong();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+
+        int target = Math.max(1, maxSize * 9 / 10);
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private record Entry(Object value, long expireAtNanos) {
+
+        boolean isExpired(long now) {
+            return now - expireAtNanos >= 0;
+        }
+    }
+}
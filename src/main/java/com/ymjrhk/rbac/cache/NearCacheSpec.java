@@ -0,0 +1,24 @@
+package com.ymjrhk.rbac.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * 近端（本地）缓存配置
+ */
+@Data
+@AllArgsConstructor
+public class NearCacheSpec {
+
+    /**
+     * 本地条目存活时间（必须短于 Redis TTL）
+     */
+    private Duration ttl;
+
+    /**
+     * 本地条目数上限
+     */
+    private int maxSize;
+}
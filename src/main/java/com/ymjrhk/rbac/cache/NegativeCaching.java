@@ -0,0 +1,100 @@
+package com.ymjrhk.rbac.cache;
+
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 负结果缓存配置：哨兵的 TTL，以及哪些异常表示“数据不存在”、可以缓存
+ *
+ * <p>不存在的 userId 每次探测都会回源数据库（令牌重放、遍历 ID 时尤其明显），缓存一个短 TTL 的哨兵挡住重复查询。
+ * 只登记确定性的“不存在”异常；数据库超时之类的临时错误不缓存。
+ * 登记的异常类型必须有只带消息的构造器（命中哨兵时重新创建）。
+ */
+public class NegativeCaching {
+
+    /**
+     * 哨兵在 Redis 中的 TTL
+     */
+    private final Duration ttl;
+
+    /**
+     * 哨兵在本地的 TTL（不长于 ttl）
+     */
+    private final Duration localTtl;
+
+    private final Map<Class<? extends RuntimeException>, String> typeNames = new HashMap<>();
+
+    private final Map<String, Function<String, ? extends RuntimeException>> factories = new HashMap<>();
+
+    public NegativeCaching(Duration ttl, Duration localTtl) {
+        if (localTtl.compareTo(ttl) > 0) {
+            throw new IllegalArgumentException("哨兵本地 TTL 不能长于 Redis TTL：local=" + localTtl + ", redis=" + ttl);
+        }
+        this.ttl = ttl;
+        this.localTtl = localTtl;
+    }
+
+    /**
+     * 登记一种表示“不存在”的异常（按具体类型匹配，不含子类）
+     *
+     * @param typeName      写进哨兵的类型名，改名前已写入的哨兵会被当作未命中
+     * @param exceptionType
+     * @param factory       由消息重新创建异常
+     * @return this
+     */
+    public <E extends RuntimeException> NegativeCaching register(String typeName,
+                                                                 Class<E> exceptionType,
+                                                                 Function<String, E> factory) {
+        if (NegativeResult.NULL.equals(typeName)) {
+            throw new IllegalArgumentException("类型名已被占用：" + typeName);
+        }
+        typeNames.put(exceptionType, typeName);
+        factories.put(typeName, factory);
+        return this;
+    }
+
+    /**
+     * 加载抛出的异常转换成哨兵
+     *
+     * @param e
+     * @return 不是登记的异常时返回 null（不缓存）
+     */
+    NegativeResult fromException(Throwable e) {
+        String typeName = typeNames.get(e.getClass());
+        return typeName == null ? null : new NegativeResult(typeName, e.getMessage());
+    }
+
+    /**
+     * 命中哨兵时应抛出的异常
+     *
+     * @param result
+     * @return 返回 null 的哨兵，或类型名未登记（如已改名）时返回 null
+     */
+    RuntimeException toException(NegativeResult result) {
+        Function<String, ? extends RuntimeException> factory = factories.get(result.getType());
+        return factory == null ? null : factory.apply(result.getMessage());
+    }
+
+    boolean isKnown(NegativeResult result) {
+        return NegativeResult.NULL.equals(result.getType()) || factories.containsKey(result.getType());
+    }
+
+    Duration getLocalTtl() {
+        return localTtl;
+    }
+
+    /**
+     * Redis 条目 TTL：哨兵用短 TTL，其余用 ttl
+     *
+     * @param ttl 正常值的 TTL
+     * @return
+     */
+    public RedisCacheWriter.TtlFunction ttlFunction(Duration ttl) {
+        Duration negativeTtl = this.ttl;
+        return (key, value) -> value instanceof NegativeResult ? negativeTtl : ttl;
+    }
+}
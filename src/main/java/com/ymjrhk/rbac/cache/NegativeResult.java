@@ -0,0 +1,32 @@
+package com.ymjrhk.rbac.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 负结果哨兵：缓存“方法返回 null”或“数据不存在（抛出已登记的异常）”这样的结果
+ *
+ * <p>与正常值一样写进两级缓存（TTL 短得多），同一个 key 的 @CacheEvict 一并删除。
+ * 命中时由 TwoLevelCache 还原：返回 null，或重新抛出同类型的异常，调用方看不到哨兵本身。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NegativeResult {
+
+    /**
+     * 方法返回 null
+     */
+    public static final String NULL = "null";
+
+    /**
+     * {@link #NULL}，或 NegativeCaching 中登记的异常类型名（如 "user-not-exist"）
+     */
+    private String type;
+
+    /**
+     * 异常消息，重新抛出时使用
+     */
+    private String message;
+}
@@ -0,0 +1,121 @@
+package com.ymjrhk.rbac.cache;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Redis 不可用期间积压的删除，恢复后重放（删 Redis 中的条目并广播）
+ *
+ * <p>有上限：积压的 key 超过 maxKeys 后，再有删除的缓存改为恢复后整个清空，不再逐个记 key。
+ * 同一个 key 只记一次；已经要整个清空的缓存不再记 key。
+ */
+class PendingEvictions {
+
+    private final int maxKeys;
+
+    /**
+     * 缓存名 -> 待删除的 key（本地 key，与广播中的 key 相同）
+     */
+    private final Map<String, Set<String>> keys = new LinkedHashMap<>();
+
+    /**
+     * 恢复后整个清空的缓存
+     */
+    private final Set<String> cleared = new LinkedHashSet<>();
+
+    private int keyCount;
+
+    PendingEvictions(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * @param cacheName
+     * @param key       为 null 时整个缓存
+     */
+    synchronized void add(String cacheName, String key) {
+        if (key == null) {
+            clear(cacheName);
+            return;
+        }
+        if (cleared.contains(cacheName)) {
+            return;
+        }
+        Set<String> cacheKeys = keys.get(cacheName);
+        if (cacheKeys != null && cacheKeys.contains(key)) {
+            return;
+        }
+        if (keyCount >= maxKeys) {
+            clear(cacheName);
+            return;
+        }
+        keys.computeIfAbsent(cacheName, n -> new LinkedHashSet<>()).add(key);
+        keyCount++;
+    }
+
+    synchronized void addAll(String cacheName, Collection<String> cacheKeys) {
+        cacheKeys.forEach(key -> add(cacheName, key));
+    }
+
+    /**
+     * 重放失败时放回
+     *
+     * @param other
+     */
+    synchronized void addAll(PendingEvictions other) {
+        other.cleared.forEach(this::clear);
+        other.keys.forEach(this::addAll);
+    }
+
+    /**
+     * 取出当前积压的全部删除
+     *
+     * @return
+     */
+    synchronized PendingEvictions drain() {
+        PendingEvictions drained = new PendingEvictions(maxKeys);
+        drained.keys.putAll(keys);
+        drained.cleared.addAll(cleared);
+        drained.keyCount = keyCount;
+        keys.clear();
+        cleared.clear();
+        keyCount = 0;
+        return drained;
+    }
+
+    synchronized boolean isEmpty() {
+        return keyCount == 0 && cleared.isEmpty();
+    }
+
+    /**
+     * @return 积压的 key 数 + 要整个清空的缓存数
+     */
+    synchronized int size() {
+        return keyCount + cleared.size();
+    }
+
+    /**
+     * 只在 drain() 取出的副本上使用
+     */
+    Set<String> clearedCaches() {
+        return cleared;
+    }
+
+    /**
+     * 只在 drain() 取出的副本上使用
+     */
+    Map<String, Set<String>> keys() {
+        return keys;
+    }
+
+    private void clear(String cacheName) {
+        Set<String> removed = keys.remove(cacheName);
+        if (removed != null) {
+            keyCount -= removed.size();
+        }
+        cleared.add(cacheName);
+    }
+}
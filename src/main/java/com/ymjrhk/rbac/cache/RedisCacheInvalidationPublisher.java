@@ -0,0 +1,47 @@
+package com.ymjrhk.rbac.cache;
+
+import com.alibaba.fastjson2.JSON;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+import static com.ymjrhk.rbac.constant.CacheConstant.CACHE_INVALIDATION_CHANNEL;
+
+/**
+ * 通过 Redis Pub/Sub 广播缓存失效
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class RedisCacheInvalidationPublisher implements CacheInvalidationPublisher {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final String nodeId;
+
+    @Override
+    public void publish(String cacheName, String key) {
+        try {
+            String message = JSON.toJSONString(new CacheInvalidationMessage(nodeId, cacheName, key));
+            stringRedisTemplate.convertAndSend(CACHE_INVALIDATION_CHANNEL, message);
+        } catch (Exception e) {
+            // 广播失败不能影响业务，其他节点的本地副本会在本地 TTL 到期后自然失效
+            log.warn("缓存失效广播失败，cacheName={}, key={}", cacheName, key, e);
+        }
+    }
+
+    /**
+     * 一条消息带上全部 key
+     */
+    @Override
+    public void publishAll(String cacheName, Collection<String> keys) {
+        try {
+            String message = JSON.toJSONString(new CacheInvalidationMessage(nodeId, cacheName, null, List.copyOf(keys)));
+            stringRedisTemplate.convertAndSend(CACHE_INVALIDATION_CHANNEL, message);
+        } catch (Exception e) {
+            log.warn("缓存失效广播失败，cacheName={}, keys={}", cacheName, keys.size(), e);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.ymjrhk.rbac.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 两级缓存访问 Redis 的熔断器（整个节点共用一个，所有缓存连的是同一个 Redis）
+ *
+ * <p>Redis 变慢或不可用时，每次缓存访问都要等到命令超时才回源数据库，鉴权延迟跟着上涨。
+ * 连续 failureThreshold 次失败（Redis 异常，或耗时超过 slowCall）后熔断：
+ * <ul>
+ *   <li>读当作未命中，写直接丢弃，不再访问 Redis；只用本地缓存，新写入的本地条目 TTL 不超过 degradedLocalTtl
+ *       （此时收不到其他节点的失效广播，缩短脏读窗口）</li>
+ *   <li>删除（evict / clear / 广播）记进有界的积压队列（{@link PendingEvictions}）</li>
+ * </ul>
+ * 删除只要失败一次就立即熔断（{@link #executeEviction}）：积压只在恢复时重放，不熔断就永远不会重放，
+ * 被撤销的角色 / 权限会一直从 Redis 读到，直到 TTL 过期。
+ * 熔断 openDuration 后，下一次访问在后台线程上尝试恢复：探测 Redis，重放积压的删除，
+ * 再清掉本节点全部本地缓存（降级期间漏掉了其他节点的广播），成功后才恢复访问 Redis；失败则继续熔断。
+ * 恢复期间的访问仍按熔断处理。
+ *
+ * <p>只有 Redis 的异常（DataAccessException）计为失败并被吞掉；序列化等其他异常照常抛出，不影响熔断状态。
+ */
+@Slf4j
+public class RedisCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final long slowCallNanos;
+
+    private final long openNanos;
+
+    private final Duration degradedLocalTtl;
+
+    private final PendingEvictions pending;
+
+    /**
+     * 探测 Redis 是否可用，失败时抛异常
+     */
+    private final Runnable probe;
+
+    private final Executor recoveryExecutor;
+
+    private final LongSupplier ticker;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile long openedAt;
+
+    /**
+     * 重放积压的删除、对齐本地缓存，由 TwoLevelCacheManager 设置
+     */
+    private volatile Consumer<PendingEvictions> reconciler = pending -> {
+    };
+
+    private final Counter rejected;
+
+    private final MeterRegistry meterRegistry;
+
+    public RedisCircuitBreaker(int failureThreshold,
+                               Duration slowCall,
+                               Duration openDuration,
+                               Duration degradedLocalTtl,
+                               int maxPendingEvictions,
+                               Runnable probe,
+                               Executor recoveryExecutor,
+                               MeterRegistry meterRegistry) {
+        this(failureThreshold, slowCall, openDuration, degradedLocalTtl, maxPendingEvictions, probe, recoveryExecutor,
+                meterRegistry, System::nanoTime);
+    }
+
+    RedisCircuitBreaker(int failureThreshold,
+                        Duration slowCall,
+                        Duration openDuration,
+                        Duration degradedLocalTtl,
+                        int maxPendingEvictions,
+                        Runnable probe,
+                        Executor recoveryExecutor,
+                        MeterRegistry meterRegistry,
+                        LongSupplier ticker) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("熔断的连续失败次数必须大于 0：" + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.slowCallNanos = slowCall.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.degradedLocalTtl = degradedLocalTtl;
+        this.pending = new PendingEvictions(maxPendingEvictions);
+        this.probe = probe;
+        this.recoveryExecutor = recoveryExecutor;
+        this.ticker = ticker;
+        this.meterRegistry = meterRegistry;
+        this.rejected = Counter.builder("rbac.cache.circuit.rejected")
+                               .description("熔断期间没有访问 Redis 的缓存操作次数")
+                               .register(meterRegistry);
+        Gauge.builder("rbac.cache.circuit.state", state, s -> s.get().ordinal())
+             .description("Redis 熔断状态：0 正常，1 熔断，2 恢复中")
+             .register(meterRegistry);
+        Gauge.builder("rbac.cache.circuit.pending", pending, PendingEvictions::size)
+             .description("熔断期间积压、等待重放的删除数")
+             .register(meterRegistry);
+    }
+
+    /**
+     * 访问 Redis；熔断中或 Redis 异常时执行 fallback
+     *
+     * @param operation
+     * @param fallback
+     * @return
+     */
+    public <T> T execute(Supplier<T> operation, Supplier<T> fallback) {
+        if (!allowRequest()) {
+            return fallback.get();
+        }
+        long start = ticker.getAsLong();
+        T result;
+        try {
+            result = operation.get();
+        } catch (DataAccessException e) {
+            onFailure(e);
+            return fallback.get();
+        }
+        onSuccess(ticker.getAsLong() - start);
+        return result;
+    }
+
+    /**
+     * 删除 Redis：熔断中执行 fallback（记为积压）；Redis 异常时同样执行 fallback，并立即熔断，保证恢复后重放
+     *
+     * @param operation
+     * @param fallback  把这次删除记进积压
+     * @return
+     */
+    public <T> T executeEviction(Supplier<T> operation, Supplier<T> fallback) {
+        if (!allowRequest()) {
+            return fallback.get();
+        }
+        long start = ticker.getAsLong();
+        T result;
+        try {
+            result = operation.get();
+        } catch (DataAccessException e) {
+            // 先记下再熔断：恢复线程一定能取到这次删除
+            T value = fallback.get();
+            if (trip()) {
+                log.warn("删除 Redis 缓存失败，缓存降级为只用本地缓存，恢复后重放", e);
+            }
+            return value;
+        }
+        onSuccess(ticker.getAsLong() - start);
+        return result;
+    }
+
+    public void executeEviction(Runnable operation, Runnable fallback) {
+        executeEviction(() -> {
+            operation.run();
+            return null;
+        }, () -> {
+            fallback.run();
+            return null;
+        });
+    }
+
+    public void execute(Runnable operation, Runnable fallback) {
+        execute(() -> {
+            operation.run();
+            return null;
+        }, () -> {
+            fallback.run();
+            return null;
+        });
+    }
+
+    /**
+     * 没能送到 Redis 的删除，恢复后重放
+     *
+     * @param cacheName
+     * @param key       为 null 时整个缓存
+     */
+    void deferEviction(String cacheName, String key) {
+        pending.add(cacheName, key);
+    }
+
+    void deferEvictions(String cacheName, Collection<String> keys) {
+        pending.addAll(cacheName, keys);
+    }
+
+    /**
+     * @return 熔断中或正在恢复（都不访问 Redis）
+     */
+    public boolean isOpen() {
+        return state.get() != State.CLOSED;
+    }
+
+    public Duration getDegradedLocalTtl() {
+        return degradedLocalTtl;
+    }
+
+    /**
+     * 经过熔断器的失效广播：熔断中不广播，记为积压的删除，恢复后随重放一起广播
+     *
+     * @param publisher
+     * @return
+     */
+    CacheInvalidationPublisher guard(CacheInvalidationPublisher publisher) {
+        return new CacheInvalidationPublisher() {
+            @Override
+            public void publish(String cacheName, String key) {
+                if (isOpen()) {
+                    deferEviction(cacheName, key);
+                } else {
+                    publisher.publish(cacheName, key);
+                }
+            }
+
+            @Override
+            public void publishAll(String cacheName, Collection<String> keys) {
+                if (isOpen()) {
+                    deferEvictions(cacheName, keys);
+                } else {
+                    publisher.publishAll(cacheName, keys);
+                }
+            }
+        };
+    }
+
+    void onReconcile(Consumer<PendingEvictions> reconciler) {
+        this.reconciler = reconciler;
+    }
+
+    State state() {
+        return state.get();
+    }
+
+    private boolean allowRequest() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && ticker.getAsLong() - openedAt >= openNanos
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            transitioned(State.HALF_OPEN);
+            startRecovery();
+        }
+        rejected.increment();
+        return false;
+    }
+
+    private void onSuccess(long nanos) {
+        if (nanos > slowCallNanos) {
+            onFailure(null);
+            return;
+        }
+        consecutiveFailures.set(0);
+    }
+
+    private void onFailure(DataAccessException e) {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && trip()) {
+            log.warn("Redis 连续 {} 次失败或超时，缓存降级为只用本地缓存", failureThreshold, e);
+        }
+    }
+
+    private boolean trip() {
+        if (state.get() != State.CLOSED) {
+            return false;
+        }
+        openedAt = ticker.getAsLong();
+        if (!state.compareAndSet(State.CLOSED, State.OPEN)) {
+            return false;
+        }
+        transitioned(State.OPEN);
+        return true;
+    }
+
+    private void startRecovery() {
+        try {
+            recoveryExecutor.execute(this::recover);
+        } catch (RejectedExecutionException e) {
+            reopen();
+        }
+    }
+
+    private void recover() {
+        PendingEvictions replaying = pending.drain();
+        try {
+            probe.run();
+            reconciler.accept(replaying);
+        } catch (RuntimeException e) {
+            pending.addAll(replaying);
+            log.warn("Redis 仍不可用，继续降级：{}", e.getMessage());
+            reopen();
+            return;
+        }
+        consecutiveFailures.set(0);
+        state.set(State.CLOSED);
+        transitioned(State.CLOSED);
+        log.info("Redis 已恢复，重放了 {} 个积压的删除", replaying.size());
+
+        // 判定熔断之后、恢复之前才排进队列的删除
+        PendingEvictions late = pending.drain();
+        if (!late.isEmpty()) {
+            try {
+                reconciler.accept(late);
+            } catch (RuntimeException e) {
+                pending.addAll(late);
+                trip();
+            }
+        }
+    }
+
+    private void reopen() {
+        openedAt = ticker.getAsLong();
+        state.set(State.OPEN);
+        transitioned(State.OPEN);
+    }
+
+    private void transitioned(State to) {
+        Counter.builder("rbac.cache.circuit.transitions")
+               .description("Redis 熔断状态切换次数")
+               .tag("to", to.name().toLowerCase())
+               .register(meterRegistry)
+               .increment();
+    }
+}
@@ -0,0 +1,81 @@
+package com.ymjrhk.rbac.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 基于 Redis SET NX PX 的加载租约
+ *
+ * <p>租约值为节点标识，释放时比较后再删除，不会误删租约过期后被其他节点拿到的新租约。
+ * 租约很短（默认几秒），持有者崩溃时到期自动释放。
+ */
+@Slf4j
+public class RedisLoadLease implements LoadLease {
+
+    private static final String KEY_PREFIX = "rbac:cache:lease:";
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final String nodeId;
+
+    private final Duration ttl;
+
+    private final Duration waitTimeout;
+
+    private final Duration maxStale;
+
+    public RedisLoadLease(StringRedisTemplate stringRedisTemplate,
+                          String nodeId,
+                          Duration ttl,
+                          Duration waitTimeout,
+                          Duration maxStale) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.nodeId = nodeId;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.maxStale = maxStale;
+    }
+
+    @Override
+    public boolean tryAcquire(String cacheName, String key) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(leaseKey(cacheName, key), nodeId, ttl));
+        } catch (Exception e) {
+            log.warn("获取加载租约失败，直接加载，cacheName={}, key={}：{}", cacheName, key, e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void release(String cacheName, String key) {
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(leaseKey(cacheName, key)), nodeId);
+        } catch (Exception e) {
+            // 释放失败只是让其他节点多等一个租约时长
+            log.warn("释放加载租约失败，cacheName={}, key={}：{}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public Duration waitTimeout() {
+        return waitTimeout;
+    }
+
+    @Override
+    public Duration maxStale() {
+        return maxStale;
+    }
+
+    private static String leaseKey(String cacheName, String key) {
+        return KEY_PREFIX + cacheName + ":" + key;
+    }
+}
@@ -0,0 +1,70 @@
+package com.ymjrhk.rbac.cache;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用 pipeline + UNLINK 批量删除 RedisCache 中的条目
+ *
+ * <p>key 的拼法与 RedisCache 一致：前缀（默认 "缓存名::"）+ 经 ConversionService 转成字符串的 key。
+ * 每条 UNLINK 最多带 {@link #KEYS_PER_COMMAND} 个 key，全部命令放在一个 pipeline 里发出，
+ * 几千个用户的失效也只有一次往返；UNLINK 在后台线程释放内存，不阻塞 Redis。
+ */
+public class RedisPipelineBatchEvictor implements RemoteBatchEvictor {
+
+    static final int KEYS_PER_COMMAND = 500;
+
+    private final RedisCacheManager redisCacheManager;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RedisPipelineBatchEvictor(RedisCacheManager redisCacheManager, StringRedisTemplate stringRedisTemplate) {
+        this.redisCacheManager = redisCacheManager;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    public void evict(Collection<String> cacheNames, Collection<?> keys) {
+        List<byte[]> redisKeys = new ArrayList<>(cacheNames.size() * keys.size());
+        for (String cacheName : cacheNames) {
+            if (!(redisCacheManager.getCache(cacheName) instanceof RedisCache cache)) {
+                continue;
+            }
+            for (Object key : keys) {
+                redisKeys.add(redisKey(cache, key).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        if (redisKeys.isEmpty()) {
+            return;
+        }
+
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            unlinkInChunks(connection, redisKeys);
+            return null;
+        });
+    }
+
+    static String redisKey(RedisCache cache, Object key) {
+        RedisCacheConfiguration configuration = cache.getCacheConfiguration();
+        ConversionService conversionService = configuration.getConversionService();
+        String converted = key instanceof String s ? s : conversionService.convert(key, String.class);
+        return configuration.usePrefix() ? configuration.getKeyPrefixFor(cache.getName()) + converted : converted;
+    }
+
+    private static void unlinkInChunks(RedisConnection connection, List<byte[]> redisKeys) {
+        for (int from = 0; from < redisKeys.size(); from += KEYS_PER_COMMAND) {
+            List<byte[]> chunk = redisKeys.subList(from, Math.min(from + KEYS_PER_COMMAND, redisKeys.size()));
+            connection.keyCommands().unlink(chunk.toArray(new byte[0][]));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ymjrhk.rbac.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用 PTTL 查询 RedisCache 条目的剩余存活时间，key 的拼法与 RedisCache 一致
+ */
+@Slf4j
+public class RedisRemoteTtl implements RemoteTtl {
+
+    private final RedisCacheManager redisCacheManager;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RedisRemoteTtl(RedisCacheManager redisCacheManager, StringRedisTemplate stringRedisTemplate) {
+        this.redisCacheManager = redisCacheManager;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    public Duration remaining(String cacheName, Object key) {
+        if (!(redisCacheManager.getCache(cacheName) instanceof RedisCache cache)) {
+            return null;
+        }
+        try {
+            // -2：不存在；-1：没有过期时间
+            Long millis = stringRedisTemplate.getExpire(RedisPipelineBatchEvictor.redisKey(cache, key), TimeUnit.MILLISECONDS);
+            return millis == null || millis < 0 ? null : Duration.ofMillis(millis);
+        } catch (Exception e) {
+            log.warn("查询缓存剩余存活时间失败，cacheName={}, key={}：{}", cacheName, key, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.ymjrhk.rbac.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 单个两级缓存的提前刷新（refresh-ahead）
+ *
+ * <p>TTL 很短的缓存（如 USER_AUTH）每过一个 TTL，活跃用户的下一个请求就要同步回源一次。
+ * 这里在条目进入 Redis TTL 最后一段（刷新窗口）后被访问时，提交到有界的后台线程池重新加载并写回两级缓存，
+ * 请求线程照常返回当前值；线程池满时放弃这次刷新，到期后按原来的方式加载。
+ *
+ * <p>每个 key 记一个“从何时起需要刷新”的时刻：
+ * <ul>
+ *   <li>本节点写入（加载、put、刷新）时，由 TTL 直接算出</li>
+ *   <li>其他节点写入、本节点从 Redis 读到的条目不知道写入时间，在后台用 PTTL 查一次剩余时间再决定</li>
+ * </ul>
+ * 请求线程上只有一次 ConcurrentHashMap 查找；同一个 key 同一时刻最多一个刷新任务。
+ *
+ * <p>刷新期间缓存被主动失效（evict / clear）时丢弃刷新结果：写回前发现失效就不写，
+ * 写回后才发现就删掉刚写的值，避免把失效前读到的旧数据写回去。
+ */
+@Slf4j
+public class RefreshAhead {
+
+    private final String cacheName;
+
+    private final long ttlNanos;
+
+    private final long windowNanos;
+
+    private final Executor executor;
+
+    /**
+     * 为 null 时只刷新本节点写入的条目
+     */
+    private final RemoteTtl remoteTtl;
+
+    private final CacheMetrics metrics;
+
+    private final int maxTracked;
+
+    private final LongSupplier ticker;
+
+    /**
+     * key -> 需要刷新的时刻（ticker 时间）
+     */
+    private final ConcurrentHashMap<String, Long> refreshAt = new ConcurrentHashMap<>();
+
+    /**
+     * 正在刷新的 key
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 每次 evict / clear 加一，刷新任务据此判断期间是否发生过失效
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public RefreshAhead(String cacheName,
+                        RefreshAheadSpec spec,
+                        Executor executor,
+                        RemoteTtl remoteTtl,
+                        CacheMetrics metrics,
+                        int maxTracked) {
+        this(cacheName, spec, executor, remoteTtl, metrics, maxTracked, System::nanoTime);
+    }
+
+    RefreshAhead(String cacheName,
+                 RefreshAheadSpec spec,
+                 Executor executor,
+                 RemoteTtl remoteTtl,
+                 CacheMetrics metrics,
+                 int maxTracked,
+                 LongSupplier ticker) {
+        Duration ttl = spec.getTtl();
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("提前刷新的 TTL 必须大于 0：" + cacheName);
+        }
+        if (!(spec.getRatio() > 0 && spec.getRatio() < 1)) {
+            throw new IllegalArgumentException("提前刷新窗口比例必须在 (0, 1) 之间：" + cacheName + "=" + spec.getRatio());
+        }
+        this.cacheName = cacheName;
+        this.ttlNanos = ttl.toNanos();
+        this.windowNanos = (long) (ttlNanos * spec.getRatio());
+        this.executor = executor;
+        this.remoteTtl = remoteTtl;
+        this.metrics = metrics;
+        this.maxTracked = maxTracked;
+        this.ticker = ticker;
+    }
+
+    /**
+     * 命中后调用：进入刷新窗口（或不知道剩余时间）时提交后台任务
+     *
+     * @param cache       写回的目标
+     * @param key
+     * @param localKey
+     * @param valueLoader
+     */
+    void accessed(TwoLevelCache cache, Object key, String localKey, Callable<?> valueLoader) {
+        Long at = refreshAt.get(localKey);
+        if (at != null && ticker.getAsLong() - at < 0) {
+            return;
+        }
+        if (at == null && remoteTtl == null) {
+            return;
+        }
+        if (!refreshing.add(localKey)) {
+            return;
+        }
+        long generation = invalidations.get();
+        try {
+            executor.execute(() -> refresh(cache, key, localKey, valueLoader, at == null, generation));
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(localKey);
+            metrics.refresh("rejected");
+        }
+    }
+
+    /**
+     * 本节点把 key 写入了 Redis（TTL 重新开始）
+     *
+     * @param localKey
+     */
+    void written(String localKey) {
+        track(localKey, ticker.getAsLong() + ttlNanos - windowNanos);
+    }
+
+    void evicted(String localKey) {
+        invalidations.incrementAndGet();
+        refreshAt.remove(localKey);
+    }
+
+    void cleared() {
+        invalidations.incrementAndGet();
+        refreshAt.clear();
+    }
+
+    private void refresh(TwoLevelCache cache,
+                         Object key,
+                         String localKey,
+                         Callable<?> valueLoader,
+                         boolean ageUnknown,
+                         long generation) {
+        try {
+            if (ageUnknown && !dueByRemoteTtl(key, localKey)) {
+                return;
+            }
+
+            Object value = valueLoader.call();
+            if (value == null || invalidations.get() != generation) {
+                refreshAt.remove(localKey);
+                metrics.refresh("discarded");
+                return;
+            }
+            cache.writeRefreshed(key, localKey, value);
+            if (invalidations.get() != generation) {
+                cache.discardRefreshed(key, localKey);
+                metrics.refresh("discarded");
+                return;
+            }
+            metrics.refresh("refreshed");
+        } catch (Exception e) {
+            // 到期后由请求线程按原来的方式加载；在此之前不再重试
+            track(localKey, ticker.getAsLong() + windowNanos);
+            metrics.refresh("failed");
+            log.warn("缓存提前刷新失败，cacheName={}, key={}：{}", cacheName, localKey, e.getMessage());
+        } finally {
+            refreshing.remove(localKey);
+        }
+    }
+
+    /**
+     * 用 Redis 中的剩余时间判断是否已进入刷新窗口，没有进入则记下进入的时刻
+     */
+    private boolean dueByRemoteTtl(Object key, String localKey) {
+        long now = ticker.getAsLong();
+        Duration remaining = remoteTtl.remaining(cacheName, key);
+        if (remaining == null) {
+            // Redis 里已经没有了（或查不到）：等本地条目过期后重新加载，期间不再反复查询
+            track(localKey, now + windowNanos);
+            metrics.refresh("skipped");
+            return false;
+        }
+        if (remaining.toNanos() > windowNanos) {
+            track(localKey, now + remaining.toNanos() - windowNanos);
+            metrics.refresh("skipped");
+            return false;
+        }
+        return true;
+    }
+
+    private void track(String localKey, long at) {
+        if (refreshAt.size() >= maxTracked && !refreshAt.containsKey(localKey)) {
+            // 超过上限直接清空，之后访问到的 key 重新查询剩余时间
+            refreshAt.clear();
+        }
+        refreshAt.put(localKey, at);
+    }
+}
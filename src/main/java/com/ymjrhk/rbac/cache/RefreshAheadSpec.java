@@ -0,0 +1,24 @@
+package com.ymjrhk.rbac.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * 提前刷新配置：条目进入 Redis TTL 的最后一段时间后被访问，就在后台重新加载
+ */
+@Data
+@AllArgsConstructor
+public class RefreshAheadSpec {
+
+    /**
+     * Redis TTL（与 RedisCacheConfiguration 的 entryTtl 一致）
+     */
+    private Duration ttl;
+
+    /**
+     * 刷新窗口占 TTL 的比例，如 0.2 表示剩余不到 20% 的 TTL 时刷新
+     */
+    private double ratio;
+}
@@ -0,0 +1,15 @@
+package com.ymjrhk.rbac.cache;
+
+import java.util.Collection;
+
+/**
+ * 远端缓存批量删除：多个缓存、多个 key 一次往返删掉
+ */
+public interface RemoteBatchEvictor {
+
+    /**
+     * @param cacheNames
+     * @param keys       每个缓存下都删除这些 key
+     */
+    void evict(Collection<String> cacheNames, Collection<?> keys);
+}
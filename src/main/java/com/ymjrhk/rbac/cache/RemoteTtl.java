@@ -0,0 +1,16 @@
+package com.ymjrhk.rbac.cache;
+
+import java.time.Duration;
+
+/**
+ * 查询远端缓存条目的剩余存活时间（提前刷新时判断其他节点写入的条目还剩多久）
+ */
+public interface RemoteTtl {
+
+    /**
+     * @param cacheName
+     * @param key
+     * @return 条目不存在、没有过期时间或查询失败时返回 null
+     */
+    Duration remaining(String cacheName, Object key);
+}
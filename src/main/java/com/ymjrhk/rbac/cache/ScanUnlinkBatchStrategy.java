@@ -0,0 +1,70 @@
+package com.ymjrhk.rbac.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.cache.BatchStrategy;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 清空整个 RedisCache（cache.clear() / allEntries = true）时使用的批量删除策略
+ *
+ * <p>默认写入器用 KEYS pattern 一次取出全部 key 再 DEL：KEYS 要遍历整个 keyspace，
+ * 几十万个 user:permissions::* 时会把共享的 Redis 卡住几百毫秒，DEL 同步释放内存也一样。
+ * 这里改为 SCAN 游标分批取 key，每批用 UNLINK 删除：单条命令只处理 {@code batchSize} 个槽位，
+ * 内存由 Redis 后台线程释放，其他客户端的命令可以穿插执行。
+ *
+ * <p>SCAN 保证清空开始前已存在的 key 都会被遍历到；同一个 key 可能返回多次，UNLINK 重复删除无副作用。
+ * 清空过程中新写入的 key 可能保留下来，与逐个删除的语义相同。
+ */
+@Slf4j
+public class ScanUnlinkBatchStrategy implements BatchStrategy {
+
+    private final int batchSize;
+
+    public ScanUnlinkBatchStrategy(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize 必须大于 0：" + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public long cleanCache(RedisConnection connection, String name, byte[] pattern) {
+        RedisKeyCommands keyCommands = connection.keyCommands();
+        ScanOptions options = ScanOptions.scanOptions().count(batchSize).match(pattern).build();
+
+        long deleted = 0;
+        int batches = 0;
+        byte[][] batch = new byte[batchSize][];
+        int size = 0;
+        try (Cursor<byte[]> cursor = keyCommands.scan(options)) {
+            while (cursor.hasNext()) {
+                batch[size++] = cursor.next();
+                if (size == batchSize) {
+                    deleted += unlink(keyCommands, batch);
+                    batches++;
+                    size = 0;
+                }
+            }
+        }
+        if (size > 0) {
+            byte[][] tail = new byte[size][];
+            System.arraycopy(batch, 0, tail, 0, size);
+            deleted += unlink(keyCommands, tail);
+            batches++;
+        }
+
+        log.info("清空缓存 {}：pattern={}，删除 {} 个 key，{} 批",
+                name, new String(pattern, StandardCharsets.UTF_8), deleted, batches);
+        return deleted;
+    }
+
+    private static long unlink(RedisKeyCommands keyCommands, byte[][] keys) {
+        Long removed = keyCommands.unlink(keys);
+        return removed == null ? 0 : removed;
+    }
+}
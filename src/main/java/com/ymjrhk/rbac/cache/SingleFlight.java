@@ -0,0 +1,86 @@
+package com.ymjrhk.rbac.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 同一个 key 同一时刻只执行一次加载，其他调用方等待并共享结果（包括异常）
+ *
+ * <p>加载结束后立刻移除，不缓存结果；同一线程在加载过程中再次请求同一个 key 时直接执行，不会自己等自己。
+ */
+public class SingleFlight {
+
+    private final ConcurrentHashMap<String, Call> calls = new ConcurrentHashMap<>();
+
+    /**
+     * 执行或等待加载
+     *
+     * @param key
+     * @param loader
+     * @return 加载结果和是否由当前线程执行
+     */
+    public Result execute(String key, Supplier<Object> loader) {
+        Call call = new Call(Thread.currentThread());
+        Call existing = calls.putIfAbsent(key, call);
+        if (existing != null) {
+            if (existing.owner == Thread.currentThread()) {
+                return new Result(loader.get(), true);
+            }
+            return new Result(join(existing.future), false);
+        }
+
+        try {
+            Object value = loader.get();
+            call.future.complete(value);
+            return new Result(value, true);
+        } catch (RuntimeException | Error e) {
+            call.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * 正在加载的 key 数
+     *
+     * @return
+     */
+    public int inFlight() {
+        return calls.size();
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param value  加载结果
+     * @param loaded 是否由当前线程执行了加载（false 表示等到了其他线程的结果）
+     */
+    public record Result(Object value, boolean loaded) {
+    }
+
+    private static final class Call {
+
+        private final Thread owner;
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        private Call(Thread owner) {
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.ymjrhk.rbac.cache;
+
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 记录每次读写的 key 和序列化后的值大小（{@link CacheTelemetry}），其余照常交给被包装的 RedisCacheWriter
+ *
+ * <p>包在 RedisCacheWriter 这一层：这里看到的就是实际发给 Redis 的 key 和字节，本地缓存命中不经过这里，
+ * 统计出的热 key 正是占用 Redis 带宽、值得放进近端缓存的那些。
+ */
+public class TelemetryRedisCacheWriter implements RedisCacheWriter {
+
+    private final RedisCacheWriter delegate;
+
+    private final CacheTelemetry telemetry;
+
+    public TelemetryRedisCacheWriter(RedisCacheWriter delegate, CacheTelemetry telemetry) {
+        this.delegate = delegate;
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        return read(name, key, delegate.get(name, key));
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, Duration ttl) {
+        return read(name, key, delegate.get(name, key, ttl));
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, Supplier<byte[]> valueLoader, Duration ttl, boolean timeToIdleEnabled) {
+        return read(name, key, delegate.get(name, key, valueLoader, ttl, timeToIdleEnabled));
+    }
+
+    @Override
+    public boolean supportsAsyncRetrieve() {
+        return delegate.supportsAsyncRetrieve();
+    }
+
+    @Override
+    public CompletableFuture<byte[]> retrieve(String name, byte[] key, Duration ttl) {
+        return delegate.retrieve(name, key, ttl).thenApply(value -> read(name, key, value));
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        delegate.put(name, key, value, ttl);
+        telemetry.written(name, key, value);
+    }
+
+    @Override
+    public CompletableFuture<Void> store(String name, byte[] key, byte[] value, Duration ttl) {
+        return delegate.store(name, key, value, ttl).thenRun(() -> telemetry.written(name, key, value));
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        byte[] existing = delegate.putIfAbsent(name, key, value, ttl);
+        if (existing == null) {
+            telemetry.written(name, key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        delegate.remove(name, key);
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        delegate.clean(name, pattern);
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        delegate.clearStatistics(name);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new TelemetryRedisCacheWriter(delegate.withStatisticsCollector(cacheStatisticsCollector), telemetry);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return delegate.getCacheStatistics(cacheName);
+    }
+
+    private byte[] read(String name, byte[] key, byte[] value) {
+        telemetry.read(name, key, value);
+        return value;
+    }
+}
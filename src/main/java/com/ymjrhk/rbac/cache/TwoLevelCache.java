@@ -0,0 +1,477 @@
+package com.ymjrhk.rbac.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.interceptor.CacheOperationInvoker;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 两级缓存：进程内近端缓存（LocalCache）在前，Redis 在后
+ *
+ * <p>读：先查本地，未命中再查 Redis，Redis 命中则回填本地。
+ * <p>写：先写 Redis，再写本地。
+ * <p>删（@CacheEvict）：先删 Redis，再删本地，最后通过 Redis 频道广播，让其他节点删掉各自的本地副本。
+ *
+ * <p>本地条目的 TTL 比 Redis 短，即使广播丢失或与并发加载交错，脏数据最多存活一个本地 TTL。
+ * 本地缓存直接返回同一个对象引用，调用方不应修改缓存返回的对象。
+ *
+ * <p>加载（@Cacheable(sync = true)，即 get(key, valueLoader)）去重：
+ * <ul>
+ *   <li>本节点：同一个 key 只有一个线程加载，其他线程等待它的结果（SingleFlight）</li>
+ *   <li>跨节点（配置了 LoadLease 时）：拿到租约的节点加载；其他节点有本地旧值就先返回旧值，
+ *       没有就等它写回 Redis，等不到再自己加载</li>
+ * </ul>
+ * 未配置 NegativeCaching 时，加载结果为 null 不写缓存（相当于 unless = "#result == null"）；
+ * 配置了则把 null 和登记过的“不存在”异常写成短 TTL 的哨兵（{@link NegativeResult}），命中时还原。
+ * 不认识的哨兵（未配置 NegativeCaching，或类型名已不再登记）当作未命中。
+ *
+ * <p>配置了 RefreshAhead 时，命中的条目进入 Redis TTL 的最后一段后在后台重新加载（见 {@link RefreshAhead}）。
+ *
+ * <p>配置了 RedisCircuitBreaker 时（remote 为 {@link CircuitBreakingCache}），Redis 熔断期间只用本地缓存：
+ * 本地条目的 TTL 缩短到 degradedLocalTtl，不申请跨节点租约。
+ */
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+
+    private final Cache remote;
+
+    private final LocalCache local;
+
+    private final CacheInvalidationPublisher publisher;
+
+    private final CacheMetrics metrics;
+
+    /**
+     * 为 null 时不做跨节点去重
+     */
+    private final LoadLease lease;
+
+    /**
+     * 为 null 时不提前刷新
+     */
+    private final RefreshAhead refreshAhead;
+
+    /**
+     * 为 null 时不缓存负结果
+     */
+    private final NegativeCaching negativeCaching;
+
+    /**
+     * 为 null 时不熔断
+     */
+    private final RedisCircuitBreaker circuitBreaker;
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    /**
+     * 等待租约持有者写回时轮询 Redis 的间隔
+     */
+    private static final long LEASE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    public TwoLevelCache(String name,
+                         Cache remote,
+                         LocalCache local,
+                         CacheInvalidationPublisher publisher,
+                         CacheMetrics metrics) {
+        this(name, remote, local, publisher, metrics, null);
+    }
+
+    public TwoLevelCache(String name,
+                         Cache remote,
+                         LocalCache local,
+                         CacheInvalidationPublisher publisher,
+                         CacheMetrics metrics,
+                         LoadLease lease) {
+        this(name, remote, local, publisher, metrics, lease, null);
+    }
+
+    public TwoLevelCache(String name,
+                         Cache remote,
+                         LocalCache local,
+                         CacheInvalidationPublisher publisher,
+                         CacheMetrics metrics,
+                         LoadLease lease,
+                         RefreshAhead refreshAhead) {
+        this(name, remote, local, publisher, metrics, lease, refreshAhead, null);
+    }
+
+    public TwoLevelCache(String name,
+                         Cache remote,
+                         LocalCache local,
+                         CacheInvalidationPublisher publisher,
+                         CacheMetrics metrics,
+                         LoadLease lease,
+                         RefreshAhead refreshAhead,
+                         NegativeCaching negativeCaching) {
+        this(name, remote, local, publisher, metrics, lease, refreshAhead, negativeCaching, null);
+    }
+
+    public TwoLevelCache(String name,
+                         Cache remote,
+                         LocalCache local,
+                         CacheInvalidationPublisher publisher,
+                         CacheMetrics metrics,
+                         LoadLease lease,
+                         RefreshAhead refreshAhead,
+                         NegativeCaching negativeCaching,
+                         RedisCircuitBreaker circuitBreaker) {
+        this.name = name;
+        this.remote = remote;
+        this.local = local;
+        this.publisher = publisher;
+        this.metrics = metrics;
+        this.lease = lease;
+        this.refreshAhead = refreshAhead;
+        this.negativeCaching = negativeCaching;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = toLocalKey(key);
+
+        Object value = localGet(localKey);
+        if (value != null) {
+            metrics.localHit();
+            return new SimpleValueWrapper(resolve(value));
+        }
+
+        long start = System.nanoTime();
+        ValueWrapper wrapper = remote.get(key);
+        long remoteNanos = System.nanoTime() - start;
+        if (wrapper != null && usable(wrapper.get())) {
+            metrics.remoteHit(remoteNanos);
+            putLocal(localKey, wrapper.get());
+            return new SimpleValueWrapper(resolve(wrapper.get()));
+        }
+        metrics.miss(localKey, remoteNanos);
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper == null) {
+            return null;
+        }
+        Object value = wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值类型不匹配，期望 " + type.getName() + "，实际 " + value.getClass().getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = toLocalKey(key);
+
+        Object value = localGet(localKey);
+        if (value != null) {
+            metrics.localHit();
+            refreshIfDue(key, localKey, value, valueLoader);
+            return (T) resolve(value);
+        }
+
+        SingleFlight.Result result = singleFlight.execute(localKey, () -> loadThrough(key, localKey, valueLoader));
+        if (!result.loaded()) {
+            metrics.coalesced();
+        }
+        if (result.value() != null) {
+            // 本节点刚加载的条目还远没到刷新窗口，这里实际只对 Redis 命中的条目起作用
+            refreshIfDue(key, localKey, result.value(), valueLoader);
+        }
+        return (T) resolve(result.value());
+    }
+
+    /**
+     * 本地未命中：查 Redis，未命中再（在租约保护下）加载
+     */
+    private Object loadThrough(Object key, String localKey, Callable<?> valueLoader) {
+        Object value = remoteGet(key, localKey);
+        if (value != null) {
+            return value;
+        }
+        if (lease == null || degraded()) {
+            return load(key, localKey, valueLoader);
+        }
+
+        if (lease.tryAcquire(name, localKey)) {
+            try {
+                // 拿到租约前，上一个持有者可能刚写回
+                value = remoteGet(key, localKey);
+                return value != null ? value : load(key, localKey, valueLoader);
+            } finally {
+                lease.release(name, localKey);
+            }
+        }
+
+        // 其他节点正在加载
+        Object stale = local.getStale(localKey, lease.maxStale());
+        if (stale != null) {
+            metrics.staleServed();
+            return stale;
+        }
+        long deadline = System.nanoTime() + lease.waitTimeout().toNanos();
+        while (System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(LEASE_POLL_NANOS);
+            ValueWrapper wrapper = remote.get(key);
+            if (wrapper != null && wrapper.get() != null && usable(wrapper.get())) {
+                metrics.leaseWait();
+                putLocal(localKey, wrapper.get());
+                return wrapper.get();
+            }
+        }
+        metrics.duplicate();
+        return load(key, localKey, valueLoader);
+    }
+
+    private Object remoteGet(Object key, String localKey) {
+        long start = System.nanoTime();
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null || wrapper.get() == null || !usable(wrapper.get())) {
+            return null;
+        }
+        metrics.remoteHit(System.nanoTime() - start);
+        putLocal(localKey, wrapper.get());
+        return wrapper.get();
+    }
+
+    /**
+     * 执行 valueLoader 并写回两级缓存，异常按 Cache 约定包装成 ValueRetrievalException
+     */
+    private Object load(Object key, String localKey, Callable<?> valueLoader) {
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            storeNegative(key, localKey, e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        metrics.load(System.nanoTime() - start);
+        if (value != null) {
+            remote.put(key, value);
+            putLocal(localKey, value);
+            written(localKey);
+            return value;
+        }
+        if (negativeCaching != null) {
+            writeNegative(key, localKey, new NegativeResult(NegativeResult.NULL, null));
+        }
+        return null;
+    }
+
+    /**
+     * 加载抛出登记过的“不存在”异常时写入哨兵，之后的请求在哨兵过期前直接重新抛出
+     */
+    private void storeNegative(Object key, String localKey, Exception e) {
+        if (negativeCaching == null) {
+            return;
+        }
+        // @Cacheable 的 valueLoader 把方法抛出的异常包了一层
+        Throwable cause = e instanceof CacheOperationInvoker.ThrowableWrapper wrapper ? wrapper.getOriginal() : e;
+        NegativeResult negative = negativeCaching.fromException(cause);
+        if (negative != null) {
+            writeNegative(key, localKey, negative);
+        }
+    }
+
+    private void writeNegative(Object key, String localKey, NegativeResult negative) {
+        try {
+            remote.put(key, negative);
+        } catch (RuntimeException e) {
+            // 只是少挡一次重复查询，不能掩盖加载本身的结果
+            return;
+        }
+        putLocal(localKey, negative);
+        metrics.negative("stored");
+    }
+
+    private Object localGet(String localKey) {
+        Object value = local.get(localKey);
+        if (value != null && !usable(value)) {
+            local.evict(localKey);
+            return null;
+        }
+        return value;
+    }
+
+    private void putLocal(String localKey, Object value) {
+        if (value instanceof NegativeResult) {
+            local.put(localKey, value, negativeCaching.getLocalTtl());
+        } else if (degraded()) {
+            local.put(localKey, value, circuitBreaker.getDegradedLocalTtl());
+        } else {
+            local.put(localKey, value);
+        }
+    }
+
+    private boolean degraded() {
+        return circuitBreaker != null && circuitBreaker.isOpen();
+    }
+
+    /**
+     * 哨兵只在配置了 NegativeCaching 且类型名仍登记时才认
+     */
+    private boolean usable(Object value) {
+        return !(value instanceof NegativeResult negative) || (negativeCaching != null && negativeCaching.isKnown(negative));
+    }
+
+    /**
+     * 哨兵还原成 null，或重新抛出对应的异常
+     */
+    private Object resolve(Object value) {
+        if (!(value instanceof NegativeResult negative)) {
+            return value;
+        }
+        metrics.negative("hit");
+        RuntimeException e = negativeCaching.toException(negative);
+        if (e != null) {
+            throw e;
+        }
+        return null;
+    }
+
+    private void refreshIfDue(Object key, String localKey, Object value, Callable<?> valueLoader) {
+        // 哨兵 TTL 很短，到期后重新加载即可，不提前刷新
+        if (refreshAhead != null && !(value instanceof NegativeResult)) {
+            refreshAhead.accessed(this, key, localKey, valueLoader);
+        }
+    }
+
+    /**
+     * 提前刷新的结果写回两级缓存（不广播：值是新加载的，其他节点的本地副本到期后自然读到）
+     */
+    void writeRefreshed(Object key, String localKey, Object value) {
+        remote.put(key, value);
+        putLocal(localKey, value);
+        written(localKey);
+    }
+
+    /**
+     * 刷新结果写回后才发现期间发生过失效：删掉刚写的值
+     */
+    void discardRefreshed(Object key, String localKey) {
+        remote.evict(key);
+        local.evict(localKey);
+    }
+
+    private void written(String localKey) {
+        if (refreshAhead != null) {
+            refreshAhead.written(localKey);
+        }
+    }
+
+    private void evicted(String localKey) {
+        if (refreshAhead != null) {
+            if (localKey == null) {
+                refreshAhead.cleared();
+            } else {
+                refreshAhead.evicted(localKey);
+            }
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String localKey = toLocalKey(key);
+        metrics.put(localKey);
+        remote.put(key, value);
+        putLocal(localKey, value);
+        written(localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        // 以 Redis 中最终的值为准，本地直接丢弃，下次读取时回填
+        String localKey = toLocalKey(key);
+        local.evict(localKey);
+        evicted(localKey);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = toLocalKey(key);
+        evicted(localKey);
+        remote.evict(key);
+        local.evict(localKey);
+        publisher.publish(name, localKey);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        String localKey = toLocalKey(key);
+        evicted(localKey);
+        boolean present = remote.evictIfPresent(key);
+        local.evict(localKey);
+        publisher.publish(name, localKey);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        evicted(null);
+        remote.clear();
+        local.clear();
+        publisher.publish(name, null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        evicted(null);
+        boolean present = remote.invalidate();
+        local.clear();
+        publisher.publish(name, null);
+        return present;
+    }
+
+    /**
+     * 收到其他节点的失效广播时调用，只清本地，不再广播
+     *
+     * @param localKey 为 null 时清空整个本地缓存
+     */
+    public void evictLocal(String localKey) {
+        evicted(localKey);
+        if (localKey == null) {
+            local.clear();
+        } else {
+            local.evict(localKey);
+        }
+    }
+
+    public LocalCache getLocalCache() {
+        return local;
+    }
+
+    Cache getRemoteCache() {
+        return remote;
+    }
+
+    /**
+     * 本地缓存 key：与 RedisCache 一样转成字符串，保证跨节点广播时 key 一致
+     *
+     * @param key
+     * @return
+     */
+    static String toLocalKey(Object key) {
+        return String.valueOf(key);
+    }
+}
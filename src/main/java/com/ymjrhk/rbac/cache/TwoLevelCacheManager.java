@@ -0,0 +1,263 @@
+package com.ymjrhk.rbac.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 两级缓存管理器：包装远端（Redis）CacheManager，为每个缓存套上一层本地近端缓存
+ *
+ * <p>配置了 RedisCircuitBreaker 时，远端缓存、批量删除和失效广播都经过熔断器；
+ * Redis 恢复后由这里重放积压的删除，并清掉本节点的全部本地缓存（见 {@link #reconcile}）。
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager remoteCacheManager;
+
+    private final Map<String, NearCacheSpec> nearSpecs;
+
+    private final NearCacheSpec defaultNearSpec;
+
+    /**
+     * 配置了熔断器时是经过熔断器的广播
+     */
+    private final CacheInvalidationPublisher publisher;
+
+    /**
+     * 恢复时重放用，不经过熔断器
+     */
+    private final CacheInvalidationPublisher directPublisher;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 为 null 时逐个 key 删除远端
+     */
+    private final RemoteBatchEvictor batchEvictor;
+
+    /**
+     * 跨节点加载租约，为 null 时只在节点内去重
+     */
+    private final LoadLease lease;
+
+    /**
+     * 缓存名 -> 提前刷新配置，没有配置的缓存不提前刷新
+     */
+    private final Map<String, RefreshAheadSpec> refreshSpecs;
+
+    private final Executor refreshExecutor;
+
+    private final RemoteTtl remoteTtl;
+
+    /**
+     * 负结果缓存（对全部缓存生效），为 null 时不缓存负结果
+     */
+    private final NegativeCaching negativeCaching;
+
+    /**
+     * 为 null 时不熔断，Redis 异常直接抛给调用方
+     */
+    private final RedisCircuitBreaker circuitBreaker;
+
+    private final ConcurrentHashMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                Map<String, NearCacheSpec> nearSpecs,
+                                NearCacheSpec defaultNearSpec,
+                                CacheInvalidationPublisher publisher,
+                                MeterRegistry meterRegistry,
+                                RemoteBatchEvictor batchEvictor) {
+        this(remoteCacheManager, nearSpecs, defaultNearSpec, publisher, meterRegistry, batchEvictor, null);
+    }
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                Map<String, NearCacheSpec> nearSpecs,
+                                NearCacheSpec defaultNearSpec,
+                                CacheInvalidationPublisher publisher,
+                                MeterRegistry meterRegistry,
+                                RemoteBatchEvictor batchEvictor,
+                                LoadLease lease) {
+        this(remoteCacheManager, nearSpecs, defaultNearSpec, publisher, meterRegistry, batchEvictor, lease,
+                Map.of(), null, null, null);
+    }
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                Map<String, NearCacheSpec> nearSpecs,
+                                NearCacheSpec defaultNearSpec,
+                                CacheInvalidationPublisher publisher,
+                                MeterRegistry meterRegistry,
+                                RemoteBatchEvictor batchEvictor,
+                                LoadLease lease,
+                                Map<String, RefreshAheadSpec> refreshSpecs,
+                                Executor refreshExecutor,
+                                RemoteTtl remoteTtl,
+                                NegativeCaching negativeCaching) {
+        this(remoteCacheManager, nearSpecs, defaultNearSpec, publisher, meterRegistry, batchEvictor, lease,
+                refreshSpecs, refreshExecutor, remoteTtl, negativeCaching, null);
+    }
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                Map<String, NearCacheSpec> nearSpecs,
+                                NearCacheSpec defaultNearSpec,
+                                CacheInvalidationPublisher publisher,
+                                MeterRegistry meterRegistry,
+                                RemoteBatchEvictor batchEvictor,
+                                LoadLease lease,
+                                Map<String, RefreshAheadSpec> refreshSpecs,
+                                Executor refreshExecutor,
+                                RemoteTtl remoteTtl,
+                                NegativeCaching negativeCaching,
+                                RedisCircuitBreaker circuitBreaker) {
+        if (!refreshSpecs.isEmpty() && refreshExecutor == null) {
+            throw new IllegalArgumentException("配置了提前刷新的缓存时必须提供刷新线程池");
+        }
+        this.remoteCacheManager = remoteCacheManager;
+        this.nearSpecs = Map.copyOf(nearSpecs);
+        this.defaultNearSpec = defaultNearSpec;
+        this.publisher = circuitBreaker == null ? publisher : circuitBreaker.guard(publisher);
+        this.directPublisher = publisher;
+        this.meterRegistry = meterRegistry;
+        this.batchEvictor = batchEvictor;
+        this.lease = lease;
+        this.refreshSpecs = Map.copyOf(refreshSpecs);
+        this.refreshExecutor = refreshExecutor;
+        this.remoteTtl = remoteTtl;
+        this.negativeCaching = negativeCaching;
+        this.circuitBreaker = circuitBreaker;
+        if (circuitBreaker != null) {
+            circuitBreaker.onReconcile(this::reconcile);
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+
+        Cache redis = remoteCacheManager.getCache(name);
+        if (redis == null) {
+            return null;
+        }
+        Cache remote = circuitBreaker == null ? redis : new CircuitBreakingCache(redis, circuitBreaker);
+
+        return caches.computeIfAbsent(name, n -> {
+            NearCacheSpec spec = nearSpecs.getOrDefault(n, defaultNearSpec);
+            LocalCache local = new LocalCache(spec.getTtl(), spec.getMaxSize());
+            CacheMetrics metrics = new CacheMetrics(n, local, meterRegistry);
+            RefreshAheadSpec refreshSpec = refreshSpecs.get(n);
+            RefreshAhead refreshAhead = refreshSpec == null ? null
+                    : new RefreshAhead(n, refreshSpec, refreshExecutor, remoteTtl, metrics, spec.getMaxSize());
+            return new TwoLevelCache(n, remote, local, publisher, metrics, lease, refreshAhead, negativeCaching,
+                    circuitBreaker);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        Set<String> names = new LinkedHashSet<>(remoteCacheManager.getCacheNames());
+        names.addAll(caches.keySet());
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * 批量删除：多个缓存下的同一批 key（如一批 userId）
+     * <p>
+     * 与 TwoLevelCache.evict 顺序相同：先删远端（一次往返），再删本地，最后每个缓存广播一条消息
+     *
+     * @param cacheNames
+     * @param keys
+     */
+    public void evictAll(Collection<String> cacheNames, Collection<?> keys) {
+        if (cacheNames.isEmpty() || keys.isEmpty()) {
+            return;
+        }
+
+        List<TwoLevelCache> targets = new ArrayList<>(cacheNames.size());
+        for (String cacheName : cacheNames) {
+            if (getCache(cacheName) instanceof TwoLevelCache cache) {
+                targets.add(cache);
+            }
+        }
+
+        List<String> localKeys = keys.stream().map(TwoLevelCache::toLocalKey).toList();
+        if (circuitBreaker == null) {
+            evictRemote(cacheNames, keys);
+        } else {
+            circuitBreaker.executeEviction(() -> evictRemote(cacheNames, keys),
+                    () -> targets.forEach(cache -> circuitBreaker.deferEvictions(cache.getName(), localKeys)));
+        }
+
+        for (TwoLevelCache cache : targets) {
+            localKeys.forEach(cache::evictLocal);
+            publisher.publishAll(cache.getName(), localKeys);
+        }
+    }
+
+    /**
+     * 直接删 Redis（不经过熔断器）
+     */
+    private void evictRemote(Collection<String> cacheNames, Collection<?> keys) {
+        if (batchEvictor != null) {
+            batchEvictor.evict(cacheNames, keys);
+            return;
+        }
+        for (String cacheName : cacheNames) {
+            Cache remote = remoteCacheManager.getCache(cacheName);
+            if (remote != null) {
+                keys.forEach(remote::evict);
+            }
+        }
+    }
+
+    /**
+     * Redis 恢复后（熔断器的恢复线程上）：重放积压的删除并广播，再清掉本节点的全部本地缓存
+     * <p>
+     * 降级期间其他节点的失效广播收不到，本地副本可能已经过时，全部清掉后从 Redis 重新读；
+     * 重放失败时抛出异常，熔断器把积压放回去、继续熔断。
+     *
+     * @param evictions
+     */
+    void reconcile(PendingEvictions evictions) {
+        for (String cacheName : evictions.clearedCaches()) {
+            Cache remote = remoteCacheManager.getCache(cacheName);
+            if (remote != null) {
+                remote.clear();
+            }
+            directPublisher.publish(cacheName, null);
+        }
+        evictions.keys().forEach((cacheName, keys) -> {
+            evictRemote(List.of(cacheName), keys);
+            directPublisher.publishAll(cacheName, keys);
+        });
+        caches.values().forEach(cache -> cache.evictLocal(null));
+    }
+
+    /**
+     * 只清本地副本（收到其他节点的失效广播时调用）
+     *
+     * @param cacheName
+     * @param key       为 null 时清空整个本地缓存
+     */
+    public void evictLocal(String cacheName, String key) {
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.evictLocal(key);
+        }
+    }
+
+    public CacheManager getRemoteCacheManager() {
+        return remoteCacheManager;
+    }
+}
@@ -0,0 +1,85 @@
+package com.ymjrhk.rbac.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 序列化后的缓存值大小分布：按 2 的幂分桶（第 i 个桶是 (2^(i-1), 2^i] 字节），无锁累加
+ */
+class ValueSizeHistogram {
+
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalBytes = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    void record(int size) {
+        buckets.incrementAndGet(bucket(size));
+        count.increment();
+        totalBytes.add(size);
+        max.accumulateAndGet(size, Math::max);
+    }
+
+    long totalBytes() {
+        return totalBytes.sum();
+    }
+
+    CacheTelemetry.SizeStats snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        Map<String, Long> nonEmpty = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] > 0) {
+                nonEmpty.put("<=" + format(1L << i), counts[i]);
+            }
+        }
+        return new CacheTelemetry.SizeStats(count.sum(), totalBytes.sum(), max.get(),
+                percentile(counts, total, 0.5), percentile(counts, total, 0.9), percentile(counts, total, 0.99),
+                nonEmpty);
+    }
+
+    static int bucket(int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    /**
+     * @return 百分位所在桶的上界（字节）
+     */
+    private static long percentile(long[] counts, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (counts.length - 1);
+    }
+
+    private static String format(long bytes) {
+        if (bytes >= 1 << 20) {
+            return (bytes >> 20) + "MB";
+        }
+        if (bytes >= 1 << 10) {
+            return (bytes >> 10) + "KB";
+        }
+        return bytes + "B";
+    }
+}
@@ -1,22 +1,73 @@
 package com.ymjrhk.rbac.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 public class AsyncConfig {
 
+    /**
+     * 登录审计日志（saveLoginLog 要查库，最多同时 8 个，避免占满连接池）
+     */
+    private static final int AUDIT_CONCURRENCY = 8;
+
+    /**
+     * 平台线程模式：固定线程池；虚拟线程模式（spring.threads.virtual.enabled=true）：每个任务一个虚拟线程
+     */
     @Bean("auditExecutor")
-    public Executor auditExecutor() {
+    public Executor auditExecutor(MeterRegistry meterRegistry, Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return virtualAuditExecutor();
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(4);
-        executor.setMaxPoolSize(8);
+        executor.setMaxPoolSize(AUDIT_CONCURRENCY);
         executor.setQueueCapacity(1000);
         executor.setThreadNamePrefix("async-audit-log-");
+        // 队列满时由调用线程执行，不再抛 RejectedExecutionException（审计日志写库已交给 AuditLogWriter，这里只剩登录日志查 userId）
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        // executor.queued / executor.active 等指标（tag name=auditExecutor）
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "auditExecutor", Tags.empty())
+                .bindTo(meterRegistry);
+        return executor;
+    }
+
+    /**
+     * 不排队、不占平台线程；超过并发上限时提交方（请求线程，也是虚拟线程）阻塞等待，与 CallerRunsPolicy 一样起背压作用。
+     * 没有线程池可观测，executor.* 指标只在平台线程模式下有
+     */
+    private static Executor virtualAuditExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("async-audit-log-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(AUDIT_CONCURRENCY);
+        return executor;
+    }
+
+    /**
+     * 两级缓存提前刷新：线程和队列都有上限，满了就放弃这次刷新（到期后由请求线程加载），不占用请求线程
+     */
+    @Bean("cacheRefreshExecutor")
+    public Executor cacheRefreshExecutor(MeterRegistry meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("cache-refresh-");
+        // 默认 AbortPolicy：拒绝时抛 TaskRejectedException，由 RefreshAhead 计数后放弃
         executor.initialize();
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "cacheRefreshExecutor", Tags.empty())
+                .bindTo(meterRegistry);
         return executor;
     }
 }
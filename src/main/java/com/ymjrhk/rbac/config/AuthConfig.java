@@ -0,0 +1,19 @@
+package com.ymjrhk.rbac.config;
+
+import com.ymjrhk.rbac.auth.VerifiedTokenCache;
+import com.ymjrhk.rbac.properties.JwtProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AuthConfig {
+
+    @Bean
+    public VerifiedTokenCache verifiedTokenCache(JwtProperties jwtProperties, MeterRegistry meterRegistry) {
+        return new VerifiedTokenCache(
+                jwtProperties.getVerifiedCacheSize(),
+                jwtProperties.getVerifiedCacheTtl(),
+                meterRegistry);
+    }
+}
@@ -1,32 +1,129 @@
 package com.ymjrhk.rbac.config;
 
+import com.alibaba.fastjson2.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ymjrhk.rbac.auth.AuthorizationSnapshot;
+import com.ymjrhk.rbac.auth.IdSet;
+import com.ymjrhk.rbac.auth.RoleSetPermissions;
+import com.ymjrhk.rbac.cache.CacheInvalidationListener;
+import com.ymjrhk.rbac.cache.CacheTelemetry;
+import com.ymjrhk.rbac.cache.CacheValueTypes;
+import com.ymjrhk.rbac.cache.CompactRedisSerializer;
+import com.ymjrhk.rbac.cache.NearCacheSpec;
+import com.ymjrhk.rbac.cache.NegativeCaching;
+import com.ymjrhk.rbac.cache.NegativeResult;
+import com.ymjrhk.rbac.cache.RedisCacheInvalidationPublisher;
+import com.ymjrhk.rbac.cache.RedisCircuitBreaker;
+import com.ymjrhk.rbac.cache.RedisLoadLease;
+import com.ymjrhk.rbac.cache.RedisPipelineBatchEvictor;
+import com.ymjrhk.rbac.cache.RedisRemoteTtl;
+import com.ymjrhk.rbac.cache.RefreshAheadSpec;
+import com.ymjrhk.rbac.cache.ScanUnlinkBatchStrategy;
+import com.ymjrhk.rbac.cache.TelemetryRedisCacheWriter;
+import com.ymjrhk.rbac.cache.TwoLevelCacheManager;
+import com.ymjrhk.rbac.dto.auth.UserAuthInfo;
+import com.ymjrhk.rbac.exception.PermissionNotExistException;
+import com.ymjrhk.rbac.exception.RoleNotExistException;
+import com.ymjrhk.rbac.exception.UserNotExistException;
+import com.ymjrhk.rbac.properties.CacheProperties;
+import com.ymjrhk.rbac.vo.MeViewVO;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import com.ymjrhk.rbac.vo.RoleVO;
+import com.ymjrhk.rbac.vo.UserVO;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.lang.reflect.Type;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
 
 import static com.ymjrhk.rbac.constant.CacheConstant.*;
 
 /**
  * Spring Cache 专用
+ * <p>
+ * 两级缓存：本地近端缓存（TTL 短）→ Redis（TTL 长）
+ * 任何 @CacheEvict 都会通过 Redis 频道广播，其他节点收到后删除各自的本地副本
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+    /**
+     * 清空整个缓存时每批 SCAN / UNLINK 的 key 数
+     */
+    private static final int CLEAR_BATCH_SIZE = 1_000;
+
+    private static final Set<String> ALL_CACHE_NAMES = Set.of(
+            USER_BASIC, USER_AUTH, USER_ME, USER_AUTHZ, USER_ROLES, USER_ROLE_NAMES,
+            ROLE_PERMISSIONS, ROLE_SET_PERMISSIONS, ROLE_BASIC, PERMISSION_BASIC, PERMISSION_ACTIONS, PERMISSION_TREE, ROLE_USERS, PERMISSION_ROLES
+    );
+
+    /**
+     * 缓存值类型编号（CompactRedisSerializer 写进 Redis，已使用的编号不能改、不能复用）
+     */
+    static final CacheValueTypes CACHE_VALUE_TYPES = new CacheValueTypes()
+            .register(1, NegativeResult.class)
+            .register(2, UserVO.class)
+            .register(3, UserAuthInfo.class)
+            .register(4, MeViewVO.class)
+            .register(5, AuthorizationSnapshot.class)
+            .register(6, new TypeReference<List<RoleVO>>() {}.getType())
+            .register(7, new TypeReference<Set<String>>() {}.getType())
+            .register(8, new TypeReference<List<PermissionVO>>() {}.getType())
+            .register(9, RoleSetPermissions.class)
+            .register(10, RoleVO.class)
+            .register(11, PermissionVO.class)
+            .register(12, IdSet.class);
+
+    /**
+     * 各缓存的值类型（与 @Cacheable 方法的返回值一致）；没有列出的缓存（如 PERMISSION_TREE）仍用 JSON
+     */
+    static final Map<String, Type> CACHE_VALUE_TYPE_BY_NAME = Map.ofEntries(
+            Map.entry(USER_BASIC, UserVO.class),
+            Map.entry(USER_AUTH, UserAuthInfo.class),
+            Map.entry(USER_ME, MeViewVO.class),
+            Map.entry(USER_AUTHZ, AuthorizationSnapshot.class),
+            Map.entry(USER_ROLES, new TypeReference<List<RoleVO>>() {}.getType()),
+            Map.entry(USER_ROLE_NAMES, new TypeReference<Set<String>>() {}.getType()),
+            Map.entry(ROLE_PERMISSIONS, new TypeReference<List<PermissionVO>>() {}.getType()),
+            Map.entry(ROLE_SET_PERMISSIONS, RoleSetPermissions.class),
+            Map.entry(ROLE_BASIC, RoleVO.class),
+            Map.entry(PERMISSION_BASIC, PermissionVO.class),
+            Map.entry(PERMISSION_ACTIONS, new TypeReference<List<PermissionVO>>() {}.getType()),
+            Map.entry(ROLE_USERS, IdSet.class),
+            Map.entry(PERMISSION_ROLES, IdSet.class)
+    );
+
     private final ObjectMapper redisObjectMapper;
 
+    /**
+     * 当前节点标识，用于忽略自己发出的失效广播
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
     // 使用自己写构造器注入
     // 涉及 @Qualifier，无法使用 Lombok 构造器 @RequiredArgsConstructor（无法拷贝注解）
     public CacheConfig(
@@ -35,8 +132,22 @@ public class CacheConfig {
         this.redisObjectMapper = redisObjectMapper;
     }
 
+    /**
+     * Redis 缓存的热 key 与值大小统计，由 CacheTelemetryEndpoint 暴露
+     */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory factory) {
+    public CacheTelemetry cacheTelemetry(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        CacheProperties.Telemetry telemetry = cacheProperties.getTelemetry();
+        return new CacheTelemetry(telemetry.getTopK(), telemetry.getSketchWidth(), meterRegistry);
+    }
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory factory,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             MeterRegistry meterRegistry,
+                                             CacheProperties cacheProperties,
+                                             @Qualifier("cacheRefreshExecutor") Executor cacheRefreshExecutor,
+                                             CacheTelemetry cacheTelemetry) {
 
         // JSON 序列化
         RedisSerializer<Object> jsonSerializer =
@@ -50,21 +161,145 @@ public class CacheConfig {
                                        )
                                        .disableCachingNullValues();
 
+        // 负结果哨兵（对全部缓存生效）：null 结果和下面登记的“不存在”异常，Redis 中用单独的短 TTL
+        CacheProperties.Negative negativeProperties = cacheProperties.getNegative();
+        NegativeCaching negativeCaching = negativeProperties.isEnabled()
+                ? new NegativeCaching(negativeProperties.getTtl(), negativeProperties.getLocalTtl())
+                .register("user-not-exist", UserNotExistException.class, UserNotExistException::new)
+                .register("role-not-exist", RoleNotExistException.class, RoleNotExistException::new)
+                .register("permission-not-exist", PermissionNotExistException.class, PermissionNotExistException::new)
+                : null;
+
         Map<String, RedisCacheConfiguration> configMap = new HashMap<>();
+        Map<String, NearCacheSpec> nearSpecs = new HashMap<>();
+        Map<String, RefreshAheadSpec> refreshSpecs = new HashMap<>();
 
         // 用户基本信息
-        configMap.put(USER_BASIC, baseConfig.entryTtl(Duration.ofMinutes(30)));
+        configMap.put(USER_BASIC, baseConfig.entryTtl(ttl(Duration.ofMinutes(30), negativeCaching)));
+        nearSpecs.put(USER_BASIC, nearSpec(Duration.ofMinutes(30), Duration.ofMinutes(1), 10_000));
+
+        // 角色组合的有效权限（条目数 = 角色组合数，角色权限变更时整个清空）
+        configMap.put(ROLE_SET_PERMISSIONS, baseConfig.entryTtl(ttl(Duration.ofMinutes(30), negativeCaching)));
+        nearSpecs.put(ROLE_SET_PERMISSIONS, nearSpec(Duration.ofMinutes(30), Duration.ofMinutes(1), 1_000));
+
+        // 全部接口权限（单条目，每个请求都会读；本地条目换了实例就重建处理方法 -> 权限索引）
+        configMap.put(PERMISSION_ACTIONS, baseConfig.entryTtl(ttl(Duration.ofMinutes(30), negativeCaching)));
+        nearSpecs.put(PERMISSION_ACTIONS, nearSpec(Duration.ofMinutes(30), Duration.ofMinutes(5), 1));
+
+        // 授权快照（与 USER_AUTH 一样每个请求都会读，只有用户状态和 roleId，权限在 ROLE_SET_PERMISSIONS）
+        configMap.put(USER_AUTHZ, baseConfig.entryTtl(ttl(Duration.ofMinutes(2), negativeCaching)));
+        nearSpecs.put(USER_AUTHZ, nearSpec(Duration.ofMinutes(2), Duration.ofSeconds(10), 10_000));
+        refreshSpecs.put(USER_AUTHZ, new RefreshAheadSpec(Duration.ofMinutes(2), 0.2)); // 与 USER_AUTH 相同
 
-        // 用户权限
-        configMap.put(USER_PERMISSIONS, baseConfig.entryTtl(Duration.ofMinutes(5)));
+        // 用户角色名集合（超级管理员判断每个请求都会读，靠 @CacheEvict 失效）
+        configMap.put(USER_ROLE_NAMES, baseConfig.entryTtl(ttl(Duration.ofMinutes(30), negativeCaching)));
+        nearSpecs.put(USER_ROLE_NAMES, nearSpec(Duration.ofMinutes(30), Duration.ofMinutes(1), 10_000));
 
-        // 登录鉴权信息
-        configMap.put(USER_AUTH, baseConfig.entryTtl(Duration.ofMinutes(2)));
+        // 登录鉴权信息（每个请求都会读，本地 TTL 更短，缩小广播丢失时的脏读窗口）
+        configMap.put(USER_AUTH, baseConfig.entryTtl(ttl(Duration.ofMinutes(2), negativeCaching)));
+        nearSpecs.put(USER_AUTH, nearSpec(Duration.ofMinutes(2), Duration.ofSeconds(10), 10_000));
+        // TTL 短且每个请求都会读：最后 20%（24 秒）内被访问就在后台刷新，活跃用户不会每 2 分钟同步回源一次
+        refreshSpecs.put(USER_AUTH, new RefreshAheadSpec(Duration.ofMinutes(2), 0.2));
 
-        return RedisCacheManager.builder(factory)
-                                .cacheDefaults(baseConfig.entryTtl(Duration.ofMinutes(5))) // 默认 TTL
-                                .withInitialCacheConfigurations(configMap)
-                                .build();
+        // 反向索引（角色 -> 用户、权限 -> 角色），关系变更时按 key 失效，未命中时从数据库重建
+        configMap.put(ROLE_USERS, baseConfig.entryTtl(ttl(Duration.ofMinutes(30), negativeCaching)));
+        nearSpecs.put(ROLE_USERS, nearSpec(Duration.ofMinutes(30), Duration.ofMinutes(1), 1_000));
+        configMap.put(PERMISSION_ROLES, baseConfig.entryTtl(ttl(Duration.ofMinutes(30), negativeCaching)));
+        nearSpecs.put(PERMISSION_ROLES, nearSpec(Duration.ofMinutes(30), Duration.ofMinutes(1), 1_000));
+
+        // 缓存值编码：打开 compact-values 后按上面声明的值类型写二进制，切换前写入的 JSON 照常能读
+        for (String cacheName : ALL_CACHE_NAMES) {
+            RedisCacheConfiguration config = configMap.getOrDefault(cacheName, baseConfig.entryTtl(ttl(DEFAULT_TTL, negativeCaching)));
+            Type valueType = CACHE_VALUE_TYPE_BY_NAME.get(cacheName);
+            if (cacheProperties.isCompactValues() && valueType != null) {
+                config = config.serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new CompactRedisSerializer(CACHE_VALUE_TYPES, valueType, jsonSerializer)));
+            }
+            configMap.put(cacheName, config);
+        }
+
+        // 清空整个缓存时用 SCAN + UNLINK 分批删除，代替默认的 KEYS + DEL
+        RedisCacheWriter cacheWriter =
+                RedisCacheWriter.nonLockingRedisCacheWriter(factory, new ScanUnlinkBatchStrategy(CLEAR_BATCH_SIZE));
+        if (cacheProperties.getTelemetry().isEnabled()) {
+            // 记录每次读写 Redis 的 key 和值大小（热 key、值大小分布）
+            cacheWriter = new TelemetryRedisCacheWriter(cacheWriter, cacheTelemetry);
+        }
+
+        RedisCacheManager redisCacheManager =
+                RedisCacheManager.builder(cacheWriter)
+                                 .cacheDefaults(baseConfig.entryTtl(ttl(DEFAULT_TTL, negativeCaching))) // 默认 TTL
+                                 .initialCacheNames(ALL_CACHE_NAMES) // 先按默认配置建好全部缓存，再用 configMap 覆盖
+                                 .withInitialCacheConfigurations(configMap)
+                                 .build();
+        redisCacheManager.afterPropertiesSet(); // 不是 Spring Bean，手动初始化
+
+        // 跨节点加载租约（可选）：同一个 key 只让一个节点回源
+        CacheProperties.Lease leaseProperties = cacheProperties.getLease();
+        RedisLoadLease lease = leaseProperties.isEnabled()
+                ? new RedisLoadLease(stringRedisTemplate, nodeId, leaseProperties.getTtl(),
+                leaseProperties.getWaitTimeout(), leaseProperties.getMaxStale())
+                : null;
+
+        // Redis 熔断：连续失败或变慢后只用本地缓存，恢复时在刷新线程池上探测、重放积压的删除
+        CacheProperties.Circuit circuitProperties = cacheProperties.getCircuit();
+        RedisCircuitBreaker circuitBreaker = circuitProperties.isEnabled()
+                ? new RedisCircuitBreaker(circuitProperties.getFailureThreshold(), circuitProperties.getSlowCall(),
+                circuitProperties.getOpenDuration(), circuitProperties.getDegradedLocalTtl(),
+                circuitProperties.getMaxPendingEvictions(),
+                () -> stringRedisTemplate.execute((RedisCallback<String>) RedisConnection::ping),
+                cacheRefreshExecutor, meterRegistry)
+                : null;
+
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(
+                redisCacheManager,
+                nearSpecs,
+                nearSpec(DEFAULT_TTL, Duration.ofSeconds(30), 1_000),
+                new RedisCacheInvalidationPublisher(stringRedisTemplate, nodeId),
+                meterRegistry,
+                new RedisPipelineBatchEvictor(redisCacheManager, stringRedisTemplate),
+                lease,
+                // 只给加载不依赖当前请求上下文的缓存配置（USER_ME 的 key 来自 UserContext，不能在后台线程上加载）
+                refreshSpecs,
+                cacheRefreshExecutor,
+                new RedisRemoteTtl(redisCacheManager, stringRedisTemplate),
+                negativeCaching,
+                circuitBreaker
+        );
+        // 启动时就创建全部缓存，指标从 0 开始可见，不必等到第一次访问
+        ALL_CACHE_NAMES.forEach(cacheManager::getCache);
+        return cacheManager;
+    }
+
+    /**
+     * 订阅缓存失效广播
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory factory,
+                                                                            TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(
+                new CacheInvalidationListener(cacheManager, nodeId),
+                new ChannelTopic(CACHE_INVALIDATION_CHANNEL)
+        );
+        return container;
+    }
+
+    /**
+     * 条目 TTL；启用负结果缓存时哨兵用它自己的短 TTL
+     */
+    private static RedisCacheWriter.TtlFunction ttl(Duration ttl, NegativeCaching negativeCaching) {
+        return negativeCaching != null ? negativeCaching.ttlFunction(ttl) : RedisCacheWriter.TtlFunction.just(ttl);
+    }
 
+    /**
+     * 本地 TTL 必须短于 Redis TTL，否则本地副本会比 Redis 活得更久
+     */
+    private static NearCacheSpec nearSpec(Duration redisTtl, Duration nearTtl, int maxSize) {
+        if (nearTtl.compareTo(redisTtl) >= 0) {
+            throw new IllegalArgumentException("本地缓存 TTL 必须短于 Redis TTL：near=" + nearTtl + ", redis=" + redisTtl);
+        }
+        return new NearCacheSpec(nearTtl, maxSize);
     }
 }
@@ -0,0 +1,32 @@
+package com.ymjrhk.rbac.config;
+
+import com.ymjrhk.rbac.policy.PolicyDeltaListener;
+import com.ymjrhk.rbac.policy.PolicyGraphStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import static com.ymjrhk.rbac.constant.CacheConstant.POLICY_DELTA_CHANNEL;
+
+/**
+ * 内存策略图：启用时订阅策略增量广播
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "rbac.policy", name = "in-memory", havingValue = "true")
+public class PolicyConfig {
+
+    @Bean
+    public RedisMessageListenerContainer policyDeltaListenerContainer(RedisConnectionFactory factory,
+                                                                      PolicyGraphStore policyGraphStore) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(
+                new PolicyDeltaListener(policyGraphStore),
+                new ChannelTopic(POLICY_DELTA_CHANNEL)
+        );
+        return container;
+    }
+}
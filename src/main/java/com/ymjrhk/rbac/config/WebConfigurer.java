@@ -3,6 +3,7 @@ package com.ymjrhk.rbac.config;
 import com.ymjrhk.rbac.interceptor.AuditFailInterceptor;
 import com.ymjrhk.rbac.interceptor.AuthInterceptor;
 import com.ymjrhk.rbac.interceptor.PermissionInterceptor;
+import com.ymjrhk.rbac.interceptor.TraceInterceptor;
 import com.ymjrhk.rbac.json.JacksonObjectMapper;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
@@ -34,6 +35,8 @@ public class WebConfigurer implements WebMvcConfigurer {
 
     private final AuditFailInterceptor auditFailInterceptor;
 
+    private final TraceInterceptor traceInterceptor;
+
     private static final String API_PATTERN = "/api/**";
 
     @Override
@@ -58,6 +61,11 @@ public class WebConfigurer implements WebMvcConfigurer {
         registry.addInterceptor(auditFailInterceptor)
                 .addPathPatterns(API_PATTERN)
                 .order(3);
+
+        // 4. 请求轨迹：记录 Controller 阶段耗时（最后执行 preHandle，最先执行 afterCompletion）
+        registry.addInterceptor(traceInterceptor)
+                .addPathPatterns(API_PATTERN)
+                .order(4);
     }
 
     @Bean
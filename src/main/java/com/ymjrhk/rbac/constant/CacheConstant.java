@@ -22,22 +22,50 @@ public final class CacheConstant {
     /** 个人信息聚合视图（包括角色和权限） */
     public static final String USER_ME = "user:me";
 
-    /** 用户 -> 权限列表 */
-    public static final String USER_PERMISSIONS = "user:permissions";
+    /** 用户授权快照（状态、authVersion、非禁用 roleId），每个请求都会读；结构变化时升级版本号，旧条目按 TTL 过期 */
+    public static final String USER_AUTHZ = "user:authz:v2";
 
     /** 用户 -> 角色列表 */
     public static final String USER_ROLES = "user:roles";
 
+    /** 用户 -> 角色名集合（只含非禁用角色，用于 userHasRole / 超级管理员判断） */
+    public static final String USER_ROLE_NAMES = "user:role-names";
+
     /** 角色 -> 权限列表 */
     public static final String ROLE_PERMISSIONS = "role:permissions";
 
+    /** 角色组合签名（升序 roleId，如 "1,5,9"） -> 有效权限 + 编译后的匹配器，角色相同的用户共用 */
+    public static final String ROLE_SET_PERMISSIONS = "role-set:permissions";
+
     /** 角色基础信息 */
     public static final String ROLE_BASIC = "role:basic";
 
     /** 权限基础信息 */
     public static final String PERMISSION_BASIC = "permission:basic";
 
+    /** 全部非禁用 ACTION 权限（单条目），处理方法 -> 权限索引由它构建，权限增改后失效 */
+    public static final String PERMISSION_ACTIONS = "permission:actions";
+
+    /** 反向索引：角色 -> 持有该角色的 userId（不论角色状态），角色 / 权限变更时只清这些用户的缓存 */
+    public static final String ROLE_USERS = "role:users";
+
+    /** 反向索引：权限 -> 持有该权限的 roleId（不论状态） */
+    public static final String PERMISSION_ROLES = "permission:roles";
+
     // 如果后面有「权限树 / 权限列表」缓存，可以预留
     public static final String PERMISSION_TREE = "permission:tree";
 
+    /* ================= 缓存基础设施 ================= */
+
+    /** 两级缓存：跨节点失效广播频道 */
+    public static final String CACHE_INVALIDATION_CHANNEL = "rbac:cache:invalidation";
+
+    /* ================= 内存策略图 ================= */
+
+    /** 策略变更增量广播频道 */
+    public static final String POLICY_DELTA_CHANNEL = "rbac:policy:delta";
+
+    /** 策略全局版本号（INCR 生成增量的版本） */
+    public static final String POLICY_VERSION_KEY = "rbac:policy:version";
+
 }
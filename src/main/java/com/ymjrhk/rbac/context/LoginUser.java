@@ -1,5 +1,6 @@
 package com.ymjrhk.rbac.context;
 
+import com.ymjrhk.rbac.auth.AuthorizationSnapshot;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,4 +15,14 @@ public class LoginUser {
 
     private Long userId;
     private String username;
+
+    /**
+     * 认证时取到的授权快照，供 PermissionInterceptor 鉴权使用（只在请求线程内使用，不共享）
+     */
+    private AuthorizationSnapshot authorization;
+
+    public LoginUser(Long userId, String username) {
+        this.userId = userId;
+        this.username = username;
+    }
 }
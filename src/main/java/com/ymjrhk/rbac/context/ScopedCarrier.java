@@ -0,0 +1,57 @@
+package com.ymjrhk.rbac.context;
+
+/**
+ * 按 ScopedValue 的语义实现的上下文载体（java.lang.ScopedValue 在 Java 21 仍是预览特性，需要 --enable-preview）
+ * <p>
+ * 值只能通过 {@link #where} 绑定，只在传入的代码块内可见；代码块结束（包括抛异常）时一定恢复成进入前的绑定，
+ * 不存在“忘了 remove”的情况。底层仍借用一个 ThreadLocal 保存当前绑定，但只有 where 能改它。
+ * 虚拟线程下每个请求一个新线程，绑定随请求结束，不会留在线程上；平台线程下复用线程也拿不到上一个请求的值。
+ * 绑定不会传给 @Async 等其他线程，需要的数据应作为参数显式传递。
+ *
+ * @param <T> 绑定的值，应当不可变，或只在当前请求内修改
+ */
+public final class ScopedCarrier<T> {
+
+    private final ThreadLocal<T> current = new ThreadLocal<>();
+
+    /**
+     * @return 当前范围内绑定的值，不在任何范围内返回 null
+     */
+    public T get() {
+        return current.get();
+    }
+
+    public boolean isBound() {
+        return current.get() != null;
+    }
+
+    /**
+     * 在 value 绑定的范围内执行 action，结束后恢复原来的绑定（可以嵌套）
+     *
+     * @param value
+     * @param action
+     * @throws X action 抛出的异常原样抛出
+     */
+    public <X extends Throwable> void where(T value, ScopedAction<X> action) throws X {
+        if (value == null) {
+            throw new IllegalArgumentException("绑定的值不能为空");
+        }
+        T previous = current.get();
+        current.set(value);
+        try {
+            action.run();
+        } finally {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface ScopedAction<X extends Throwable> {
+
+        void run() throws X;
+    }
+}
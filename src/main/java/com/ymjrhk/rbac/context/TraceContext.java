@@ -0,0 +1,70 @@
+package com.ymjrhk.rbac.context;
+
+import com.ymjrhk.rbac.trace.RequestTrace;
+import com.ymjrhk.rbac.trace.Stage;
+
+/**
+ * 当前请求的处理轨迹（与 UserContext 一样按线程隔离）
+ * <p>
+ * 没有经过 RequestTraceFilter 的调用（单元测试、异步线程）拿不到轨迹，以下记录方法直接忽略
+ */
+public class TraceContext {
+
+    private TraceContext() {
+        // 防止实例化
+    }
+
+    private static final ThreadLocal<RequestTrace> TL = new ThreadLocal<>();
+
+    public static RequestTrace start() {
+        RequestTrace trace = new RequestTrace();
+        TL.set(trace);
+        return trace;
+    }
+
+    public static RequestTrace get() {
+        return TL.get();
+    }
+
+    public static void begin(Stage stage) {
+        RequestTrace trace = TL.get();
+        if (trace != null) {
+            trace.begin(stage);
+        }
+    }
+
+    public static void end(Stage stage) {
+        RequestTrace trace = TL.get();
+        if (trace != null) {
+            trace.end(stage);
+        }
+    }
+
+    public static void add(Stage stage, long nanos) {
+        RequestTrace trace = TL.get();
+        if (trace != null) {
+            trace.add(stage, nanos);
+        }
+    }
+
+    public static void auth(String decision, Long userId) {
+        RequestTrace trace = TL.get();
+        if (trace != null) {
+            trace.setAuth(decision);
+            if (userId != null) {
+                trace.setUserId(userId);
+            }
+        }
+    }
+
+    public static void permission(String decision) {
+        RequestTrace trace = TL.get();
+        if (trace != null) {
+            trace.setPermission(decision);
+        }
+    }
+
+    public static void clear() {
+        TL.remove();
+    }
+}
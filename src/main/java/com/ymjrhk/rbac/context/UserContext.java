@@ -1,5 +1,7 @@
 package com.ymjrhk.rbac.context;
 
+import com.ymjrhk.rbac.auth.AuthorizationSnapshot;
+
 // 并发问题成立，必须同时满足两点：
 // 1. 可变
 // 2. 被多个线程共享
@@ -10,6 +12,18 @@ package com.ymjrhk.rbac.context;
 // | ThreadLocal.TL | ✔ 共享    | ❌（容器） | 安全     |
 // | TL 内的值         | ❌ 按线程隔离 | ✔ 可变  | 安全     |
 
+/**
+ * 当前请求的登录用户
+ * <p>
+ * 两种存放方式：
+ * <ul>
+ *   <li>默认（平台线程）：ThreadLocal，AuthInterceptor 认证通过后 set，afterCompletion 时 clear</li>
+ *   <li>虚拟线程模式（spring.threads.virtual.enabled=true）：UserContextFilter 用 {@link #runInRequestScope}
+ *       为整个请求绑定一个槽位，AuthInterceptor 把用户填进槽位；槽位随请求范围结束而丢弃，
+ *       即使某条路径漏了 clear 也不会留在线程上</li>
+ * </ul>
+ * 读取方不区分两种方式。
+ */
 public class UserContext {
 
     private UserContext() {
@@ -18,23 +32,61 @@ public class UserContext {
 
     private static final ThreadLocal<LoginUser> TL = new ThreadLocal<>();
 
+    private static final ScopedCarrier<Slot> SCOPE = new ScopedCarrier<>();
+
+    /**
+     * 为 action 绑定一个请求范围，范围内 set / get 的都是这个范围自己的槽位
+     *
+     * @param action
+     * @throws X
+     */
+    public static <X extends Throwable> void runInRequestScope(ScopedCarrier.ScopedAction<X> action) throws X {
+        SCOPE.where(new Slot(), action);
+    }
+
     public static void set(LoginUser user) {
-        TL.set(user);
+        Slot slot = SCOPE.get();
+        if (slot != null) {
+            slot.user = user;
+        } else {
+            TL.set(user);
+        }
     }
 
     public static LoginUser get() {
-        return TL.get();
+        Slot slot = SCOPE.get();
+        return slot != null ? slot.user : TL.get();
     }
 
     public static Long getCurrentUserId() {
-        return TL.get() == null ? null : TL.get().getUserId();
+        LoginUser user = get();
+        return user == null ? null : user.getUserId();
     }
 
     public static String getCurrentUsername() {
-        return TL.get() == null ? null : TL.get().getUsername();
+        LoginUser user = get();
+        return user == null ? null : user.getUsername();
+    }
+
+    public static AuthorizationSnapshot getCurrentAuthorization() {
+        LoginUser user = get();
+        return user == null ? null : user.getAuthorization();
     }
 
     public static void clear() {
-        TL.remove();
+        Slot slot = SCOPE.get();
+        if (slot != null) {
+            slot.user = null;
+        } else {
+            TL.remove();
+        }
+    }
+
+    /**
+     * 一个请求范围的槽位，只被处理该请求的线程访问
+     */
+    private static final class Slot {
+
+        private LoginUser user;
     }
 }
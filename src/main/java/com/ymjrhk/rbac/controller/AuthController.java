@@ -41,13 +41,11 @@ public class AuthController {
     @Operation(summary = "用户登录", description = "用户名密码登录")
     public Result<UserLoginVO> login(@RequestBody @Valid UserLoginDTO userLoginDTO,
                                      HttpServletRequest request) {
-        log.info("用户登录：{}", userLoginDTO);
+        log.info("用户登录：{}", userLoginDTO.getUsername()); // 不打印密码
 
         try {
             UserLoginVO userLoginVO = authService.login(userLoginDTO);
 
-            log.info("登录成功，将保存到审计日志表中...");
-
             // 登录成功日志
             auditLogService.saveLoginLog(
                     userLoginVO.getUserId(), // 登录成功，记录userId
@@ -2,7 +2,6 @@ package com.ymjrhk.rbac.filter;
 
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 
@@ -26,7 +25,6 @@ import java.io.IOException;
  * └── 从 wrapper 里“安全地”拿请求体
  */
 @Component
-@Slf4j
 public class RequestBodyCacheFilter implements Filter {
 
     @Override
@@ -35,8 +33,6 @@ public class RequestBodyCacheFilter implements Filter {
                          FilterChain chain)
             throws IOException, ServletException {
 
-        log.info("过滤器开始运行...");
-
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         String uri = httpRequest.getRequestURI();
 
@@ -0,0 +1,51 @@
+package com.ymjrhk.rbac.filter;
+
+import com.ymjrhk.rbac.context.TraceContext;
+import com.ymjrhk.rbac.trace.RequestTrace;
+import com.ymjrhk.rbac.trace.RequestTraceReporter;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * 最外层过滤器：为每个请求开启处理轨迹，请求结束时交给 RequestTraceReporter
+ * <p>
+ * 替代原来各过滤器 / 拦截器里每一步的 log.info
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class RequestTraceFilter implements Filter {
+
+    private final RequestTraceReporter requestTraceReporter;
+
+    @Override
+    public void doFilter(ServletRequest request,
+                         ServletResponse response,
+                         FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!requestTraceReporter.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RequestTrace trace = TraceContext.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            TraceContext.clear();
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            requestTraceReporter.report(trace,
+                    httpRequest.getMethod(),
+                    httpRequest.getRequestURI(),
+                    ((HttpServletResponse) response).getStatus());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ymjrhk.rbac.filter;
+
+import com.ymjrhk.rbac.context.UserContext;
+import jakarta.servlet.*;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * 虚拟线程模式下为每个请求绑定 UserContext 的请求范围（平台线程模式不注册，仍用 ThreadLocal）
+ * <p>
+ * 紧跟在 RequestTraceFilter 之后：后面的过滤器、拦截器、Controller 和 afterCompletion 都在范围内
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class UserContextFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest request,
+                         ServletResponse response,
+                         FilterChain chain)
+            throws IOException, ServletException {
+
+        try {
+            UserContext.runInRequestScope(() -> chain.doFilter(request, response));
+        } catch (IOException | ServletException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // doFilter 只会抛上面几种，这里不会走到
+            throw new ServletException(e);
+        }
+    }
+}
@@ -4,10 +4,13 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ymjrhk.rbac.annotation.Audit;
+import com.ymjrhk.rbac.audit.RequestBodyMasker;
 import com.ymjrhk.rbac.constant.SuccessConstant;
+import com.ymjrhk.rbac.context.TraceContext;
 import com.ymjrhk.rbac.context.UserContext;
 import com.ymjrhk.rbac.entity.AuditLog;
 import com.ymjrhk.rbac.service.AuditLogService;
+import com.ymjrhk.rbac.trace.Stage;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -18,7 +21,6 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 
-import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -36,8 +38,12 @@ import static com.ymjrhk.rbac.utils.IpUtil.getClientIp;
 @RequiredArgsConstructor
 public class AuditFailInterceptor implements HandlerInterceptor {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     private final AuditLogService auditLogService;
 
+    private final RequestBodyMasker requestBodyMasker;
+
     @Override
     public void afterCompletion(HttpServletRequest request,
                                 HttpServletResponse response,
@@ -49,8 +55,7 @@ public class AuditFailInterceptor implements HandlerInterceptor {
             return;
         }
 
-        log.info("拦截器-3 AuditFailInterceptor 开始运行...");
-
+        long auditStart = System.nanoTime();
         try {
             AuditLog auditLog = new AuditLog();
 
@@ -64,12 +69,9 @@ public class AuditFailInterceptor implements HandlerInterceptor {
             auditLog.setUserId(UserContext.getCurrentUserId());
             auditLog.setUsername(UserContext.getCurrentUsername());
 
-            // 请求体（从 ContentCachingRequestWrapper 里拿）
+            // 请求体（从 ContentCachingRequestWrapper 里拿，直接在字节上脱敏并限制长度）
             if (request instanceof ContentCachingRequestWrapper wrapper) {
-                byte[] body = wrapper.getContentAsByteArray();
-                String rawBody = new String(body, StandardCharsets.UTF_8);
-                String maskedBody = maskPasswordLinear(rawBody);
-                auditLog.setRequestBody(maskedBody);
+                auditLog.setRequestBody(requestBodyMasker.mask(wrapper.getContentAsByteArray()));
             }
 
             /*
@@ -89,11 +91,11 @@ public class AuditFailInterceptor implements HandlerInterceptor {
 
             auditLogService.save(auditLog); // 异步执行
 
-            log.info("记录类型为“参数解析失败（请求参数格式错误 PARAMETER_FORMAT_ERROR）或校验失败（@Valid 失败）”的失败请求审计日志：{}", auditLog.getPath());
-
         } catch (Exception e) {
             // 审计失败不能影响主流程（实际上由于 auditLogService.save(auditLog) 异步执行，所以即使发生异常也不会在这里被捕获）
             log.warn("记录参数类型的失败请求审计日志失败", e);
+        } finally {
+            TraceContext.add(Stage.AUDIT, System.nanoTime() - auditStart);
         }
     }
 
@@ -118,10 +120,9 @@ public class AuditFailInterceptor implements HandlerInterceptor {
         }
 
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(requestBody);
+            JsonNode root = MAPPER.readTree(requestBody);
             maskPasswordNode(root);
-            return mapper.writeValueAsString(root);
+            return MAPPER.writeValueAsString(root);
         } catch (Exception e) {
             // 不是合法 JSON，直接返回原始内容
             return requestBody;
@@ -195,6 +196,10 @@ public class AuditFailInterceptor implements HandlerInterceptor {
      * 不得用于请求校验、参数解析或任何业务逻辑。
      * </p>
      *
+     * <p>
+     * afterCompletion 现在改用 {@link RequestBodyMasker}：规则相同，直接扫描字节、敏感片段可配置、输出有长度上限。
+     * </p>
+     *
      * @param body 原始请求体，可能不是合法 JSON
      * @return 已对 password 字段进行安全脱敏的请求体
      */
@@ -1,15 +1,19 @@
 package com.ymjrhk.rbac.interceptor;
 
-import com.ymjrhk.rbac.constant.JwtClaimsConstant;
+import com.ymjrhk.rbac.auth.AuthorizationSnapshot;
+import com.ymjrhk.rbac.auth.JwtCodec;
+import com.ymjrhk.rbac.auth.VerifiedToken;
+import com.ymjrhk.rbac.auth.VerifiedTokenCache;
 import com.ymjrhk.rbac.constant.StatusConstant;
 import com.ymjrhk.rbac.context.LoginUser;
+import com.ymjrhk.rbac.context.TraceContext;
 import com.ymjrhk.rbac.context.UserContext;
-import com.ymjrhk.rbac.dto.auth.UserAuthInfo;
 import com.ymjrhk.rbac.exception.UserNotLoginException;
+import com.ymjrhk.rbac.metrics.DecisionMetrics;
 import com.ymjrhk.rbac.properties.JwtProperties;
-import com.ymjrhk.rbac.service.UserService;
-import com.ymjrhk.rbac.utils.JwtUtil;
-import io.jsonwebtoken.Claims;
+import com.ymjrhk.rbac.service.AuthorizationSnapshotService;
+import com.ymjrhk.rbac.trace.Stage;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -23,10 +27,12 @@ import static com.ymjrhk.rbac.constant.MessageConstant.*;
 /**
  * 认证拦截器
  * 职责：
- * 1. 校验 JWT 是否存在、是否合法
+ * 1. 校验 JWT 是否存在、是否合法（验签结果按 token 缓存）
  * 2. 校验用户是否存在、是否被禁用、用户名是否一致（其实用户名是否一致无需检测，若变化则 authVersion 必定变化）
- * 3. 校验 authVersion（强制失效）
- * 4. 设置 UserContext
+ * 3. 校验 authVersion（强制失效，每个请求都查，不受 token 缓存影响）
+ * 4. 设置 UserContext（连同授权快照，PermissionInterceptor 直接使用，不再查询）
+ * <p>
+ * 虚拟线程模式下 UserContext 填入 UserContextFilter 绑定的请求范围，不再写 ThreadLocal
  */
 @Component
 @RequiredArgsConstructor
@@ -35,101 +41,134 @@ public class AuthInterceptor implements HandlerInterceptor {
 
     private final JwtProperties jwtProperties;
 
-    private final UserService userService;
+    private final JwtCodec jwtCodec;
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final AuthorizationSnapshotService authorizationSnapshotService;
+
+    private final DecisionMetrics decisionMetrics;
 
     @Override
     public boolean preHandle(HttpServletRequest request,
                              HttpServletResponse response,
                              Object handler) {
 
-        log.info("拦截器-1 AuthInterceptor 开始运行...");
-
         // 1. 非 Controller 请求直接放行
         // 判断当前拦截到的是 Controller 的方法还是其他资源
         if (!(handler instanceof HandlerMethod)) {
             return true; // 当前拦截到的不是动态方法，直接放行
         }
 
+        // 每一步的结论记到请求轨迹和判定指标里，不再逐步打日志（也避免把 token 打进日志）
+        long start = System.nanoTime();
+        TraceContext.begin(Stage.AUTH);
+        try {
+            return authenticate(request, start);
+        } finally {
+            TraceContext.end(Stage.AUTH);
+        }
+//            // 不通过，响应 401 状态码
+//            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+//            response.setStatus(401);
+//            return false;
+    }
+
+    private boolean authenticate(HttpServletRequest request, long start) {
         // 2. 获取 Token
         String authHeader = request.getHeader(jwtProperties.getHeader());
 
-        log.info("authHeader={}", authHeader);
-
         if (authHeader == null || authHeader.isBlank()) {
-            throw new UserNotLoginException(USER_NOT_LOGIN);
+            throw reject("missing-token", null, USER_NOT_LOGIN, start);
         }
         if (!authHeader.startsWith(jwtProperties.getPrefix())) {
-            throw new UserNotLoginException(USER_NOT_LOGIN);
+            throw reject("missing-token", null, USER_NOT_LOGIN, start);
         }
 
         // 截取真正的 JWT
         String token = authHeader.substring(jwtProperties.getPrefix().length()); // "Bearer ".length() = 7
 
         if (token.isBlank()) {
-            throw new UserNotLoginException(USER_NOT_LOGIN);
+            throw reject("missing-token", null, USER_NOT_LOGIN, start);
         }
 
         try {
             // 3. 校验 Token（认证）
-            log.info("JWT 校验：{}", token);
-            Claims claims = JwtUtil.parseJWT(jwtProperties.getSecretKey(), token);
-
-            Long userId = Long.valueOf(claims.get(JwtClaimsConstant.USER_ID).toString());
-            String username = claims.get(JwtClaimsConstant.USERNAME).toString();
-            Integer authVersion =
-                    Integer.valueOf(claims.get(JwtClaimsConstant.AUTH_VERSION).toString());
+            // 同一个 token 验签过就不再验签（缓存条目不会晚于 token 的 exp 过期）
+            VerifiedToken verified = verifiedTokenCache.get(token);
+            boolean cacheHit = verified != null;
+            if (!cacheHit) {
+                try {
+                    verified = VerifiedToken.of(jwtCodec.decode(token));
+                } catch (JwtException | IllegalArgumentException e) {
+                    log.debug("JWT 校验异常：{}", e.getMessage());
+                    throw reject("invalid-token", null, USER_NOT_LOGIN, start);
+                }
+                verifiedTokenCache.put(token, verified);
+            }
 
-            log.info("当前 userId：{}，username：{}，authVersion：{}", userId, username, authVersion);
+            Long userId = verified.userId();
+            String username = verified.username();
+            Integer authVersion = verified.authVersion();
 
-            // 4. 查询数据库中用户最小认证信息
+            // 4. 查询用户授权快照（认证信息 + 超级管理员标记 + 接口权限，一次缓存查询）
 
-            UserAuthInfo authInfo = userService.getUserAuthInfo(userId);
+            AuthorizationSnapshot authInfo = authorizationSnapshotService.getSnapshot(userId);
 
             // 4.1 校验用户
             if (authInfo == null) {
-                log.warn("JWT 校验失败：用户不存在 userId={}", userId);
-                throw new UserNotLoginException(USER_NOT_LOGIN);
+                throw reject("user-not-exist", userId, USER_NOT_LOGIN, start);
             }
 
             // 4.2 校验用户状态
             if (authInfo.getStatus() == null || authInfo.getStatus() == StatusConstant.DISABLED) {
-                log.warn("JWT 校验失败：用户被禁用 userId={}", userId);
-                throw new UserNotLoginException(USER_FORBIDDEN);
+                throw reject("disabled", userId, USER_FORBIDDEN, start);
             }
 
             // 4.3 校验用户名
             if (authInfo.getUsername() == null || !authInfo.getUsername().equals(username)) {
-                log.warn("JWT 校验失败：JWT 中用户名与数据库不一致 username={} dbUsername={} userId={}",
-                        username,
-                        authInfo.getUsername(),
-                        userId);
-                throw new UserNotLoginException(USERNAME_NOT_EXIST);
+                throw reject("username-mismatch", userId, USERNAME_NOT_EXIST, start);
             }
 
             // 4.4 校验 authVersion（强制失效）
             if (!authVersion.equals(authInfo.getAuthVersion())) {
-                log.warn("JWT 已失效：tokenVersion={}, dbVersion={}, userId={}",
-                        authVersion,
-                        authInfo.getAuthVersion(),
-                        userId);
-                throw new UserNotLoginException(LOGIN_EXPIRED);
+                throw reject("version-mismatch", userId, LOGIN_EXPIRED, start);
             }
 
-            // 5. 保存上下文，调用ThreadLocale
-            UserContext.set(new LoginUser(userId, username));
+            // 5. 保存上下文（ThreadLocal，或虚拟线程模式下的请求范围）
+            UserContext.set(new LoginUser(userId, username, authInfo));
+            String reason = cacheHit ? "ok-cached" : "ok";
+            TraceContext.auth(reason, userId);
+            decisionMetrics.record(DecisionMetrics.AUTH, DecisionMetrics.ALLOW, reason, start);
 
             return true;
 
         } catch (UserNotLoginException e) {
             throw e;
         } catch (Exception e) {
-            log.warn("JWT 校验异常", e);
+            // 查询授权快照等内部异常：对外仍按未登录处理，指标上与 token 无效区分开
+            log.warn("认证过程异常", e);
+            // 异常类型只进请求轨迹和日志，指标的 reason 固定为 error，避免标签基数随异常类型增长
+            TraceContext.auth(DecisionMetrics.ERROR + ":" + e.getClass().getSimpleName(), null);
+            decisionMetrics.record(DecisionMetrics.AUTH, DecisionMetrics.ERROR, DecisionMetrics.ERROR, start);
             throw new UserNotLoginException(USER_NOT_LOGIN);
         }
-//            // 不通过，响应 401 状态码
-//            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-//            response.setStatus(401);
-//            return false;
+    }
+
+    /**
+     * 认证失败：结论记入请求轨迹和判定指标，返回要抛出的异常
+     *
+     * @param reason
+     * @param userId
+     * @param message
+     * @param start
+     * @return
+     */
+    private UserNotLoginException reject(String reason, Long userId, String message, long start) {
+        TraceContext.auth(reason, userId);
+        decisionMetrics.record(DecisionMetrics.AUTH, DecisionMetrics.DENY, reason, start);
+        log.debug("认证失败：reason={}, userId={}", reason, userId);
+        return new UserNotLoginException(message);
     }
 
     @Override
@@ -137,7 +176,7 @@ public class AuthInterceptor implements HandlerInterceptor {
                                 HttpServletResponse response,
                                 Object handler,
                                 Exception ex) {
-        // 移除用户，清理 ThreadLocal，防止线程复用污染
+        // 移除用户，清理 ThreadLocal，防止线程复用污染（请求范围模式下只是清空槽位）
         UserContext.clear();
     }
 }
@@ -1,12 +1,20 @@
 package com.ymjrhk.rbac.interceptor;
 
 import com.ymjrhk.rbac.annotation.Audit;
+import com.ymjrhk.rbac.auth.AuthorizationSnapshot;
 import com.ymjrhk.rbac.constant.SuccessConstant;
+import com.ymjrhk.rbac.context.TraceContext;
 import com.ymjrhk.rbac.context.UserContext;
 import com.ymjrhk.rbac.entity.AuditLog;
 import com.ymjrhk.rbac.exception.AccessDeniedException;
+import com.ymjrhk.rbac.metrics.DecisionMetrics;
+import com.ymjrhk.rbac.policy.PolicyGraph;
+import com.ymjrhk.rbac.policy.PolicyGraphStore;
 import com.ymjrhk.rbac.service.AuditLogService;
+import com.ymjrhk.rbac.service.HandlerPermissionService;
+import com.ymjrhk.rbac.service.RoleSetPermissionService;
 import com.ymjrhk.rbac.service.UserService;
+import com.ymjrhk.rbac.trace.Stage;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -33,8 +41,16 @@ public class PermissionInterceptor implements HandlerInterceptor {
 
     private final UserService userService;
 
+    private final RoleSetPermissionService roleSetPermissionService;
+
+    private final HandlerPermissionService handlerPermissionService;
+
+    private final PolicyGraphStore policyGraphStore;
+
     private final AuditLogService auditLogService;
 
+    private final DecisionMetrics decisionMetrics;
+
     private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
 
     // 仅认证接口
@@ -45,32 +61,61 @@ public class PermissionInterceptor implements HandlerInterceptor {
                              HttpServletResponse response,
                              Object handler) {
 
-        log.info("拦截器-2 PermissionInterceptor 开始运行...");
-
         // 1. 非 Controller 请求直接放行
         // 判断当前拦截到的是 Controller 的方法还是其他资源
         if (!(handler instanceof HandlerMethod handlerMethod)) {
             return true; // 当前拦截到的不是动态方法，直接放行
         }
 
+        long start = System.nanoTime();
+
         // 2. auth-only 只需认证接口（/api/me/**）跳过鉴权（拦截器配置层已挡掉，此处为冗余设计）
         if (isAuthOnlyPath(request)) {
-            log.info("auth-only 接口，跳过权限校验");
+            TraceContext.permission("skip");
+            decisionMetrics.record(DecisionMetrics.PERMISSION, DecisionMetrics.ALLOW, "auth-only", start);
             return true;
         }
 
         // 3. 鉴权（核心）
-        log.info("开始鉴权...");
-        log.info("当前请求 URI：{}，请求方法：{}", request.getRequestURI(), request.getMethod());
+        TraceContext.begin(Stage.PERMISSION);
+        try {
+            checkPermission(request, handlerMethod, start);
+        } catch (AccessDeniedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // 异常类型只进请求轨迹，指标的 reason 固定为 error（与 AuthInterceptor 一致）
+            TraceContext.permission(DecisionMetrics.ERROR + ":" + e.getClass().getSimpleName());
+            decisionMetrics.record(DecisionMetrics.PERMISSION, DecisionMetrics.ERROR, DecisionMetrics.ERROR, start);
+            throw e;
+        } finally {
+            TraceContext.end(Stage.PERMISSION);
+        }
+        return true;
+    }
 
+    private void checkPermission(HttpServletRequest request, HandlerMethod handlerMethod, long start) {
         Long userId = UserContext.getCurrentUserId();
 
-        boolean allowed = userService.hasPermission(userId,
-                request.getRequestURI(),
-                request.getMethod());
+        // AuthInterceptor 已把授权快照放进上下文，按其中的角色组合取共享的权限条目，
+        // 与启动时预先算好的“该处理方法对应的权限”做一次位图求交；没有快照时（理论上不会）再走 service 查询
+        AuthorizationSnapshot authorization = UserContext.getCurrentAuthorization();
+
+        // 启用了内存策略图时完全在内存中判定
+        PolicyGraph policyGraph = policyGraphStore.current();
+
+        boolean allowed = policyGraph != null
+                ? policyGraph.permits(userId, handlerMethod.getMethod(), request.getRequestURI(), request.getMethod())
+                : authorization != null
+                ? roleSetPermissionService.getRoleSetPermissions(authorization.roleSet())
+                                          .permits(handlerPermissionService.getHandlerPermissions(handlerMethod, request.getMethod()),
+                                                  request.getRequestURI(), request.getMethod())
+                : userService.hasPermission(userId, request.getRequestURI(), request.getMethod());
 
         if (!allowed) {
-            log.warn("未授权访问，将保存到审计日志表中...");
+            TraceContext.permission("deny");
+            decisionMetrics.record(DecisionMetrics.PERMISSION, DecisionMetrics.DENY, "access-denied", start);
+            log.debug("未授权访问：userId={}, {} {}", userId, request.getMethod(), request.getRequestURI());
+            long auditStart = System.nanoTime();
 
             AuditLog auditLog = new AuditLog();
 
@@ -101,11 +146,14 @@ public class PermissionInterceptor implements HandlerInterceptor {
             }
 
             auditLogService.saveForbiddenLog(auditLog);
+            TraceContext.add(Stage.AUDIT, System.nanoTime() - auditStart);
 
             throw new AccessDeniedException(ACCESS_DENIED);
         }
 
-        return true;
+        TraceContext.permission("allow");
+        decisionMetrics.record(DecisionMetrics.PERMISSION, DecisionMetrics.ALLOW,
+                policyGraph != null ? "policy-graph" : authorization != null ? "snapshot" : "service", start);
     }
 
     @Override
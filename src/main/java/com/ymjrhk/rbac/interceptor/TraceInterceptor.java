@@ -0,0 +1,33 @@
+package com.ymjrhk.rbac.interceptor;
+
+import com.ymjrhk.rbac.context.TraceContext;
+import com.ymjrhk.rbac.trace.Stage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 最后一个拦截器：记录 Controller 阶段耗时
+ * <p>
+ * 它的 preHandle 最后执行、afterCompletion 最先执行，中间就是 Controller 方法（含响应序列化）
+ */
+@Component
+public class TraceInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request,
+                             HttpServletResponse response,
+                             Object handler) {
+        TraceContext.begin(Stage.CONTROLLER);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request,
+                                HttpServletResponse response,
+                                Object handler,
+                                Exception ex) {
+        TraceContext.end(Stage.CONTROLLER);
+    }
+}
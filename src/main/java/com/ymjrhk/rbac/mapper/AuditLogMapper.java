@@ -6,6 +6,8 @@ import com.ymjrhk.rbac.entity.AuditLog;
 import com.ymjrhk.rbac.vo.AuditLogVO;
 import org.apache.ibatis.annotations.Mapper;
 
+import java.util.List;
+
 @Mapper
 public interface AuditLogMapper {
     /**
@@ -23,4 +25,12 @@ public interface AuditLogMapper {
      * @return
      */
     int insert(AuditLog auditLog);
+
+    /**
+     * 批量插入审计日志（多行 INSERT）
+     *
+     * @param auditLogs
+     * @return
+     */
+    int batchInsert(List<AuditLog> auditLogs);
 }
@@ -18,6 +18,4 @@ public interface MeMapper {
     MeViewVO getByUserId(Long userId);
 
     List<MeRoleVO> selectRolesByUserId(Long userId);
-
-    List<MePermissionVO> selectPermissionsByUserId(Long userId);
 }
@@ -52,7 +52,7 @@ public interface PermissionMapper {
     List<Long> selectExistingPermissionIds(List<Long> permissionIds);
 
     /**
-     * 查询 sys_permission 表中所有未禁用的权限
+     * 查询 sys_permission 表中所有未禁用的 ACTION 权限（type = 2，不含菜单 / 模块）
      *
      * @return
      */
@@ -72,4 +72,12 @@ public interface PermissionMapper {
      * @return
      */
     List<Long> selectAllEnabledPermissionIds();
+
+    /**
+     * 查询全部权限（不论状态和类型，用于内存策略图）
+     * @return
+     */
+    @Select("select permission_id, permission_name, permission_display_name, description, status, type, parent_id, path, method, sort " +
+            "from sys_permission")
+    List<PermissionVO> listAll();
 }
@@ -70,4 +70,19 @@ public interface RoleMapper {
      * @return
      */
     List<Long> selectAllEnabledRoleIds();
+
+    /**
+     * 根据 roleName 查 roleId（不存在返回 null）
+     * @param roleName
+     * @return
+     */
+    @Select("select role_id from sys_role where role_name = #{roleName}")
+    Long selectRoleIdByRoleName(String roleName);
+
+    /**
+     * 查询全部角色（不论状态，用于内存策略图）
+     * @return
+     */
+    @Select("select * from sys_role")
+    List<Role> listAll();
 }
@@ -4,6 +4,7 @@ import com.ymjrhk.rbac.entity.RolePermission;
 import com.ymjrhk.rbac.vo.PermissionVO;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
 import java.util.Set;
@@ -49,4 +50,30 @@ public interface RolePermissionMapper {
      * @param permissionIds
      */
     void deleteByRoleIdAndPermissionIds(Long roleId, Set<Long> permissionIds);
+
+    /**
+     * 根据 permissionId 查持有该权限的 roleId（不论状态，用于反向索引）
+     *
+     * @param permissionId
+     * @return
+     */
+    @Select("select role_id from sys_role_permission where permission_id = #{permissionId}")
+    List<Long> selectRoleIdsByPermissionId(Long permissionId);
+
+    /**
+     * 根据 roleId 查 permissionId（不论权限状态，用于内存策略图）
+     *
+     * @param roleId
+     * @return
+     */
+    @Select("select permission_id from sys_role_permission where role_id = #{roleId}")
+    List<Long> selectPermissionIdsByRoleId(Long roleId);
+
+    /**
+     * 查询全部角色权限关系（用于内存策略图）
+     *
+     * @return
+     */
+    @Select("select role_id, permission_id from sys_role_permission")
+    List<RolePermission> listAll();
 }
@@ -1,10 +1,10 @@
 package com.ymjrhk.rbac.mapper;
 
 import com.github.pagehelper.Page;
+import com.ymjrhk.rbac.auth.AuthorizationSnapshot;
 import com.ymjrhk.rbac.dto.UserPageQueryDTO;
 import com.ymjrhk.rbac.dto.auth.UserAuthInfo;
 import com.ymjrhk.rbac.entity.User;
-import com.ymjrhk.rbac.vo.PermissionVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
@@ -68,22 +68,21 @@ public interface UserMapper {
     int updateForCreateUser(User user);
 
     /**
-     * 根据 userId 查询用户权限（user, role, permission status 都不能为 0），要去重！
-     * 不能查超级管理员
+     * 根据 userId 获取数据库中用户登录所需的验证信息
      *
      * @param userId
      * @return
      */
-    List<PermissionVO> selectPermissionsByUserId(Long userId);
+    @Select("select user_id, username, status, auth_version from sys_user where user_id = #{userId}")
+    UserAuthInfo getUserAuthInfo(Long userId);
 
     /**
-     * 根据 userId 获取数据库中用户登录所需的验证信息
+     * 根据 userId 一次查出用户授权快照：状态、authVersion、非禁用角色的 roleId（升序）
      *
      * @param userId
      * @return
      */
-    @Select("select user_id, username, status, auth_version from sys_user where user_id = #{userId}")
-    UserAuthInfo getUserAuthInfo(Long userId);
+    AuthorizationSnapshot selectAuthorizationSnapshot(Long userId);
 
     /**
      * auth_version 字段加一
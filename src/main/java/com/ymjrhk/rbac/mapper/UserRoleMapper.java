@@ -4,6 +4,7 @@ import com.ymjrhk.rbac.entity.UserRole;
 import com.ymjrhk.rbac.vo.RoleVO;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
 import java.util.Set;
@@ -36,14 +37,12 @@ public interface UserRoleMapper {
     List<RoleVO> selectRolesByUserId(Long userId);
 
     /**
-     * 根据 userId 查是否拥有角色 roleName
+     * 根据 userId 查询用户拥有的角色名（只含非禁用角色）
      *
      * @param userId
-     * @param roleName
      * @return
      */
-    // 使用boolean代替int
-    boolean userHasRole(Long userId, String roleName);
+    List<String> selectEnabledRoleNamesByUserId(Long userId);
 
 
     /**
@@ -60,4 +59,30 @@ public interface UserRoleMapper {
      * @param roleIds
      */
     void deleteByUserIdAndRoleIds(Long userId, Set<Long> roleIds);
+
+    /**
+     * 根据 roleId 查持有该角色的 userId（不论角色状态，用于反向索引）
+     *
+     * @param roleId
+     * @return
+     */
+    @Select("select user_id from sys_user_role where role_id = #{roleId}")
+    List<Long> selectUserIdsByRoleId(Long roleId);
+
+    /**
+     * 根据 userId 查 roleId（不论角色状态，用于内存策略图）
+     *
+     * @param userId
+     * @return
+     */
+    @Select("select role_id from sys_user_role where user_id = #{userId}")
+    List<Long> selectRoleIdsByUserId(Long userId);
+
+    /**
+     * 查询全部用户角色关系（用于内存策略图）
+     *
+     * @return
+     */
+    @Select("select user_id, role_id from sys_user_role")
+    List<UserRole> listAll();
 }
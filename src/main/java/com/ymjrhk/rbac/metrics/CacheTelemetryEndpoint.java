@@ -0,0 +1,46 @@
+package com.ymjrhk.rbac.metrics;
+
+import com.ymjrhk.rbac.cache.CacheTelemetry;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * /actuator/cachetelemetry：各 Redis 缓存的热 key（估计访问次数 + 值大小）和值大小分布
+ *
+ * <p>用来判断哪些条目占了 Redis 的带宽和内存、值得放进近端缓存。
+ * /actuator/cachetelemetry/{cacheName} 只看一个缓存；参数 top 控制每个缓存返回多少个热 key。
+ *
+ * <p>返回的是原始 Redis key（如 user:auth::{userId}），等于公开最活跃的用户 ID，而 actuator 不经过鉴权拦截器，
+ * 所以默认不通过 web 暴露：需要时把 cachetelemetry 加进 management.endpoints.web.exposure.include
+ * （actuator 只在只对内网开放的 management.server.port 上）。
+ */
+@Component
+@Endpoint(id = "cachetelemetry")
+public class CacheTelemetryEndpoint {
+
+    private static final int DEFAULT_TOP = 20;
+
+    private final CacheTelemetry cacheTelemetry;
+
+    public CacheTelemetryEndpoint(CacheTelemetry cacheTelemetry) {
+        this.cacheTelemetry = cacheTelemetry;
+    }
+
+    @ReadOperation
+    public Map<String, CacheTelemetry.Report> caches(@Nullable Integer top) {
+        return cacheTelemetry.report(top == null ? DEFAULT_TOP : top);
+    }
+
+    /**
+     * 还没有访问过的缓存返回 404
+     */
+    @ReadOperation
+    public CacheTelemetry.Report cache(@Selector String cacheName, @Nullable Integer top) {
+        return cacheTelemetry.report(cacheName, top == null ? DEFAULT_TOP : top);
+    }
+}
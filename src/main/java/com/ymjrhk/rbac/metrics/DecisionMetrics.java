@@ -0,0 +1,61 @@
+package com.ymjrhk.rbac.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 认证 / 鉴权拦截器的判定指标
+ *
+ * <p>rbac.decision{stage, outcome, reason}：一个 Timer 同时给出各结论的次数和耗时分布。
+ * <ul>
+ *   <li>stage：auth / permission</li>
+ *   <li>outcome：allow / deny / error（error 指数据库、Redis 等异常，不是用户的问题）</li>
+ *   <li>reason：拒绝原因，与请求轨迹中的结论一致，如 version-mismatch、disabled、access-denied；
+ *       outcome 为 error 时固定为 error（具体异常类型只记在请求轨迹和日志里）</li>
+ * </ul>
+ * reason 只取代码里写死的几个值，标签基数有限。
+ */
+@Component
+public class DecisionMetrics {
+
+    public static final String AUTH = "auth";
+
+    public static final String PERMISSION = "permission";
+
+    public static final String ALLOW = "allow";
+
+    public static final String DENY = "deny";
+
+    public static final String ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public DecisionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param stage
+     * @param outcome
+     * @param reason
+     * @param startNanos 拦截器开始时的 System.nanoTime()
+     */
+    public void record(String stage, String outcome, String reason, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        timers.computeIfAbsent(stage + '|' + outcome + '|' + reason,
+                      k -> Timer.builder("rbac.decision")
+                                .description("认证 / 鉴权判定次数与耗时")
+                                .tag("stage", stage)
+                                .tag("outcome", outcome)
+                                .tag("reason", reason)
+                                .publishPercentileHistogram()
+                                .register(meterRegistry))
+              .record(elapsed, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,86 @@
+package com.ymjrhk.rbac.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyBatis 插件：按 statement 记录 Mapper 耗时
+ *
+ * <p>rbac.mapper{statement=UserMapper.getById, outcome=success|error}。
+ * mybatis-spring-boot-starter 会把容器里的 Interceptor Bean 注册到 SqlSessionFactory。
+ * 同时拦截 4 参数和 6 参数的 query：PageHelper 在外层时只会调到其中一个，不会重复计数；
+ * PageHelper 生成的 count 语句（xxx_COUNT）单独记一条。
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class})
+})
+public class MapperMetricsInterceptor implements Interceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public MapperMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = invocation.proceed();
+            success = true;
+            return result;
+        } finally {
+            timer(statement.getId(), success).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String statementId, boolean success) {
+        String outcome = success ? "success" : "error";
+        return timers.computeIfAbsent(statementId + '|' + outcome,
+                k -> Timer.builder("rbac.mapper")
+                          .description("Mapper 语句耗时")
+                          .tag("statement", shortId(statementId))
+                          .tag("outcome", outcome)
+                          .publishPercentileHistogram()
+                          .register(meterRegistry));
+    }
+
+    /**
+     * com.ymjrhk.rbac.mapper.UserMapper.getById → UserMapper.getById
+     *
+     * @param statementId
+     * @return
+     */
+    static String shortId(String statementId) {
+        int method = statementId.lastIndexOf('.');
+        if (method <= 0) {
+            return statementId;
+        }
+        int type = statementId.lastIndexOf('.', method - 1);
+        return statementId.substring(type + 1);
+    }
+}
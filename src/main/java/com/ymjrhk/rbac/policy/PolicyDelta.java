@@ -0,0 +1,47 @@
+package com.ymjrhk.rbac.policy;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 策略变更增量
+ *
+ * <p>只带变更的键（哪些用户 / 角色 / 权限变了），不带数据：应用时按键重新读取这几行，
+ * 所以重复应用、晚到的增量覆盖早到的结果都不会出错，各节点最终与数据库一致。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PolicyDelta {
+
+    /**
+     * 全局版本号（Redis INCR），各节点按版本号顺序应用；0 表示没拿到版本号，只在本节点应用
+     */
+    private long version;
+
+    private Type type;
+
+    private List<Long> ids;
+
+    public enum Type {
+        /**
+         * 用户的角色关系，ids 为 userId
+         */
+        USER_ROLES,
+        /**
+         * 角色本身（新增、名称、状态），ids 为 roleId
+         */
+        ROLE,
+        /**
+         * 角色的权限关系，ids 为 roleId
+         */
+        ROLE_PERMISSIONS,
+        /**
+         * 权限本身（新增、path、method、状态），ids 为 permissionId
+         */
+        PERMISSION
+    }
+}
@@ -0,0 +1,35 @@
+package com.ymjrhk.rbac.policy;
+
+import com.alibaba.fastjson2.JSON;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 订阅策略增量广播（包括本节点发出的，已应用过的按版本号丢弃）
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class PolicyDeltaListener implements MessageListener {
+
+    private final PolicyGraphStore policyGraphStore;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        handle(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    void handle(String body) {
+        try {
+            PolicyDelta delta = JSON.parseObject(body, PolicyDelta.class);
+            if (delta != null) {
+                policyGraphStore.accept(delta);
+            }
+        } catch (Exception e) {
+            log.warn("处理策略增量广播失败，message={}", body, e);
+        }
+    }
+}
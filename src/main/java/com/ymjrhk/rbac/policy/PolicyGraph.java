@@ -0,0 +1,317 @@
+package com.ymjrhk.rbac.policy;
+
+import com.ymjrhk.rbac.auth.HandlerPermissionIndex;
+import com.ymjrhk.rbac.auth.RoleSetPermissions;
+import com.ymjrhk.rbac.constant.PermissionTypeConstant;
+import com.ymjrhk.rbac.entity.Role;
+import com.ymjrhk.rbac.entity.RolePermission;
+import com.ymjrhk.rbac.entity.UserRole;
+import com.ymjrhk.rbac.vo.PermissionVO;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.ymjrhk.rbac.constant.RoleNameConstant.SUPER_ADMIN;
+import static com.ymjrhk.rbac.constant.StatusConstant.ENABLED;
+
+/**
+ * 完整的 RBAC 策略图（不可变）：角色、权限、角色 -> 权限、用户 -> 角色
+ *
+ * <p>每次变更都复制出一个新图（copy-on-write），读线程拿到的实例永远不会被修改，无需加锁。
+ * 几万用户的关联关系只有几 MB，复制一次是毫秒级，而变更远少于鉴权请求。
+ *
+ * <p>判定语义与缓存路径一致：只算非禁用角色的非禁用权限；持有非禁用超级管理员角色直接放行。
+ * 角色组合的有效权限按签名记在当前实例上，角色相同的用户共用；角色、权限变化后的新实例重新计算。
+ */
+public final class PolicyGraph {
+
+    private final long version;
+
+    private final Map<Long, RoleNode> roles;
+
+    private final Map<Long, PermissionVO> permissions;
+
+    private final Map<Long, Set<Long>> rolePermissions;
+
+    private final Map<Long, Set<Long>> userRoles;
+
+    /**
+     * 处理方法 -> 权限索引，由权限构建；权限变化后为 null，等 PolicyGraphStore 重新构建
+     */
+    private final HandlerPermissionIndex handlerIndex;
+
+    private final Long superAdminRoleId;
+
+    /**
+     * 角色组合签名 -> 有效权限
+     */
+    private final ConcurrentHashMap<String, RoleSetPermissions> roleSets;
+
+    private PolicyGraph(long version,
+                        Map<Long, RoleNode> roles,
+                        Map<Long, PermissionVO> permissions,
+                        Map<Long, Set<Long>> rolePermissions,
+                        Map<Long, Set<Long>> userRoles,
+                        HandlerPermissionIndex handlerIndex,
+                        ConcurrentHashMap<String, RoleSetPermissions> roleSets) {
+        this.version = version;
+        this.roles = roles;
+        this.permissions = permissions;
+        this.rolePermissions = rolePermissions;
+        this.userRoles = userRoles;
+        this.handlerIndex = handlerIndex;
+        this.roleSets = roleSets;
+        this.superAdminRoleId = roles.values().stream()
+                                     .filter(role -> SUPER_ADMIN.equals(role.roleName()))
+                                     .map(RoleNode::roleId)
+                                     .findFirst()
+                                     .orElse(null);
+    }
+
+    /**
+     * 由全量数据构建
+     *
+     * @param version
+     * @param roles
+     * @param permissions
+     * @param rolePermissions
+     * @param userRoles
+     * @return
+     */
+    public static PolicyGraph of(long version,
+                                 Collection<Role> roles,
+                                 Collection<PermissionVO> permissions,
+                                 Collection<RolePermission> rolePermissions,
+                                 Collection<UserRole> userRoles) {
+        Map<Long, RoleNode> roleMap = HashMap.newHashMap(roles.size());
+        roles.forEach(role -> roleMap.put(role.getRoleId(), RoleNode.of(role)));
+
+        Map<Long, PermissionVO> permissionMap = HashMap.newHashMap(permissions.size());
+        permissions.forEach(permission -> permissionMap.put(permission.getPermissionId(), permission));
+
+        Map<Long, Set<Long>> rolePermissionMap = new HashMap<>();
+        rolePermissions.forEach(rp -> rolePermissionMap.computeIfAbsent(rp.getRoleId(), k -> new TreeSet<>())
+                                                       .add(rp.getPermissionId()));
+
+        Map<Long, Set<Long>> userRoleMap = new HashMap<>();
+        userRoles.forEach(ur -> userRoleMap.computeIfAbsent(ur.getUserId(), k -> new TreeSet<>())
+                                           .add(ur.getRoleId()));
+
+        return new PolicyGraph(version,
+                Collections.unmodifiableMap(roleMap),
+                Collections.unmodifiableMap(permissionMap),
+                freeze(rolePermissionMap),
+                freeze(userRoleMap),
+                null,
+                new ConcurrentHashMap<>());
+    }
+
+    /**
+     * 替换部分用户的角色（角色组合的有效权限与用户无关，沿用）
+     *
+     * @param changes userId -> 全部 roleId（空表示没有角色）
+     * @param version
+     * @return
+     */
+    public PolicyGraph withUserRoles(Map<Long, ? extends Collection<Long>> changes, long version) {
+        return new PolicyGraph(version, roles, permissions, rolePermissions, replaceLinks(userRoles, changes),
+                handlerIndex, roleSets);
+    }
+
+    /**
+     * 替换部分角色（名称、状态）
+     *
+     * @param changes roleId -> 角色，null 表示已删除
+     * @param version
+     * @return
+     */
+    public PolicyGraph withRoles(Map<Long, Role> changes, long version) {
+        Map<Long, RoleNode> copy = new HashMap<>(roles);
+        changes.forEach((roleId, role) -> {
+            if (role == null) {
+                copy.remove(roleId);
+            } else {
+                copy.put(roleId, RoleNode.of(role));
+            }
+        });
+        return new PolicyGraph(version, Collections.unmodifiableMap(copy), permissions, rolePermissions, userRoles,
+                handlerIndex, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * 替换部分角色的权限
+     *
+     * @param changes roleId -> 全部 permissionId（不论权限状态）
+     * @param version
+     * @return
+     */
+    public PolicyGraph withRolePermissions(Map<Long, ? extends Collection<Long>> changes, long version) {
+        return new PolicyGraph(version, roles, permissions, replaceLinks(rolePermissions, changes), userRoles,
+                handlerIndex, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * 替换部分权限（path、method、状态），处理方法索引需要重建
+     *
+     * @param changes permissionId -> 权限，null 表示已删除
+     * @param version
+     * @return
+     */
+    public PolicyGraph withPermissions(Map<Long, PermissionVO> changes, long version) {
+        Map<Long, PermissionVO> copy = new HashMap<>(permissions);
+        changes.forEach((permissionId, permission) -> {
+            if (permission == null) {
+                copy.remove(permissionId);
+            } else {
+                copy.put(permissionId, permission);
+            }
+        });
+        return new PolicyGraph(version, roles, Collections.unmodifiableMap(copy), rolePermissions, userRoles,
+                null, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * 换一个版本号（内容不变）
+     *
+     * @param version
+     * @return
+     */
+    public PolicyGraph withVersion(long version) {
+        return new PolicyGraph(version, roles, permissions, rolePermissions, userRoles, handlerIndex, roleSets);
+    }
+
+    /**
+     * 设置处理方法索引（不影响角色组合的有效权限）
+     *
+     * @param handlerIndex
+     * @return
+     */
+    public PolicyGraph withHandlerIndex(HandlerPermissionIndex handlerIndex) {
+        return new PolicyGraph(version, roles, permissions, rolePermissions, userRoles, handlerIndex, roleSets);
+    }
+
+    /**
+     * 鉴权：用户的角色组合与处理方法对应的权限做位图求交（处理方法不在索引中时按请求路径做模式匹配）
+     *
+     * @param userId
+     * @param handler       Controller 方法
+     * @param requestPath
+     * @param requestMethod
+     * @return
+     */
+    public boolean permits(Long userId, Method handler, String requestPath, String requestMethod) {
+        HandlerPermissionIndex index = handlerIndex != null ? handlerIndex : HandlerPermissionIndex.EMPTY;
+        return roleSetOf(userId).permits(index.get(handler, requestMethod), requestPath, requestMethod);
+    }
+
+    /**
+     * 用户的非禁用角色组合及其有效权限
+     *
+     * @param userId
+     * @return
+     */
+    public RoleSetPermissions roleSetOf(Long userId) {
+        List<Long> enabledRoleIds = userRoles.getOrDefault(userId, Set.of())
+                                             .stream()
+                                             .filter(this::isEnabledRole)
+                                             .toList();
+        return roleSets.computeIfAbsent(RoleSetPermissions.signature(enabledRoleIds), this::buildRoleSet);
+    }
+
+    /**
+     * 全部非禁用的 ACTION 权限（构建处理方法索引用）
+     *
+     * @return
+     */
+    public List<PermissionVO> activeActionPermissions() {
+        return permissions.values().stream()
+                          .filter(PolicyGraph::isActive)
+                          .filter(p -> Objects.equals(p.getType(), PermissionTypeConstant.ACTION))
+                          .sorted(Comparator.comparing(PermissionVO::getPermissionId))
+                          .toList();
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public HandlerPermissionIndex handlerIndex() {
+        return handlerIndex;
+    }
+
+    public int userCount() {
+        return userRoles.size();
+    }
+
+    public int roleCount() {
+        return roles.size();
+    }
+
+    public int permissionCount() {
+        return permissions.size();
+    }
+
+    /**
+     * 与 RoleSetPermissionServiceImpl 相同：各角色权限按角色顺序合并去重，超级管理员角色即全部非禁用 ACTION 权限
+     */
+    private RoleSetPermissions buildRoleSet(String signature) {
+        List<Long> roleIds = RoleSetPermissions.roleIds(signature);
+
+        Map<Long, PermissionVO> union = new LinkedHashMap<>();
+        for (Long roleId : roleIds) {
+            if (roleId.equals(superAdminRoleId)) {
+                activeActionPermissions().forEach(p -> union.putIfAbsent(p.getPermissionId(), p));
+                continue;
+            }
+            for (Long permissionId : rolePermissions.getOrDefault(roleId, Set.of())) {
+                PermissionVO permission = permissions.get(permissionId);
+                if (permission != null && isActive(permission)) {
+                    union.putIfAbsent(permissionId, permission);
+                }
+            }
+        }
+
+        RoleSetPermissions roleSet = new RoleSetPermissions();
+        roleSet.setRoleSet(signature);
+        roleSet.setSuperAdmin(superAdminRoleId != null && roleIds.contains(superAdminRoleId));
+        roleSet.setPermissions(new ArrayList<>(union.values()));
+        return roleSet;
+    }
+
+    private boolean isEnabledRole(Long roleId) {
+        RoleNode role = roles.get(roleId);
+        return role != null && Objects.equals(role.status(), ENABLED);
+    }
+
+    private static boolean isActive(PermissionVO permission) {
+        return Objects.equals(permission.getStatus(), ENABLED);
+    }
+
+    private static Map<Long, Set<Long>> replaceLinks(Map<Long, Set<Long>> links,
+                                                     Map<Long, ? extends Collection<Long>> changes) {
+        Map<Long, Set<Long>> copy = new HashMap<>(links);
+        changes.forEach((id, targets) -> {
+            if (targets == null || targets.isEmpty()) {
+                copy.remove(id);
+            } else {
+                copy.put(id, Collections.unmodifiableSet(new TreeSet<>(targets)));
+            }
+        });
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static Map<Long, Set<Long>> freeze(Map<Long, Set<Long>> links) {
+        links.replaceAll((id, targets) -> Collections.unmodifiableSet(targets));
+        return Collections.unmodifiableMap(links);
+    }
+
+    /**
+     * 判定只需要角色名（超级管理员）和状态
+     */
+    private record RoleNode(Long roleId, String roleName, Integer status) {
+        private static RoleNode of(Role role) {
+            return new RoleNode(role.getRoleId(), role.getRoleName(), role.getStatus());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.ymjrhk.rbac.policy;
+
+import cn.hutool.core.bean.BeanUtil;
+import com.ymjrhk.rbac.entity.Permission;
+import com.ymjrhk.rbac.entity.Role;
+import com.ymjrhk.rbac.mapper.PermissionMapper;
+import com.ymjrhk.rbac.mapper.RoleMapper;
+import com.ymjrhk.rbac.mapper.RolePermissionMapper;
+import com.ymjrhk.rbac.mapper.UserRoleMapper;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 从数据库加载策略图：全量加载，或按增量中的键重新读取受影响的行
+ */
+@Component
+@RequiredArgsConstructor
+public class PolicyGraphLoader {
+    private final UserRoleMapper userRoleMapper;
+
+    private final RolePermissionMapper rolePermissionMapper;
+
+    private final RoleMapper roleMapper;
+
+    private final PermissionMapper permissionMapper;
+
+    /**
+     * 全量加载
+     *
+     * @param version 加载前读到的全局版本号
+     * @return
+     */
+    public PolicyGraph loadAll(long version) {
+        return PolicyGraph.of(version,
+                roleMapper.listAll(),
+                permissionMapper.listAll(),
+                rolePermissionMapper.listAll(),
+                userRoleMapper.listAll());
+    }
+
+    /**
+     * 应用一个增量：重新读取受影响的行，生成新图
+     *
+     * @param graph
+     * @param delta
+     * @param version 新图的版本号
+     * @return
+     */
+    public PolicyGraph apply(PolicyGraph graph, PolicyDelta delta, long version) {
+        List<Long> ids = delta.getIds() == null ? List.of() : delta.getIds();
+        switch (delta.getType()) {
+            case USER_ROLES -> {
+                Map<Long, List<Long>> changes = new HashMap<>();
+                ids.forEach(userId -> changes.put(userId, userRoleMapper.selectRoleIdsByUserId(userId)));
+                return graph.withUserRoles(changes, version);
+            }
+            case ROLE -> {
+                Map<Long, Role> changes = new HashMap<>();
+                ids.forEach(roleId -> changes.put(roleId, roleMapper.getByRoleId(roleId)));
+                return graph.withRoles(changes, version);
+            }
+            case ROLE_PERMISSIONS -> {
+                Map<Long, List<Long>> changes = new HashMap<>();
+                ids.forEach(roleId -> changes.put(roleId, rolePermissionMapper.selectPermissionIdsByRoleId(roleId)));
+                return graph.withRolePermissions(changes, version);
+            }
+            case PERMISSION -> {
+                Map<Long, PermissionVO> changes = new HashMap<>();
+                ids.forEach(permissionId -> changes.put(permissionId, toVO(permissionMapper.getByPermissionId(permissionId))));
+                return graph.withPermissions(changes, version);
+            }
+            default -> throw new IllegalArgumentException("未知的增量类型：" + delta.getType());
+        }
+    }
+
+    /**
+     * 与 listAll 查出的列一致，不带 version / secretToken
+     */
+    private static PermissionVO toVO(Permission permission) {
+        if (permission == null) {
+            return null;
+        }
+        return BeanUtil.copyProperties(permission, PermissionVO.class, "version", "secretToken");
+    }
+}
@@ -0,0 +1,319 @@
+package com.ymjrhk.rbac.policy;
+
+import com.ymjrhk.rbac.auth.HandlerPermissionIndex;
+import com.ymjrhk.rbac.properties.PolicyProperties;
+import com.ymjrhk.rbac.service.HandlerPermissionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.ymjrhk.rbac.constant.CacheConstant.POLICY_VERSION_KEY;
+
+/**
+ * 持有当前的内存策略图，按版本号顺序应用增量（rbac.policy.in-memory=true 时生效）
+ *
+ * <p>读路径只读一个 volatile 引用；增量的应用、重新加载都在锁内串行执行，每次生成一个新图再替换引用。
+ * <ul>
+ *   <li>版本号 ≤ 当前版本：已经包含在图中，丢弃</li>
+ *   <li>版本号 = 当前版本 + 1：应用，再接着应用暂存的后续增量</li>
+ *   <li>版本号更大（中间的还没到）：暂存；下一次检查时仍有缺口，或暂存过多，就全量重新加载</li>
+ * </ul>
+ * 增量丢失时（发布失败、订阅断线）本地版本号会落后于 Redis 中的全局版本号，连续两次检查都落后同样全量重新加载；
+ * 另有定期全量重新加载兜底。
+ *
+ * <p>全量加载前先读全局版本号：版本号不大于它的增量都是在数据库提交后才生成的，加载结果一定已经包含；
+ * 更大的增量可能包含也可能没有，重新应用一遍不影响结果（增量只带键，应用时重新读取）。
+ */
+@Component
+@Slf4j
+public class PolicyGraphStore {
+
+    private final PolicyGraphLoader policyGraphLoader;
+
+    private final HandlerPermissionService handlerPermissionService;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final PolicyProperties policyProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    private volatile PolicyGraph graph;
+
+    /**
+     * 版本号不连续时暂存的增量，版本号 -> 增量
+     */
+    private final TreeMap<Long, PolicyDelta> pending = new TreeMap<>();
+
+    /**
+     * 应用增量失败，下一次检查时全量重新加载
+     */
+    private boolean reloadRequested;
+
+    /**
+     * 上一次检查时存在缺口 / 落后于全局版本号的本地版本号，-1 表示没有
+     */
+    private long gapSince = -1;
+
+    private long laggingSince = -1;
+
+    private long loadedAt;
+
+    private ScheduledExecutorService scheduler;
+
+    public PolicyGraphStore(PolicyGraphLoader policyGraphLoader,
+                            HandlerPermissionService handlerPermissionService,
+                            StringRedisTemplate stringRedisTemplate,
+                            PolicyProperties policyProperties,
+                            MeterRegistry meterRegistry) {
+        this.policyGraphLoader = policyGraphLoader;
+        this.handlerPermissionService = handlerPermissionService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.policyProperties = policyProperties;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("rbac.policy.version", this, store -> {
+                 PolicyGraph g = store.graph;
+                 return g == null ? -1 : g.version();
+             })
+             .description("内存策略图的当前版本号，未加载时为 -1")
+             .register(meterRegistry);
+    }
+
+    /**
+     * 路由表在容器刷新后才读取，所以在应用就绪后再加载（处理方法索引依赖路由表）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!policyProperties.isInMemory()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "policy-graph-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = policyProperties.getCheckInterval().toMillis();
+        // 立即执行一次，完成首次全量加载
+        scheduler.scheduleWithFixedDelay(this::checkQuietly, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 当前的策略图
+     *
+     * @return 未启用或尚未加载成功时返回 null（鉴权走缓存）
+     */
+    public PolicyGraph current() {
+        return policyProperties.isInMemory() ? graph : null;
+    }
+
+    /**
+     * 接收一个增量（来自广播，或本节点的变更）
+     *
+     * @param delta
+     */
+    @EventListener
+    public synchronized void accept(PolicyDelta delta) {
+        if (!policyProperties.isInMemory() || delta.getType() == null) {
+            return;
+        }
+        PolicyGraph g = graph;
+
+        if (delta.getVersion() <= 0) {
+            // 没拿到全局版本号（Redis 不可用）：只在本节点应用，版本号不变，其他节点靠定期全量加载追上
+            if (g != null) {
+                applyQuietly(g, delta, g.version());
+            }
+            count("local");
+            return;
+        }
+        if (g != null && delta.getVersion() <= g.version()) {
+            count("stale");
+            return;
+        }
+
+        pending.put(delta.getVersion(), delta);
+        if (g == null) {
+            // 还没加载：暂存，加载完成后应用其中版本号更大的
+            while (pending.size() > policyProperties.getMaxPendingDeltas()) {
+                pending.pollFirstEntry();
+            }
+            return;
+        }
+        drain();
+        if (pending.size() > policyProperties.getMaxPendingDeltas()) {
+            reload("overflow");
+        }
+    }
+
+    /**
+     * 定期检查：首次加载 / 应用失败 / 缺口未补齐 / 落后于全局版本号 / 到了定期全量加载的时间
+     */
+    synchronized void check() {
+        PolicyGraph g = graph;
+        if (g == null) {
+            reload("initial");
+            return;
+        }
+        if (reloadRequested) {
+            reload("error");
+            return;
+        }
+
+        if (pending.isEmpty()) {
+            gapSince = -1;
+        } else if (gapSince == g.version()) {
+            reload("gap");
+            return;
+        } else {
+            gapSince = g.version();
+        }
+
+        Long remote = remoteVersion();
+        if (remote == null || remote <= g.version()) {
+            laggingSince = -1;
+        } else if (laggingSince == g.version()) {
+            reload("lagging");
+            return;
+        } else {
+            laggingSince = g.version();
+        }
+
+        if (System.currentTimeMillis() - loadedAt >= policyProperties.getFullReloadInterval().toMillis()) {
+            reload("periodic");
+            return;
+        }
+
+        if (g.handlerIndex() == null) {
+            // 路由表还没读取时索引为空，之后补建
+            publish(g);
+        }
+    }
+
+    /**
+     * 全量重新加载；失败时保留原来的图，下一次检查重试
+     *
+     * @param reason
+     */
+    synchronized void reload(String reason) {
+        PolicyGraph old = graph;
+        Long remote = remoteVersion();
+        long version = remote != null ? remote : (old != null ? old.version() : 0);
+        try {
+            long startNanos = System.nanoTime();
+            PolicyGraph loaded = policyGraphLoader.loadAll(version);
+            publish(loaded);
+            reloadRequested = false;
+            gapSince = -1;
+            laggingSince = -1;
+            loadedAt = System.currentTimeMillis();
+            Counter.builder("rbac.policy.reloads")
+                   .description("内存策略图全量加载次数")
+                   .tag("reason", reason)
+                   .register(meterRegistry)
+                   .increment();
+            log.info("内存策略图已全量加载（{}）：版本 {}，用户 {}，角色 {}，权限 {}，耗时 {} ms", reason, version,
+                    loaded.userCount(), loaded.roleCount(), loaded.permissionCount(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        } catch (RuntimeException e) {
+            reloadRequested = old != null;
+            log.warn("内存策略图全量加载失败（{}），{}", reason, old == null ? "鉴权继续走缓存" : "继续使用版本 " + old.version(), e);
+            return;
+        }
+        pending.headMap(version, true).clear();
+        drain();
+    }
+
+    private void checkQuietly() {
+        try {
+            check();
+        } catch (RuntimeException e) {
+            log.warn("内存策略图检查失败", e);
+        }
+    }
+
+    /**
+     * 依次应用暂存的连续增量
+     */
+    private void drain() {
+        while (!pending.isEmpty()) {
+            PolicyGraph g = graph;
+            Map.Entry<Long, PolicyDelta> first = pending.firstEntry();
+            if (first.getKey() <= g.version()) {
+                pending.pollFirstEntry();
+                count("stale");
+                continue;
+            }
+            if (first.getKey() != g.version() + 1) {
+                count("buffered");
+                return;
+            }
+            if (!applyQuietly(g, first.getValue(), first.getKey())) {
+                return;
+            }
+            pending.pollFirstEntry();
+            count("applied");
+        }
+    }
+
+    private boolean applyQuietly(PolicyGraph g, PolicyDelta delta, long version) {
+        try {
+            publish(policyGraphLoader.apply(g, delta, version));
+            return true;
+        } catch (RuntimeException e) {
+            // 增量留在暂存区里，下一次检查全量重新加载
+            reloadRequested = true;
+            log.warn("应用策略增量失败，将全量重新加载：{}", delta, e);
+            return false;
+        }
+    }
+
+    /**
+     * 替换当前图，权限变化后先补建处理方法索引
+     */
+    private void publish(PolicyGraph g) {
+        if (g.handlerIndex() == null) {
+            HandlerPermissionIndex index = handlerPermissionService.buildIndex(g.activeActionPermissions());
+            if (index != null) {
+                g = g.withHandlerIndex(index);
+            }
+        }
+        graph = g;
+    }
+
+    private Long remoteVersion() {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(POLICY_VERSION_KEY);
+            return value == null ? 0L : Long.parseLong(value);
+        } catch (RuntimeException e) {
+            log.warn("读取策略全局版本号失败：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void count(String result) {
+        Counter.builder("rbac.policy.deltas")
+               .description("收到的策略增量")
+               .tag("result", result)
+               .register(meterRegistry)
+               .increment();
+    }
+}
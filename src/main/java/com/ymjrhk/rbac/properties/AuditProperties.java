@@ -0,0 +1,121 @@
+package com.ymjrhk.rbac.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 审计日志批量写入相关配置
+ */
+@Component
+@ConfigurationProperties(prefix = "rbac.audit")
+@Data
+public class AuditProperties {
+
+    /**
+     * 环形缓冲区容量（会向上取整为 2 的幂）
+     */
+    private int capacity = 8192;
+
+    /**
+     * 每批最多插入多少条（多行 INSERT）
+     */
+    private int batchSize = 200;
+
+    /**
+     * 攒批最长等待时间，到时间即使不满一批也写入
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * 消费线程数（1 或 2）
+     */
+    private int drainerThreads = 1;
+
+    /**
+     * 缓冲区满时的处理策略
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    /**
+     * BLOCK 策略下请求线程最多等待多久，超时仍按丢弃计数
+     */
+    private Duration blockTimeout = Duration.ofMillis(50);
+
+    /**
+     * 关闭应用时等待剩余日志写完的最长时间
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 本地落盘（写库失败或 SPILL 溢出时）
+     */
+    private Journal journal = new Journal();
+
+    /**
+     * 参数错误（400）请求体的脱敏（AuditFailInterceptor）
+     */
+    private Mask mask = new Mask();
+
+    public enum OverflowPolicy {
+        /**
+         * 直接丢弃并计数
+         */
+        DROP,
+        /**
+         * 交给溢出存储（落盘），没有配置溢出存储时退化为 DROP
+         */
+        SPILL,
+        /**
+         * 请求线程等待空位（最多 blockTimeout）
+         */
+        BLOCK
+    }
+
+    @Data
+    public static class Journal {
+
+        /**
+         * 是否启用落盘，关闭后写库失败的日志直接丢弃
+         */
+        private boolean enabled = true;
+
+        /**
+         * 段文件目录
+         */
+        private String directory = "data/audit-journal";
+
+        /**
+         * 单个段文件大小，超过后新开一个段
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * 每次追加后是否 fsync（更安全，但每次溢出都要等磁盘）
+         */
+        private boolean fsync = false;
+
+        /**
+         * 回放线程检查积压的间隔
+         */
+        private Duration replayInterval = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Mask {
+
+        /**
+         * 敏感 key 片段：JSON key 中包含其中任意一个（ASCII 不区分大小写）时，字符串值替换为 ******
+         */
+        private List<String> keys = List.of("password", "token");
+
+        /**
+         * 脱敏后请求体的最大长度，超出部分截掉并加上截断标记
+         */
+        private DataSize maxBodySize = DataSize.ofKilobytes(8);
+    }
+}
@@ -0,0 +1,134 @@
+package com.ymjrhk.rbac.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 两级缓存相关配置
+ */
+@Component
+@ConfigurationProperties(prefix = "rbac.cache")
+@Data
+public class CacheProperties {
+
+    /**
+     * 跨节点加载租约（节点内的加载去重始终开启）
+     */
+    private Lease lease = new Lease();
+
+    /**
+     * 负结果缓存：方法返回 null、数据不存在时写入短 TTL 的哨兵
+     */
+    private Negative negative = new Negative();
+
+    /**
+     * Redis 中的缓存值用紧凑的二进制编码（CompactRedisSerializer）代替带类名的 JSON；
+     * 新节点两种格式都能读，旧节点只能读 JSON，所以要等所有节点都升级后再打开
+     */
+    private boolean compactValues = false;
+
+    /**
+     * Redis 熔断：Redis 变慢或不可用时降级为只用本地缓存
+     */
+    private Circuit circuit = new Circuit();
+
+    /**
+     * Redis 缓存的热 key 与值大小统计（/actuator/cachetelemetry）
+     */
+    private Telemetry telemetry = new Telemetry();
+
+    @Data
+    public static class Lease {
+        /**
+         * 是否启用：启用后同一个 key 同一时刻只有一个节点回源
+         */
+        private boolean enabled = false;
+
+        /**
+         * 租约时长，应略长于一次加载的耗时；持有者崩溃时到期自动释放
+         */
+        private Duration ttl = Duration.ofSeconds(3);
+
+        /**
+         * 没拿到租约、也没有旧值时，最多等待持有者写回多久
+         */
+        private Duration waitTimeout = Duration.ofMillis(500);
+
+        /**
+         * 本地条目过期多久以内还可以当作旧值返回
+         */
+        private Duration maxStale = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Negative {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 哨兵在 Redis 中的 TTL，即新建数据前被探测过的 ID 最多多久查不到（新建时会主动删除）
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+
+        /**
+         * 哨兵在本地的 TTL
+         */
+        private Duration localTtl = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Circuit {
+        /**
+         * 是否启用；不启用时 Redis 异常直接抛给调用方
+         */
+        private boolean enabled = true;
+
+        /**
+         * 连续失败多少次后熔断
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * 单次访问超过该耗时也计为失败（命令超时见 spring.data.redis.timeout）
+         */
+        private Duration slowCall = Duration.ofMillis(200);
+
+        /**
+         * 熔断多久后尝试恢复
+         */
+        private Duration openDuration = Duration.ofSeconds(5);
+
+        /**
+         * 熔断期间新写入的本地条目最多存活多久（收不到其他节点的失效广播）
+         */
+        private Duration degradedLocalTtl = Duration.ofSeconds(10);
+
+        /**
+         * 熔断期间最多记多少个待重放的删除，超过后改为恢复时整个清空对应的缓存
+         */
+        private int maxPendingEvictions = 10_000;
+    }
+
+    @Data
+    public static class Telemetry {
+        /**
+         * 是否记录（关闭后端点返回空）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每个缓存保留多少个热 key
+         */
+        private int topK = 50;
+
+        /**
+         * Count-Min Sketch 每行的计数器数（2 的幂），越大估计越准；每个缓存占 4 × width × 4 字节
+         */
+        private int sketchWidth = 4096;
+    }
+}
@@ -4,6 +4,10 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * 用户jwt令牌相关配置
  */
@@ -12,10 +16,23 @@ import org.springframework.stereotype.Component;
 @Data
 public class JwtProperties {
 
+    /**
+     * 当前签名秘钥（HS256，至少 32 字节）
+     */
     private String secretKey;
 
     private long ttl;
 
+    /**
+     * 当前签名秘钥的 kid，写入 JWT header
+     */
+    private String keyId = "default";
+
+    /**
+     * 密钥轮换：仍然接受验签、但不再用来签发的旧秘钥，kid → 秘钥
+     */
+    private Map<String, String> verificationKeys = new LinkedHashMap<>();
+
     /**
      * HTTP Header 名，推荐固定为 Authorization
      */
@@ -25,4 +42,14 @@ public class JwtProperties {
      * token 前缀
      */
     private String prefix = "Bearer ";
+
+    /**
+     * 已验签 token 缓存的条目上限
+     */
+    private int verifiedCacheSize = 10_000;
+
+    /**
+     * 已验签 token 缓存的最长保留时间（同时不超过 token 自身的 exp）
+     */
+    private Duration verifiedCacheTtl = Duration.ofMinutes(5);
 }
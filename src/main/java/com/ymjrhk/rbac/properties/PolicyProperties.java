@@ -0,0 +1,36 @@
+package com.ymjrhk.rbac.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 内存策略图相关配置
+ */
+@Component
+@ConfigurationProperties(prefix = "rbac.policy")
+@Data
+public class PolicyProperties {
+
+    /**
+     * 是否启用内存策略图（关闭时鉴权走缓存）
+     */
+    private boolean inMemory = false;
+
+    /**
+     * 检查版本号缺口的间隔：收到的增量不连续，或 Redis 中的全局版本号领先本地时，下一次检查仍未补齐就全量重新加载
+     */
+    private Duration checkInterval = Duration.ofSeconds(5);
+
+    /**
+     * 定期全量重新加载的间隔，兜底丢失的增量
+     */
+    private Duration fullReloadInterval = Duration.ofMinutes(30);
+
+    /**
+     * 缓存的乱序增量超过该数量时直接全量重新加载
+     */
+    private int maxPendingDeltas = 1000;
+}
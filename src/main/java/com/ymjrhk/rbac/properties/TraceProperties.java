@@ -0,0 +1,31 @@
+package com.ymjrhk.rbac.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 请求轨迹相关配置
+ */
+@Component
+@ConfigurationProperties(prefix = "rbac.trace")
+@Data
+public class TraceProperties {
+
+    /**
+     * 是否记录请求轨迹（关闭后既不记直方图也不输出日志）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 输出轨迹日志的采样率，0 ~ 1
+     */
+    private double sampleRate = 0.01;
+
+    /**
+     * 总耗时超过该值的请求不论是否被采样都输出
+     */
+    private Duration slowThreshold = Duration.ofMillis(500);
+}
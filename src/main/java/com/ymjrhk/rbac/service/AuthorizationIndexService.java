@@ -0,0 +1,9 @@
+package com.ymjrhk.rbac.service;
+
+import com.ymjrhk.rbac.auth.IdSet;
+
+public interface AuthorizationIndexService {
+    IdSet getUserIdsByRoleId(Long roleId);
+
+    IdSet getRoleIdsByPermissionId(Long permissionId);
+}
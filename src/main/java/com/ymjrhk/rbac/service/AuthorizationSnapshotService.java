@@ -0,0 +1,7 @@
+package com.ymjrhk.rbac.service;
+
+import com.ymjrhk.rbac.auth.AuthorizationSnapshot;
+
+public interface AuthorizationSnapshotService {
+    AuthorizationSnapshot getSnapshot(Long userId);
+}
@@ -0,0 +1,17 @@
+package com.ymjrhk.rbac.service;
+
+import java.util.Collection;
+
+public interface CacheEvictionService {
+    void evictUsersOfRoles(Collection<Long> roleIds, String... userCacheNames);
+
+    void evictRolePermissions(Collection<Long> roleIds);
+
+    void evictHoldersOfPermission(Long permissionId, String... userCacheNames);
+
+    void evictRoleUsersIndex(Collection<Long> roleIds);
+
+    void evictPermissionRolesIndex(Collection<Long> permissionIds);
+
+    void evictCreated(Long id, String... cacheNames);
+}
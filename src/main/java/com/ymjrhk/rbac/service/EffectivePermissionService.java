@@ -0,0 +1,10 @@
+package com.ymjrhk.rbac.service;
+
+import com.ymjrhk.rbac.vo.PermissionVO;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface EffectivePermissionService {
+    List<PermissionVO> unionOfRoles(Collection<Long> roleIds);
+}
@@ -0,0 +1,14 @@
+package com.ymjrhk.rbac.service;
+
+import com.ymjrhk.rbac.auth.HandlerPermissionIndex;
+import com.ymjrhk.rbac.auth.HandlerPermissions;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Collection;
+
+public interface HandlerPermissionService {
+    HandlerPermissions getHandlerPermissions(HandlerMethod handlerMethod, String httpMethod);
+
+    HandlerPermissionIndex buildIndex(Collection<PermissionVO> permissions);
+}
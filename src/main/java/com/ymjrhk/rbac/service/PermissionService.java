@@ -6,6 +6,8 @@ import com.ymjrhk.rbac.dto.PermissionPageQueryDTO;
 import com.ymjrhk.rbac.result.PageResult;
 import com.ymjrhk.rbac.vo.PermissionVO;
 
+import java.util.List;
+
 public interface PermissionService {
 
     Long create(PermissionCreateDTO permissionCreateDTO);
@@ -17,4 +19,6 @@ public interface PermissionService {
     void update(Long permissionId, PermissionDTO permissionDTO);
 
     void changeStatus(Long permissionId, Integer status);
+
+    List<PermissionVO> listActiveActionPermissions();
 }
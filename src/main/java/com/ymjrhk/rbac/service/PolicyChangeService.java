@@ -0,0 +1,11 @@
+package com.ymjrhk.rbac.service;
+
+public interface PolicyChangeService {
+    void userRolesChanged(Long userId);
+
+    void roleChanged(Long roleId);
+
+    void rolePermissionsChanged(Long roleId);
+
+    void permissionChanged(Long permissionId);
+}
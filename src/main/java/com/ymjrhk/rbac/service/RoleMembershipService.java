@@ -0,0 +1,7 @@
+package com.ymjrhk.rbac.service;
+
+import java.util.Set;
+
+public interface RoleMembershipService {
+    Set<String> getEnabledRoleNames(Long userId);
+}
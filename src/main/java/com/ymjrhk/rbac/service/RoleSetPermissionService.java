@@ -0,0 +1,7 @@
+package com.ymjrhk.rbac.service;
+
+import com.ymjrhk.rbac.auth.RoleSetPermissions;
+
+public interface RoleSetPermissionService {
+    RoleSetPermissions getRoleSetPermissions(String roleSet);
+}
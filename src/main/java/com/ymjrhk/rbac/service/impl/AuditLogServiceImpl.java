@@ -1,8 +1,8 @@
 package com.ymjrhk.rbac.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
+import com.ymjrhk.rbac.audit.AuditLogWriter;
 import com.github.pagehelper.Page;
-import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.page.PageMethod;
 import com.ymjrhk.rbac.constant.SuccessConstant;
 import com.ymjrhk.rbac.dto.AuditLogPageQueryDTO;
@@ -34,6 +34,8 @@ public class AuditLogServiceImpl extends BaseService implements AuditLogService
 
     private final UserMapper userMapper;
 
+    private final AuditLogWriter auditLogWriter;
+
     /**
      * 审计日志分页查询
      *
@@ -70,22 +72,18 @@ public class AuditLogServiceImpl extends BaseService implements AuditLogService
     }
 
     /**
-     * AOP 插入审计日志
+     * AOP 插入审计日志（只入队，由 AuditLogWriter 批量写库）
      *
      * @param auditLog
      */
-    @Async("auditExecutor")
     @Override
     public void save(AuditLog auditLog) {
-        try { // 异步方法内部自己 try-catch
-            auditLogMapper.insert(auditLog);
-        } catch (Exception e) {
-            log.error("异步保存审计日志失败", e);
-        }
+        auditLogWriter.submit(auditLog);
     }
 
     /**
      * 登录成功/失败，插入审计日志
+     * （登录失败时要按 username 查 userId，所以仍在 auditExecutor 中执行，查完入队批量写库）
      *
      * @param userId
      * @param username
@@ -126,24 +124,15 @@ public class AuditLogServiceImpl extends BaseService implements AuditLogService
             auditLog.setRequestBody(requestBody);
         }
 
-        try { // 异步方法内部自己 try-catch
-            auditLogMapper.insert(auditLog);
-        } catch (Exception e) {
-            log.error("异步保存登录审计日志失败", e);
-        }
+        auditLogWriter.submit(auditLog);
     }
 
     /**
-     * 未授权访问，插入审计日志
+     * 未授权访问，插入审计日志（只入队，由 AuditLogWriter 批量写库）
      * @param auditLog
      */
-    @Async("auditExecutor")
     @Override
     public void saveForbiddenLog(AuditLog auditLog) {
-        try { // 异步方法内部自己 try-catch
-            auditLogMapper.insert(auditLog);
-        } catch (Exception e) {
-            log.error("异步保存未授权访问审计日志失败", e);
-        }
+        auditLogWriter.submit(auditLog);
     }
 }
@@ -1,5 +1,6 @@
 package com.ymjrhk.rbac.service.impl;
 
+import com.ymjrhk.rbac.auth.JwtCodec;
 import com.ymjrhk.rbac.constant.JwtClaimsConstant;
 import com.ymjrhk.rbac.constant.MessageConstant;
 import com.ymjrhk.rbac.constant.StatusConstant;
@@ -10,10 +11,8 @@ import com.ymjrhk.rbac.exception.AccountOrPasswordErrorException;
 import com.ymjrhk.rbac.exception.UserForbiddenException;
 import com.ymjrhk.rbac.exception.UserNotLoginException;
 import com.ymjrhk.rbac.mapper.UserMapper;
-import com.ymjrhk.rbac.properties.JwtProperties;
 import com.ymjrhk.rbac.service.AuthService;
 import com.ymjrhk.rbac.service.UserService;
-import com.ymjrhk.rbac.utils.JwtUtil;
 import com.ymjrhk.rbac.vo.UserLoginVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,7 +32,7 @@ public class AuthServiceImpl implements AuthService {
 
     private final PasswordEncoder passwordEncoder;
 
-    private final JwtProperties jwtProperties;
+    private final JwtCodec jwtCodec;
 
     private final UserService userService;
 
@@ -74,10 +73,7 @@ public class AuthServiceImpl implements AuthService {
         claims.put(JwtClaimsConstant.USER_ID, user.getUserId()); // JWT 存 userId、username 和 authVersion
         claims.put(JwtClaimsConstant.USERNAME, user.getUsername());
         claims.put(JwtClaimsConstant.AUTH_VERSION, user.getAuthVersion());
-        String token = JwtUtil.createJWT(
-                jwtProperties.getSecretKey(),
-                jwtProperties.getTtl(),
-                claims);
+        String token = jwtCodec.encode(claims);
 
         // 4. 返回 UserLoginVO
         return UserLoginVO.builder()
@@ -0,0 +1,60 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.ymjrhk.rbac.auth.IdSet;
+import com.ymjrhk.rbac.mapper.RolePermissionMapper;
+import com.ymjrhk.rbac.mapper.UserRoleMapper;
+import com.ymjrhk.rbac.service.AuthorizationIndexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+
+import static com.ymjrhk.rbac.constant.CacheConstant.PERMISSION_ROLES;
+import static com.ymjrhk.rbac.constant.CacheConstant.ROLE_USERS;
+
+/**
+ * 反向索引（带缓存，本地 + Redis）：角色 -> 用户、权限 -> 角色
+ * <p>
+ * 用户角色 / 角色权限关系变更时由 CacheEvictionService 按 key 失效，下次用到时从数据库重建，
+ * 所以索引缺失或过期都只会多查一次库，不会漏清缓存
+ */
+@Service
+@RequiredArgsConstructor
+public class AuthorizationIndexServiceImpl implements AuthorizationIndexService {
+    private final UserRoleMapper userRoleMapper;
+
+    private final RolePermissionMapper rolePermissionMapper;
+
+    /**
+     * 持有该角色的用户（不论角色状态）
+     *
+     * @param roleId
+     * @return
+     */
+    @Override
+    @Cacheable(
+            cacheNames = ROLE_USERS,
+            key = "#roleId",
+            sync = true
+    )
+    public IdSet getUserIdsByRoleId(Long roleId) {
+        return new IdSet(new HashSet<>(userRoleMapper.selectUserIdsByRoleId(roleId)));
+    }
+
+    /**
+     * 持有该权限的角色（不论状态）
+     *
+     * @param permissionId
+     * @return
+     */
+    @Override
+    @Cacheable(
+            cacheNames = PERMISSION_ROLES,
+            key = "#permissionId",
+            sync = true
+    )
+    public IdSet getRoleIdsByPermissionId(Long permissionId) {
+        return new IdSet(new HashSet<>(rolePermissionMapper.selectRoleIdsByPermissionId(permissionId)));
+    }
+}
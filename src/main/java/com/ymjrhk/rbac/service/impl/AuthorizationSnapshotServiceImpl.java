@@ -0,0 +1,44 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.ymjrhk.rbac.auth.AuthorizationSnapshot;
+import com.ymjrhk.rbac.exception.UserNotExistException;
+import com.ymjrhk.rbac.mapper.UserMapper;
+import com.ymjrhk.rbac.service.AuthorizationSnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import static com.ymjrhk.rbac.constant.CacheConstant.USER_AUTHZ;
+import static com.ymjrhk.rbac.constant.MessageConstant.USER_NOT_EXIST;
+
+/**
+ * 用户授权快照（带缓存）
+ * <p>
+ * 单独成一个 Bean，UserServiceImpl.hasPermission 调用时能走 @Cacheable 代理
+ */
+@Service
+@RequiredArgsConstructor
+public class AuthorizationSnapshotServiceImpl implements AuthorizationSnapshotService {
+    private final UserMapper userMapper;
+
+    /**
+     * 一条 SQL 查出用户状态、authVersion 和非禁用角色（权限按角色组合另外缓存，条目很小）
+     *
+     * @param userId
+     * @return
+     */
+    @Override
+    @Cacheable(
+            cacheNames = USER_AUTHZ, // TTL 与 USER_AUTH 一致
+            key = "#userId",
+            sync = true // 同一个 key 只加载一次；用户不存在时缓存短 TTL 的哨兵
+    )
+    public AuthorizationSnapshot getSnapshot(Long userId) {
+        AuthorizationSnapshot snapshot = userMapper.selectAuthorizationSnapshot(userId);
+
+        if (snapshot == null) {
+            throw new UserNotExistException(USER_NOT_EXIST);
+        }
+        return snapshot;
+    }
+}
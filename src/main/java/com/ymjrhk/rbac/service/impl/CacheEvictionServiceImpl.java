@@ -0,0 +1,166 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.ymjrhk.rbac.cache.TwoLevelCacheManager;
+import com.ymjrhk.rbac.mapper.RoleMapper;
+import com.ymjrhk.rbac.service.AuthorizationIndexService;
+import com.ymjrhk.rbac.service.CacheEvictionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.ymjrhk.rbac.constant.CacheConstant.*;
+import static com.ymjrhk.rbac.constant.RoleNameConstant.SUPER_ADMIN;
+
+/**
+ * 按反向索引精确失效用户缓存，代替 allEntries = true
+ * <p>
+ * 角色 / 权限变更只影响持有它的用户：先从反向索引找出这些用户，再在一个 pipeline 里删掉他们的条目，
+ * 其他在线用户的缓存不受影响，不会在同一时刻一起回源数据库。
+ * <p>
+ * 在事务提交后执行：提交前删掉的话，并发请求可能把旧数据重新读进缓存。
+ * 失效失败只记日志，旧条目最多存活到 TTL。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheEvictionServiceImpl implements CacheEvictionService {
+    private final TwoLevelCacheManager cacheManager;
+
+    private final AuthorizationIndexService authorizationIndexService;
+
+    private final RoleMapper roleMapper;
+
+    /**
+     * 角色变更：删掉持有这些角色的用户在 userCacheNames 下的条目
+     *
+     * @param roleIds
+     * @param userCacheNames
+     */
+    @Override
+    public void evictUsersOfRoles(Collection<Long> roleIds, String... userCacheNames) {
+        List<Long> roles = List.copyOf(roleIds);
+        afterCommit(() -> cacheManager.evictAll(List.of(userCacheNames), usersOf(roles)));
+    }
+
+    /**
+     * 角色的权限集合变化：删掉这些角色的 ROLE_PERMISSIONS 条目，并清空 ROLE_SET_PERMISSIONS
+     * <p>
+     * 角色组合只有几十种，整个清空比维护“角色 -> 角色组合”索引简单；
+     * 持有这些角色的用户只在授权快照里存了 roleId，不需要逐个失效
+     *
+     * @param roleIds
+     */
+    @Override
+    public void evictRolePermissions(Collection<Long> roleIds) {
+        List<Long> roles = List.copyOf(roleIds);
+        afterCommit(() -> {
+            cacheManager.evictAll(List.of(ROLE_PERMISSIONS), roles);
+            clear(ROLE_SET_PERMISSIONS);
+        });
+    }
+
+    /**
+     * 权限变更：持有该权限的角色（超级管理员角色隐式拥有全部权限，一并算上）的 ROLE_PERMISSIONS 条目、
+     * 全部 ROLE_SET_PERMISSIONS 条目、PERMISSION_ACTIONS（path / method / 状态可能变了，各节点重建处理方法索引），
+     * 以及这些角色的用户在 userCacheNames 下的条目
+     *
+     * @param permissionId
+     * @param userCacheNames
+     */
+    @Override
+    public void evictHoldersOfPermission(Long permissionId, String... userCacheNames) {
+        afterCommit(() -> {
+            Set<Long> roleIds = new HashSet<>(authorizationIndexService.getRoleIdsByPermissionId(permissionId).getIds());
+            Long superAdminRoleId = roleMapper.selectRoleIdByRoleName(SUPER_ADMIN);
+            if (superAdminRoleId != null) {
+                roleIds.add(superAdminRoleId);
+            }
+
+            cacheManager.evictAll(List.of(ROLE_PERMISSIONS), roleIds);
+            clear(ROLE_SET_PERMISSIONS);
+            clear(PERMISSION_ACTIONS);
+            if (userCacheNames.length > 0) {
+                cacheManager.evictAll(List.of(userCacheNames), usersOf(roleIds));
+            }
+        });
+    }
+
+    /**
+     * 用户角色关系变化后，维护角色 -> 用户索引
+     *
+     * @param roleIds
+     */
+    @Override
+    public void evictRoleUsersIndex(Collection<Long> roleIds) {
+        List<Long> roles = List.copyOf(roleIds);
+        afterCommit(() -> cacheManager.evictAll(List.of(ROLE_USERS), roles));
+    }
+
+    /**
+     * 角色权限关系变化后，维护权限 -> 角色索引
+     *
+     * @param permissionIds
+     */
+    @Override
+    public void evictPermissionRolesIndex(Collection<Long> permissionIds) {
+        List<Long> permissions = List.copyOf(permissionIds);
+        afterCommit(() -> cacheManager.evictAll(List.of(PERMISSION_ROLES), permissions));
+    }
+
+    /**
+     * 新建数据：删掉新 ID 在这些缓存下的条目
+     * <p>
+     * 新 ID 在插入前可能已被探测过，缓存着“不存在”的哨兵，不删的话要等哨兵 TTL 到期才查得到
+     *
+     * @param id
+     * @param cacheNames
+     */
+    @Override
+    public void evictCreated(Long id, String... cacheNames) {
+        afterCommit(() -> cacheManager.evictAll(List.of(cacheNames), List.of(id)));
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private Set<Long> usersOf(Collection<Long> roleIds) {
+        Set<Long> userIds = new HashSet<>();
+        for (Long roleId : roleIds) {
+            userIds.addAll(authorizationIndexService.getUserIdsByRoleId(roleId).getIds());
+        }
+        return userIds;
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runQuietly(eviction);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runQuietly(eviction);
+            }
+        });
+    }
+
+    private static void runQuietly(Runnable eviction) {
+        try {
+            eviction.run();
+        } catch (RuntimeException e) {
+            log.warn("缓存失效失败，旧条目将在 TTL 到期后失效", e);
+        }
+    }
+}
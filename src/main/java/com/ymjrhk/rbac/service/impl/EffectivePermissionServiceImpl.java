@@ -0,0 +1,63 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.ymjrhk.rbac.service.EffectivePermissionService;
+import com.ymjrhk.rbac.service.RolePermissionService;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 用户的有效权限 = 非禁用角色各自权限集合的并集
+ * <p>
+ * 大量用户共用少数几个角色，每个角色的权限已按角色缓存在 ROLE_PERMISSIONS 下（只含非禁用权限，
+ * 超级管理员角色即全部非禁用权限），用户的非禁用 roleId 查出后在内存中合并，
+ * 不再为每个用户执行 sys_user_role ⋈ sys_role ⋈ sys_role_permission ⋈ sys_permission 的 distinct 联表。
+ * 合并结果再按角色组合缓存，见 RoleSetPermissionServiceImpl。
+ * <p>
+ * 单独成一个 Bean，调用 RolePermissionService 时能走 @Cacheable 代理
+ */
+@Service
+@RequiredArgsConstructor
+public class EffectivePermissionServiceImpl implements EffectivePermissionService {
+    private final RolePermissionService rolePermissionService;
+
+    /**
+     * 合并角色的权限，按 permissionId 去重，保持角色和权限的先后顺序
+     *
+     * @param roleIds 非禁用角色
+     * @return
+     */
+    @Override
+    public List<PermissionVO> unionOfRoles(Collection<Long> roleIds) {
+        if (roleIds.size() == 1) {
+            // 只有一个角色时直接复制，不用去重
+            return new ArrayList<>(rolePermissionService.getRolePermissions(roleIds.iterator().next()));
+        }
+
+        List<List<PermissionVO>> rolePermissions = new ArrayList<>(roleIds.size());
+        int total = 0;
+        for (Long roleId : roleIds) {
+            List<PermissionVO> list = rolePermissionService.getRolePermissions(roleId);
+            rolePermissions.add(list);
+            total += list.size();
+        }
+
+        // 按总数预分配，合并过程中不扩容
+        List<PermissionVO> permissions = new ArrayList<>(total);
+        Set<Long> seen = HashSet.newHashSet(total);
+        for (List<PermissionVO> list : rolePermissions) {
+            for (PermissionVO permission : list) {
+                if (seen.add(permission.getPermissionId())) {
+                    permissions.add(permission);
+                }
+            }
+        }
+        return permissions;
+    }
+}
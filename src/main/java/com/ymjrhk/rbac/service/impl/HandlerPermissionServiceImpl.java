@@ -0,0 +1,146 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.ymjrhk.rbac.auth.HandlerPermissionIndex;
+import com.ymjrhk.rbac.auth.HandlerPermissionIndex.Route;
+import com.ymjrhk.rbac.auth.HandlerPermissions;
+import com.ymjrhk.rbac.service.HandlerPermissionService;
+import com.ymjrhk.rbac.service.PermissionService;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 处理方法 -> 接口权限索引
+ * <p>
+ * 路由表在启动时（容器刷新完成后）读取一次；权限部分来自 PERMISSION_ACTIONS 缓存：
+ * 每次查询都取一次缓存条目，本地缓存命中时是同一个实例，换了实例（权限增改后被失效，或本地条目过期）才重建索引。
+ * 失效通过两级缓存的广播传到所有节点，各节点的索引随之更新。
+ * <p>
+ * 不直接注入 HandlerMapping：HandlerMapping 创建时要拿到拦截器，而鉴权拦截器依赖这里，会形成循环依赖
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HandlerPermissionServiceImpl implements HandlerPermissionService {
+    private final PermissionService permissionService;
+
+    private final ApplicationContext applicationContext;
+
+    /**
+     * 路由表，容器刷新前为 null
+     */
+    private volatile List<Route> routes;
+
+    private volatile Built built;
+
+    /**
+     * 容器刷新后读取路由表，并尝试预先构建索引（失败时在第一次请求时再构建）
+     *
+     * @param event
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        if (event.getApplicationContext() != applicationContext) {
+            return;
+        }
+        routes = collectRoutes();
+        built = null;
+        try {
+            current();
+        } catch (RuntimeException e) {
+            log.warn("启动时构建处理方法 -> 权限索引失败，将在首次鉴权时重试", e);
+        }
+    }
+
+    /**
+     * 查询处理方法在某个 HTTP 方法下对应的权限
+     *
+     * @param handlerMethod
+     * @param httpMethod
+     * @return 处理方法不在索引中时返回 null（按请求路径做模式匹配）
+     */
+    @Override
+    public HandlerPermissions getHandlerPermissions(HandlerMethod handlerMethod, String httpMethod) {
+        if (routes == null) {
+            return null;
+        }
+        return current().get(handlerMethod.getMethod(), httpMethod);
+    }
+
+    /**
+     * 用给定的权限和路由表构建索引（内存策略图用，不经过 PERMISSION_ACTIONS 缓存）
+     *
+     * @param permissions
+     * @return 路由表还没读取时返回 null
+     */
+    @Override
+    public HandlerPermissionIndex buildIndex(Collection<PermissionVO> permissions) {
+        List<Route> r = routes;
+        return r == null ? null : HandlerPermissionIndex.build(r, permissions);
+    }
+
+    private HandlerPermissionIndex current() {
+        List<PermissionVO> permissions = permissionService.listActiveActionPermissions();
+        Built b = built;
+        if (b != null && b.permissions == permissions) {
+            return b.index;
+        }
+        return rebuild(permissions);
+    }
+
+    private synchronized HandlerPermissionIndex rebuild(List<PermissionVO> permissions) {
+        Built b = built;
+        if (b != null && b.permissions == permissions) {
+            return b.index;
+        }
+        // 本地条目过期后从 Redis 读回来的是新实例，内容没变就沿用原来的索引
+        if (b != null && b.permissions.equals(permissions)) {
+            built = new Built(permissions, b.index);
+            return b.index;
+        }
+
+        HandlerPermissionIndex index = HandlerPermissionIndex.build(routes, permissions);
+        built = new Built(permissions, index);
+        log.info("处理方法 -> 权限索引已重建：路由 {} 条，进入索引的处理方法 {} 个，ACTION 权限 {} 条",
+                routes.size(), index.size(), permissions.size());
+        return index;
+    }
+
+    private List<Route> collectRoutes() {
+        List<Route> result = new ArrayList<>();
+        for (RequestMappingInfoHandlerMapping mapping :
+                applicationContext.getBeansOfType(RequestMappingInfoHandlerMapping.class).values()) {
+            for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : mapping.getHandlerMethods().entrySet()) {
+                RequestMappingInfo info = entry.getKey();
+                Set<String> httpMethods = info.getMethodsCondition()
+                                              .getMethods()
+                                              .stream()
+                                              .map(RequestMethod::name)
+                                              .collect(Collectors.toSet());
+                result.add(new Route(entry.getValue().getMethod(), info.getPatternValues(), httpMethods));
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * 构建索引所用的权限列表（按实例比较）与索引
+     */
+    private record Built(List<PermissionVO> permissions, HandlerPermissionIndex index) {
+    }
+}
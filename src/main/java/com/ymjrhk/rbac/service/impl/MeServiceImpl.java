@@ -1,6 +1,7 @@
 package com.ymjrhk.rbac.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
+import com.ymjrhk.rbac.auth.RoleSetPermissions;
 import com.ymjrhk.rbac.constant.MessageConstant;
 import com.ymjrhk.rbac.constant.OperateTypeConstant;
 import com.ymjrhk.rbac.constant.StatusConstant;
@@ -13,9 +14,9 @@ import com.ymjrhk.rbac.exception.UpdateFailedException;
 import com.ymjrhk.rbac.exception.UserForbiddenException;
 import com.ymjrhk.rbac.exception.UserNotExistException;
 import com.ymjrhk.rbac.mapper.MeMapper;
-import com.ymjrhk.rbac.mapper.PermissionMapper;
 import com.ymjrhk.rbac.mapper.UserMapper;
 import com.ymjrhk.rbac.service.MeService;
+import com.ymjrhk.rbac.service.RoleSetPermissionService;
 import com.ymjrhk.rbac.service.UserHistoryService;
 import com.ymjrhk.rbac.vo.*;
 import lombok.RequiredArgsConstructor;
@@ -32,7 +33,6 @@ import java.util.UUID;
 
 import static com.ymjrhk.rbac.constant.CacheConstant.*;
 import static com.ymjrhk.rbac.constant.MessageConstant.*;
-import static com.ymjrhk.rbac.constant.RoleNameConstant.SUPER_ADMIN;
 import static com.ymjrhk.rbac.constant.StatusConstant.DISABLED;
 
 @Service
@@ -47,7 +47,7 @@ public class MeServiceImpl implements MeService {
 
     private final PasswordEncoder passwordEncoder;
 
-    private final PermissionMapper permissionMapper;
+    private final RoleSetPermissionService roleSetPermissionService;
 
     /**
      * 查询个人信息
@@ -57,7 +57,8 @@ public class MeServiceImpl implements MeService {
     @Override
     @Cacheable(
             cacheNames = USER_ME,   // 新 cache
-            key = "T(com.ymjrhk.rbac.context.UserContext).getCurrentUserId()"
+            key = "T(com.ymjrhk.rbac.context.UserContext).getCurrentUserId()",
+            sync = true
     )
     public MeViewVO query() {
         Long userId = UserContext.getCurrentUserId();
@@ -73,26 +74,16 @@ public class MeServiceImpl implements MeService {
         List<MeRoleVO> roles = meMapper.selectRolesByUserId(userId);
         meViewVO.setRoles(roles);
 
-        // 3. 权限
-        // 看拥有角色有没有超级管理员
-        for (MeRoleVO role : roles) {
-            if (Objects.equals(role.getRoleName(), SUPER_ADMIN)) {
-                List<PermissionVO> list = permissionMapper.listAllActivePermissions();
-
-                // List 转类型
-                List<MePermissionVO> permissions = list
-                        .stream()
-                        .map(permissionVO -> BeanUtil.copyProperties(permissionVO, MePermissionVO.class))
-                        .toList();
-
-                meViewVO.setPermissions(permissions);
-
-                return meViewVO;
-            }
-        }
-
-        // 拥有角色没有超级管理员
-        List<MePermissionVO> permissions = meMapper.selectPermissionsByUserId(userId);
+        // 3. 权限：按角色组合缓存的有效权限（角色相同的用户共用一个条目），超级管理员角色即全部非禁用权限
+        String roleSet = RoleSetPermissions.signature(roles.stream()
+                                                           .map(MeRoleVO::getRoleId)
+                                                           .toList());
+        List<MePermissionVO> permissions = roleSetPermissionService
+                .getRoleSetPermissions(roleSet)
+                .getPermissions()
+                .stream()
+                .map(permissionVO -> BeanUtil.copyProperties(permissionVO, MePermissionVO.class))
+                .toList();
         meViewVO.setPermissions(permissions);
 
         return meViewVO;
@@ -157,7 +148,8 @@ public class MeServiceImpl implements MeService {
             cacheNames = {
                     USER_ME,
                     USER_BASIC,
-                    USER_AUTH    // 强制 JWT 失效
+                    USER_AUTH,   // 强制 JWT 失效
+                    USER_AUTHZ
             },
             key = "T(com.ymjrhk.rbac.context.UserContext).getCurrentUserId()"
     )
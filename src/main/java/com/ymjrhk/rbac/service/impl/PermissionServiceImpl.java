@@ -4,6 +4,7 @@ import cn.hutool.core.bean.BeanUtil;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.page.PageMethod;
 import com.ymjrhk.rbac.constant.OperateTypeConstant;
+import com.ymjrhk.rbac.constant.PermissionTypeConstant;
 import com.ymjrhk.rbac.context.UserContext;
 import com.ymjrhk.rbac.dto.PermissionCreateDTO;
 import com.ymjrhk.rbac.dto.PermissionDTO;
@@ -15,6 +16,8 @@ import com.ymjrhk.rbac.exception.PermissionNotExistException;
 import com.ymjrhk.rbac.exception.UpdateFailedException;
 import com.ymjrhk.rbac.mapper.PermissionMapper;
 import com.ymjrhk.rbac.result.PageResult;
+import com.ymjrhk.rbac.service.CacheEvictionService;
+import com.ymjrhk.rbac.service.PolicyChangeService;
 import com.ymjrhk.rbac.service.PermissionHistoryService;
 import com.ymjrhk.rbac.service.PermissionService;
 import com.ymjrhk.rbac.service.base.BaseService;
@@ -23,7 +26,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -43,6 +45,10 @@ public class PermissionServiceImpl extends BaseService implements PermissionServ
 
     private final PermissionHistoryService permissionHistoryService;
 
+    private final CacheEvictionService cacheEvictionService;
+
+    private final PolicyChangeService policyChangeService;
+
     /**
      * 创建权限
      *
@@ -50,15 +56,6 @@ public class PermissionServiceImpl extends BaseService implements PermissionServ
      */
     @Override
     @Transactional
-    @CacheEvict(
-            // 只担心超级管理员，因为会自动获取全部权限
-            cacheNames = {
-                    USER_PERMISSIONS,
-                    USER_ME,
-                    ROLE_PERMISSIONS
-            },
-            allEntries = true
-    )
     public Long create(PermissionCreateDTO permissionCreateDTO) {
         Permission permission = BeanUtil.copyProperties(permissionCreateDTO, Permission.class);
 
@@ -79,6 +76,12 @@ public class PermissionServiceImpl extends BaseService implements PermissionServ
         // 写到历史表
         permissionHistoryService.recordHistory(permission.getPermissionId(), OperateTypeConstant.CREATE);
 
+        // 只担心超级管理员，因为会自动获取全部权限（新权限还没有分配给任何角色）
+        cacheEvictionService.evictHoldersOfPermission(permission.getPermissionId(), USER_ME);
+        // 删掉插入前可能缓存的“权限不存在”哨兵
+        cacheEvictionService.evictCreated(permission.getPermissionId(), PERMISSION_BASIC, PERMISSION_ROLES);
+        policyChangeService.permissionChanged(permission.getPermissionId());
+
         return permission.getPermissionId();
     }
 
@@ -114,7 +117,8 @@ public class PermissionServiceImpl extends BaseService implements PermissionServ
     @Override
     @Cacheable(
             cacheNames = PERMISSION_BASIC,
-            key = "#permissionId"
+            key = "#permissionId",
+            sync = true
     )
     public PermissionVO getByPermissionId(Long permissionId) {
         Permission permission = permissionMapper.getByPermissionId(permissionId);
@@ -135,20 +139,11 @@ public class PermissionServiceImpl extends BaseService implements PermissionServ
      */
     @Override
     @Transactional
-    @Caching(evict = { // 可以修改 permissionName
-            @CacheEvict(
-                    cacheNames = PERMISSION_BASIC,
-                    key = "#permissionId"
-            ),
-            @CacheEvict(
-                    cacheNames = {
-                            USER_PERMISSIONS,
-                            ROLE_PERMISSIONS,
-                            USER_ME
-                    },
-                    allEntries = true
-            )
-    }
+    // 可以修改 permissionName
+    // 持有该权限的角色和用户：CacheEvictionService 按反向索引精确失效（事务提交后）
+    @CacheEvict(
+            cacheNames = PERMISSION_BASIC,
+            key = "#permissionId"
     )
     public void update(Long permissionId, PermissionDTO permissionDTO) {
         log.debug("获取更新前必要字段（包括乐观锁字段）：");
@@ -175,6 +170,8 @@ public class PermissionServiceImpl extends BaseService implements PermissionServ
         fillOptimisticLockFields(permission, version, secretToken, newSecretToken, updateUserId);
 
         doUpdate(permission);
+        cacheEvictionService.evictHoldersOfPermission(permissionId, USER_ME);
+        policyChangeService.permissionChanged(permissionId);
 
         // 写到历史表
         permissionHistoryService.recordHistory(permission.getPermissionId(), OperateTypeConstant.UPDATE);
@@ -188,20 +185,11 @@ public class PermissionServiceImpl extends BaseService implements PermissionServ
      */
     @Override
     @Transactional
-    @Caching(evict = { // 可以修改 status
-            @CacheEvict(
-                    cacheNames = PERMISSION_BASIC,
-                    key = "#permissionId"
-            ),
-            @CacheEvict(
-                    cacheNames = {
-                            USER_PERMISSIONS,
-                            ROLE_PERMISSIONS,
-                            USER_ME
-                    },
-                    allEntries = true
-            )
-    }
+    // 可以修改 status
+    // 持有该权限的角色和用户：CacheEvictionService 按反向索引精确失效（事务提交后）
+    @CacheEvict(
+            cacheNames = PERMISSION_BASIC,
+            key = "#permissionId"
     )
     public void changeStatus(Long permissionId, Integer status) {
         // 1. 查数据库
@@ -219,11 +207,34 @@ public class PermissionServiceImpl extends BaseService implements PermissionServ
 
         // 4. 执行 update
         doUpdate(permission);
+        cacheEvictionService.evictHoldersOfPermission(permissionId, USER_ME);
+        policyChangeService.permissionChanged(permissionId);
 
         // 写到历史表
         permissionHistoryService.recordHistory(permission.getPermissionId(), OperateTypeConstant.UPDATE);
     }
 
+    /**
+     * 查询全部非禁用的 ACTION 权限（构建处理方法 -> 权限索引用）
+     * 权限增改后由 CacheEvictionService 失效（事务提交后）
+     * <p>
+     * SQL 已按 type 过滤，这里再按 ACTION 过滤一次：缓存里只放 ACTION 权限，不依赖 mapper 查询的写法
+     *
+     * @return
+     */
+    @Override
+    @Cacheable(
+            cacheNames = PERMISSION_ACTIONS,
+            key = "'all'",
+            sync = true
+    )
+    public List<PermissionVO> listActiveActionPermissions() {
+        return permissionMapper.listAllActivePermissions()
+                               .stream()
+                               .filter(permission -> Objects.equals(permission.getType(), PermissionTypeConstant.ACTION))
+                               .toList();
+    }
+
     /**
      * 公共的调用 mapper 的 update() 方法
      *
@@ -0,0 +1,91 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.alibaba.fastjson2.JSON;
+import com.ymjrhk.rbac.policy.PolicyDelta;
+import com.ymjrhk.rbac.policy.PolicyDelta.Type;
+import com.ymjrhk.rbac.properties.PolicyProperties;
+import com.ymjrhk.rbac.service.PolicyChangeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+import static com.ymjrhk.rbac.constant.CacheConstant.POLICY_DELTA_CHANNEL;
+import static com.ymjrhk.rbac.constant.CacheConstant.POLICY_VERSION_KEY;
+
+/**
+ * 发布策略增量（未启用内存策略图时什么也不做）
+ * <p>
+ * 在事务提交后执行：INCR 全局版本号，广播增量，并交给本节点的 PolicyGraphStore（Spring 事件），
+ * 本节点不依赖广播就能读到自己的写入。Redis 不可用时发一个不带版本号的增量，只在本节点应用。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PolicyChangeServiceImpl implements PolicyChangeService {
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final PolicyProperties policyProperties;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void userRolesChanged(Long userId) {
+        publish(Type.USER_ROLES, List.of(userId));
+    }
+
+    @Override
+    public void roleChanged(Long roleId) {
+        publish(Type.ROLE, List.of(roleId));
+    }
+
+    @Override
+    public void rolePermissionsChanged(Long roleId) {
+        publish(Type.ROLE_PERMISSIONS, List.of(roleId));
+    }
+
+    @Override
+    public void permissionChanged(Long permissionId) {
+        publish(Type.PERMISSION, List.of(permissionId));
+    }
+
+    private void publish(Type type, Collection<Long> ids) {
+        if (!policyProperties.isInMemory() || ids.isEmpty()) {
+            return;
+        }
+        List<Long> keys = List.copyOf(ids);
+        afterCommit(() -> send(type, keys));
+    }
+
+    private void send(Type type, List<Long> ids) {
+        PolicyDelta delta = new PolicyDelta(0, type, ids);
+        try {
+            Long version = stringRedisTemplate.opsForValue().increment(POLICY_VERSION_KEY);
+            delta.setVersion(version == null ? 0 : version);
+            stringRedisTemplate.convertAndSend(POLICY_DELTA_CHANNEL, JSON.toJSONString(delta));
+        } catch (RuntimeException e) {
+            // 拿到版本号但广播失败：其他节点发现自己落后于全局版本号后全量重新加载
+            log.warn("策略增量广播失败：{}", delta, e);
+        }
+        applicationEventPublisher.publishEvent(delta);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.ymjrhk.rbac.mapper.UserRoleMapper;
+import com.ymjrhk.rbac.service.RoleMembershipService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.ymjrhk.rbac.constant.CacheConstant.USER_ROLE_NAMES;
+
+/**
+ * 用户角色成员关系（带缓存）
+ * <p>
+ * 单独成一个 Bean：userHasRole / 超级管理员判断都从这里取，
+ * 避免在同一个类里自调用导致 @Cacheable 代理失效
+ */
+@Service
+@RequiredArgsConstructor
+public class RoleMembershipServiceImpl implements RoleMembershipService {
+    private final UserRoleMapper userRoleMapper;
+
+    /**
+     * 查询用户拥有的角色名（只含非禁用角色）
+     *
+     * @param userId
+     * @return
+     */
+    @Override
+    @Cacheable(
+            cacheNames = USER_ROLE_NAMES,
+            key = "#userId",
+            sync = true
+    )
+    public Set<String> getEnabledRoleNames(Long userId) {
+        // 用户不存在时返回空集合，同样缓存，避免反复查库
+        return new HashSet<>(userRoleMapper.selectEnabledRoleNamesByUserId(userId));
+    }
+}
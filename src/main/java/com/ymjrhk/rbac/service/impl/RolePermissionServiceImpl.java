@@ -5,12 +5,14 @@ import com.ymjrhk.rbac.entity.Role;
 import com.ymjrhk.rbac.entity.RolePermission;
 import com.ymjrhk.rbac.exception.*;
 import com.ymjrhk.rbac.mapper.*;
+import com.ymjrhk.rbac.service.CacheEvictionService;
+import com.ymjrhk.rbac.service.PolicyChangeService;
+import com.ymjrhk.rbac.service.RoleMembershipService;
 import com.ymjrhk.rbac.service.RolePermissionService;
 import com.ymjrhk.rbac.vo.PermissionVO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,7 +37,11 @@ public class RolePermissionServiceImpl implements RolePermissionService {
 
     private final UserMapper userMapper;
 
-    private final UserRoleMapper userRoleMapper;
+    private final RoleMembershipService roleMembershipService;
+
+    private final CacheEvictionService cacheEvictionService;
+
+    private final PolicyChangeService policyChangeService;
 
     /**
      * 给角色分配权限
@@ -45,21 +51,12 @@ public class RolePermissionServiceImpl implements RolePermissionService {
      */
     @Override
     @Transactional
-    @Caching(evict = {
-            // 角色权限：只清当前 role
-            @CacheEvict(
-                    cacheNames = ROLE_PERMISSIONS,
-                    key = "#roleId"
-            ),
-            // 用户权限 & 鉴权：全清（不知道哪些用户绑定了这个 role）
-            @CacheEvict(
-                    cacheNames = {
-                            USER_PERMISSIONS,
-                            USER_AUTH
-                    },
-                    allEntries = true
-            )
-    })
+    // 角色权限：只清当前 role
+    // 用户权限 & 鉴权：只清持有这个 role 的用户（CacheEvictionService 按反向索引，事务提交后）
+    @CacheEvict(
+            cacheNames = ROLE_PERMISSIONS,
+            key = "#roleId"
+    )
     public void assignPermissionsToRole(Long roleId, List<Long> permissionIds) { // TODO: 需要version吗
 //        A = 我（用户）拥有的权限（非禁用）
 //        B = 角色拥有的权限（非禁用）
@@ -113,7 +110,7 @@ public class RolePermissionServiceImpl implements RolePermissionService {
         Set<Long> myPermissionSet;
 
         boolean isSuperAdminUser =
-                userRoleMapper.userHasRole(operatorId, SUPER_ADMIN);
+                roleMembershipService.getEnabledRoleNames(operatorId).contains(SUPER_ADMIN);
 
         if (isSuperAdminUser) {
             // 超级管理员：A = 所有非禁用权限
@@ -133,6 +130,11 @@ public class RolePermissionServiceImpl implements RolePermissionService {
             }
         }
 
+        // 持有者共用的角色组合条目整体失效；个人信息视图里有权限列表，仍按用户失效
+        cacheEvictionService.evictRolePermissions(List.of(roleId));
+        cacheEvictionService.evictUsersOfRoles(List.of(roleId), USER_ME);
+        policyChangeService.rolePermissionsChanged(roleId);
+
         /* ========= 6. 查角色拥有的权限 B（非禁用） ========= */
         List<Long> rolePermissionIds = rolePermissionMapper
                 .selectPermissionIdsByRoleIdAndStatus(roleId, ENABLED); // 重点：此处查的是（被分配）角色的权限
@@ -145,6 +147,7 @@ public class RolePermissionServiceImpl implements RolePermissionService {
 
         if (!deletablePermissions.isEmpty()) {
             rolePermissionMapper.deleteByRoleIdAndPermissionIds(roleId, deletablePermissions);
+            cacheEvictionService.evictPermissionRolesIndex(deletablePermissions); // 维护权限 -> 角色索引
         }
 
         /* ========= 8. 插入：我新分配的权限 C ========= */
@@ -166,6 +169,7 @@ public class RolePermissionServiceImpl implements RolePermissionService {
         if (inserted != relations.size()) {
             throw new AssignmentPermissionFailedException(ASSIGNMENT_PERMISSION_FAILED);
         }
+        cacheEvictionService.evictPermissionRolesIndex(permissionIds);
     }
 
     /**
@@ -177,7 +181,8 @@ public class RolePermissionServiceImpl implements RolePermissionService {
     @Override
     @Cacheable(
             cacheNames = ROLE_PERMISSIONS,
-            key = "#roleId"
+            key = "#roleId",
+            sync = true
     )
     public List<PermissionVO> getRolePermissions(Long roleId) {
         // 1. 查 roleId 是否存在
@@ -15,6 +15,8 @@ import com.ymjrhk.rbac.exception.RoleNotExistException;
 import com.ymjrhk.rbac.exception.UpdateFailedException;
 import com.ymjrhk.rbac.mapper.RoleMapper;
 import com.ymjrhk.rbac.result.PageResult;
+import com.ymjrhk.rbac.service.CacheEvictionService;
+import com.ymjrhk.rbac.service.PolicyChangeService;
 import com.ymjrhk.rbac.service.RoleHistoryService;
 import com.ymjrhk.rbac.service.RoleService;
 import com.ymjrhk.rbac.service.base.BaseService;
@@ -23,7 +25,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -44,6 +45,10 @@ public class RoleServiceImpl extends BaseService implements RoleService {
 
     private final RoleHistoryService roleHistoryService;
 
+    private final CacheEvictionService cacheEvictionService;
+
+    private final PolicyChangeService policyChangeService;
+
     /**
      * 创建角色
      *
@@ -70,6 +75,9 @@ public class RoleServiceImpl extends BaseService implements RoleService {
 
         // 写到历史表
         roleHistoryService.recordHistory(role.getRoleId(), OperateTypeConstant.CREATE);
+        // 删掉插入前可能缓存的“角色不存在”哨兵
+        cacheEvictionService.evictCreated(role.getRoleId(), ROLE_BASIC, ROLE_PERMISSIONS, ROLE_USERS);
+        policyChangeService.roleChanged(role.getRoleId());
 
         return role.getRoleId();
     }
@@ -106,7 +114,8 @@ public class RoleServiceImpl extends BaseService implements RoleService {
     @Override
     @Cacheable(
             cacheNames = ROLE_BASIC,
-            key = "#roleId"
+            key = "#roleId",
+            sync = true
     )
     public RoleVO getByRoleId(Long roleId) {
         Role role = roleMapper.getByRoleId(roleId);
@@ -127,19 +136,11 @@ public class RoleServiceImpl extends BaseService implements RoleService {
      */
     @Override
     @Transactional
-    @Caching(evict = { // 可以修改 roleName
-            @CacheEvict(
-                    cacheNames = ROLE_BASIC,
-                    key = "#roleId"
-            ),
-            @CacheEvict(
-                    cacheNames = {
-                            USER_ROLES,
-                            USER_ME
-                    },
-                    allEntries = true
-            )
-    }
+    // 可以修改 roleName
+    // 持有该角色的用户：CacheEvictionService 按反向索引精确失效（事务提交后）
+    @CacheEvict(
+            cacheNames = ROLE_BASIC,
+            key = "#roleId"
     )
     public void update(Long roleId, RoleDTO roleDTO) {
         log.debug("获取更新前必要字段（包括乐观锁字段）：");
@@ -169,6 +170,7 @@ public class RoleServiceImpl extends BaseService implements RoleService {
         fillOptimisticLockFields(role, version, secretToken, newSecretToken, updateUserId);
 
         doUpdate(role);
+        evictUsersOfRole(roleId);
 
         // 写到历史表
         roleHistoryService.recordHistory(role.getRoleId(), OperateTypeConstant.UPDATE);
@@ -182,19 +184,11 @@ public class RoleServiceImpl extends BaseService implements RoleService {
      */
     @Override
     @Transactional
-    @Caching(evict = { // 可以修改 status
-            @CacheEvict(
-                    cacheNames = ROLE_BASIC,
-                    key = "#roleId"
-            ),
-            @CacheEvict(
-                    cacheNames = {
-                            USER_ROLES,
-                            USER_ME
-                    },
-                    allEntries = true
-            )
-    }
+    // 可以修改 status
+    // 持有该角色的用户：CacheEvictionService 按反向索引精确失效（事务提交后）
+    @CacheEvict(
+            cacheNames = ROLE_BASIC,
+            key = "#roleId"
     )
     public void changeStatus(Long roleId, Integer status) {
         // 1. 查数据库
@@ -212,11 +206,25 @@ public class RoleServiceImpl extends BaseService implements RoleService {
 
         // 4. 执行 update
         doUpdate(role);
+        evictUsersOfRole(roleId);
 
         // 5. 写到历史表
         roleHistoryService.recordHistory(role.getRoleId(), OperateTypeConstant.UPDATE);
     }
 
+    /**
+     * 角色名 / 状态变化影响持有者的角色列表、超级管理员判断和权限
+     * （状态变化改变持有者授权快照中的角色组合；改名可能改变超级管理员判断，角色组合条目一并失效）
+     *
+     * @param roleId
+     */
+    private void evictUsersOfRole(Long roleId) {
+        cacheEvictionService.evictUsersOfRoles(List.of(roleId),
+                USER_ROLES, USER_ROLE_NAMES, USER_AUTHZ, USER_ME);
+        cacheEvictionService.evictRolePermissions(List.of(roleId));
+        policyChangeService.roleChanged(roleId);
+    }
+
     /**
      * 公共的调用 mapper 的 update() 方法
      *
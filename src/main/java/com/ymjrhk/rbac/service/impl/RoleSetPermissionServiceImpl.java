@@ -0,0 +1,59 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.ymjrhk.rbac.auth.PermissionMatcherCache;
+import com.ymjrhk.rbac.auth.RoleSetPermissions;
+import com.ymjrhk.rbac.mapper.RoleMapper;
+import com.ymjrhk.rbac.service.EffectivePermissionService;
+import com.ymjrhk.rbac.service.RoleSetPermissionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+import static com.ymjrhk.rbac.constant.CacheConstant.ROLE_SET_PERMISSIONS;
+import static com.ymjrhk.rbac.constant.RoleNameConstant.SUPER_ADMIN;
+
+/**
+ * 角色组合的有效权限（带缓存）
+ * <p>
+ * 单独成一个 Bean：授权快照、个人信息、hasPermission 都从这里取，走 @Cacheable 代理
+ */
+@Service
+@RequiredArgsConstructor
+public class RoleSetPermissionServiceImpl implements RoleSetPermissionService {
+    private final EffectivePermissionService effectivePermissionService;
+
+    private final RoleMapper roleMapper;
+
+    private final PermissionMatcherCache permissionMatcherCache = new PermissionMatcherCache();
+
+    /**
+     * 按角色组合签名查询有效权限（各角色权限按角色缓存，在内存中合并）
+     *
+     * @param roleSet RoleSetPermissions.signature 生成的签名
+     * @return
+     */
+    @Override
+    @Cacheable(
+            cacheNames = ROLE_SET_PERMISSIONS,
+            key = "#roleSet",
+            sync = true
+    )
+    public RoleSetPermissions getRoleSetPermissions(String roleSet) {
+        List<Long> roleIds = RoleSetPermissions.roleIds(roleSet);
+
+        RoleSetPermissions permissions = new RoleSetPermissions();
+        permissions.setRoleSet(roleSet);
+        permissions.setPermissions(effectivePermissionService.unionOfRoles(roleIds));
+
+        Long superAdminRoleId = roleIds.isEmpty() ? null : roleMapper.selectRoleIdByRoleName(SUPER_ADMIN);
+        permissions.setSuperAdmin(superAdminRoleId != null && roleIds.contains(superAdminRoleId));
+
+        // 超级管理员不需要匹配器
+        if (!permissions.isSuperAdmin()) {
+            permissions.compileWith(permissionMatcherCache);
+        }
+        return permissions;
+    }
+}
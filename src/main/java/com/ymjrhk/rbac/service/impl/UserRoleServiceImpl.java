@@ -7,6 +7,9 @@ import com.ymjrhk.rbac.exception.*;
 import com.ymjrhk.rbac.mapper.RoleMapper;
 import com.ymjrhk.rbac.mapper.UserMapper;
 import com.ymjrhk.rbac.mapper.UserRoleMapper;
+import com.ymjrhk.rbac.service.CacheEvictionService;
+import com.ymjrhk.rbac.service.PolicyChangeService;
+import com.ymjrhk.rbac.service.RoleMembershipService;
 import com.ymjrhk.rbac.service.UserRoleService;
 import com.ymjrhk.rbac.vo.RoleVO;
 import lombok.RequiredArgsConstructor;
@@ -32,6 +35,12 @@ public class UserRoleServiceImpl implements UserRoleService {
 
     private final RoleMapper roleMapper;
 
+    private final RoleMembershipService roleMembershipService;
+
+    private final CacheEvictionService cacheEvictionService;
+
+    private final PolicyChangeService policyChangeService;
+
     /**
      * 给用户分配角色
      *
@@ -43,8 +52,9 @@ public class UserRoleServiceImpl implements UserRoleService {
     @CacheEvict(
             cacheNames = {
                     USER_ROLES,
-                    USER_PERMISSIONS,
-                    USER_AUTH
+                    USER_ROLE_NAMES,
+                    USER_AUTH,
+                    USER_AUTHZ
             },
             key = "#userId"
     )
@@ -96,7 +106,7 @@ public class UserRoleServiceImpl implements UserRoleService {
         Set<Long> myRoleSet;
 
         // 判断我是否超级管理员
-        boolean isSuperAdmin = userRoleMapper.userHasRole(operatorId, SUPER_ADMIN);
+        boolean isSuperAdmin = userHasRole(operatorId, SUPER_ADMIN);
 
         if (isSuperAdmin) {
             // 超级管理员：A = 所有非禁用角色
@@ -129,7 +139,9 @@ public class UserRoleServiceImpl implements UserRoleService {
 
         if (!deletableRoles.isEmpty()) {
             userRoleMapper.deleteByUserIdAndRoleIds(userId, deletableRoles);
+            cacheEvictionService.evictRoleUsersIndex(deletableRoles); // 维护角色 -> 用户索引
         }
+        policyChangeService.userRolesChanged(userId); // 内存策略图：提交后重新读取该用户的角色
 
         /* ========= 8. 插入：我新分配的角色 C ========= */
         if (assignEmpty) {
@@ -150,6 +162,7 @@ public class UserRoleServiceImpl implements UserRoleService {
         if (inserted != relations.size()) {
             throw new AssignmentRoleFailedException(ASSIGNMENT_ROLE_FAILED);
         }
+        cacheEvictionService.evictRoleUsersIndex(roleIds);
     }
 
     /**
@@ -161,7 +174,8 @@ public class UserRoleServiceImpl implements UserRoleService {
     @Override
     @Cacheable(
             cacheNames = USER_ROLES,
-            key = "#userId"
+            key = "#userId",
+            sync = true
     )
     public List<RoleVO> getUserRoles(Long userId) {
         // 1. 查 userId 是否存在
@@ -184,6 +198,7 @@ public class UserRoleServiceImpl implements UserRoleService {
     @Override
     public boolean userHasRole(Long userId, String roleName) {
         // 暂时不用查 userId 和 roleName 是否存在，调用它的函数后面部分查了，且不存在也没关系
-        return userRoleMapper.userHasRole(userId, roleName);
+        // 走缓存：USER_ROLE_NAMES 随 USER_ROLES 一起失效
+        return roleMembershipService.getEnabledRoleNames(userId).contains(roleName);
     }
 }
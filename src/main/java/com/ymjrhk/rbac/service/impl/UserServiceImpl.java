@@ -3,10 +3,10 @@ package com.ymjrhk.rbac.service.impl;
 import cn.hutool.core.bean.BeanUtil;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.page.PageMethod;
+import com.ymjrhk.rbac.auth.AuthorizationSnapshot;
+import com.ymjrhk.rbac.auth.RoleSetPermissions;
 import com.ymjrhk.rbac.constant.OperateTypeConstant;
 import com.ymjrhk.rbac.constant.PasswordConstant;
-import com.ymjrhk.rbac.constant.PermissionTypeConstant;
-import com.ymjrhk.rbac.constant.RoleNameConstant;
 import com.ymjrhk.rbac.context.UserContext;
 import com.ymjrhk.rbac.dto.UserCreateDTO;
 import com.ymjrhk.rbac.dto.UserDTO;
@@ -17,11 +17,12 @@ import com.ymjrhk.rbac.exception.UpdateFailedException;
 import com.ymjrhk.rbac.exception.UserCreateFailedException;
 import com.ymjrhk.rbac.exception.UserForbiddenException;
 import com.ymjrhk.rbac.exception.UserNotExistException;
-import com.ymjrhk.rbac.mapper.PermissionMapper;
 import com.ymjrhk.rbac.mapper.UserMapper;
 import com.ymjrhk.rbac.result.PageResult;
+import com.ymjrhk.rbac.service.AuthorizationSnapshotService;
+import com.ymjrhk.rbac.service.CacheEvictionService;
+import com.ymjrhk.rbac.service.RoleSetPermissionService;
 import com.ymjrhk.rbac.service.UserHistoryService;
-import com.ymjrhk.rbac.service.UserRoleService;
 import com.ymjrhk.rbac.service.UserService;
 import com.ymjrhk.rbac.service.base.BaseService;
 import com.ymjrhk.rbac.vo.PermissionVO;
@@ -33,8 +34,6 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.CollectionUtils;
 
 import java.util.List;
 import java.util.Objects;
@@ -55,11 +54,11 @@ public class UserServiceImpl extends BaseService implements UserService {
 
     private final UserHistoryService userHistoryService;
 
-    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final AuthorizationSnapshotService authorizationSnapshotService;
 
-    private final UserRoleService userRoleService;
+    private final RoleSetPermissionService roleSetPermissionService;
 
-    private final PermissionMapper permissionMapper;
+    private final CacheEvictionService cacheEvictionService;
 
     public static final String PRINTING_MESSAGE = "获取更新前必要字段（包括乐观锁字段）：";
 
@@ -110,6 +109,9 @@ public class UserServiceImpl extends BaseService implements UserService {
         // 5. 写到历史表
         userHistoryService.recordHistory(newUserId, OperateTypeConstant.CREATE);
 
+        // 6. 删掉插入前可能缓存的“用户不存在”哨兵
+        cacheEvictionService.evictCreated(newUserId, USER_BASIC, USER_AUTH, USER_AUTHZ, USER_ROLES, USER_ROLE_NAMES, USER_ME);
+
         return newUserId;
     }
 
@@ -158,7 +160,7 @@ public class UserServiceImpl extends BaseService implements UserService {
     @Cacheable(
             cacheNames = USER_BASIC,
             key = "#userId",
-            unless = "#result == null"
+            sync = true // 同一个 key 只加载一次；用户不存在时缓存短 TTL 的哨兵
     )
     public UserVO getByUserId(Long userId) {
         User user = userMapper.getByUserId(userId);
@@ -183,6 +185,7 @@ public class UserServiceImpl extends BaseService implements UserService {
             cacheNames = {
                     USER_BASIC,
                     USER_AUTH,
+                    USER_AUTHZ,
                     USER_ME
             },
             key = "#userId"
@@ -237,8 +240,8 @@ public class UserServiceImpl extends BaseService implements UserService {
     @CacheEvict( // 修改 status, version, secretToken, authVersion
             cacheNames = {
                     USER_BASIC,
-                    USER_PERMISSIONS,
-                    USER_AUTH
+                    USER_AUTH,
+                    USER_AUTHZ
             },
             key = "#userId"
     )
@@ -284,8 +287,8 @@ public class UserServiceImpl extends BaseService implements UserService {
     @CacheEvict( // 修改 password, version, secretToken, authVersion
             cacheNames = {
                     USER_BASIC,
-                    USER_PERMISSIONS,
-                    USER_AUTH
+                    USER_AUTH,
+                    USER_AUTHZ
             },
             key = "#userId"
     )
@@ -332,25 +335,12 @@ public class UserServiceImpl extends BaseService implements UserService {
      * @return
      */
     @Override
-    @Cacheable(
-            cacheNames = USER_PERMISSIONS,
-            key = "#userId",
-            unless = "#result == null || #result.isEmpty()"
-    )
     public List<PermissionVO> getUserPermissions(Long userId) {
-        // 1. 查 userId 是否存在
-        User user = userMapper.getByUserId(userId);
-        if (user == null) {
-            throw new UserNotExistException(USER_NOT_EXIST);
-        }
+        // 1. 授权快照（按用户缓存，只有非禁用 roleId），用户不存在时抛 UserNotExistException
+        AuthorizationSnapshot snapshot = authorizationSnapshotService.getSnapshot(userId);
 
-        // 2. 是否是超级管理员
-        if (isSuperAdmin(userId)) {
-            return permissionMapper.listAllActivePermissions();
-        }
-
-        // 3. 查 userId 对应的权限
-        return userMapper.selectPermissionsByUserId(userId);
+        // 2. 按角色组合缓存的有效权限，角色相同的用户共用一个条目
+        return roleSetPermissionService.getRoleSetPermissions(snapshot.roleSet()).getPermissions();
     }
 
     /**
@@ -363,51 +353,18 @@ public class UserServiceImpl extends BaseService implements UserService {
      */
     @Override
     public boolean hasPermission(Long userId, String requestPath, String requestMethod) {
-        // 0. 超级管理员直接放行
-        if (isSuperAdmin(userId)) {
-            log.info("超级管理员直接放行，userId={}, path={}, method={}",
-                    userId, requestPath, requestMethod);
+        // 授权快照（用户不存在时抛 UserNotExistException）→ 角色组合的超级管理员标记 + 编译后的接口权限
+        // 正常请求由 PermissionInterceptor 直接使用 UserContext 中的快照，不走这里
+        AuthorizationSnapshot snapshot = authorizationSnapshotService.getSnapshot(userId);
+        RoleSetPermissions permissions = roleSetPermissionService.getRoleSetPermissions(snapshot.roleSet());
+
+        if (permissions.permits(requestPath, requestMethod)) {
+            log.debug("权限校验通过，userId={}, superAdmin={}, path={}, method={}",
+                    userId, permissions.isSuperAdmin(), requestPath, requestMethod);
             return true;
         }
 
-        // 1. 查询该用户拥有的所有接口权限（已确定不是超级管理员）
-        List<PermissionVO> permissions = getOrdinaryUserPermissions(userId);
-
-        if (CollectionUtils.isEmpty(permissions)) {
-            log.warn("无任何权限，userId={}", userId);
-            return false;
-        }
-
-        log.debug("开始权限匹配，userId={}, path={}, method={}", userId, requestPath, requestMethod);
-
-        // 2. 路径 + 方法匹配
-        for (PermissionVO permission : permissions) {
-            String permissionName = permission.getPermissionName();
-            String path = permission.getPath();
-            String method = permission.getMethod();
-
-            // 2.1 只处理接口权限
-            if (!Objects.equals(permission.getType(), PermissionTypeConstant.ACTION)) {
-                continue;
-            }
-
-            // 2.2 兜底防御
-            if (path == null || method == null) {
-                log.warn("权限配置不完整，permissionName={}", permissionName);
-                continue;
-            }
-
-            // 2.3 开始匹配
-            if (matcher.match(path, requestPath) && method.equalsIgnoreCase(requestMethod)) {
-                log.info("权限匹配成功，userId={}, permissionName={}, path={}, method={}", userId, permissionName, path, method);
-                return true;
-            }
-
-            log.debug("权限未匹配，permissionName={}, path={}, method={}", permissionName, path, method);
-        }
-
-        // 3. 最终未匹配
-        log.warn("权限校验失败，userId={}, path={}, method={}",
+        log.debug("权限校验失败，userId={}, path={}, method={}",
                 userId, requestPath, requestMethod);
         return false;
     }
@@ -423,7 +380,7 @@ public class UserServiceImpl extends BaseService implements UserService {
     @Cacheable(
             cacheNames = USER_AUTH, // TTL 短一点
             key = "#userId",
-            unless = "#result == null"
+            sync = true // 同一个 key 只加载一次；用户不存在时缓存短 TTL 的哨兵
     )
     public UserAuthInfo getUserAuthInfo(Long userId) {
         UserAuthInfo userAuthInfo = userMapper.getUserAuthInfo(userId);
@@ -443,8 +400,8 @@ public class UserServiceImpl extends BaseService implements UserService {
     @CacheEvict(
             cacheNames = {
                     USER_BASIC,
-                    USER_PERMISSIONS,
-                    USER_AUTH
+                    USER_AUTH,
+                    USER_AUTHZ
             },
             key = "#userId"
     )
@@ -455,36 +412,6 @@ public class UserServiceImpl extends BaseService implements UserService {
         }
     }
 
-    /**
-     * 判断是否是超级管理员，为 hasPermission() 服务
-     *
-     * @param userId
-     * @return
-     */
-    private boolean isSuperAdmin(Long userId) {
-        log.debug("查询用户是否是超级管理员：");
-        return userRoleService.userHasRole(userId, RoleNameConstant.SUPER_ADMIN);
-    }
-
-    /**
-     * 查非超级管理员用户权限，只为 hasPermission() 方法服务
-     *
-     * @param userId
-     * @return
-     */
-    private List<PermissionVO> getOrdinaryUserPermissions(Long userId) {
-        // 1. 查 userId 是否存在
-        log.debug("查 userId 是否存在...");
-        User user = userMapper.getByUserId(userId);
-        if (user == null) {
-            throw new UserNotExistException(USER_NOT_EXIST);
-        }
-
-        // 2. 查 userId 对应的权限
-        log.debug("查 userId 对应的权限...");
-        return userMapper.selectPermissionsByUserId(userId);
-    }
-
     /**
      * 调用 mapper 的更新方法，同时进行乐观锁判断
      *
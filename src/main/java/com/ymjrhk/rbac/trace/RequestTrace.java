@@ -0,0 +1,109 @@
+package com.ymjrhk.rbac.trace;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 一次请求的处理轨迹：各阶段耗时 + 认证 / 鉴权结论
+ *
+ * <p>只在处理请求的线程内使用（放在 {@link com.ymjrhk.rbac.context.TraceContext} 中），不需要同步。
+ * 请求结束时由 RequestTraceFilter 交给 {@link RequestTraceReporter}：
+ * 每个阶段都记入耗时直方图，按采样率输出一行结构化日志。
+ */
+public class RequestTrace {
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final long startNanos;
+
+    private final long[] elapsedNanos = new long[STAGES.length];
+
+    private final long[] beganAt = new long[STAGES.length];
+
+    private final boolean[] recorded = new boolean[STAGES.length];
+
+    private long totalNanos = -1;
+
+    @Getter
+    @Setter
+    private Long userId;
+
+    /**
+     * 认证结论，如 ok / ok-cached / missing-token / invalid-token / disabled / version-mismatch
+     */
+    @Getter
+    @Setter
+    private String auth;
+
+    /**
+     * 鉴权结论：allow / deny / skip
+     */
+    @Getter
+    @Setter
+    private String permission;
+
+    public RequestTrace() {
+        this(System.nanoTime());
+    }
+
+    RequestTrace(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    public void begin(Stage stage) {
+        begin(stage, System.nanoTime());
+    }
+
+    void begin(Stage stage, long now) {
+        if (stage != Stage.FILTER && !recorded[Stage.FILTER.ordinal()]) {
+            add(Stage.FILTER, now - startNanos); // 第一个阶段开始时，过滤器链就走完了
+        }
+        beganAt[stage.ordinal()] = now;
+    }
+
+    public void end(Stage stage) {
+        end(stage, System.nanoTime());
+    }
+
+    void end(Stage stage, long now) {
+        long began = beganAt[stage.ordinal()];
+        if (began == 0) {
+            return; // 没有 begin
+        }
+        beganAt[stage.ordinal()] = 0;
+        add(stage, now - began);
+    }
+
+    /**
+     * 累加某阶段耗时（同一阶段可能出现多次，如审计）
+     *
+     * @param stage
+     * @param nanos
+     */
+    public void add(Stage stage, long nanos) {
+        elapsedNanos[stage.ordinal()] += Math.max(0, nanos);
+        recorded[stage.ordinal()] = true;
+    }
+
+    public void finish() {
+        finish(System.nanoTime());
+    }
+
+    void finish(long now) {
+        if (totalNanos < 0) {
+            totalNanos = now - startNanos;
+        }
+    }
+
+    public boolean isRecorded(Stage stage) {
+        return recorded[stage.ordinal()];
+    }
+
+    public long getElapsedNanos(Stage stage) {
+        return elapsedNanos[stage.ordinal()];
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+}
@@ -0,0 +1,99 @@
+package com.ymjrhk.rbac.trace;
+
+import com.alibaba.fastjson2.JSON;
+import com.ymjrhk.rbac.properties.TraceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求结束时处理轨迹：
+ * <ul>
+ *   <li>每个出现过的阶段记入 rbac.request.stage 直方图（tag stage），整个请求记 stage=total</li>
+ *   <li>按采样率（或超过慢请求阈值）输出一行 JSON 日志，logger 名为 rbac.trace</li>
+ * </ul>
+ */
+@Component
+@Slf4j(topic = "rbac.trace")
+public class RequestTraceReporter {
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final TraceProperties traceProperties;
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+
+    private final Timer totalTimer;
+
+    public RequestTraceReporter(TraceProperties traceProperties, MeterRegistry meterRegistry) {
+        this.traceProperties = traceProperties;
+        for (Stage stage : STAGES) {
+            stageTimers.put(stage, timer(meterRegistry, stage.getKey()));
+        }
+        this.totalTimer = timer(meterRegistry, "total");
+    }
+
+    public boolean isEnabled() {
+        return traceProperties.isEnabled();
+    }
+
+    /**
+     * @param trace
+     * @param method
+     * @param path
+     * @param status
+     */
+    public void report(RequestTrace trace, String method, String path, int status) {
+        trace.finish();
+        for (Stage stage : STAGES) {
+            if (trace.isRecorded(stage)) {
+                stageTimers.get(stage).record(trace.getElapsedNanos(stage), TimeUnit.NANOSECONDS);
+            }
+        }
+        totalTimer.record(trace.getTotalNanos(), TimeUnit.NANOSECONDS);
+
+        if (log.isInfoEnabled() && shouldEmit(trace)) {
+            log.info(format(trace, method, path, status));
+        }
+    }
+
+    boolean shouldEmit(RequestTrace trace) {
+        if (trace.getTotalNanos() >= traceProperties.getSlowThreshold().toNanos()) {
+            return true;
+        }
+        double rate = traceProperties.getSampleRate();
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    static String format(RequestTrace trace, String method, String path, int status) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("method", method);
+        line.put("path", path);
+        line.put("status", status);
+        line.put("userId", trace.getUserId());
+        line.put("auth", trace.getAuth());
+        line.put("permission", trace.getPermission());
+        line.put("totalUs", TimeUnit.NANOSECONDS.toMicros(trace.getTotalNanos()));
+        for (Stage stage : STAGES) {
+            if (trace.isRecorded(stage)) {
+                line.put(stage.getKey() + "Us", TimeUnit.NANOSECONDS.toMicros(trace.getElapsedNanos(stage)));
+            }
+        }
+        return JSON.toJSONString(line);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("rbac.request.stage")
+                    .description("请求各阶段耗时")
+                    .tag("stage", stage)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+    }
+}
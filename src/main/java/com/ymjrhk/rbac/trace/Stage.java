@@ -0,0 +1,42 @@
+package com.ymjrhk.rbac.trace;
+
+/**
+ * 请求处理阶段
+ */
+public enum Stage {
+
+    /**
+     * 过滤器链：从请求进入到第一个拦截器开始
+     */
+    FILTER("filter"),
+
+    /**
+     * AuthInterceptor：JWT 校验 + 授权快照
+     */
+    AUTH("auth"),
+
+    /**
+     * PermissionInterceptor：接口鉴权
+     */
+    PERMISSION("permission"),
+
+    /**
+     * Controller 方法（包含其中 AOP 审计的耗时）
+     */
+    CONTROLLER("controller"),
+
+    /**
+     * 组装并提交审计日志（AOP、鉴权失败、参数错误三处累加）
+     */
+    AUDIT("audit");
+
+    private final String key;
+
+    Stage(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
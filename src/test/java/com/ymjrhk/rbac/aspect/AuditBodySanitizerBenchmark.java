@@ -0,0 +1,97 @@
+package com.ymjrhk.rbac.aspect;
+
+import com.ymjrhk.rbac.dto.IdsDTO;
+import com.ymjrhk.rbac.dto.MePasswordUpdateDTO;
+import com.ymjrhk.rbac.dto.RoleDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static com.ymjrhk.rbac.aspect.AuditBodySanitizerTest.legacyToJson;
+import static com.ymjrhk.rbac.aspect.AuditBodySanitizerTest.login;
+
+/**
+ * 审计请求体脱敏序列化：原来的反射复制 + JSON.toJSONString vs 预编译计划直接写 JSON
+ * <p>
+ * 成功的 GET 现在不再序列化，原来每个 GET 都要付一次“legacy”这一列的开销。
+ * <p>
+ * 默认不运行：mvn test -Dtest=AuditBodySanitizerBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AuditBodySanitizerBenchmark {
+
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void legacyVsPlan() {
+        RoleDTO role = new RoleDTO();
+        role.setRoleName("admin");
+        role.setRoleDisplayName("管理员");
+        role.setDescription("系统管理员");
+        role.setVersion(3);
+        role.setSecretToken("0f8fad5b-d9cb-469f-a165-70867728950e");
+
+        MePasswordUpdateDTO password = new MePasswordUpdateDTO();
+        password.setOldPassword("old-password");
+        password.setNewPassword("new-password");
+
+        IdsDTO ids = new IdsDTO();
+        ids.setIds(LongStream.rangeClosed(1, 200).boxed().toList());
+
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("role", role);
+        nested.put("login", login("alice", "secret"));
+        nested.put("tags", List.of("a", "b", "c"));
+
+        Object[][] cases = {{"RoleDTO", role}, {"PasswordDTO", password}, {"IdsDTO x200", ids}, {"nested map", nested}};
+        for (Object[] c : cases) {
+            Result old = run(c[1], AuditBodySanitizerTest::legacyToJson);
+            Result now = run(c[1], AuditBodySanitizer::toJson);
+            System.out.printf("body=%-12s legacy=%7d ns/op %7d B/op   plan=%7d ns/op %7d B/op%n",
+                    c[0], old.nanos, old.bytes, now.nanos, now.bytes);
+        }
+        if (!legacyToJson(nested).equals(AuditBodySanitizer.toJson(nested))) {
+            throw new IllegalStateException("输出不一致");
+        }
+    }
+
+    private static Result run(Object body, Function<Object, String> op) {
+        measure(body, op, WARMUP_NANOS);
+        return measure(body, op, MEASURE_NANOS);
+    }
+
+    private static Result measure(Object body, Function<Object, String> op, long budgetNanos) {
+        long threadId = Thread.currentThread().threadId();
+        int sink = 0;
+        long ops = 0;
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 1_000; i++) {
+                sink += op.apply(body).length();
+            }
+            ops += 1_000;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < budgetNanos);
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        if (sink == 42) {
+            System.out.println(sink);
+        }
+        return new Result(elapsed / ops, allocated / ops);
+    }
+
+    private record Result(long nanos, long bytes) {
+    }
+}
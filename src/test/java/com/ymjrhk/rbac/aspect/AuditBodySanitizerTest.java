@@ -0,0 +1,227 @@
+package com.ymjrhk.rbac.aspect;
+
+import com.alibaba.fastjson2.JSON;
+import com.ymjrhk.rbac.annotation.Audit;
+import com.ymjrhk.rbac.dto.IdsDTO;
+import com.ymjrhk.rbac.dto.MePasswordUpdateDTO;
+import com.ymjrhk.rbac.dto.RoleDTO;
+import com.ymjrhk.rbac.dto.UserLoginDTO;
+import com.ymjrhk.rbac.entity.AuditLog;
+import com.ymjrhk.rbac.service.AuditLogService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuditBodySanitizerTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * 各种请求体的输出与原来的反射实现逐字节一致
+     */
+    @Test
+    void toJson_matchesLegacy() {
+        for (Object body : bodies()) {
+            assertEquals(legacyToJson(body), AuditBodySanitizer.toJson(body), String.valueOf(body));
+        }
+    }
+
+    @Test
+    void toJson_masksSensitiveFields_evenWhenNull() {
+        MePasswordUpdateDTO dto = new MePasswordUpdateDTO();
+        dto.setOldPassword("old-secret");
+
+        String json = AuditBodySanitizer.toJson(dto);
+
+        assertEquals("{\"oldPassword\":\"******\",\"newPassword\":\"******\"}", json);
+    }
+
+    @Test
+    void toJson_nestedMapAndList_masked() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("users", List.of(Map.of("token", "t-1"), login("bob", "p")));
+
+        String json = AuditBodySanitizer.toJson(body);
+
+        assertFalse(json.contains("t-1"));
+        assertFalse(json.contains("\"p\""));
+        assertEquals("{\"users\":[{\"token\":\"******\"},{\"username\":\"bob\",\"password\":\"******\"}]}", json);
+    }
+
+    /**
+     * JDK 类型原来反射不进去、整个请求体变成 [unserializable]；现在交给 fastjson2 原样输出
+     */
+    @Test
+    void toJson_jdkTypesAreLeaves() {
+        Map<String, Object> body = Map.of("at", LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+
+        assertEquals("{\"at\":\"2024-01-02 03:04:05\"}", AuditBodySanitizer.toJson(body));
+    }
+
+    /**
+     * 循环引用不再 StackOverflowError，超过深度的部分输出 null
+     */
+    @Test
+    void toJson_cycle_cutAtMaxDepth() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("self", body);
+
+        String json = AuditBodySanitizer.toJson(body);
+
+        assertTrue(json.endsWith("null" + "}".repeat(33)), json);
+    }
+
+    /**
+     * 成功的 GET 不写日志，也不序列化请求体；要写日志时才序列化
+     */
+    @Test
+    void aspect_serializesOnlyWhenRowWritten() throws Throwable {
+        AuditLogService service = mock(AuditLogService.class);
+        AuditLogAspect aspect = new AuditLogAspect(service);
+        AtomicInteger serialized = new AtomicInteger();
+        Map<String, Object> body = new LinkedHashMap<>() {
+            @Override
+            public Set<Map.Entry<String, Object>> entrySet() {
+                serialized.incrementAndGet();
+                return super.entrySet();
+            }
+        };
+        body.put("password", "secret");
+        body.put("name", "alice");
+
+        aspect.around(joinPoint(body), audit());
+        bind("GET");
+        aspect.around(joinPoint(body), audit());
+
+        assertEquals(0, serialized.get());
+        verifyNoInteractions(service);
+
+        bind("POST");
+        aspect.around(joinPoint(body), audit());
+
+        assertEquals(1, serialized.get());
+        ArgumentCaptor<AuditLog> saved = ArgumentCaptor.forClass(AuditLog.class);
+        verify(service).save(saved.capture());
+        assertEquals("{\"password\":\"******\",\"name\":\"alice\"}", saved.getValue().getRequestBody());
+    }
+
+    private static void bind(String method) {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest(method, "/api/test")));
+    }
+
+    private static ProceedingJoinPoint joinPoint(Object body) throws Throwable {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(
+                AuditBodySanitizerTest.class.getDeclaredMethod("handler", Map.class, Long.class));
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{body, 1L});
+        when(joinPoint.proceed()).thenReturn("ok");
+        return joinPoint;
+    }
+
+    @SuppressWarnings("unused")
+    private static String handler(@RequestBody Map<String, Object> body, Long id) {
+        return "ok";
+    }
+
+    private static Audit audit() {
+        Audit audit = mock(Audit.class);
+        when(audit.permission()).thenReturn("test:permission");
+        return audit;
+    }
+
+    static List<Object> bodies() {
+        MePasswordUpdateDTO password = new MePasswordUpdateDTO();
+        password.setOldPassword("old");
+        password.setNewPassword("new");
+
+        IdsDTO ids = new IdsDTO();
+        ids.setIds(Arrays.asList(1L, 2L, null, 4L));
+
+        RoleDTO role = new RoleDTO();
+        role.setRoleName("admin");
+        role.setDescription("含 \"引号\" 和 \\ 反斜杠\n换行");
+        role.setVersion(3);
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("refreshToken", "r");
+        map.put("nested", Map.of("accessToken", "a"));
+        map.put("empty", null);
+        map.put("list", List.of(role, 1, true, 2.5));
+
+        return List.of(password, ids, role, new RoleDTO(), login("alice", "pw"), map, List.of(ids, password));
+    }
+
+    static UserLoginDTO login(String username, String password) {
+        UserLoginDTO dto = new UserLoginDTO();
+        dto.setUsername(username);
+        dto.setPassword(password);
+        return dto;
+    }
+
+    /**
+     * 原来的实现：反射复制成 Map / List 再 JSON.toJSONString
+     */
+    static String legacyToJson(Object body) {
+        return JSON.toJSONString(legacySanitize(body));
+    }
+
+    private static Object legacySanitize(Object obj) {
+        if (obj == null) {
+            return null;
+        }
+        if (obj instanceof String || obj instanceof Number || obj instanceof Boolean) {
+            return obj;
+        }
+        if (obj instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            map.forEach((k, v) -> {
+                String key = String.valueOf(k);
+                if (AuditBodySanitizer.SENSITIVE_FIELDS.contains(key)) {
+                    copy.put(key, "******");
+                } else {
+                    copy.put(key, legacySanitize(v));
+                }
+            });
+            return copy;
+        }
+        if (obj instanceof Collection<?> col) {
+            return col.stream()
+                      .map(AuditBodySanitizerTest::legacySanitize)
+                      .toList();
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Field field : obj.getClass().getDeclaredFields()) {
+            field.setAccessible(true);
+            try {
+                Object value = field.get(obj);
+                if (AuditBodySanitizer.SENSITIVE_FIELDS.contains(field.getName())) {
+                    result.put(field.getName(), "******");
+                } else {
+                    result.put(field.getName(), legacySanitize(value));
+                }
+            } catch (IllegalAccessException ignored) {
+            }
+        }
+        return result;
+    }
+}
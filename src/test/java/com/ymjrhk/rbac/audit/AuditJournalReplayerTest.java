@@ -0,0 +1,109 @@
+package com.ymjrhk.rbac.audit;
+
+import com.ymjrhk.rbac.entity.AuditLog;
+import com.ymjrhk.rbac.mapper.AuditLogMapper;
+import com.ymjrhk.rbac.properties.AuditProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditJournalReplayerTest {
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private AuditLogMapper auditLogMapper;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private AuditProperties properties;
+
+    private AuditJournal journal;
+
+    private AuditJournalReplayer replayer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new AuditProperties();
+        properties.setBatchSize(2);
+        properties.getJournal().setDirectory(dir.toString());
+
+        journal = new AuditJournal(properties, registry);
+        journal.open();
+        replayer = new AuditJournalReplayer(journal, auditLogMapper, properties, registry);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        journal.close();
+    }
+
+    /**
+     * 按 batchSize 分批写库，追上后进度指向末尾
+     */
+    @Test
+    void replay_success_batchInsertAndCommit() {
+        journal.spill(List.of(log(1), log(2), log(3)));
+
+        assertEquals(3, replayer.replay());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AuditLog>> captor = ArgumentCaptor.forClass(List.class);
+        verify(auditLogMapper, times(2)).batchInsert(captor.capture());
+        assertEquals(List.of(2, 1), captor.getAllValues().stream().map(List::size).toList());
+        assertEquals(0, journal.backlogBytes());
+        assertEquals(3.0, registry.get("rbac.audit.journal.replayed").counter().count());
+    }
+
+    /**
+     * 数据库还没恢复：不推进进度，下一轮重新回放
+     */
+    @Test
+    void replay_mapperFail_keepBacklog() {
+        journal.spill(List.of(log(1)));
+        JournalPosition before = journal.checkpoint();
+        when(auditLogMapper.batchInsert(anyList()))
+                .thenThrow(new IllegalStateException("数据库不可用"))
+                .thenReturn(1);
+
+        assertEquals(0, replayer.replay());
+        assertEquals(before, journal.checkpoint());
+        assertTrue(journal.backlogBytes() > 0);
+
+        assertEquals(1, replayer.replay());
+        assertEquals(0, journal.backlogBytes());
+        verify(auditLogMapper, times(2)).batchInsert(anyList());
+    }
+
+    /**
+     * 没有积压时不访问数据库
+     */
+    @Test
+    void replay_empty_noInsert() {
+        assertEquals(0, replayer.replay());
+
+        verify(auditLogMapper, never()).batchInsert(anyList());
+    }
+
+    private static AuditLog log(long id) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setUserId(id);
+        return auditLog;
+    }
+}
@@ -0,0 +1,235 @@
+package com.ymjrhk.rbac.audit;
+
+import com.ymjrhk.rbac.audit.AuditJournal.JournalBatch;
+import com.ymjrhk.rbac.entity.AuditLog;
+import com.ymjrhk.rbac.properties.AuditProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private AuditJournal journal;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * 所有字段（含 null、中文、时间）原样读回
+     */
+    @Test
+    void spillRead_roundTrip() throws IOException {
+        journal = open(DataSize.ofMegabytes(1));
+
+        AuditLog full = log(1);
+        full.setPermissionId("p-1");
+        full.setPermissionName("用户管理");
+        full.setMethod("POST");
+        full.setRequestBody("{\"username\":\"张三\"}");
+        full.setIp("127.0.0.1");
+        full.setSuccess(0);
+        full.setErrorMessage("数据库不可用");
+        full.setCreateTime(LocalDateTime.of(2026, 1, 2, 3, 4, 5, 6));
+        AuditLog sparse = new AuditLog();
+
+        assertTrue(journal.spill(List.of(full, sparse)));
+
+        JournalBatch batch = journal.read(10);
+        assertEquals(full, batch.logs().get(0));
+        assertNull(batch.logs().get(1).getUserId());
+        assertNull(batch.logs().get(1).getUsername());
+        assertNotNull(batch.logs().get(1).getCreateTime()); // 落盘时补上时间
+    }
+
+    /**
+     * 超过段大小后换新段；回放完的段被删除
+     */
+    @Test
+    void rotate_andDeleteReplayedSegments() throws IOException {
+        journal = open(DataSize.ofBytes(512));
+
+        for (int i = 0; i < 50; i++) {
+            journal.spill(List.of(log(i)));
+        }
+        assertTrue(segments().size() > 3);
+
+        List<Long> ids = drain(7);
+
+        assertEquals(ids(0, 50), ids);
+        assertEquals(1, segments().size()); // 只剩当前段
+        assertEquals(0, journal.backlogBytes());
+    }
+
+    /**
+     * 回放进度重启后仍然有效，不重复回放
+     */
+    @Test
+    void checkpoint_survivesRestart() throws IOException {
+        journal = open(DataSize.ofBytes(512));
+        for (int i = 0; i < 30; i++) {
+            journal.spill(List.of(log(i)));
+        }
+
+        JournalBatch first = journal.read(12);
+        journal.commit(first.next());
+        journal.close();
+
+        journal = open(DataSize.ofBytes(512));
+        assertEquals(first.next(), journal.checkpoint());
+        assertEquals(ids(12, 30), drain(100));
+    }
+
+    /**
+     * 没提交进度的批次重启后重新回放（至少一次）
+     */
+    @Test
+    void uncommittedBatch_replayedAfterRestart() throws IOException {
+        journal = open(DataSize.ofMegabytes(1));
+        journal.spill(List.of(log(1), log(2)));
+        journal.read(10); // 读了但没 commit（模拟写库后、记进度前崩溃）
+        journal.close();
+
+        journal = open(DataSize.ofMegabytes(1));
+        assertEquals(List.of(1L, 2L), drain(10));
+    }
+
+    /**
+     * 崩溃留下的半条记录：启动时截断，之后继续正常追加
+     */
+    @Test
+    void recover_truncateTornTail() throws IOException {
+        journal = open(DataSize.ofMegabytes(1));
+        journal.spill(List.of(log(1), log(2), log(3)));
+        journal.close();
+
+        Path segment = segments().get(0);
+        long validSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer torn = ByteBuffer.allocate(20);
+            torn.putInt(1000).putInt(123).put(new byte[12]); // 长度写了 1000，实际只有 12 字节
+            channel.write(torn.flip());
+        }
+
+        journal = open(DataSize.ofMegabytes(1));
+        assertEquals(validSize, Files.size(segment));
+
+        journal.spill(List.of(log(4)));
+        assertEquals(List.of(1L, 2L, 3L, 4L), drain(10));
+    }
+
+    /**
+     * 封存段中间的记录 CRC 不对：跳过该段剩余部分，后面的段照常回放
+     */
+    @Test
+    void corruptedSealedSegment_skipRestOfSegment() throws IOException {
+        journal = open(DataSize.ofBytes(512));
+        for (int i = 0; i < 30; i++) {
+            journal.spill(List.of(log(i)));
+        }
+        journal.close();
+
+        // 改第一个段第二条记录内容中的一个字节
+        Path first = segments().get(0);
+        int recordBytes = recordBytes();
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), recordBytes + 20);
+        }
+        int perSegment = (int) (Files.size(first) / recordBytes);
+
+        journal = open(DataSize.ofBytes(512));
+        List<Long> ids = drain(100);
+
+        List<Long> expected = new ArrayList<>(List.of(0L));
+        expected.addAll(ids(perSegment, 30));
+        assertEquals(expected, ids);
+        assertEquals(1.0, registry.get("rbac.audit.journal.corrupted").counter().count());
+    }
+
+    /**
+     * 关闭后不再接收
+     */
+    @Test
+    void spill_afterClose_returnFalse() throws IOException {
+        journal = open(DataSize.ofMegabytes(1));
+        journal.close();
+
+        assertFalse(journal.spill(List.of(log(1))));
+    }
+
+    private AuditJournal open(DataSize segmentSize) throws IOException {
+        AuditProperties properties = new AuditProperties();
+        properties.getJournal().setDirectory(dir.toString());
+        properties.getJournal().setSegmentSize(segmentSize);
+        AuditJournal auditJournal = new AuditJournal(properties, registry);
+        auditJournal.open();
+        return auditJournal;
+    }
+
+    /**
+     * 按 batchSize 读完并提交，返回读到的 userId
+     */
+    private List<Long> drain(int batchSize) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        JournalBatch batch;
+        do {
+            batch = journal.read(batchSize);
+            batch.logs().forEach(auditLog -> ids.add(auditLog.getUserId()));
+            journal.commit(batch.next());
+        } while (!batch.logs().isEmpty());
+        return ids;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    /**
+     * 测试数据每条记录的字节数都一样
+     */
+    private static int recordBytes() {
+        return 8 + AuditLogCodec.encode(log(0)).length;
+    }
+
+    private static List<Long> ids(long from, long to) {
+        List<Long> ids = new ArrayList<>();
+        for (long i = from; i < to; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+
+    private static AuditLog log(long id) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setUserId(id);
+        auditLog.setUsername("user");
+        auditLog.setPath("/users");
+        auditLog.setCreateTime(LocalDateTime.of(2026, 1, 1, 0, 0));
+        return auditLog;
+    }
+}
@@ -0,0 +1,345 @@
+package com.ymjrhk.rbac.audit;
+
+import com.github.pagehelper.Page;
+import com.ymjrhk.rbac.dto.AuditLogRealPageQueryDTO;
+import com.ymjrhk.rbac.entity.AuditLog;
+import com.ymjrhk.rbac.mapper.AuditLogMapper;
+import com.ymjrhk.rbac.properties.AuditProperties;
+import com.ymjrhk.rbac.properties.AuditProperties.OverflowPolicy;
+import com.ymjrhk.rbac.vo.AuditLogVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogWriterTest {
+
+    private final RecordingMapper mapper = new RecordingMapper();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private AuditLogWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        mapper.release();
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    /**
+     * 攒满 batchSize 立即写，一次多行 INSERT
+     */
+    @Test
+    void flush_bySize() throws Exception {
+        writer = start(properties(10, Duration.ofMinutes(1)), null);
+
+        for (int i = 0; i < 25; i++) {
+            assertTrue(writer.submit(log(i)));
+        }
+
+        waitUntil(() -> mapper.rowCount() == 20);
+        assertEquals(List.of(10, 10), mapper.batchSizes());
+    }
+
+    /**
+     * 空闲的消费线程休眠到 flushInterval，入队时被唤醒：攒满一批立即写，不用等休眠结束
+     */
+    @Test
+    void idleDrainer_wokenBySubmit() throws Exception {
+        writer = start(properties(2, Duration.ofMinutes(1)), null);
+        Thread.sleep(100); // 消费线程已经进入休眠
+
+        writer.submit(log(1));
+        writer.submit(log(2));
+
+        waitUntil(() -> mapper.rowCount() == 2);
+        assertEquals(List.of(2), mapper.batchSizes());
+    }
+
+    /**
+     * 不满一批时按时间写
+     */
+    @Test
+    void flush_byTime() throws Exception {
+        writer = start(properties(100, Duration.ofMillis(50)), null);
+
+        writer.submit(log(1));
+        writer.submit(log(2));
+
+        waitUntil(() -> mapper.rowCount() == 2);
+        assertEquals(List.of(2), mapper.batchSizes());
+        assertEquals(1.0, registry.get("rbac.audit.batch.size").summary().count());
+    }
+
+    /**
+     * DROP：满了丢弃并计数，不抛异常
+     */
+    @Test
+    void overflow_drop_countDropped() throws Exception {
+        AuditProperties properties = properties(1, Duration.ofMillis(1));
+        properties.setCapacity(4);
+        writer = start(properties, null);
+
+        mapper.block(); // 让消费线程卡在写库上
+        writer.submit(log(0));
+        waitUntil(() -> mapper.inFlight.get());
+
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (writer.submit(log(i))) {
+                accepted++;
+            }
+        }
+
+        assertEquals(4, accepted);
+        assertEquals(6, writer.droppedCount());
+        assertEquals(6.0, registry.get("rbac.audit.dropped").counter().count());
+        assertEquals(4.0, registry.get("rbac.audit.queue.depth").gauge().value());
+    }
+
+    /**
+     * SPILL：满了交给溢出存储
+     */
+    @Test
+    void overflow_spill_handOverToSpill() throws Exception {
+        List<AuditLog> spilled = Collections.synchronizedList(new ArrayList<>());
+        AuditProperties properties = properties(1, Duration.ofMillis(1));
+        properties.setCapacity(2);
+        properties.setOverflowPolicy(OverflowPolicy.SPILL);
+        writer = start(properties, logs -> spilled.addAll(logs));
+
+        mapper.block();
+        writer.submit(log(0));
+        waitUntil(() -> mapper.inFlight.get());
+
+        assertTrue(writer.submit(log(1))); // 进缓冲区
+        assertTrue(writer.submit(log(2)));
+        assertTrue(writer.submit(log(3))); // 溢出
+
+        assertEquals(List.of(3L), spilled.stream().map(AuditLog::getUserId).toList());
+        assertEquals(0, writer.droppedCount());
+    }
+
+    /**
+     * BLOCK：等到有空位就写入，超时按丢弃计数
+     */
+    @Test
+    void overflow_block_waitForSpaceThenTimeout() throws Exception {
+        AuditProperties properties = properties(1, Duration.ofMillis(1));
+        properties.setCapacity(2);
+        properties.setOverflowPolicy(OverflowPolicy.BLOCK);
+        properties.setBlockTimeout(Duration.ofMillis(20));
+        writer = start(properties, null);
+
+        mapper.block();
+        writer.submit(log(0));
+        waitUntil(() -> mapper.inFlight.get());
+        assertTrue(writer.submit(log(1)));
+        assertTrue(writer.submit(log(2)));
+
+        // 缓冲区满，消费线程卡住 → 超时丢弃
+        long start = System.nanoTime();
+        assertFalse(writer.submit(log(3)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(1, writer.droppedCount());
+
+        // 放开消费线程后，等待的生产者能写进去
+        properties.setBlockTimeout(Duration.ofSeconds(5));
+        mapper.release();
+        assertTrue(writer.submit(log(4)));
+        waitUntil(() -> mapper.rowCount() == 4);
+    }
+
+    /**
+     * 关闭时把剩余日志写完
+     */
+    @Test
+    void stop_flushRemaining() {
+        writer = start(properties(1000, Duration.ofMinutes(1)), null);
+
+        for (int i = 0; i < 123; i++) {
+            writer.submit(log(i));
+        }
+        writer.stop();
+
+        assertEquals(123, mapper.rowCount());
+        assertEquals(0, writer.queueDepth());
+    }
+
+    /**
+     * 写库失败不影响后续批次
+     */
+    @Test
+    void flush_failure_keepDraining() throws Exception {
+        writer = start(properties(1, Duration.ofMillis(1)), null);
+
+        mapper.failNext.set(true);
+        writer.submit(log(1));
+        waitUntil(() -> registry.get("rbac.audit.failed").counter().count() == 1.0);
+
+        writer.submit(log(2));
+        waitUntil(() -> mapper.rowCount() == 1);
+    }
+
+    /**
+     * 写库失败的批次转入溢出存储
+     */
+    @Test
+    void flush_failure_spillBatch() throws Exception {
+        List<AuditLog> spilled = Collections.synchronizedList(new ArrayList<>());
+        writer = start(properties(1, Duration.ofMillis(1)), logs -> spilled.addAll(logs));
+
+        mapper.failNext.set(true);
+        writer.submit(log(1));
+
+        waitUntil(() -> spilled.size() == 1);
+        assertEquals(1.0, registry.get("rbac.audit.spilled").counter().count());
+        assertEquals(0.0, registry.get("rbac.audit.failed").counter().count());
+    }
+
+    /**
+     * 多生产者 + 两个消费线程，不丢不重
+     */
+    @Test
+    void concurrentProducers_twoDrainers_noLossNoDuplicate() throws Exception {
+        AuditProperties properties = properties(50, Duration.ofMillis(5));
+        properties.setDrainerThreads(2);
+        properties.setCapacity(100_000);
+        writer = start(properties, null);
+
+        int producers = 8;
+        int perProducer = 5_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    writer.submit(log(base + i));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writer.stop();
+
+        List<Long> ids = mapper.userIds();
+        assertEquals(producers * perProducer, ids.size());
+        assertEquals(producers * perProducer, ids.stream().distinct().count());
+        assertTrue(mapper.batchSizes().stream().allMatch(size -> size <= 50));
+    }
+
+    @Test
+    void constructor_invalidDrainerThreads_throwException() {
+        AuditProperties properties = properties(10, Duration.ofMillis(10));
+        properties.setDrainerThreads(3);
+
+        assertThrows(IllegalArgumentException.class, () -> start(properties, null));
+    }
+
+    private AuditLogWriter start(AuditProperties properties, AuditSpill spill) {
+        AuditLogWriter auditLogWriter = new AuditLogWriter(mapper, properties, spill, registry);
+        auditLogWriter.start();
+        return auditLogWriter;
+    }
+
+    private static AuditProperties properties(int batchSize, Duration flushInterval) {
+        AuditProperties properties = new AuditProperties();
+        properties.setBatchSize(batchSize);
+        properties.setFlushInterval(flushInterval);
+        return properties;
+    }
+
+    private static AuditLog log(long id) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setUserId(id);
+        auditLog.setUsername("user" + id);
+        return auditLog;
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("等待超时");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * 记录每次批量插入；可以让写库卡住或失败
+     */
+    private static class RecordingMapper implements AuditLogMapper {
+
+        private final List<List<AuditLog>> batches = Collections.synchronizedList(new ArrayList<>());
+
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+
+        private final AtomicBoolean failNext = new AtomicBoolean();
+
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        int rowCount() {
+            synchronized (batches) {
+                return batches.stream().mapToInt(List::size).sum();
+            }
+        }
+
+        List<Integer> batchSizes() {
+            synchronized (batches) {
+                return batches.stream().map(List::size).toList();
+            }
+        }
+
+        List<Long> userIds() {
+            synchronized (batches) {
+                return batches.stream().flatMap(List::stream).map(AuditLog::getUserId).toList();
+            }
+        }
+
+        @Override
+        public Page<AuditLogVO> pageQuery(AuditLogRealPageQueryDTO auditLogRealPageQueryDTO) {
+            return null;
+        }
+
+        @Override
+        public int insert(AuditLog auditLog) {
+            throw new UnsupportedOperationException("应走 batchInsert");
+        }
+
+        @Override
+        public int batchInsert(List<AuditLog> auditLogs) {
+            inFlight.set(true);
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failNext.compareAndSet(true, false)) {
+                throw new IllegalStateException("数据库不可用");
+            }
+            batches.add(List.copyOf(auditLogs));
+            return auditLogs.size();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.ymjrhk.rbac.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditRingBufferTest {
+
+    @Test
+    void capacity_roundUpToPowerOfTwo() {
+        assertEquals(2, new AuditRingBuffer<>(1).capacity());
+        assertEquals(8, new AuditRingBuffer<>(5).capacity());
+        assertEquals(8, new AuditRingBuffer<>(8).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new AuditRingBuffer<>(0));
+    }
+
+    /**
+     * 满了 offer 返回 false，空了 poll 返回 null，先进先出
+     */
+    @Test
+    void offerPoll_fullAndEmpty() {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4)); // 绕回
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, buffer.drainTo(drained, 10));
+        assertEquals(List.of(1, 2, 3, 4), drained);
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void drainTo_respectMax() {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, buffer.drainTo(drained, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertEquals(2, buffer.size());
+    }
+
+    /**
+     * 多生产者 + 多消费者并发，不丢不重
+     */
+    @Test
+    void concurrent_noLossNoDuplicate() throws Exception {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(1024);
+        int producers = 4;
+        int perProducer = 50_000;
+        Set<Integer> consumed = ConcurrentHashMap.newKeySet();
+        AtomicBoolean duplicated = new AtomicBoolean();
+        AtomicBoolean producing = new AtomicBoolean(true);
+
+        List<Thread> consumers = new ArrayList<>();
+        for (int c = 0; c < 2; c++) {
+            consumers.add(Thread.ofPlatform().start(() -> {
+                List<Integer> batch = new ArrayList<>();
+                while (producing.get() || !buffer.isEmpty()) {
+                    batch.clear();
+                    buffer.drainTo(batch, 64);
+                    for (Integer value : batch) {
+                        if (!consumed.add(value)) {
+                            duplicated.set(true);
+                        }
+                    }
+                }
+            }));
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        producing.set(false);
+        for (Thread consumer : consumers) {
+            consumer.join();
+        }
+
+        assertFalse(duplicated.get());
+        assertEquals(producers * perProducer, consumed.size());
+        assertEquals(new HashSet<>(consumed).size(), consumed.size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.ymjrhk.rbac.audit;
+
+import com.ymjrhk.rbac.interceptor.AuditFailInterceptor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 400 请求体脱敏：原 new String + maskPasswordLinear vs RequestBodyMasker（字节扫描，8KB 上限）
+ * <p>
+ * 默认不运行：mvn test -Dtest=RequestBodyMaskerBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RequestBodyMaskerBenchmark {
+
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    @Test
+    void legacyVsMasker() {
+        RequestBodyMasker masker = new RequestBodyMasker(List.of("password", "token"), 8 * 1024);
+
+        String login = "{\"username\":\"alice\",\"password\":\"123456\"}";
+        StringBuilder large = new StringBuilder("{\"password\":\"p\",\"items\":[");
+        for (int i = 0; i < 20_000; i++) {
+            large.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"名称").append(i).append("\"}");
+        }
+        large.append("]}");
+
+        Object[][] cases = {{"login", login}, {"1KB", large.substring(0, 1024)}, {"large", large.toString()}};
+        for (Object[] c : cases) {
+            byte[] body = ((String) c[1]).getBytes(StandardCharsets.UTF_8);
+            long old = run(body, b -> AuditFailInterceptor.maskPasswordLinear(new String(b, StandardCharsets.UTF_8)));
+            long now = run(body, masker::mask);
+            System.out.printf("body=%-6s %8d B  legacy=%10d ns/op  masker=%8d ns/op%n", c[0], body.length, old, now);
+        }
+    }
+
+    private static long run(byte[] body, Function<byte[], String> op) {
+        measure(body, op, WARMUP_NANOS);
+        return measure(body, op, MEASURE_NANOS);
+    }
+
+    private static long measure(byte[] body, Function<byte[], String> op, long budgetNanos) {
+        int sink = 0;
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 10; i++) {
+                sink += op.apply(body).length();
+            }
+            ops += 10;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < budgetNanos);
+        if (sink == 42) {
+            System.out.println(sink);
+        }
+        return elapsed / ops;
+    }
+}
@@ -0,0 +1,172 @@
+package com.ymjrhk.rbac.audit;
+
+import com.ymjrhk.rbac.interceptor.AuditFailInterceptor;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestBodyMaskerTest {
+
+    private final RequestBodyMasker masker = new RequestBodyMasker(List.of("password", "token"), 8 * 1024);
+
+    private final RequestBodyMasker passwordOnly = new RequestBodyMasker(List.of("password"), 1 << 20);
+
+    /**
+     * 原 maskPasswordLinear 的各类情形
+     */
+    @Test
+    void mask_legacyCases() {
+        assertMasked("{\"username\":\"alice\",\"password\":\"******\"}",
+                "{\"username\":\"alice\",\"password\":\"123456\"}");
+        // key 中包含 password、大小写不敏感
+        assertMasked("{\"oldPassword\":\"******\",\"NEW_PASSWORD\":\"******\"}",
+                "{\"oldPassword\":\"a\",\"NEW_PASSWORD\":\"b\"}");
+        // 空白、嵌套、数组
+        assertMasked("{ \"user\" : { \"password\" :\t\"******\" }, \"list\":[{\"password\":\"******\"}]}",
+                "{ \"user\" : { \"password\" :\t\"x y z\" }, \"list\":[{\"password\":\"q\"}]}");
+        // 非字符串值不处理
+        assertMasked("{\"password\":123456,\"password2\":null}", "{\"password\":123456,\"password2\":null}");
+        // 值没有结束引号（请求体被截断）：替换到末尾
+        assertMasked("{\"password\":\"******\"", "{\"password\":\"abc");
+        // 不是 JSON
+        assertMasked("password=123456&name=alice", "password=123456&name=alice");
+        assertMasked("{\"password\"", "{\"password\"");
+        assertMasked("", "");
+        assertMasked("  ", "  ");
+        // 值里的 password 字样不影响
+        assertMasked("{\"note\":\"my password is\",\"x\":\"1\"}", "{\"note\":\"my password is\",\"x\":\"1\"}");
+        // 中文与全角空格
+        assertMasked("{\"密码password\"　:　\"******\",\"名字\":\"张三\"}",
+                "{\"密码password\"　:　\"秘密\",\"名字\":\"张三\"}");
+    }
+
+    @Test
+    void mask_configuredKeys() {
+        assertEquals("{\"refreshToken\":\"******\",\"accessTOKEN\":\"******\",\"name\":\"t\"}",
+                masker.mask(bytes("{\"refreshToken\":\"r\",\"accessTOKEN\":\"a\",\"name\":\"t\"}")));
+        assertNull(masker.mask(null));
+    }
+
+    /**
+     * 片段互相重叠、一个是另一个的后缀时也能匹配到（失败指针）
+     */
+    @Test
+    void automaton_overlappingKeys() {
+        SensitiveKeyAutomaton automaton = new SensitiveKeyAutomaton(List.of("he", "she", "his", "hers"));
+
+        assertTrue(matches(automaton, "ushers"));
+        assertTrue(matches(automaton, "xxSHExx"));
+        assertTrue(matches(automaton, "ahis"));
+        assertFalse(matches(automaton, "hxsx"));
+        assertFalse(matches(automaton, ""));
+        assertThrows(IllegalArgumentException.class, () -> new SensitiveKeyAutomaton(List.of("")));
+    }
+
+    /**
+     * 超过上限：截断在字符边界上，以标记结尾，总长度不超过上限
+     */
+    @Test
+    void mask_truncatesAtCharBoundary() {
+        RequestBodyMasker small = new RequestBodyMasker(List.of("password"), 64);
+        String body = "{\"password\":\"secret\",\"name\":\"" + "张三".repeat(100) + "\"}";
+
+        String masked = small.mask(bytes(body));
+
+        assertTrue(masked.endsWith(RequestBodyMasker.TRUNCATED_MARKER), masked);
+        assertTrue(masked.getBytes(StandardCharsets.UTF_8).length <= 64);
+        assertFalse(masked.contains("�"));
+        assertTrue(masked.startsWith("{\"password\":\"******\",\"name\":\"张三"));
+        // 恰好写满不截断
+        String exact = "a".repeat(64);
+        assertEquals(exact, small.mask(bytes(exact)));
+        assertEquals(exact.substring(0, 50) + RequestBodyMasker.TRUNCATED_MARKER, small.mask(bytes(exact + "b")));
+        assertThrows(IllegalArgumentException.class, () -> new RequestBodyMasker(List.of("password"), 10));
+    }
+
+    /**
+     * 随机输入（大量引号、冒号、空白、password 片段、多字节字符和非法字节）与原 maskPasswordLinear 结果一致
+     */
+    @Test
+    void fuzz_matchesLegacy() {
+        Random random = new Random(20240601);
+        for (int round = 0; round < 20_000; round++) {
+            byte[] body = randomBody(random, random.nextInt(80));
+            String expected = AuditFailInterceptor.maskPasswordLinear(new String(body, StandardCharsets.UTF_8));
+            assertEquals(expected, passwordOnly.mask(body), () -> "input=" + new String(body, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 随机 JSON：任意上限下，敏感 key 的值都不会出现在输出里，输出不超过上限；
+     * 没被截断时与不限长度的结果相同，被截断时是其前缀
+     */
+    @Test
+    void fuzz_neverLeaksAndRespectsCap() {
+        Random random = new Random(7);
+        RequestBodyMasker unlimited = new RequestBodyMasker(List.of("password", "token"), 1 << 20);
+        for (int round = 0; round < 5_000; round++) {
+            StringBuilder json = new StringBuilder("{");
+            int fields = 1 + random.nextInt(8);
+            for (int f = 0; f < fields; f++) {
+                if (f > 0) {
+                    json.append(',');
+                }
+                boolean sensitive = random.nextBoolean();
+                String key = sensitive
+                        ? List.of("password", "Token", "newPassword", "refresh_TOKEN").get(random.nextInt(4))
+                        : List.of("name", "email", "备注", "id").get(random.nextInt(4));
+                String value = (sensitive ? "SECRET" : "v") + random.nextInt(1_000_000) + "值".repeat(random.nextInt(5));
+                json.append('"').append(key).append('"').append(" ".repeat(random.nextInt(3))).append(':')
+                    .append(" ".repeat(random.nextInt(3))).append('"').append(value).append('"');
+            }
+            json.append('}');
+
+            int cap = 64 + random.nextInt(200);
+            byte[] body = bytes(json.toString());
+            String full = unlimited.mask(body);
+            String masked = new RequestBodyMasker(List.of("password", "token"), cap).mask(body);
+
+            assertFalse(masked.contains("SECRET"), masked);
+            assertTrue(masked.getBytes(StandardCharsets.UTF_8).length <= cap);
+            if (masked.endsWith(RequestBodyMasker.TRUNCATED_MARKER)) {
+                String kept = masked.substring(0, masked.length() - RequestBodyMasker.TRUNCATED_MARKER.length());
+                assertTrue(full.startsWith(kept));
+            } else {
+                assertEquals(full, masked);
+            }
+        }
+    }
+
+    private static byte[] randomBody(Random random, int parts) {
+        String[] pieces = {"\"", "\"", "\"", ":", ":", " ", "\t", "\n", "{", "}", ",", "[", "password", "PassWord",
+                "xpasswordy", "pass", "word", "a", "1", "é", "中", "　", " ", " ", "\\"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int p = 0; p < parts; p++) {
+            if (random.nextInt(30) == 0) {
+                out.write(0x80 + random.nextInt(0x80)); // 非法 / 不完整的 UTF-8 字节
+            } else {
+                out.writeBytes(bytes(pieces[random.nextInt(pieces.length)]));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private void assertMasked(String expected, String body) {
+        assertEquals(expected, masker.mask(bytes(body)));
+        assertEquals(expected, AuditFailInterceptor.maskPasswordLinear(body));
+    }
+
+    private static boolean matches(SensitiveKeyAutomaton automaton, String key) {
+        byte[] bytes = bytes(key);
+        return automaton.matches(bytes, 0, bytes.length);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
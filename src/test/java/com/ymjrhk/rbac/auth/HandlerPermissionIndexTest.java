@@ -0,0 +1,208 @@
+package com.ymjrhk.rbac.auth;
+
+import com.ymjrhk.rbac.auth.HandlerPermissionIndex.Route;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static com.ymjrhk.rbac.auth.PermissionMatcherTest.linearMatch;
+import static com.ymjrhk.rbac.auth.PermissionMatcherTest.randomPath;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HandlerPermissionIndexTest {
+
+    /**
+     * 充当 Controller 方法
+     */
+    @SuppressWarnings("unused")
+    private static class Handlers {
+        void h0() {}
+        void h1() {}
+        void h2() {}
+        void h3() {}
+        void h4() {}
+        void h5() {}
+    }
+
+    private static final Method[] HANDLERS = Arrays.stream(Handlers.class.getDeclaredMethods())
+                                                   .filter(m -> m.getName().startsWith("h"))
+                                                   .sorted(Comparator.comparing(Method::getName))
+                                                   .toArray(Method[]::new);
+
+    private static PermissionVO action(long id, String path, String method) {
+        PermissionVO p = PermissionMatcherTest.action(path, method);
+        p.setPermissionId(id);
+        return p;
+    }
+
+    private static Route route(Method handler, String pattern, String... httpMethods) {
+        return new Route(handler, Set.of(pattern), Set.of(httpMethods));
+    }
+
+    /**
+     * 覆盖 / 部分 / 不相交的分类
+     */
+    @Test
+    void build_classifyPermissions() {
+        HandlerPermissionIndex index = HandlerPermissionIndex.build(
+                List.of(route(HANDLERS[0], "/api/users/{userId}", "GET")),
+                List.of(
+                        action(1, "/api/users/**", "GET"),    // 覆盖
+                        action(2, "/api/users/*", "GET"),     // 覆盖
+                        action(3, "/api/*/{id}", "GET"),      // 覆盖
+                        action(4, "/api/users/1", "GET"),     // 部分
+                        action(5, "/api/users/{id:\\d+}", "GET"), // 部分
+                        action(6, "/api/roles/**", "GET"),    // 不相交
+                        action(7, "/api/users/*/", "GET"),    // 要求结尾 "/"，不相交
+                        action(8, "/api/users/**", "PUT")     // 方法不同
+                ));
+
+        HandlerPermissions permissions = index.get(HANDLERS[0], "get");
+
+        assertEquals(PermissionBits.of(List.of(1L, 2L, 3L)), permissions.covering());
+        assertEquals(PermissionBits.of(List.of(4L, 5L)), permissions.partial());
+        assertNull(index.get(HANDLERS[0], "PUT"));
+        assertNull(index.get(HANDLERS[1], "GET"));
+    }
+
+    /**
+     * 含通配 / 正则变量、以 "/" 结尾、不限 HTTP 方法的路由不进索引
+     */
+    @Test
+    void build_unsupportedRoutes_notIndexed() {
+        HandlerPermissionIndex index = HandlerPermissionIndex.build(
+                List.of(
+                        route(HANDLERS[0], "/api/files/**", "GET"),
+                        route(HANDLERS[1], "/api/users/{id:\\d+}", "GET"),
+                        route(HANDLERS[2], "/api/users/", "GET"),
+                        new Route(HANDLERS[3], Set.of("/api/users"), Set.of()),
+                        route(HANDLERS[4], "/api/users/page", "GET")
+                ),
+                List.of(action(1, "/api/**", "GET")));
+
+        assertEquals(1, index.size());
+        assertNull(index.get(HANDLERS[0], "GET"));
+        assertNull(index.get(HANDLERS[1], "GET"));
+        assertNull(index.get(HANDLERS[2], "GET"));
+        assertNull(index.get(HANDLERS[3], "GET"));
+        assertEquals(PermissionBits.of(List.of(1L)), index.get(HANDLERS[4], "GET").covering());
+    }
+
+    /**
+     * 多个路由模式：都覆盖才算覆盖
+     */
+    @Test
+    void build_multiplePatterns_coverAll() {
+        HandlerPermissionIndex index = HandlerPermissionIndex.build(
+                List.of(new Route(HANDLERS[0], Set.of("/api/users", "/api/members"), Set.of("GET"))),
+                List.of(
+                        action(1, "/api/*", "GET"),
+                        action(2, "/api/users", "GET")
+                ));
+
+        HandlerPermissions permissions = index.get(HANDLERS[0], "GET");
+
+        assertEquals(PermissionBits.of(List.of(1L)), permissions.covering());
+        assertEquals(PermissionBits.of(List.of(2L)), permissions.partial());
+    }
+
+    /**
+     * 只持有 partial 权限时才做模式匹配；超级管理员直接放行
+     */
+    @Test
+    void permits_partialFallsBackToPatternMatch() {
+        HandlerPermissionIndex index = HandlerPermissionIndex.build(
+                List.of(route(HANDLERS[0], "/api/users/{userId}", "GET")),
+                List.of(action(1, "/api/users/**", "GET"), action(2, "/api/users/1", "GET")));
+        HandlerPermissions required = index.get(HANDLERS[0], "GET");
+
+        RoleSetPermissions partialOnly = new RoleSetPermissions();
+        partialOnly.setPermissions(List.of(action(2, "/api/users/1", "GET")));
+        assertTrue(partialOnly.permits(required, "/api/users/1", "GET"));
+        assertFalse(partialOnly.permits(required, "/api/users/2", "GET"));
+
+        RoleSetPermissions none = new RoleSetPermissions();
+        none.setPermissions(List.of(action(3, "/api/roles/**", "GET")));
+        assertFalse(none.permits(required, "/api/users/1", "GET"));
+
+        RoleSetPermissions superAdmin = new RoleSetPermissions();
+        superAdmin.setSuperAdmin(true);
+        assertTrue(superAdmin.permits(required, "/api/users/1", "GET"));
+    }
+
+    /**
+     * 随机生成路由、权限集合和路由到各处理方法的请求，判定结果与原线性扫描逐一对照（差分测试）
+     */
+    @Test
+    void randomized_sameAsLinearScan() {
+        Random random = new Random(20260315L);
+        String[] routeSegments = {"api", "users", "roles", "1", "me", "{id}", "{userId}"};
+        String[] permissionSegments = {"api", "users", "roles", "1", "me", "*", "**", "{id}", "user?", "r*s", "{n:\\d+}"};
+        String[] values = {"1", "22", "users", "roles", "me", "user", "rs", "x"};
+        String[] methods = {"GET", "POST"};
+
+        for (int round = 0; round < 300; round++) {
+            List<Route> routes = new ArrayList<>();
+            List<String> patterns = new ArrayList<>();
+            for (Method handler : HANDLERS) {
+                String pattern = "/" + String.join("/", randomSegments(random, routeSegments, 1 + random.nextInt(4)));
+                patterns.add(pattern);
+                routes.add(route(handler, pattern, methods[random.nextInt(methods.length)]));
+            }
+
+            List<PermissionVO> catalog = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                catalog.add(action(i + 1, randomPath(random, permissionSegments, 5), methods[random.nextInt(methods.length)]));
+            }
+            HandlerPermissionIndex index = HandlerPermissionIndex.build(routes, catalog);
+
+            for (int u = 0; u < 10; u++) {
+                List<PermissionVO> held = new ArrayList<>();
+                for (PermissionVO permission : catalog) {
+                    if (random.nextInt(4) == 0) {
+                        held.add(permission);
+                    }
+                }
+                RoleSetPermissions roleSet = new RoleSetPermissions();
+                roleSet.setPermissions(held);
+
+                for (int r = 0; r < routes.size(); r++) {
+                    Route route = routes.get(r);
+                    String method = route.httpMethods().iterator().next();
+                    String path = instantiate(random, patterns.get(r), values);
+                    HandlerPermissions required = index.get(route.handler(), method);
+                    assertNotNull(required, patterns.get(r));
+
+                    assertEquals(linearMatch(held, path, method), roleSet.permits(required, path, method),
+                            "route=" + patterns.get(r) + ", held=" + held + ", path=" + path);
+                }
+            }
+        }
+    }
+
+    private static List<String> randomSegments(Random random, String[] segments, int depth) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < depth; i++) {
+            result.add(segments[random.nextInt(segments.length)]);
+        }
+        return result;
+    }
+
+    /**
+     * 生成一个会被路由到该模式的请求路径：{name} 段替换为任意非空值
+     */
+    private static String instantiate(Random random, String pattern, String[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (String segment : pattern.substring(1).split("/")) {
+            sb.append('/').append(segment.startsWith("{") ? values[random.nextInt(values.length)] : segment);
+        }
+        return sb.toString();
+    }
+}
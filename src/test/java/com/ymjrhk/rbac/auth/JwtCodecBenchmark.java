@@ -0,0 +1,82 @@
+package com.ymjrhk.rbac.auth;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.function.Function;
+
+import static com.ymjrhk.rbac.auth.JwtCodecTest.CLAIMS;
+import static com.ymjrhk.rbac.auth.JwtCodecTest.SECRET;
+import static com.ymjrhk.rbac.auth.JwtCodecTest.properties;
+
+/**
+ * AuthInterceptor 的 token 校验：原 JwtUtil.parseJWT（每次重建秘钥和 parser）vs JwtCodec
+ * <p>
+ * 默认不运行：mvn test -Dtest=JwtCodecBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtCodecBenchmark {
+
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    @Test
+    void codecVsParseEveryTime() {
+        JwtCodec codec = new JwtCodec(properties("v1", SECRET, 3_600_000L));
+        String valid = codec.encode(CLAIMS);
+        String forged = valid.substring(0, valid.length() - 2) + (valid.endsWith("AA") ? "BB" : "AA");
+        String expired = new JwtCodec(properties("v1", SECRET, -1_000L)).encode(CLAIMS);
+
+        String[][] cases = {{"valid", valid}, {"forged", forged}, {"expired", expired}};
+        for (String[] c : cases) {
+            long old = run(c[1], JwtCodecBenchmark::parseEveryTime);
+            long now = run(c[1], codec::decode);
+            System.out.printf("token=%-8s parseEveryTime=%6d ns/op  codec=%6d ns/op%n", c[0], old, now);
+        }
+    }
+
+    /**
+     * 原 JwtUtil.parseJWT
+     */
+    private static Claims parseEveryTime(String token) {
+        Key key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parserBuilder()
+                   .setSigningKey(key)
+                   .build()
+                   .parseClaimsJws(token)
+                   .getBody();
+    }
+
+    private static long run(String token, Function<String, Claims> op) {
+        measure(token, op, WARMUP_NANOS);
+        return measure(token, op, MEASURE_NANOS);
+    }
+
+    private static long measure(String token, Function<String, Claims> op, long budgetNanos) {
+        int sink = 0;
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 1_000; i++) {
+                try {
+                    sink += op.apply(token).size();
+                } catch (RuntimeException e) {
+                    sink += e.getMessage().length();
+                }
+            }
+            ops += 1_000;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < budgetNanos);
+        if (sink == 42) {
+            System.out.println(sink);
+        }
+        return elapsed / ops;
+    }
+}
@@ -0,0 +1,165 @@
+package com.ymjrhk.rbac.auth;
+
+import com.ymjrhk.rbac.constant.JwtClaimsConstant;
+import com.ymjrhk.rbac.properties.JwtProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.jsonwebtoken.security.WeakKeyException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtCodecTest {
+
+    static final String SECRET = "test-jwt-secret-key-32-bytes!!!!";
+
+    static final String OLD_SECRET = "old-jwt-secret-key-32-bytes!!!!!";
+
+    static final Map<String, Object> CLAIMS = Map.of(
+            JwtClaimsConstant.USER_ID, 1L,
+            JwtClaimsConstant.USERNAME, "zhangsan",
+            JwtClaimsConstant.AUTH_VERSION, 2);
+
+    @Test
+    void encodeDecode_roundTrip() {
+        JwtCodec codec = new JwtCodec(properties("v2", SECRET, 3_600_000L));
+
+        Claims claims = codec.decode(codec.encode(CLAIMS));
+
+        assertEquals(1, claims.get(JwtClaimsConstant.USER_ID, Integer.class));
+        assertEquals("zhangsan", claims.get(JwtClaimsConstant.USERNAME));
+        assertEquals(2, claims.get(JwtClaimsConstant.AUTH_VERSION));
+        assertNotNull(claims.getExpiration());
+    }
+
+    /**
+     * 验签后只解析一次 payload：结果（包括数字的类型）与 JwtParser 完整解析的一致
+     */
+    @Test
+    void decode_sameClaimsAsJwtParser() {
+        JwtCodec codec = new JwtCodec(properties("v2", SECRET, 3_600_000L));
+        String token = codec.encode(Map.of(
+                JwtClaimsConstant.USER_ID, 1L,
+                JwtClaimsConstant.USERNAME, "张三",
+                JwtClaimsConstant.AUTH_VERSION, 2,
+                "big", 12_345_678_901L));
+
+        Claims expected = Jwts.parserBuilder()
+                              .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                              .build()
+                              .parseClaimsJws(token)
+                              .getBody();
+
+        assertEquals(expected, codec.decode(token));
+        assertEquals(Long.class, codec.decode(token).get("big").getClass());
+    }
+
+    /**
+     * 轮换：旧 kid 的 token 在 verificationKeys 中仍然有效，移除后失效
+     */
+    @Test
+    void decode_rotatedKey() {
+        String oldToken = new JwtCodec(properties("v1", OLD_SECRET, 3_600_000L)).encode(CLAIMS);
+
+        JwtProperties rotated = properties("v2", SECRET, 3_600_000L);
+        rotated.getVerificationKeys().put("v1", OLD_SECRET);
+        assertEquals("zhangsan", new JwtCodec(rotated).decode(oldToken).get(JwtClaimsConstant.USERNAME));
+
+        JwtCodec withoutOld = new JwtCodec(properties("v2", SECRET, 3_600_000L));
+        assertThrows(MalformedJwtException.class, () -> withoutOld.decode(oldToken));
+    }
+
+    /**
+     * 轮换前签发的、不带 kid 的 token 按当前秘钥验签
+     */
+    @Test
+    void decode_legacyTokenWithoutKid() {
+        String legacy = Jwts.builder()
+                            .setClaims(CLAIMS)
+                            .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                            .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                            .compact();
+
+        JwtCodec codec = new JwtCodec(properties("v2", SECRET, 3_600_000L));
+
+        assertEquals("zhangsan", codec.decode(legacy).get(JwtClaimsConstant.USERNAME));
+    }
+
+    @Test
+    void decode_expired_throwException() {
+        JwtCodec codec = new JwtCodec(properties("v1", SECRET, -1_000L));
+
+        assertThrows(ExpiredJwtException.class, () -> codec.decode(codec.encode(CLAIMS)));
+    }
+
+    /**
+     * 篡改 payload（改 userId）后签名不对
+     */
+    @Test
+    void decode_tamperedPayload_throwException() {
+        JwtCodec codec = new JwtCodec(properties("v1", SECRET, 3_600_000L));
+        String[] parts = codec.encode(CLAIMS).split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "{\"userId\":2,\"username\":\"admin\",\"authVersion\":2,\"exp\":9999999999}".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(SignatureException.class,
+                () -> codec.decode(parts[0] + "." + forgedPayload + "." + parts[2]));
+    }
+
+    /**
+     * 别的秘钥签发（kid 相同）
+     */
+    @Test
+    void decode_wrongSecret_throwException() {
+        String token = new JwtCodec(properties("v1", OLD_SECRET, 3_600_000L)).encode(CLAIMS);
+        JwtCodec codec = new JwtCodec(properties("v1", SECRET, 3_600_000L));
+
+        assertThrows(SignatureException.class, () -> codec.decode(token));
+    }
+
+    /**
+     * alg=none 等非本服务签发的 header 直接拒绝
+     */
+    @Test
+    void decode_unsignedToken_throwException() {
+        JwtCodec codec = new JwtCodec(properties("v1", SECRET, 3_600_000L));
+        String unsigned = Jwts.builder().setClaims(CLAIMS).compact();
+
+        assertThrows(MalformedJwtException.class, () -> codec.decode(unsigned));
+        assertThrows(MalformedJwtException.class, () -> codec.decode(unsigned + "c2ln"));
+    }
+
+    @Test
+    void decode_malformed_throwException() {
+        JwtCodec codec = new JwtCodec(properties("v1", SECRET, 3_600_000L));
+        String token = codec.encode(CLAIMS);
+
+        for (String bad : new String[]{"", "abc", "a.b", "a..c", ".b.c", "a.b.", "a.b.c.d",
+                token + "=", token.replace('.', ' '), token.substring(0, token.length() - 1)}) {
+            assertThrows(io.jsonwebtoken.JwtException.class, () -> codec.decode(bad), bad);
+        }
+    }
+
+    @Test
+    void constructor_weakKey_throwException() {
+        assertThrows(WeakKeyException.class, () -> new JwtCodec(properties("v1", "short", 1000L)));
+    }
+
+    static JwtProperties properties(String keyId, String secret, long ttl) {
+        JwtProperties properties = new JwtProperties();
+        properties.setKeyId(keyId);
+        properties.setSecretKey(secret);
+        properties.setTtl(ttl);
+        return properties;
+    }
+}
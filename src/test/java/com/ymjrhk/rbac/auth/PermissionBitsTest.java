@@ -0,0 +1,93 @@
+package com.ymjrhk.rbac.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionBitsTest {
+
+    @Test
+    void of_containsAndCardinality() {
+        PermissionBits bits = PermissionBits.of(Arrays.asList(3L, 64L, 1000L, null, 3L));
+
+        assertTrue(bits.contains(3));
+        assertTrue(bits.contains(64));
+        assertTrue(bits.contains(1000));
+        assertFalse(bits.contains(4));
+        assertFalse(bits.contains(-1));
+        assertFalse(bits.contains(100_000));
+        assertEquals(3, bits.cardinality());
+        assertEquals("[3,64,1000]", bits.toString());
+    }
+
+    @Test
+    void of_empty() {
+        assertSame(PermissionBits.EMPTY, PermissionBits.of(List.of()));
+        assertTrue(PermissionBits.of(List.of()).isEmpty());
+        assertFalse(PermissionBits.EMPTY.intersects(PermissionBits.of(List.of(1L))));
+    }
+
+    @Test
+    void of_negativeId_throwException() {
+        assertThrows(IllegalArgumentException.class, () -> PermissionBits.of(List.of(-1L)));
+    }
+
+    /**
+     * 只保存最小 ID 到最大 ID 之间的字：ID 很大但集中时也很小
+     */
+    @Test
+    void of_highIds_compact() {
+        PermissionBits a = PermissionBits.of(List.of(1_000_000L, 1_000_001L));
+        PermissionBits b = PermissionBits.of(List.of(1_000_001L, 5L));
+
+        assertTrue(a.intersects(b));
+        assertEquals(PermissionBits.of(List.of(1_000_001L)), a.and(b));
+        assertEquals(PermissionBits.of(List.of(1_000_000L)), a.andNot(b));
+    }
+
+    /**
+     * 与 java.util.BitSet 对照
+     */
+    @Test
+    void randomized_sameAsBitSet() {
+        Random random = new Random(7L);
+        for (int round = 0; round < 500; round++) {
+            List<Long> x = randomIds(random);
+            List<Long> y = randomIds(random);
+            PermissionBits a = PermissionBits.of(x);
+            PermissionBits b = PermissionBits.of(y);
+            BitSet sa = bitSet(x);
+            BitSet sb = bitSet(y);
+
+            assertEquals(sa.intersects(sb), a.intersects(b));
+
+            BitSet and = (BitSet) sa.clone();
+            and.and(sb);
+            assertEquals(PermissionBits.of(and.stream().mapToObj(i -> (long) i).toList()), a.and(b));
+
+            BitSet or = (BitSet) sa.clone();
+            or.or(sb);
+            assertEquals(PermissionBits.of(or.stream().mapToObj(i -> (long) i).toList()), a.or(b));
+
+            BitSet andNot = (BitSet) sa.clone();
+            andNot.andNot(sb);
+            assertEquals(PermissionBits.of(andNot.stream().mapToObj(i -> (long) i).toList()), a.andNot(b));
+        }
+    }
+
+    private static List<Long> randomIds(Random random) {
+        int base = random.nextInt(300);
+        return random.longs(random.nextInt(8), base, base + 1 + random.nextInt(300)).boxed().toList();
+    }
+
+    private static BitSet bitSet(List<Long> ids) {
+        BitSet set = new BitSet();
+        ids.forEach(id -> set.set(id.intValue()));
+        return set;
+    }
+}
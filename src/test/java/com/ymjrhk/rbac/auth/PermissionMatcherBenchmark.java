@@ -0,0 +1,85 @@
+package com.ymjrhk.rbac.auth;
+
+import com.ymjrhk.rbac.auth.HandlerPermissionIndex.Route;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static com.ymjrhk.rbac.auth.PermissionMatcherTest.action;
+import static com.ymjrhk.rbac.auth.PermissionMatcherTest.linearMatch;
+
+/**
+ * 编译匹配器 vs 原线性 AntPathMatcher 扫描，以及按处理方法预先算好权限后的位图求交
+ * <p>
+ * 默认不运行：mvn test -Dtest=PermissionMatcherBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PermissionMatcherBenchmark {
+
+    private static final int WARMUP = 200_000;
+
+    private static final int ITERATIONS = 500_000;
+
+    @Test
+    void compiledVsLinear() {
+        for (int size : new int[]{10, 50, 200, 1000}) {
+            List<PermissionVO> permissions = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                permissions.add(action("/api/module" + i + "/items/{id}", "GET"));
+                permissions.add(action("/api/module" + i + "/**", "POST"));
+            }
+            String[] requests = {
+                    "/api/module" + (size - 1) + "/items/42", // 命中最后一条
+                    "/api/unknown/items/42"                   // 未命中
+            };
+
+            PermissionMatcher matcher = PermissionMatcher.compile(permissions);
+
+            // 位图：请求分别路由到 /api/module{n}/items/{id} 和一个没有权限覆盖的处理方法
+            for (int i = 0; i < permissions.size(); i++) {
+                permissions.get(i).setPermissionId(i + 1L);
+            }
+            Method[] handlers = Object.class.getDeclaredMethods();
+            HandlerPermissionIndex index = HandlerPermissionIndex.build(List.of(
+                    new Route(handlers[0], Set.of("/api/module" + (size - 1) + "/items/{id}"), Set.of("GET")),
+                    new Route(handlers[1], Set.of("/api/unknown/items/{id}"), Set.of("GET"))
+            ), permissions);
+            RoleSetPermissions roleSet = new RoleSetPermissions();
+            roleSet.setPermissions(permissions);
+            Method[] routed = {handlers[0], handlers[1]};
+
+            for (int r = 0; r < requests.length; r++) {
+                String request = requests[r];
+                Method handler = routed[r];
+                long linear = run(() -> linearMatch(permissions, request, "GET"));
+                long compiled = run(() -> matcher.matches(request, "GET"));
+                long bitset = run(() -> roleSet.permits(index.get(handler, "GET"), request, "GET"));
+
+                System.out.printf("permissions=%-5d path=%-28s linear=%8d ns/op  compiled=%6d ns/op  bitset=%4d ns/op%n",
+                        permissions.size(), request, linear, compiled, bitset);
+            }
+        }
+    }
+
+    private static long run(BooleanSupplier op) {
+        boolean sink = false;
+        for (int i = 0; i < WARMUP; i++) {
+            sink ^= op.getAsBoolean();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink ^= op.getAsBoolean();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink && elapsed < 0) {
+            System.out.println(sink);
+        }
+        return elapsed / ITERATIONS;
+    }
+}
@@ -0,0 +1,193 @@
+package com.ymjrhk.rbac.auth;
+
+import com.ymjrhk.rbac.constant.PermissionTypeConstant;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionMatcherTest {
+
+    private static final AntPathMatcher ANT = new AntPathMatcher();
+
+    /**
+     * 原 hasPermission 中的线性扫描，作为对照
+     */
+    static boolean linearMatch(List<PermissionVO> permissions, String requestPath, String requestMethod) {
+        for (PermissionVO permission : permissions) {
+            String path = permission.getPath();
+            String method = permission.getMethod();
+            if (!Objects.equals(permission.getType(), PermissionTypeConstant.ACTION)) {
+                continue;
+            }
+            if (path == null || method == null) {
+                continue;
+            }
+            if (ANT.match(path, requestPath) && method.equalsIgnoreCase(requestMethod)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static PermissionVO action(String path, String method) {
+        PermissionVO p = new PermissionVO();
+        p.setType(PermissionTypeConstant.ACTION);
+        p.setPath(path);
+        p.setMethod(method);
+        return p;
+    }
+
+    /**
+     * 单条模式的各种边界情况，与 AntPathMatcher 逐一对照
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "/api/users,           /api/users",
+            "/api/users,           /api/users/",
+            "/api/users/,          /api/users",
+            "/api/users/,          /api/users/",
+            "/api/users,           /api//users",
+            "/api/users/*,         /api/users/1",
+            "/api/users/*,         /api/users/",
+            "/api/users/*,         /api/users",
+            "/api/users/*,         /api/users/1/roles",
+            "/api/users/*/,        /api/users/",
+            "/*,                   /",
+            "/api/users/**,        /api/users",
+            "/api/users/**,        /api/users/",
+            "/api/users/**,        /api/users/1/roles/2",
+            "/api/**/roles,        /api/roles",
+            "/api/**/roles,        /api/users/1/roles/",
+            "/api/**/roles/*,      /api/users/1/roles/2",
+            "/**/**/roles,         /api/x/roles",
+            "/api/users/{userId},  /api/users/1",
+            "/api/users/{id:\\d+}, /api/users/12",
+            "/api/users/{id:\\d+}, /api/users/ab",
+            "/api/user?,           /api/users",
+            "/api/user?,           /api/user",
+            "/api/us*rs,           /api/users",
+            "/api/**a,             /api/xa",
+            "/api/a{,              /api/a{",
+            "api/users,            /api/users",
+            "api/users,            api/users",
+            "/,                    /",
+            "/,                    /api",
+    })
+    void singlePattern_sameAsAntPathMatcher(String pattern, String path) {
+        List<PermissionVO> permissions = List.of(action(pattern, "GET"));
+
+        PermissionMatcher matcher = PermissionMatcher.compile(permissions);
+
+        assertEquals(ANT.match(pattern, path), matcher.matches(path, "GET"),
+                "pattern=" + pattern + ", path=" + path);
+    }
+
+    /**
+     * 方法大小写不敏感，且不同方法互不影响
+     */
+    @Test
+    void method_caseInsensitive() {
+        PermissionMatcher matcher = PermissionMatcher.compile(List.of(
+                action("/api/users/**", "get"),
+                action("/api/roles/**", "POST")
+        ));
+
+        assertTrue(matcher.matches("/api/users/1", "GET"));
+        assertTrue(matcher.matches("/api/roles/1", "post"));
+        assertFalse(matcher.matches("/api/users/1", "POST"));
+        assertFalse(matcher.matches("/api/roles/1", "GET"));
+        assertFalse(matcher.matches("/api/users/1", null));
+        assertFalse(matcher.matches(null, "GET"));
+    }
+
+    /**
+     * 非 ACTION 权限、配置不完整的权限被跳过
+     */
+    @Test
+    void compile_skipNonActionAndIncomplete() {
+        PermissionVO module = action("/api/users/**", "GET");
+        module.setType(PermissionTypeConstant.MODULE);
+
+        PermissionMatcher matcher = PermissionMatcher.compile(List.of(
+                module,
+                action(null, "GET"),
+                action("/api/users/**", null)
+        ));
+
+        assertTrue(matcher.isEmpty());
+        assertFalse(matcher.matches("/api/users/1", "GET"));
+    }
+
+    /**
+     * 随机生成权限集合和请求，与原线性扫描逐一对照（差分测试）
+     */
+    @Test
+    void randomized_sameAsLinearScan() {
+        Random random = new Random(20260101L);
+        String[] segments = {"api", "users", "roles", "1", "22", "me", "*", "**", "{id}", "user?", "r*s", "{n:\\d+}"};
+        String[] pathSegments = {"api", "users", "roles", "1", "22", "me", "user", "usera", "rs", "roles2", ""};
+        String[] methods = {"GET", "POST", "put", "DELETE"};
+
+        for (int round = 0; round < 300; round++) {
+            List<PermissionVO> permissions = new ArrayList<>();
+            int count = random.nextInt(12);
+            for (int i = 0; i < count; i++) {
+                permissions.add(action(randomPath(random, segments, 5), methods[random.nextInt(methods.length)]));
+            }
+
+            PermissionMatcher matcher = PermissionMatcher.compile(permissions);
+
+            for (int j = 0; j < 100; j++) {
+                String path = randomPath(random, pathSegments, 6);
+                String method = methods[random.nextInt(methods.length)];
+                assertEquals(linearMatch(permissions, path, method), matcher.matches(path, method),
+                        "permissions=" + permissions + ", path=" + path + ", method=" + method);
+            }
+        }
+    }
+
+    /**
+     * 内容相同的权限列表共享同一个匹配器
+     */
+    @Test
+    void cache_sameContent_sameMatcher() {
+        PermissionMatcherCache cache = new PermissionMatcherCache(2);
+
+        PermissionMatcher first = cache.get(List.of(action("/api/users/**", "GET")));
+        PermissionMatcher second = cache.get(new ArrayList<>(List.of(action("/api/users/**", "GET"))));
+
+        assertSame(first, second);
+        assertSame(PermissionMatcher.EMPTY, cache.get(List.of()));
+
+        cache.get(List.of(action("/a", "GET")));
+        cache.get(List.of(action("/b", "GET")));
+        assertEquals(2, cache.size());
+    }
+
+    static String randomPath(Random random, String[] segments, int maxDepth) {
+        StringBuilder sb = new StringBuilder();
+        if (random.nextInt(10) > 0) {
+            sb.append('/');
+        }
+        int depth = random.nextInt(maxDepth + 1);
+        for (int i = 0; i < depth; i++) {
+            if (i > 0) {
+                sb.append('/');
+            }
+            sb.append(segments[random.nextInt(segments.length)]);
+        }
+        if (random.nextInt(5) == 0) {
+            sb.append('/');
+        }
+        return sb.toString();
+    }
+}
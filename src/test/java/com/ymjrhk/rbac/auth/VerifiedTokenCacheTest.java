@@ -0,0 +1,101 @@
+package com.ymjrhk.rbac.auth;
+
+import com.ymjrhk.rbac.constant.JwtClaimsConstant;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.ymjrhk.rbac.auth.JwtCodecTest.CLAIMS;
+import static com.ymjrhk.rbac.auth.JwtCodecTest.SECRET;
+import static com.ymjrhk.rbac.auth.JwtCodecTest.properties;
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void getPut_hitAndMiss() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Duration.ofMinutes(5), now::get, registry);
+        VerifiedToken verified = new VerifiedToken(1L, "zhangsan", 2, now.get() + 60_000);
+
+        assertNull(cache.get("t1"));
+        cache.put("t1", verified);
+
+        assertSame(verified, cache.get("t1"));
+        assertNull(cache.get("t2"));
+        assertEquals(1.0 / 3, cache.hitRatio(), 1e-9);
+        assertEquals(1.0, registry.get("rbac.auth.token.cache").tag("result", "hit").counter().count());
+        assertEquals(2.0, registry.get("rbac.auth.token.cache").tag("result", "miss").counter().count());
+    }
+
+    /**
+     * 条目在 token 的 exp 时刻过期（早于缓存 TTL）
+     */
+    @Test
+    void get_expireAtTokenExp() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Duration.ofMinutes(5), now::get, registry);
+        cache.put("t1", new VerifiedToken(1L, "zhangsan", 2, now.get() + 10_000));
+
+        now.addAndGet(9_999);
+        assertNotNull(cache.get("t1"));
+
+        now.addAndGet(1);
+        assertNull(cache.get("t1"));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * token 有效期更长时，按缓存 TTL 过期
+     */
+    @Test
+    void get_expireAtTtl() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Duration.ofSeconds(30), now::get, registry);
+        cache.put("t1", new VerifiedToken(1L, "zhangsan", 2, now.get() + 3_600_000));
+
+        now.addAndGet(30_000);
+        assertNull(cache.get("t1"));
+    }
+
+    /**
+     * 已过期的 token 不放入
+     */
+    @Test
+    void put_expiredToken_ignore() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Duration.ofMinutes(5), now::get, registry);
+        cache.put("t1", new VerifiedToken(1L, "zhangsan", 2, now.get()));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_bounded() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Duration.ofMinutes(5), now::get, registry);
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("t" + i, new VerifiedToken((long) i, "u" + i, 1, now.get() + 60_000));
+            assertTrue(cache.size() <= 100);
+        }
+    }
+
+    /**
+     * 由真实 token 的 claims 构造：exp 精确到秒
+     */
+    @Test
+    void verifiedToken_ofClaims() {
+        JwtCodec codec = new JwtCodec(properties("v1", SECRET, 3_600_000L));
+        long before = System.currentTimeMillis();
+
+        VerifiedToken verified = VerifiedToken.of(codec.decode(codec.encode(CLAIMS)));
+
+        assertEquals(1L, verified.userId());
+        assertEquals(CLAIMS.get(JwtClaimsConstant.USERNAME), verified.username());
+        assertEquals(2, verified.authVersion());
+        assertTrue(verified.expireAtMillis() > before + 3_590_000);
+        assertTrue(verified.expireAtMillis() <= before + 3_601_000);
+    }
+}
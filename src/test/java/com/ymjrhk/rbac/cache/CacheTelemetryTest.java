@@ -0,0 +1,148 @@
+package com.ymjrhk.rbac.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CacheTelemetryTest {
+
+    private static final String CACHE = "user:me";
+
+    private SimpleMeterRegistry registry;
+
+    private CacheTelemetry telemetry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        telemetry = new CacheTelemetry(5, 1024, registry);
+    }
+
+    /**
+     * 少数热 key 混在大量只访问一两次的 key 里，topK 找出的正是它们，估计次数不低于实际次数
+     */
+    @Test
+    void hotKeys_foundAmongNoise() {
+        Random random = new Random(42);
+        Map<String, Integer> actual = new HashMap<>();
+        for (int i = 0; i < 8_000; i++) {
+            String key = random.nextInt(10) < 3
+                    ? CACHE + "::hot" + random.nextInt(3)
+                    : CACHE + "::" + random.nextInt(5_000);
+            actual.merge(key, 1, Integer::sum);
+            telemetry.read(CACHE, bytes(key), new byte[100]);
+        }
+
+        List<CacheTelemetry.HotKey> hotKeys = telemetry.report(CACHE, 3).hotKeys();
+
+        assertEquals(3, hotKeys.size());
+        for (CacheTelemetry.HotKey hot : hotKeys) {
+            assertTrue(hot.key().startsWith(CACHE + "::hot"), hot.key());
+            assertTrue(hot.accesses() >= actual.get(hot.key()));
+            assertEquals(100, hot.size());
+        }
+    }
+
+    @Test
+    void sketch_neverUnderestimates() {
+        CountMinSketch sketch = new CountMinSketch(64);
+        Map<Integer, Integer> actual = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt(500);
+            actual.merge(key, 1, Integer::sum);
+            sketch.increment(bytes("k" + key));
+        }
+
+        actual.forEach((key, count) -> assertTrue(sketch.estimate(bytes("k" + key)) >= count));
+    }
+
+    /**
+     * 访问累计 width × 10 次后计数减半，之后变热的 key 能替换掉以前的热 key
+     */
+    @Test
+    void aging_newHotKeyReplacesOld() {
+        CacheTelemetry small = new CacheTelemetry(1, 16, registry);
+        for (int i = 0; i < 150; i++) {
+            small.read(CACHE, bytes("old"), null);
+        }
+        assertEquals("old", small.report(CACHE, 1).hotKeys().get(0).key());
+
+        for (int i = 0; i < 320; i++) {
+            small.read(CACHE, bytes("new"), null);
+        }
+
+        CacheTelemetry.HotKey hot = small.report(CACHE, 1).hotKeys().get(0);
+        assertEquals("new", hot.key());
+        assertEquals(-1, hot.size());
+    }
+
+    @Test
+    void sizes_histogramAndBytesCounter() {
+        for (int i = 0; i < 98; i++) {
+            telemetry.read(CACHE, bytes("k" + i), new byte[300]);
+        }
+        telemetry.read(CACHE, bytes("big"), new byte[40_000]);
+        telemetry.read(CACHE, bytes("big"), new byte[40_000]);
+        telemetry.read(CACHE, bytes("missing"), null);
+        telemetry.written(CACHE, bytes("big"), new byte[50_000]);
+
+        CacheTelemetry.SizeStats reads = telemetry.report(CACHE, 5).reads();
+        assertEquals(100, reads.count());
+        assertEquals(98 * 300 + 80_000, reads.totalBytes());
+        assertEquals(40_000, reads.max());
+        assertEquals(512, reads.p50());
+        assertEquals(64 * 1024, reads.p99());
+        assertEquals(Map.of("<=512B", 98L, "<=64KB", 2L), reads.buckets());
+        assertEquals(50_000, telemetry.report(CACHE, 5).writes().max());
+        assertEquals(98 * 300 + 80_000,
+                registry.get("rbac.cache.remote.bytes").tag("cache", CACHE).tag("op", "read").functionCounter().count());
+    }
+
+    @Test
+    void bucket_boundaries() {
+        assertEquals(0, ValueSizeHistogram.bucket(0));
+        assertEquals(0, ValueSizeHistogram.bucket(1));
+        assertEquals(1, ValueSizeHistogram.bucket(2));
+        assertEquals(2, ValueSizeHistogram.bucket(3));
+        assertEquals(10, ValueSizeHistogram.bucket(1024));
+        assertEquals(11, ValueSizeHistogram.bucket(1025));
+    }
+
+    /**
+     * 经过 RedisCacheWriter 的读写都被记录，结果原样返回
+     */
+    @Test
+    void writer_recordsReadsAndWrites() {
+        RedisCacheWriter delegate = mock(RedisCacheWriter.class);
+        byte[] key = bytes(CACHE + "::1");
+        byte[] value = new byte[2_000];
+        when(delegate.get(CACHE, key)).thenReturn(value);
+        RedisCacheWriter writer = new TelemetryRedisCacheWriter(delegate, telemetry);
+
+        assertSame(value, writer.get(CACHE, key));
+        writer.put(CACHE, key, new byte[3_000], Duration.ofMinutes(1));
+
+        verify(delegate).put(CACHE, key, new byte[3_000], Duration.ofMinutes(1));
+        CacheTelemetry.Report report = telemetry.report(CACHE, 5);
+        assertEquals(List.of(new CacheTelemetry.HotKey(CACHE + "::1", 1, 3_000)), report.hotKeys());
+        assertEquals(1, report.reads().count());
+        assertEquals(1, report.writes().count());
+        assertNull(telemetry.report("user:auth", 5));
+    }
+
+    private static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+}
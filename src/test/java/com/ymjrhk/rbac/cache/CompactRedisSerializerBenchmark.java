@@ -0,0 +1,84 @@
+package com.ymjrhk.rbac.cache;
+
+import com.ymjrhk.rbac.auth.RoleSetPermissions;
+import com.ymjrhk.rbac.dto.auth.UserAuthInfo;
+import com.ymjrhk.rbac.vo.UserVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.lang.reflect.Type;
+
+import static com.ymjrhk.rbac.cache.CompactRedisSerializerTest.JSON;
+import static com.ymjrhk.rbac.cache.CompactRedisSerializerTest.PERMISSION_LIST;
+import static com.ymjrhk.rbac.cache.CompactRedisSerializerTest.TYPES;
+import static com.ymjrhk.rbac.cache.CompactRedisSerializerTest.authInfo;
+import static com.ymjrhk.rbac.cache.CompactRedisSerializerTest.permissions;
+import static com.ymjrhk.rbac.cache.CompactRedisSerializerTest.user;
+
+/**
+ * Redis 缓存值编码：带类型信息的 Jackson JSON（原 GenericJackson2JsonRedisSerializer）vs CompactRedisSerializer，
+ * 比较编码后的字节数和编码、解码耗时
+ * <p>
+ * 默认不运行：mvn test -Dtest=CompactRedisSerializerBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CompactRedisSerializerBenchmark {
+
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+
+    @Test
+    void jacksonVsCompact() {
+        RoleSetPermissions roleSet = new RoleSetPermissions();
+        roleSet.setRoleSet("1,2,3");
+        roleSet.setPermissions(permissions(50));
+
+        run("UserAuthInfo", UserAuthInfo.class, authInfo(7L));
+        run("UserVO", UserVO.class, user(7L));
+        run("List<PermissionVO>x50", PERMISSION_LIST, permissions(50));
+        run("RoleSetPermissions", RoleSetPermissions.class, roleSet);
+    }
+
+    private static void run(String label, Type type, Object value) {
+        RedisSerializer<Object> compact = new CompactRedisSerializer(TYPES, type, JSON);
+        report(label, "jackson", JSON, value);
+        report(label, "compact", compact, value);
+    }
+
+    private static void report(String label, String codec, RedisSerializer<Object> serializer, Object value) {
+        byte[] bytes = serializer.serialize(value);
+        measure(serializer, value, bytes, WARMUP_NANOS);
+        long[] nanos = measure(serializer, value, bytes, MEASURE_NANOS);
+        System.out.printf("%-22s %-8s size=%6d B  encode=%7d ns/op  decode=%7d ns/op%n",
+                label, codec, bytes.length, nanos[0], nanos[1]);
+    }
+
+    /**
+     * 编码、解码各用一半时间
+     */
+    private static long[] measure(RedisSerializer<Object> serializer, Object value, byte[] bytes, long budgetNanos) {
+        int sink = 0;
+        long[] result = new long[2];
+        for (int phase = 0; phase < 2; phase++) {
+            long ops = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                for (int i = 0; i < 1_000; i++) {
+                    sink += phase == 0
+                            ? serializer.serialize(value).length
+                            : serializer.deserialize(bytes).hashCode();
+                }
+                ops += 1_000;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < budgetNanos / 2);
+            result[phase] = elapsed / ops;
+        }
+        if (sink == 42) {
+            System.out.println(sink);
+        }
+        return result;
+    }
+}
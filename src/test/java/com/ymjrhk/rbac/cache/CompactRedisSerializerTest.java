@@ -0,0 +1,205 @@
+package com.ymjrhk.rbac.cache;
+
+import com.alibaba.fastjson2.TypeReference;
+import com.ymjrhk.rbac.auth.IdSet;
+import com.ymjrhk.rbac.auth.RoleSetPermissions;
+import com.ymjrhk.rbac.config.RedisJacksonConfig;
+import com.ymjrhk.rbac.dto.auth.UserAuthInfo;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import com.ymjrhk.rbac.vo.UserVO;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRedisSerializerTest {
+
+    static final Type PERMISSION_LIST = new TypeReference<List<PermissionVO>>() {}.getType();
+
+    static final CacheValueTypes TYPES = new CacheValueTypes()
+            .register(1, NegativeResult.class)
+            .register(2, UserVO.class)
+            .register(3, UserAuthInfo.class)
+            .register(8, PERMISSION_LIST)
+            .register(9, RoleSetPermissions.class)
+            .register(12, IdSet.class);
+
+    static final RedisSerializer<Object> JSON =
+            new GenericJackson2JsonRedisSerializer(new RedisJacksonConfig().redisObjectMapper());
+
+    @Test
+    void roundTrip_bean_withDateTime() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(TYPES, UserVO.class, JSON);
+        UserVO user = user(7L);
+
+        byte[] bytes = serializer.serialize(user);
+
+        assertEquals(CompactRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(2, bytes[1]);
+        assertEquals(user, serializer.deserialize(bytes));
+        assertTrue(bytes.length < JSON.serialize(user).length);
+    }
+
+    /**
+     * 泛型列表按登记的参数化类型还原，元素是 PermissionVO 而不是 JSONObject
+     */
+    @Test
+    void roundTrip_genericList_keepsElementType() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(TYPES, PERMISSION_LIST, JSON);
+        List<PermissionVO> permissions = permissions(3);
+
+        Object restored = serializer.deserialize(serializer.serialize(permissions));
+
+        assertEquals(permissions, restored);
+        assertInstanceOf(PermissionVO.class, ((List<?>) restored).get(0));
+    }
+
+    /**
+     * 小的 ID 也还原成 Long
+     */
+    @Test
+    void roundTrip_idSet_keepsLong() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(TYPES, IdSet.class, JSON);
+
+        IdSet restored = (IdSet) serializer.deserialize(serializer.serialize(new IdSet(Set.of(1L, 2L, 300_000L))));
+
+        assertTrue(restored.getIds().contains(1L));
+        assertEquals(Set.of(1L, 2L, 300_000L), restored.getIds());
+    }
+
+    /**
+     * 运行时编译的匹配器不写进 Redis
+     */
+    @Test
+    void roundTrip_roleSetPermissions() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(TYPES, RoleSetPermissions.class, JSON);
+        RoleSetPermissions value = new RoleSetPermissions();
+        value.setRoleSet("1,2");
+        value.setPermissions(permissions(2));
+        value.permits("/api/p/0", "GET");
+
+        Object restored = serializer.deserialize(serializer.serialize(value));
+
+        assertEquals(value, restored);
+        assertTrue(((RoleSetPermissions) restored).permits("/api/p/0", "GET"));
+    }
+
+    @Test
+    void roundTrip_negativeResult() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(TYPES, UserAuthInfo.class, JSON);
+        NegativeResult sentinel = new NegativeResult("user-not-exist", "用户不存在");
+
+        byte[] bytes = serializer.serialize(sentinel);
+
+        assertEquals(1, bytes[1]);
+        assertEquals(sentinel, serializer.deserialize(bytes));
+    }
+
+    /**
+     * 切换前写入的 JSON 照常能读
+     */
+    @Test
+    void deserialize_legacyJson_readByFallback() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(TYPES, UserVO.class, JSON);
+        UserVO user = user(7L);
+
+        assertEquals(user, serializer.deserialize(JSON.serialize(user)));
+    }
+
+    @Test
+    void serialize_undeclaredType_writtenByFallback() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(TYPES, UserVO.class, JSON);
+        UserAuthInfo other = authInfo(1L);
+
+        byte[] bytes = serializer.serialize(other);
+
+        assertNotEquals(CompactRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(other, serializer.deserialize(bytes));
+    }
+
+    /**
+     * 其他版本写入的未知编号、损坏的内容都当作未命中
+     */
+    @Test
+    void deserialize_unknownIdOrCorrupt_returnsNull() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(TYPES, UserVO.class, JSON);
+        byte[] bytes = serializer.serialize(user(7L));
+
+        byte[] unknown = bytes.clone();
+        unknown[1] = (byte) 200;
+        assertNull(serializer.deserialize(unknown));
+
+        byte[] corrupt = new byte[]{CompactRedisSerializer.MAGIC, 2, (byte) 0xFF, (byte) 0xFF};
+        assertNull(serializer.deserialize(corrupt));
+        assertNull(serializer.deserialize(new byte[]{CompactRedisSerializer.MAGIC}));
+    }
+
+    @Test
+    void constructor_unregisteredValueType_rejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CompactRedisSerializer(TYPES, PermissionVO.class, JSON));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CompactRedisSerializer(new CacheValueTypes().register(2, UserVO.class), UserVO.class, JSON));
+    }
+
+    @Test
+    void register_duplicateIdOrType_rejected() {
+        CacheValueTypes types = new CacheValueTypes().register(1, UserVO.class);
+
+        assertThrows(IllegalArgumentException.class, () -> types.register(1, PermissionVO.class));
+        assertThrows(IllegalArgumentException.class, () -> types.register(2, UserVO.class));
+        assertThrows(IllegalArgumentException.class, () -> types.register(0, PermissionVO.class));
+        assertThrows(IllegalArgumentException.class, () -> types.register(256, PermissionVO.class));
+    }
+
+    static UserVO user(long userId) {
+        UserVO user = new UserVO();
+        user.setUserId(userId);
+        user.setUsername("user" + userId);
+        user.setNickname("用户" + userId);
+        user.setEmail("user" + userId + "@example.com");
+        user.setStatus(1);
+        user.setVersion(3);
+        user.setSecretToken("9f3c2b7a-51d4-4c1e-8a0b-2f6e1d7c9a34");
+        user.setCreateTime(LocalDateTime.of(2025, 1, 2, 3, 4, 5));
+        user.setUpdateTime(LocalDateTime.of(2025, 6, 7, 8, 9, 10));
+        return user;
+    }
+
+    static UserAuthInfo authInfo(long userId) {
+        UserAuthInfo info = new UserAuthInfo();
+        info.setUserId(userId);
+        info.setUsername("user" + userId);
+        info.setStatus(1);
+        info.setAuthVersion(3);
+        return info;
+    }
+
+    static List<PermissionVO> permissions(int count) {
+        List<PermissionVO> permissions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PermissionVO permission = new PermissionVO();
+            permission.setPermissionId((long) i + 1);
+            permission.setPermissionName("p:" + i);
+            permission.setPermissionDisplayName("权限" + i);
+            permission.setDescription("接口权限 " + i);
+            permission.setStatus(1);
+            permission.setType(2);
+            permission.setParentId(0L);
+            permission.setPath("/api/p/" + i);
+            permission.setMethod("GET");
+            permission.setSort(i);
+            permission.setVersion(1);
+            permission.setSecretToken("9f3c2b7a-51d4-4c1e-8a0b-2f6e1d7c9a34");
+            permissions.add(permission);
+        }
+        return permissions;
+    }
+}
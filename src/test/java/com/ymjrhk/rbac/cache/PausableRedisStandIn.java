@@ -0,0 +1,191 @@
+package com.ymjrhk.rbac.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 测试用的可暂停 Redis 替身：缓存（CacheManager）+ 失效频道 + PING
+ *
+ * <p>暂停后每条命令先等 timeout（模拟 Lettuce 命令超时），再抛出 Spring Data Redis 翻译后的 QueryTimeoutException；
+ * 广播与 RedisCacheInvalidationPublisher 一样吞掉异常，消息丢失。数据在暂停期间保持不变，恢复后照常可读。
+ * latency 给每条命令加上固定延迟（Redis 变慢但没有超时）。
+ */
+class PausableRedisStandIn implements CacheManager {
+
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    private final List<String> published = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicLong commands = new AtomicLong();
+
+    private volatile boolean paused;
+
+    private volatile Duration timeout = Duration.ZERO;
+
+    private volatile Duration latency = Duration.ZERO;
+
+    void pause() {
+        paused = true;
+    }
+
+    void resume() {
+        paused = false;
+    }
+
+    void timeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    void latency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * @return 送到替身的命令数（包括暂停期间超时的）
+     */
+    long commandCount() {
+        return commands.get();
+    }
+
+    /**
+     * @return 收到的广播，"缓存名:key"，清空整个缓存时 key 为 *
+     */
+    List<String> published() {
+        return List.copyOf(published);
+    }
+
+    /**
+     * 直接读替身中的值，不计命令、不受暂停影响
+     */
+    Object peek(String cacheName, Object key) {
+        Cache.ValueWrapper wrapper = store(cacheName).get(key);
+        return wrapper == null ? null : wrapper.get();
+    }
+
+    Runnable probe() {
+        return this::command;
+    }
+
+    CacheInvalidationPublisher publisher() {
+        return (cacheName, key) -> {
+            try {
+                command();
+                published.add(cacheName + ":" + (key == null ? "*" : key));
+            } catch (QueryTimeoutException e) {
+                // 与 RedisCacheInvalidationPublisher 一样：广播失败只记日志
+            }
+        };
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, StandInCache::new);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return caches.keySet();
+    }
+
+    private ConcurrentMapCache store(String name) {
+        return ((StandInCache) getCache(name)).store;
+    }
+
+    private void command() {
+        commands.incrementAndGet();
+        if (paused) {
+            sleep(timeout);
+            throw new QueryTimeoutException("Redis command timed out after " + timeout.toMillis() + " millisecond(s)");
+        }
+        sleep(latency);
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(duration.toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class StandInCache implements Cache {
+
+        private final ConcurrentMapCache store;
+
+        StandInCache(String name) {
+            this.store = new ConcurrentMapCache(name);
+        }
+
+        @Override
+        public String getName() {
+            return store.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return store.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            command();
+            return store.get(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            command();
+            return store.get(key, type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            command();
+            return store.get(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            command();
+            store.put(key, value);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            command();
+            return store.putIfAbsent(key, value);
+        }
+
+        /**
+         * 与 RedisCache 一样按 key 的字符串形式删除：重放的是字符串 key，1L 和 "1" 是同一个条目
+         */
+        @Override
+        public void evict(Object key) {
+            command();
+            String redisKey = TwoLevelCache.toLocalKey(key);
+            store.getNativeCache().keySet().removeIf(k -> TwoLevelCache.toLocalKey(k).equals(redisKey));
+        }
+
+        @Override
+        public void clear() {
+            command();
+            store.clear();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.ymjrhk.rbac.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Redis 熔断测试：PausableRedisStandIn 充当 Redis，暂停后每条命令超时
+ */
+class RedisCircuitBreakerTest {
+
+    private static final String CACHE = "user:auth";
+
+    private static final String OTHER = "user:basic";
+
+    private static final Duration OPEN = Duration.ofSeconds(5);
+
+    private PausableRedisStandIn redis;
+
+    private SimpleMeterRegistry registry;
+
+    private AtomicLong now;
+
+    private RedisCircuitBreaker breaker;
+
+    private TwoLevelCacheManager manager;
+
+    @BeforeEach
+    void setUp() {
+        redis = new PausableRedisStandIn();
+        registry = new SimpleMeterRegistry();
+        now = new AtomicLong();
+        // 恢复任务直接在触发它的线程上执行
+        breaker = new RedisCircuitBreaker(3, Duration.ofMillis(200), OPEN, Duration.ofSeconds(10), 100,
+                redis.probe(), Runnable::run, registry, now::get);
+        manager = new TwoLevelCacheManager(redis, Map.of(), new NearCacheSpec(Duration.ofMinutes(1), 100),
+                redis.publisher(), registry, null, null, Map.of(), null, null, null, breaker);
+    }
+
+    /**
+     * 连续失败达到阈值后熔断：不再访问 Redis，加载结果只进本地，同一个 key 不会反复回源
+     */
+    @Test
+    void paused_tripsAfterThreshold_thenLocalOnly() {
+        Cache cache = manager.getCache(CACHE);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> "v" + loads.incrementAndGet();
+        redis.pause();
+
+        for (long userId = 1; userId <= 3; userId++) {
+            cache.get(userId, loader);
+        }
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.state());
+        long commands = redis.commandCount();
+
+        assertEquals("v4", cache.get(4L, loader));
+        assertEquals("v4", cache.get(4L, loader));
+
+        assertEquals(commands, redis.commandCount());
+        assertEquals(4, loads.get());
+        assertTrue(registry.get("rbac.cache.circuit.rejected").counter().count() > 0);
+        assertEquals(1.0, registry.get("rbac.cache.circuit.state").gauge().value());
+    }
+
+    /**
+     * 失败次数没到阈值、中间有一次成功时不熔断
+     */
+    @Test
+    void intermittentFailure_belowThreshold_staysClosed() {
+        Cache cache = manager.getCache(CACHE);
+
+        redis.pause();
+        cache.get(1L);
+        cache.get(2L);
+        redis.resume();
+        cache.get(3L);
+        redis.pause();
+        cache.get(4L);
+        cache.get(5L);
+
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    /**
+     * Redis 没有报错但每次都超过 slowCall，同样熔断
+     */
+    @Test
+    void slowCalls_countAsFailures() {
+        RedisCircuitBreaker slowBreaker = new RedisCircuitBreaker(3, Duration.ofMillis(5), OPEN, Duration.ofSeconds(10),
+                100, redis.probe(), Runnable::run, new SimpleMeterRegistry());
+        Cache cache = new CircuitBreakingCache(redis.getCache(CACHE), slowBreaker);
+        redis.latency(Duration.ofMillis(20));
+
+        for (long key = 1; key <= 3; key++) {
+            cache.get(key);
+        }
+
+        assertTrue(slowBreaker.isOpen());
+    }
+
+    /**
+     * 熔断期间写入的本地条目 TTL 不超过 degradedLocalTtl
+     */
+    @Test
+    void degraded_localTtlCapped() {
+        AtomicLong localNow = new AtomicLong();
+        LocalCache local = new LocalCache(Duration.ofMinutes(1), 100, localNow::get);
+        TwoLevelCache cache = new TwoLevelCache(CACHE, new CircuitBreakingCache(redis.getCache(CACHE), breaker), local,
+                CacheInvalidationPublisher.NOOP, new CacheMetrics(CACHE, local, registry), null, null, null, breaker);
+        trip();
+
+        cache.get(1L, () -> "v1");
+        localNow.addAndGet(Duration.ofSeconds(11).toNanos());
+
+        assertNull(local.get("1"));
+    }
+
+    /**
+     * 熔断期间的 evict / evictAll / clear 积压下来；恢复后重放到 Redis、补发广播，并清掉本节点的本地缓存
+     */
+    @Test
+    void recovery_replaysEvictions_andClearsLocal() {
+        TwoLevelCache cache = (TwoLevelCache) manager.getCache(CACHE);
+        Cache other = manager.getCache(OTHER);
+        cache.put(1L, "v1");
+        cache.put(2L, "v2");
+        cache.put(3L, "v3");
+        other.put(1L, "o1");
+        trip();
+
+        cache.evict(1L);
+        manager.evictAll(List.of(CACHE), List.of(2L));
+        other.clear();
+
+        // 降级期间 Redis 里还是旧值，本地仍有未失效的 3
+        assertEquals("v1", redis.peek(CACHE, 1L));
+        assertEquals("v3", cache.get(3L).get());
+        assertTrue(redis.published().isEmpty());
+        assertEquals(3.0, registry.get("rbac.cache.circuit.pending").gauge().value());
+
+        redis.resume();
+        now.addAndGet(OPEN.toNanos());
+        assertNull(cache.get(1L)); // 触发恢复，这一次仍按熔断处理
+
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.state());
+        assertNull(redis.peek(CACHE, 1L));
+        assertNull(redis.peek(CACHE, 2L));
+        assertEquals("v3", redis.peek(CACHE, 3L));
+        assertNull(redis.peek(OTHER, 1L));
+        assertEquals(Set.of(CACHE + ":1", CACHE + ":2", OTHER + ":*"), Set.copyOf(redis.published()));
+        assertEquals(0, cache.getLocalCache().size());
+        assertEquals(0.0, registry.get("rbac.cache.circuit.pending").gauge().value());
+
+        // 恢复后照常读 Redis
+        assertEquals("v3", cache.get(3L).get());
+    }
+
+    /**
+     * 没到失败阈值时一次 evict 失败：立即熔断并记下，Redis 恢复后重放，key 不会一直留在 Redis 里
+     */
+    @Test
+    void evictFailure_belowThreshold_tripsAndReplays() {
+        Cache cache = manager.getCache(CACHE);
+        cache.put(1L, "v1");
+        redis.pause();
+
+        cache.evict(1L);
+
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(1.0, registry.get("rbac.cache.circuit.pending").gauge().value());
+
+        redis.resume();
+        now.addAndGet(OPEN.toNanos());
+        cache.get(2L);
+
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.state());
+        assertNull(redis.peek(CACHE, 1L));
+        assertNull(cache.get(1L));
+    }
+
+    /**
+     * evictAll 同样：一次批量删除失败就熔断，恢复后重放
+     */
+    @Test
+    void evictAllFailure_belowThreshold_tripsAndReplays() {
+        Cache cache = manager.getCache(CACHE);
+        cache.put(1L, "v1");
+        cache.put(2L, "v2");
+        redis.pause();
+
+        manager.evictAll(List.of(CACHE), List.of(1L, 2L));
+
+        assertTrue(breaker.isOpen());
+        redis.resume();
+        now.addAndGet(OPEN.toNanos());
+        cache.get(3L);
+
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.state());
+        assertNull(redis.peek(CACHE, 1L));
+        assertNull(redis.peek(CACHE, 2L));
+    }
+
+    /**
+     * 到时间了 Redis 仍不可用：继续熔断，积压保留到下一次恢复
+     */
+    @Test
+    void recovery_probeFails_staysOpen_keepsPending() {
+        Cache cache = manager.getCache(CACHE);
+        cache.put(1L, "v1");
+        trip();
+        cache.evict(1L);
+
+        now.addAndGet(OPEN.toNanos());
+        cache.get(2L);
+
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.state());
+        assertEquals("v1", redis.peek(CACHE, 1L));
+        long commands = redis.commandCount();
+        cache.get(2L); // 重新计时，还没到下一次恢复
+        assertEquals(commands, redis.commandCount());
+
+        redis.resume();
+        now.addAndGet(OPEN.toNanos());
+        cache.get(2L);
+
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.state());
+        assertNull(redis.peek(CACHE, 1L));
+    }
+
+    /**
+     * 积压超过上限后，该缓存改为恢复时整个清空
+     */
+    @Test
+    void pending_overflow_fallsBackToClear() {
+        PendingEvictions pending = new PendingEvictions(2);
+
+        pending.add(CACHE, "1");
+        pending.add(CACHE, "1");
+        pending.add(CACHE, "2");
+        pending.add(OTHER, "1");
+        pending.add(CACHE, "3");
+
+        PendingEvictions drained = pending.drain();
+        assertEquals(Set.of(OTHER, CACHE), drained.clearedCaches());
+        assertTrue(drained.keys().isEmpty());
+        assertTrue(pending.isEmpty());
+    }
+
+    private void trip() {
+        redis.pause();
+        Cache cache = manager.getCache(CACHE);
+        for (long key = 100; key < 103; key++) {
+            cache.get(key);
+        }
+        assertTrue(breaker.isOpen());
+    }
+}
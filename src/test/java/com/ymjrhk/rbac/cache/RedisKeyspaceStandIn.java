@@ -0,0 +1,177 @@
+package com.ymjrhk.rbac.cache;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanCursor;
+import org.springframework.data.redis.core.ScanIteration;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 测试用的 Redis keyspace 替身：只实现清空缓存用到的 KEYS / SCAN / DEL / UNLINK
+ *
+ * <p>与 Redis 一样单线程执行命令：key 放在槽位数组里，SCAN 的游标就是槽位下标，
+ * 每次最多检查 COUNT 个槽位；KEYS 一次检查全部槽位。每条命令的耗时和涉及的 key 数都会记下来，
+ * 单条命令的最长耗时就是其他客户端最长要等多久。
+ * 不模拟内存释放：DEL 与 UNLINK 在这里的代价相同。
+ */
+class RedisKeyspaceStandIn {
+
+    /**
+     * 槽位，删除后置为 null（与哈希表一样，删除不会让游标错位）
+     */
+    private final List<String> slots = new ArrayList<>();
+
+    private final Map<String, Integer> index = new HashMap<>();
+
+    private final Map<String, Long> commandCounts = new HashMap<>();
+
+    private final List<Long> commandNanos = new ArrayList<>();
+
+    private long longestCommandNanos;
+
+    private int largestCommandKeys;
+
+    void add(String key) {
+        if (!index.containsKey(key)) {
+            index.put(key, slots.size());
+            slots.add(key);
+        }
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    long commandCount(String command) {
+        return commandCounts.getOrDefault(command, 0L);
+    }
+
+    long longestCommandNanos() {
+        return longestCommandNanos;
+    }
+
+    /**
+     * @param percentile 0 ~ 100
+     * @return 单条命令耗时的百分位（比 {@link #longestCommandNanos()} 更不容易受 GC 停顿影响）
+     */
+    long commandNanosPercentile(double percentile) {
+        List<Long> sorted = commandNanos.stream().sorted().toList();
+        int index = (int) Math.ceil(percentile / 100 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    int largestCommandKeys() {
+        return largestCommandKeys;
+    }
+
+    /**
+     * @return 命令走这个 keyspace 的 RedisConnection（除 keyCommands() 和 close() 外只支持接口的 default 方法）
+     */
+    RedisConnection connection() {
+        RedisKeyCommands keyCommands = proxy(RedisKeyCommands.class, (proxy, method, args) -> switch (method.getName()) {
+            case "keys" -> keys((byte[]) args[0]);
+            case "scan" -> scan((ScanOptions) args[0]);
+            case "del", "unlink" -> remove(method.getName(), (byte[][]) args[0]);
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        return proxy(RedisConnection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "keyCommands" -> keyCommands;
+            case "close" -> null;
+            default -> {
+                if (method.isDefault()) {
+                    yield InvocationHandler.invokeDefault(proxy, method, args);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private Set<byte[]> keys(byte[] pattern) {
+        long start = System.nanoTime();
+        String glob = new String(pattern, StandardCharsets.UTF_8);
+        Set<byte[]> result = new LinkedHashSet<>();
+        for (String key : slots) {
+            if (key != null && matches(glob, key)) {
+                result.add(key.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        record("keys", slots.size(), start);
+        return result;
+    }
+
+    private Cursor<byte[]> scan(ScanOptions options) {
+        String glob = new String(options.getBytePattern(), StandardCharsets.UTF_8);
+        int count = options.getCount() == null ? 10 : options.getCount().intValue();
+        return new ScanCursor<byte[]>(options) {
+            @Override
+            protected ScanIteration<byte[]> doScan(CursorId cursorId, ScanOptions scanOptions) {
+                long start = System.nanoTime();
+                int from = Integer.parseInt(cursorId.getCursorId());
+                int to = Math.min(from + count, slots.size());
+                List<byte[]> items = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    String key = slots.get(i);
+                    if (key != null && matches(glob, key)) {
+                        items.add(key.getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                record("scan", to - from, start);
+                return new ScanIteration<>(CursorId.of(to == slots.size() ? 0 : to), items);
+            }
+        }.open();
+    }
+
+    private Long remove(String command, byte[][] keys) {
+        long start = System.nanoTime();
+        long removed = 0;
+        for (byte[] key : keys) {
+            Integer slot = index.remove(new String(key, StandardCharsets.UTF_8));
+            if (slot != null) {
+                slots.set(slot, null);
+                removed++;
+            }
+        }
+        record(command, keys.length, start);
+        return removed;
+    }
+
+    private void record(String command, int keys, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        commandNanos.add(elapsed);
+        longestCommandNanos = Math.max(longestCommandNanos, elapsed);
+        largestCommandKeys = Math.max(largestCommandKeys, keys);
+        commandCounts.merge(command, 1L, Long::sum);
+    }
+
+    /**
+     * 只支持 '*' 通配（缓存前缀 + *）
+     */
+    private static boolean matches(String glob, String key) {
+        int star = glob.indexOf('*');
+        if (star < 0) {
+            return glob.equals(key);
+        }
+        return key.startsWith(glob.substring(0, star)) && key.endsWith(glob.substring(star + 1))
+                && key.length() >= glob.length() - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(RedisKeyspaceStandIn.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
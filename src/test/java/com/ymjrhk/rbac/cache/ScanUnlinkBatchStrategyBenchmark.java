@@ -0,0 +1,54 @@
+package com.ymjrhk.rbac.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.BatchStrategy;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.ymjrhk.rbac.cache.ScanUnlinkBatchStrategyTest.keyspace;
+import static com.ymjrhk.rbac.cache.ScanUnlinkBatchStrategyTest.pattern;
+
+/**
+ * 清空 100 万个 user:permissions::* 时，KEYS + DEL 与 SCAN + UNLINK 的单条命令最长耗时
+ * <p>
+ * 替身与 Redis 一样单线程执行命令，单条命令最长耗时就是其他客户端被挡住的最长时间；
+ * 替身不模拟内存释放，真实 Redis 上 DEL 同步释放 100 万个值还要再加一段阻塞。
+ * 替身跑在 JVM 里，longest 会混进 GC 停顿，分批策略看 p99 更准。
+ * <p>
+ * 默认不运行：mvn test -Dtest=ScanUnlinkBatchStrategyBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ScanUnlinkBatchStrategyBenchmark {
+
+    private static final int MATCHING = 1_000_000;
+
+    private static final int OTHERS = 200_000;
+
+    private static final int ROUNDS = 3;
+
+    @Test
+    void keysVsScanUnlink() {
+        run("KEYS + DEL", BatchStrategies.keys());
+        run("SCAN + DEL", BatchStrategies.scan(1_000));
+        run("SCAN + UNLINK", new ScanUnlinkBatchStrategy(1_000));
+    }
+
+    private static void run(String label, BatchStrategy strategy) {
+        for (int round = 0; round < ROUNDS; round++) {
+            RedisKeyspaceStandIn keyspace = keyspace(MATCHING, OTHERS);
+
+            long start = System.nanoTime();
+            long deleted = strategy.cleanCache(keyspace.connection(), "user:permissions", pattern("user:permissions::*"));
+            long elapsed = System.nanoTime() - start;
+
+            long commands = keyspace.commandCount("keys") + keyspace.commandCount("scan")
+                    + keyspace.commandCount("del") + keyspace.commandCount("unlink");
+            System.out.printf("%-14s round=%d deleted=%d total=%5d ms commands=%5d p99=%8.3f ms longest=%8.3f ms largest=%d keys%n",
+                    label, round, deleted, TimeUnit.NANOSECONDS.toMillis(elapsed), commands,
+                    keyspace.commandNanosPercentile(99) / 1e6, keyspace.longestCommandNanos() / 1e6,
+                    keyspace.largestCommandKeys());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.ymjrhk.rbac.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ScanUnlinkBatchStrategyTest {
+
+    /**
+     * 只删匹配的 key，每条命令最多 batchSize 个，不发 KEYS
+     */
+    @Test
+    void cleanCache_matchingKeysOnly_inBatches() {
+        RedisKeyspaceStandIn keyspace = keyspace(2_500, 300);
+
+        long deleted = new ScanUnlinkBatchStrategy(1_000)
+                .cleanCache(keyspace.connection(), "user:permissions", pattern("user:permissions::*"));
+
+        assertEquals(2_500, deleted);
+        assertEquals(300, keyspace.size());
+        assertTrue(keyspace.contains("user:auth::1"));
+        assertFalse(keyspace.contains("user:permissions::1"));
+        assertEquals(0, keyspace.commandCount("keys"));
+        assertEquals(0, keyspace.commandCount("del"));
+        assertEquals(3, keyspace.commandCount("unlink"));
+        assertTrue(keyspace.largestCommandKeys() <= 1_000);
+    }
+
+    @Test
+    void cleanCache_noMatch_noUnlink() {
+        RedisKeyspaceStandIn keyspace = keyspace(0, 50);
+
+        long deleted = new ScanUnlinkBatchStrategy(10)
+                .cleanCache(keyspace.connection(), "user:permissions", pattern("user:permissions::*"));
+
+        assertEquals(0, deleted);
+        assertEquals(50, keyspace.size());
+        assertEquals(0, keyspace.commandCount("unlink"));
+    }
+
+    /**
+     * 通过 RedisCacheWriter.clean 接入（RedisCache.clear 走的路径）
+     */
+    @Test
+    void cacheWriterClean_useStrategy() {
+        RedisKeyspaceStandIn keyspace = keyspace(120, 30);
+        RedisConnectionFactory factory = mock(RedisConnectionFactory.class);
+        when(factory.getConnection()).thenReturn(keyspace.connection());
+
+        RedisCacheWriter.nonLockingRedisCacheWriter(factory, new ScanUnlinkBatchStrategy(50))
+                        .clean("user:permissions", pattern("user:permissions::*"));
+
+        assertEquals(30, keyspace.size());
+        assertEquals(3, keyspace.commandCount("unlink"));
+        assertEquals(0, keyspace.commandCount("keys"));
+    }
+
+    @Test
+    void constructor_invalidBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ScanUnlinkBatchStrategy(0));
+    }
+
+    /**
+     * @param matching user:permissions::* 的数量
+     * @param others   其他缓存的 key 数量
+     */
+    static RedisKeyspaceStandIn keyspace(int matching, int others) {
+        RedisKeyspaceStandIn keyspace = new RedisKeyspaceStandIn();
+        int total = matching + others;
+        int m = 0;
+        int o = 0;
+        for (int i = 0; i < total; i++) {
+            // 交错放置，SCAN 的每一批里都混有不匹配的 key
+            if (o < others && (m == matching || i % 8 == 0)) {
+                keyspace.add("user:auth::" + ++o);
+            } else {
+                keyspace.add("user:permissions::" + ++m);
+            }
+        }
+        return keyspace;
+    }
+
+    static byte[] pattern(String pattern) {
+        return pattern.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,727 @@
+package com.ymjrhk.rbac.cache;
+
+import com.alibaba.fastjson2.JSON;
+import com.ymjrhk.rbac.exception.UserNotExistException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvoker;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 两级缓存测试：ConcurrentMapCacheManager 充当共享的 Redis，内存总线充当 Redis 频道
+ */
+class TwoLevelCacheTest {
+
+    private static final String CACHE = "user:auth";
+
+    private ConcurrentMapCacheManager redis;
+
+    private TwoLevelCacheManager node1;
+
+    private TwoLevelCacheManager node2;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        redis = new ConcurrentMapCacheManager();
+        registry = new SimpleMeterRegistry();
+
+        InMemoryBus bus = new InMemoryBus();
+        node1 = bus.join("node-1", redis, registry);
+        node2 = bus.join("node-2", redis, new SimpleMeterRegistry());
+    }
+
+    /**
+     * 本地命中后不再访问 Redis
+     */
+    @Test
+    void get_localHit_skipRemote() {
+        Cache cache = node1.getCache(CACHE);
+        cache.put(1L, "v1");
+
+        // 直接改 Redis，本地副本仍然生效
+        redis.getCache(CACHE).put(1L, "v2");
+
+        assertEquals("v1", cache.get(1L).get());
+    }
+
+    /**
+     * 本地未命中时读 Redis 并回填本地
+     */
+    @Test
+    void get_remoteHit_backfillLocal() {
+        redis.getCache(CACHE).put(1L, "v1");
+
+        TwoLevelCache cache = (TwoLevelCache) node1.getCache(CACHE);
+
+        assertEquals("v1", cache.get(1L, String.class));
+        assertEquals(1, cache.getLocalCache().size());
+    }
+
+    /**
+     * valueLoader 只在两级都未命中时执行一次
+     */
+    @Test
+    void get_withLoader_loadOnce() {
+        Cache cache = node1.getCache(CACHE);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get(1L, () -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get(1L, () -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", node2.getCache(CACHE).get(1L, () -> "v" + loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * 一个节点 evict，其他节点的本地副本也被删掉
+     */
+    @Test
+    void evict_broadcastToOtherNodes() {
+        node1.getCache(CACHE).put(1L, "v1");
+        assertEquals("v1", node2.getCache(CACHE).get(1L).get()); // node2 回填本地
+
+        node1.getCache(CACHE).evict(1L);
+
+        assertNull(node1.getCache(CACHE).get(1L));
+        assertNull(node2.getCache(CACHE).get(1L));
+        assertEquals(0, ((TwoLevelCache) node2.getCache(CACHE)).getLocalCache().size());
+    }
+
+    /**
+     * allEntries 清空同样广播
+     */
+    @Test
+    void clear_broadcastToOtherNodes() {
+        node1.getCache(CACHE).put(1L, "v1");
+        node1.getCache(CACHE).put(2L, "v2");
+        node2.getCache(CACHE).get(1L);
+        node2.getCache(CACHE).get(2L);
+
+        node1.getCache(CACHE).clear();
+
+        assertEquals(0, ((TwoLevelCache) node2.getCache(CACHE)).getLocalCache().size());
+        assertNull(node2.getCache(CACHE).get(1L));
+    }
+
+    /**
+     * 自己发出的广播被忽略，非法消息不抛异常
+     */
+    @Test
+    void listener_ignoreSelfAndMalformed() {
+        TwoLevelCache cache = (TwoLevelCache) node1.getCache(CACHE);
+        cache.put(1L, "v1");
+
+        CacheInvalidationListener listener = new CacheInvalidationListener(node1, "node-1");
+        listener.handle(JSON.toJSONString(new CacheInvalidationMessage("node-1", CACHE, "1")));
+        listener.handle("not json");
+
+        assertEquals(1, cache.getLocalCache().size());
+
+        listener.handle(JSON.toJSONString(new CacheInvalidationMessage("node-2", CACHE, "1")));
+
+        assertEquals(0, cache.getLocalCache().size());
+    }
+
+    /**
+     * 本地条目到期后回源 Redis
+     */
+    @Test
+    void localCache_expire() {
+        AtomicLong now = new AtomicLong();
+        LocalCache local = new LocalCache(Duration.ofSeconds(10), 100, now::get);
+
+        local.put("1", "v1");
+        now.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertEquals("v1", local.get("1"));
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertNull(local.get("1"));
+        assertEquals(0, local.size());
+    }
+
+    /**
+     * 条目数不超过上限，且优先淘汰过期条目
+     */
+    @Test
+    void localCache_bounded() {
+        AtomicLong now = new AtomicLong();
+        LocalCache local = new LocalCache(Duration.ofSeconds(10), 100, now::get);
+
+        for (int i = 0; i < 50; i++) {
+            local.put("old" + i, i);
+        }
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        for (int i = 0; i < 60; i++) {
+            local.put("new" + i, i);
+        }
+
+        assertEquals(60, local.size());
+        assertEquals(0, local.get("new0"));
+
+        for (int i = 0; i < 1000; i++) {
+            local.put("k" + i, i);
+            assertTrue(local.size() <= 100);
+        }
+    }
+
+    /**
+     * null 值不进本地缓存
+     */
+    @Test
+    void localCache_ignoreNull() {
+        LocalCache local = new LocalCache(Duration.ofSeconds(10), 100);
+        local.put("1", null);
+        assertEquals(0, local.size());
+    }
+
+    /**
+     * 批量失效：多个缓存下的同一批 key，远端和两个节点的本地副本都删掉，未涉及的 key 不受影响
+     */
+    @Test
+    void evictAll_targetedKeysOnAllNodes() {
+        for (String name : List.of(CACHE, "user:authz")) {
+            for (long userId = 1; userId <= 3; userId++) {
+                node1.getCache(name).put(userId, "v" + userId);
+                node2.getCache(name).get(userId); // 回填 node2 本地
+            }
+        }
+
+        node1.evictAll(List.of(CACHE, "user:authz"), List.of(1L, 2L));
+
+        for (String name : List.of(CACHE, "user:authz")) {
+            assertNull(redis.getCache(name).get(1L));
+            assertNull(redis.getCache(name).get(2L));
+            assertNull(node2.getCache(name).get(1L));
+            assertEquals("v3", node2.getCache(name).get(3L).get());
+            assertEquals(1, ((TwoLevelCache) node2.getCache(name)).getLocalCache().size());
+        }
+    }
+
+    /**
+     * 批量广播：一个缓存一条消息
+     */
+    @Test
+    void listener_batchMessage() {
+        Cache cache = node2.getCache(CACHE);
+        cache.put(1L, "v1");
+        cache.put(2L, "v2");
+        cache.put(3L, "v3");
+
+        new CacheInvalidationListener(node2, "node-2").handle(
+                JSON.toJSONString(new CacheInvalidationMessage("node-1", CACHE, null, List.of("1", "2"))));
+
+        assertEquals(1, ((TwoLevelCache) cache).getLocalCache().size());
+    }
+
+    /**
+     * 本地命中 / Redis 命中 / 未命中分别计数，未命中后同 key 的 put 记一次加载耗时
+     */
+    @Test
+    void metrics_getResultsAndLoad() {
+        Cache cache = node1.getCache(CACHE);
+        redis.getCache(CACHE).put(1L, "v1");
+
+        cache.get(1L); // Redis 命中，回填本地
+        cache.get(1L); // 本地命中
+        assertNull(cache.get(2L)); // 未命中
+        cache.put(2L, "v2"); // @Cacheable 调用方法后写回
+        cache.put(3L, "v3"); // 没有先未命中，不算加载
+
+        assertEquals(1.0, gets("remote-hit"));
+        assertEquals(1.0, gets("local-hit"));
+        assertEquals(1.0, gets("miss"));
+        assertEquals(1, registry.get("rbac.cache.load").tag("cache", CACHE).timer().count());
+        assertEquals(2, registry.get("rbac.cache.remote.get").tag("cache", CACHE).timer().count());
+        assertEquals(3.0, registry.get("rbac.cache.local.size").tag("cache", CACHE).gauge().value());
+    }
+
+    /**
+     * sync 方式（带 valueLoader）只在真正调用 loader 时记加载
+     */
+    @Test
+    void metrics_withLoader() {
+        Cache cache = node1.getCache(CACHE);
+
+        cache.get(1L, () -> "v1");
+        node1.evictLocal(CACHE, "1");
+        cache.get(1L, () -> "never");
+
+        assertEquals(1.0, gets("miss"));
+        assertEquals(1.0, gets("remote-hit"));
+        assertEquals(1, registry.get("rbac.cache.load").tag("cache", CACHE).timer().count());
+    }
+
+    /**
+     * 同一个 key 并发未命中：只加载一次，其他线程等待并拿到同一个结果
+     */
+    @Test
+    void get_withLoader_concurrentMissesCoalesced() throws Exception {
+        Cache cache = node1.getCache(CACHE);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int followers = 7;
+        List<Object> results = Collections.synchronizedList(new ArrayList<>());
+
+        Thread leader = new Thread(() -> results.add(cache.get(1L, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return "v1";
+        })));
+        leader.start();
+        loading.await();
+
+        List<Thread> waiting = new ArrayList<>();
+        for (int i = 0; i < followers; i++) {
+            Thread follower = new Thread(() -> results.add(cache.get(1L, () -> "v" + loads.incrementAndGet())));
+            follower.start();
+            waiting.add(follower);
+        }
+        // 所有线程都阻塞在等待结果上再放行加载
+        while (waiting.stream().anyMatch(t -> t.getState() != Thread.State.WAITING)) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        leader.join();
+        for (Thread follower : waiting) {
+            follower.join();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(Collections.nCopies(followers + 1, "v1"), results);
+        assertEquals(followers, singleFlight("coalesced"));
+    }
+
+    /**
+     * 加载失败时等待中的线程拿到同一个异常（ValueRetrievalException），之后的调用重新加载
+     */
+    @Test
+    void get_withLoader_failureSharedThenRetried() {
+        Cache cache = node1.getCache(CACHE);
+
+        Cache.ValueRetrievalException e = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get(1L, () -> {
+                    throw new IllegalStateException("db down");
+                }));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+
+        assertEquals("v1", cache.get(1L, () -> "v1"));
+    }
+
+    /**
+     * 加载结果为 null 时不写缓存，下次仍然加载
+     */
+    @Test
+    void get_withLoader_nullNotCached() {
+        Cache cache = node1.getCache(CACHE);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.get(1L, () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(redis.getCache(CACHE).get(1L));
+        assertEquals("v2", cache.get(1L, () -> "v" + (loads.incrementAndGet())));
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * 其他节点持有租约：有本地旧值时直接返回旧值，不加载
+     */
+    @Test
+    void lease_heldElsewhere_serveStale() {
+        AtomicLong now = new AtomicLong();
+        LocalCache local = new LocalCache(Duration.ofSeconds(10), 100, now::get);
+        HeldLease lease = new HeldLease(Duration.ofMillis(50));
+        TwoLevelCache cache = leasedCache(local, lease);
+
+        assertEquals("v1", cache.get(1L, () -> "v1"));
+        redis.getCache(CACHE).evict(1L); // Redis 条目到期
+        now.addAndGet(Duration.ofSeconds(10).toNanos()); // 本地条目到期
+
+        lease.held = true;
+        assertEquals("v1", cache.get(1L, () -> "v2"));
+        assertEquals(1.0, singleFlight("stale"));
+
+        // 主动失效后不再返回旧值
+        cache.evict(1L);
+        assertEquals("v3", cache.get(1L, () -> "v3"));
+        assertEquals(1.0, singleFlight("duplicate"));
+    }
+
+    /**
+     * 其他节点持有租约且没有旧值：等它写回 Redis
+     */
+    @Test
+    void lease_heldElsewhere_waitForWriteBack() throws Exception {
+        HeldLease lease = new HeldLease(Duration.ofSeconds(5));
+        TwoLevelCache cache = leasedCache(new LocalCache(Duration.ofSeconds(10), 100), lease);
+        lease.held = true;
+
+        Thread holder = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            redis.getCache(CACHE).put(1L, "from-holder");
+        });
+        holder.start();
+
+        assertEquals("from-holder", cache.get(1L, () -> "never"));
+        holder.join();
+        assertEquals(1.0, singleFlight("lease-wait"));
+        assertEquals(0.0, singleFlight("duplicate"));
+    }
+
+    /**
+     * 拿到租约的节点加载并释放租约
+     */
+    @Test
+    void lease_acquired_loadAndRelease() {
+        HeldLease lease = new HeldLease(Duration.ofMillis(50));
+        TwoLevelCache cache = leasedCache(new LocalCache(Duration.ofSeconds(10), 100), lease);
+
+        assertEquals("v1", cache.get(1L, () -> "v1"));
+        assertEquals("v1", redis.getCache(CACHE).get(1L).get());
+        assertEquals(1, lease.acquired.get());
+        assertEquals(1, lease.released.get());
+    }
+
+    /**
+     * 进入刷新窗口后被访问：先返回当前值，后台重新加载并写回两级缓存；同一个 key 只提交一次
+     */
+    @Test
+    void refreshAhead_inWindow_reloadInBackground() {
+        AtomicLong now = new AtomicLong();
+        List<Runnable> tasks = new ArrayList<>();
+        TwoLevelCache cache = refreshingCache(now, tasks::add, null);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get(1L, () -> "v" + loads.incrementAndGet()));
+        now.addAndGet(Duration.ofSeconds(50).toNanos());
+        assertEquals("v1", cache.get(1L, () -> "v" + loads.incrementAndGet()));
+        assertTrue(tasks.isEmpty());
+
+        now.addAndGet(Duration.ofSeconds(35).toNanos()); // 剩余 15 秒，进入最后 20%
+        assertEquals("v1", cache.get(1L, () -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get(1L, () -> "v" + loads.incrementAndGet()));
+        assertEquals(1, tasks.size());
+        assertEquals(1, loads.get());
+
+        tasks.removeFirst().run();
+        assertEquals("v2", redis.getCache(CACHE).get(1L).get());
+        assertEquals("v2", cache.get(1L, () -> "never"));
+        assertEquals(1.0, refresh("refreshed"));
+
+        // 刷新后 TTL 重新开始
+        now.addAndGet(Duration.ofSeconds(50).toNanos());
+        cache.get(1L, () -> "never");
+        assertTrue(tasks.isEmpty());
+    }
+
+    /**
+     * 其他节点写入的条目：后台查询剩余时间，还早就记下刷新时刻，到了再刷新
+     */
+    @Test
+    void refreshAhead_writtenElsewhere_checkRemainingTtl() {
+        AtomicLong now = new AtomicLong();
+        List<Runnable> tasks = new ArrayList<>();
+        AtomicLong remainingSeconds = new AtomicLong(60);
+        TwoLevelCache cache = refreshingCache(now, tasks::add,
+                (cacheName, key) -> Duration.ofSeconds(remainingSeconds.get()));
+        redis.getCache(CACHE).put(1L, "v1");
+
+        assertEquals("v1", cache.get(1L, () -> "never"));
+        tasks.removeFirst().run();
+        assertEquals("v1", redis.getCache(CACHE).get(1L).get());
+        assertEquals(1.0, refresh("skipped"));
+
+        // 60 秒后过期，40 秒后进入刷新窗口
+        now.addAndGet(Duration.ofSeconds(39).toNanos());
+        cache.get(1L, () -> "never");
+        assertTrue(tasks.isEmpty());
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        remainingSeconds.set(20);
+        assertEquals("v1", cache.get(1L, () -> "v2"));
+        tasks.removeFirst().run();
+        assertEquals("v2", redis.getCache(CACHE).get(1L).get());
+        assertEquals(1.0, refresh("refreshed"));
+    }
+
+    /**
+     * 刷新期间被失效：丢弃刷新结果，不把旧数据写回去
+     */
+    @Test
+    void refreshAhead_evictedDuringRefresh_discard() {
+        AtomicLong now = new AtomicLong();
+        List<Runnable> tasks = new ArrayList<>();
+        TwoLevelCache cache = refreshingCache(now, tasks::add, null);
+
+        cache.get(1L, () -> "v1");
+        now.addAndGet(Duration.ofSeconds(90).toNanos());
+        cache.get(1L, () -> "stale-read");
+        cache.evict(1L);
+
+        tasks.removeFirst().run();
+        assertNull(redis.getCache(CACHE).get(1L));
+        assertEquals(0, cache.getLocalCache().size());
+        assertEquals(1.0, refresh("discarded"));
+    }
+
+    /**
+     * 线程池已满：放弃这次刷新，之后的访问可以再次提交；加载失败不影响当前值
+     */
+    @Test
+    void refreshAhead_rejectedOrFailed_keepCurrentValue() {
+        AtomicLong now = new AtomicLong();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        TwoLevelCache cache = refreshingCache(now, task -> {
+            if (rejected.getAndIncrement() == 0) {
+                throw new RejectedExecutionException("full");
+            }
+            tasks.add(task);
+        }, null);
+
+        cache.get(1L, () -> "v1");
+        now.addAndGet(Duration.ofSeconds(90).toNanos());
+        assertEquals("v1", cache.get(1L, () -> "never"));
+        assertEquals(1.0, refresh("rejected"));
+
+        assertEquals("v1", cache.get(1L, () -> {
+            throw new IllegalStateException("db down");
+        }));
+        tasks.removeFirst().run();
+        assertEquals(1.0, refresh("failed"));
+        assertEquals("v1", cache.get(1L, () -> "never"));
+        assertTrue(tasks.isEmpty());
+    }
+
+    /**
+     * 加载抛出登记过的“不存在”异常：写入哨兵，之后（包括其他节点）直接重新抛出，evict 后重新加载
+     */
+    @Test
+    void negative_notExist_cachedAndRethrown() {
+        TwoLevelCache cache = negativeCache(new LocalCache(Duration.ofMinutes(1), 100));
+        TwoLevelCache other = negativeCache(new LocalCache(Duration.ofMinutes(1), 100));
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> {
+            loads.incrementAndGet();
+            // 与 @Cacheable 的 valueLoader 一样包一层
+            throw new CacheOperationInvoker.ThrowableWrapper(new UserNotExistException("用户不存在"));
+        };
+
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get(1L, loader));
+        UserNotExistException e = assertThrows(UserNotExistException.class, () -> cache.get(1L, loader));
+        assertEquals("用户不存在", e.getMessage());
+        assertThrows(UserNotExistException.class, () -> other.get(1L, loader));
+        assertEquals(1, loads.get());
+        assertInstanceOf(NegativeResult.class, redis.getCache(CACHE).get(1L).get());
+        assertEquals(1.0, negative("stored"));
+        assertEquals(2.0, negative("hit"));
+
+        cache.evict(1L);
+        assertEquals("v1", cache.get(1L, () -> "v1"));
+    }
+
+    /**
+     * 返回 null：写入哨兵，本地哨兵按更短的 TTL 过期后从 Redis 读到哨兵，仍不加载
+     */
+    @Test
+    void negative_null_cachedWithShortLocalTtl() {
+        AtomicLong now = new AtomicLong();
+        TwoLevelCache cache = negativeCache(new LocalCache(Duration.ofMinutes(1), 100, now::get));
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> {
+            loads.incrementAndGet();
+            return null;
+        };
+
+        assertNull(cache.get(1L, loader));
+        assertNull(cache.get(1L, loader));
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertNull(cache.get(1L, loader));
+        assertNull(cache.get(1L).get());
+        assertEquals(1, loads.get());
+        assertEquals(1.0, gets("remote-hit"));
+    }
+
+    /**
+     * 没登记的异常（如数据库超时）不缓存
+     */
+    @Test
+    void negative_unregisteredException_notCached() {
+        TwoLevelCache cache = negativeCache(new LocalCache(Duration.ofMinutes(1), 100));
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("timeout");
+        };
+
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get(1L, loader));
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get(1L, loader));
+        assertEquals(2, loads.get());
+        assertNull(redis.getCache(CACHE).get(1L));
+    }
+
+    /**
+     * 不认识的哨兵（本节点没启用负结果缓存，或类型名已不再登记）当作未命中
+     */
+    @Test
+    void negative_unknownSentinel_treatedAsMiss() {
+        redis.getCache(CACHE).put(1L, new NegativeResult("user-not-exist", "用户不存在"));
+        redis.getCache(CACHE).put(2L, new NegativeResult("renamed", "x"));
+
+        assertEquals("v1", node1.getCache(CACHE).get(1L, () -> "v1"));
+        assertEquals("v2", negativeCache(new LocalCache(Duration.ofMinutes(1), 100)).get(2L, () -> "v2"));
+        assertEquals("v2", redis.getCache(CACHE).get(2L).get());
+    }
+
+    /**
+     * Redis 中哨兵用单独的短 TTL
+     */
+    @Test
+    void negative_ttlFunction() {
+        NegativeCaching negativeCaching = new NegativeCaching(Duration.ofSeconds(30), Duration.ofSeconds(5));
+        RedisCacheWriter.TtlFunction ttl = negativeCaching.ttlFunction(Duration.ofMinutes(2));
+
+        assertEquals(Duration.ofSeconds(30), ttl.getTimeToLive(1L, new NegativeResult(NegativeResult.NULL, null)));
+        assertEquals(Duration.ofMinutes(2), ttl.getTimeToLive(1L, "v1"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new NegativeCaching(Duration.ofSeconds(5), Duration.ofSeconds(30)));
+    }
+
+    private double gets(String result) {
+        return registry.get("rbac.cache.gets").tag("cache", CACHE).tag("result", result).counter().count();
+    }
+
+    private double singleFlight(String result) {
+        return registry.get("rbac.cache.single-flight").tag("cache", CACHE).tag("result", result).counter().count();
+    }
+
+    private double negative(String result) {
+        return registry.get("rbac.cache.negative").tag("cache", CACHE).tag("result", result).counter().count();
+    }
+
+    /**
+     * 负结果哨兵 Redis TTL 30 秒、本地 5 秒，登记 UserNotExistException
+     */
+    private TwoLevelCache negativeCache(LocalCache local) {
+        NegativeCaching negativeCaching = new NegativeCaching(Duration.ofSeconds(30), Duration.ofSeconds(5))
+                .register("user-not-exist", UserNotExistException.class, UserNotExistException::new);
+        return new TwoLevelCache(CACHE, redis.getCache(CACHE), local, (cacheName, key) -> {
+        }, new CacheMetrics(CACHE, local, registry), null, null, negativeCaching);
+    }
+
+    private double refresh(String result) {
+        return registry.get("rbac.cache.refresh").tag("cache", CACHE).tag("result", result).counter().count();
+    }
+
+    /**
+     * Redis TTL 100 秒、最后 20% 刷新，本地 TTL 95 秒（让本地命中也能进入刷新窗口）
+     */
+    private TwoLevelCache refreshingCache(AtomicLong now, Executor executor, RemoteTtl remoteTtl) {
+        LocalCache local = new LocalCache(Duration.ofSeconds(95), 100, now::get);
+        CacheMetrics metrics = new CacheMetrics(CACHE, local, registry);
+        RefreshAhead refreshAhead = new RefreshAhead(CACHE, new RefreshAheadSpec(Duration.ofSeconds(100), 0.2),
+                executor, remoteTtl, metrics, 100, now::get);
+        return new TwoLevelCache(CACHE, redis.getCache(CACHE), local, (cacheName, key) -> {
+        }, metrics, null, refreshAhead);
+    }
+
+    private TwoLevelCache leasedCache(LocalCache local, LoadLease lease) {
+        return new TwoLevelCache(CACHE, redis.getCache(CACHE), local, (cacheName, key) -> {
+        }, new CacheMetrics(CACHE, local, registry), lease);
+    }
+
+    /**
+     * 可以设置为“被其他节点持有”的租约
+     */
+    private static class HeldLease implements LoadLease {
+
+        private final Duration waitTimeout;
+
+        private volatile boolean held;
+
+        private final AtomicInteger acquired = new AtomicInteger();
+
+        private final AtomicInteger released = new AtomicInteger();
+
+        HeldLease(Duration waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+
+        @Override
+        public boolean tryAcquire(String cacheName, String key) {
+            if (held) {
+                return false;
+            }
+            acquired.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public void release(String cacheName, String key) {
+            released.incrementAndGet();
+        }
+
+        @Override
+        public Duration waitTimeout() {
+            return waitTimeout;
+        }
+
+        @Override
+        public Duration maxStale() {
+            return Duration.ofMinutes(1);
+        }
+    }
+
+    /**
+     * 模拟 Redis 频道：publish 同步投递给所有节点的 listener
+     */
+    private static class InMemoryBus {
+
+        private final List<CacheInvalidationListener> listeners = new ArrayList<>();
+
+        TwoLevelCacheManager join(String nodeId, ConcurrentMapCacheManager redis, MeterRegistry registry) {
+            CacheInvalidationPublisher publisher = (cacheName, key) -> {
+                String body = JSON.toJSONString(new CacheInvalidationMessage(nodeId, cacheName, key));
+                listeners.forEach(listener -> listener.handle(body));
+            };
+            TwoLevelCacheManager manager = new TwoLevelCacheManager(
+                    redis,
+                    Map.of(),
+                    new NearCacheSpec(Duration.ofMinutes(1), 100),
+                    publisher,
+                    registry,
+                    null
+            );
+            listeners.add(new CacheInvalidationListener(manager, nodeId));
+            return manager;
+        }
+    }
+}
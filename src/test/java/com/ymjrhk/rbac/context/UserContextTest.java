@@ -0,0 +1,87 @@
+package com.ymjrhk.rbac.context;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserContextTest {
+
+    @AfterEach
+    void tearDown() {
+        UserContext.clear();
+    }
+
+    /**
+     * 请求范围内 set 的用户只在范围内可见，范围结束后线程上不留任何东西
+     */
+    @Test
+    void requestScope_visibleOnlyInside() {
+        UserContext.runInRequestScope(() -> {
+            assertNull(UserContext.get());
+            UserContext.set(new LoginUser(1L, "alice"));
+            assertEquals(1L, UserContext.getCurrentUserId());
+            assertEquals("alice", UserContext.getCurrentUsername());
+        });
+
+        assertNull(UserContext.get());
+    }
+
+    /**
+     * 漏了 clear、或者中途抛异常，下一个请求同样拿不到上一个请求的用户
+     */
+    @Test
+    void requestScope_exceptionOrMissingClear_doesNotLeak() {
+        assertThrows(IllegalStateException.class, () -> UserContext.runInRequestScope(() -> {
+            UserContext.set(new LoginUser(1L, "alice"));
+            throw new IllegalStateException("handler failed");
+        }));
+
+        UserContext.runInRequestScope(() -> assertNull(UserContext.get()));
+        assertNull(UserContext.get());
+    }
+
+    @Test
+    void nestedScope_restoresOuter() {
+        UserContext.runInRequestScope(() -> {
+            UserContext.set(new LoginUser(1L, "alice"));
+            UserContext.runInRequestScope(() -> {
+                UserContext.set(new LoginUser(2L, "bob"));
+                assertEquals(2L, UserContext.getCurrentUserId());
+            });
+            assertEquals(1L, UserContext.getCurrentUserId());
+        });
+    }
+
+    /**
+     * 绑定不会传给其他线程（@Async 需要的数据显式传参）
+     */
+    @Test
+    void requestScope_notInheritedByOtherThreads() throws InterruptedException {
+        AtomicReference<Object> seen = new AtomicReference<>("unset");
+        UserContext.runInRequestScope(() -> {
+            UserContext.set(new LoginUser(1L, "alice"));
+            Thread.ofVirtual().start(() -> seen.set(UserContext.get())).join();
+        });
+
+        assertNull(seen.get());
+    }
+
+    /**
+     * 没有请求范围时（平台线程模式）仍用 ThreadLocal，行为不变
+     */
+    @Test
+    void withoutScope_fallsBackToThreadLocal() {
+        UserContext.set(new LoginUser(3L, "carol"));
+        assertEquals(3L, UserContext.getCurrentUserId());
+
+        // 范围内看不到范围外的 ThreadLocal 值，范围结束后原值还在
+        UserContext.runInRequestScope(() -> assertNull(UserContext.get()));
+        assertEquals(3L, UserContext.getCurrentUserId());
+
+        UserContext.clear();
+        assertNull(UserContext.get());
+    }
+}
@@ -0,0 +1,164 @@
+package com.ymjrhk.rbac.context;
+
+import com.ymjrhk.rbac.auth.JwtCodec;
+import com.ymjrhk.rbac.config.AsyncConfig;
+import com.ymjrhk.rbac.properties.JwtProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 平台线程模式 vs 虚拟线程模式的压测（不起 Tomcat，用线程池模拟请求线程）
+ * <p>
+ * 每个请求：绑定 UserContext → JwtCodec 验签解析 → 阻塞 IO_MILLIS（代表 Redis / MySQL 往返）→
+ * 每 AUDIT_EVERY 个请求提交一次登录审计（auditExecutor，任务本身阻塞 AUDIT_MILLIS）。
+ * 平台线程模式的请求线程池与 Tomcat 默认一致（200 个线程，多出来的排队）；auditExecutor 直接取 AsyncConfig 的配置。
+ * 客户端是闭环的：每个客户端收到响应后立刻发下一个请求，延迟包含排队时间。
+ * <p>
+ * 默认不运行：mvn test -Dtest=VirtualThreadLoadBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadLoadBenchmark {
+
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+
+    private static final long MEASURE_NANOS = 5_000_000_000L;
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    private static final long IO_MILLIS = 5;
+
+    private static final int AUDIT_EVERY = 20;
+
+    private static final long AUDIT_MILLIS = 2;
+
+    private static final int[] CLIENTS = {100, 500, 2_000};
+
+    @Test
+    void platformVsVirtual() throws Exception {
+        JwtProperties properties = new JwtProperties();
+        properties.setKeyId("v1");
+        properties.setSecretKey("test-jwt-secret-key-32-bytes!!!!");
+        properties.setTtl(3_600_000L);
+        JwtCodec codec = new JwtCodec(properties);
+        String token = codec.encode(Map.of("userId", 1L, "username", "zhangsan", "authVersion", 1));
+
+        for (int clients : CLIENTS) {
+            for (boolean virtual : new boolean[]{false, true}) {
+                Result result = run(virtual, clients, codec, token);
+                System.out.printf("mode=%-8s clients=%5d  %8.0f req/s  p50=%6.2f ms  p99=%7.2f ms  max=%7.2f ms%n",
+                        virtual ? "virtual" : "platform", clients, result.throughput,
+                        result.p50 / 1e6, result.p99 / 1e6, result.max / 1e6);
+            }
+        }
+    }
+
+    private static Result run(boolean virtual, int clients, JwtCodec codec, String token) throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.threads.virtual.enabled", Boolean.toString(virtual));
+        Executor auditExecutor = new AsyncConfig().auditExecutor(new SimpleMeterRegistry(), environment);
+        ExecutorService server = virtual
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : new ThreadPoolExecutor(TOMCAT_MAX_THREADS, TOMCAT_MAX_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>());
+        try {
+            load(virtual, clients, codec, token, server, auditExecutor, WARMUP_NANOS);
+            return load(virtual, clients, codec, token, server, auditExecutor, MEASURE_NANOS);
+        } finally {
+            server.shutdownNow();
+            if (auditExecutor instanceof AutoCloseable closeable) {
+                closeable.close();
+            } else if (auditExecutor instanceof ThreadPoolTaskExecutor pool) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static Result load(boolean virtual, int clients, JwtCodec codec, String token,
+                               ExecutorService server, Executor auditExecutor, long budgetNanos) throws Exception {
+        long deadline = System.nanoTime() + budgetNanos;
+        List<Future<long[]>> results = new ArrayList<>();
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                results.add(clientThreads.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        int seq = count;
+                        server.submit(() -> {
+                            handle(virtual, codec, token, auditExecutor, seq);
+                            return null;
+                        }).get();
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        long started = deadline - budgetNanos;
+        long elapsed = System.nanoTime() - started;
+
+        long[] all = results.stream().map(VirtualThreadLoadBenchmark::join)
+                            .flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(all.length * 1e9 / elapsed,
+                all[all.length / 2], all[(int) (all.length * 0.99)], all[all.length - 1]);
+    }
+
+    private static void handle(boolean virtual, JwtCodec codec, String token, Executor auditExecutor, int seq)
+            throws InterruptedException {
+        if (virtual) {
+            UserContext.runInRequestScope(() -> serve(codec, token, auditExecutor, seq));
+        } else {
+            try {
+                serve(codec, token, auditExecutor, seq);
+            } finally {
+                UserContext.clear();
+            }
+        }
+    }
+
+    private static void serve(JwtCodec codec, String token, Executor auditExecutor, int seq)
+            throws InterruptedException {
+        codec.decode(token);
+        UserContext.set(new LoginUser(1L, "zhangsan"));
+        Thread.sleep(IO_MILLIS);
+        if (seq % AUDIT_EVERY == 0) {
+            auditExecutor.execute(() -> {
+                try {
+                    Thread.sleep(AUDIT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Result(double throughput, long p50, long p99, long max) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.ymjrhk.rbac.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MapperMetricsInterceptorTest {
+
+    private static final String STATEMENT = "com.ymjrhk.rbac.mapper.UserMapper.update";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MapperMetricsInterceptor interceptor = new MapperMetricsInterceptor(registry);
+
+    @Test
+    void intercept_recordByStatement() throws Throwable {
+        Executor executor = mock(Executor.class);
+        when(executor.update(any(), any())).thenReturn(1);
+
+        assertEquals(1, interceptor.intercept(update(executor)));
+        interceptor.intercept(update(executor));
+
+        assertEquals(2, registry.get("rbac.mapper")
+                                .tag("statement", "UserMapper.update")
+                                .tag("outcome", "success")
+                                .timer().count());
+    }
+
+    /**
+     * 失败也计时（outcome=error），异常照常抛出
+     */
+    @Test
+    void intercept_error_recordAndRethrow() throws Exception {
+        Executor executor = mock(Executor.class);
+        when(executor.update(any(), any())).thenThrow(new SQLException("数据库不可用"));
+
+        assertThrows(Exception.class, () -> interceptor.intercept(update(executor)));
+
+        assertEquals(1, registry.get("rbac.mapper")
+                                .tag("statement", "UserMapper.update")
+                                .tag("outcome", "error")
+                                .timer().count());
+    }
+
+    @Test
+    void shortId() {
+        assertEquals("UserMapper.getById", MapperMetricsInterceptor.shortId("com.ymjrhk.rbac.mapper.UserMapper.getById"));
+        assertEquals("UserMapper.list_COUNT", MapperMetricsInterceptor.shortId("com.ymjrhk.rbac.mapper.UserMapper.list_COUNT"));
+        assertEquals("getById", MapperMetricsInterceptor.shortId("getById"));
+    }
+
+    private static Invocation update(Executor executor) throws NoSuchMethodException {
+        MappedStatement statement = new MappedStatement.Builder(
+                new Configuration(), STATEMENT, parameter -> null, SqlCommandType.UPDATE).build();
+        return new Invocation(executor,
+                Executor.class.getMethod("update", MappedStatement.class, Object.class),
+                new Object[]{statement, null});
+    }
+}
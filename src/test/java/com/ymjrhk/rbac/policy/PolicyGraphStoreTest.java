@@ -0,0 +1,188 @@
+package com.ymjrhk.rbac.policy;
+
+import com.ymjrhk.rbac.policy.PolicyDelta.Type;
+import com.ymjrhk.rbac.properties.PolicyProperties;
+import com.ymjrhk.rbac.service.HandlerPermissionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.List;
+
+import static com.ymjrhk.rbac.constant.CacheConstant.POLICY_VERSION_KEY;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PolicyGraphStoreTest {
+
+    private PolicyGraphLoader loader;
+
+    private ValueOperations<String, String> valueOperations;
+
+    private PolicyProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PolicyGraphStore store;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        loader = mock(PolicyGraphLoader.class);
+        // 应用增量只换版本号，用调用顺序验证应用顺序
+        when(loader.loadAll(anyLong())).thenAnswer(inv -> PolicyGraphTest.sample().withVersion(inv.getArgument(0)));
+        when(loader.apply(any(), any(), anyLong()))
+                .thenAnswer(inv -> ((PolicyGraph) inv.getArgument(0)).withVersion(inv.getArgument(2)));
+
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(POLICY_VERSION_KEY)).thenReturn("5");
+
+        properties = new PolicyProperties();
+        properties.setInMemory(true);
+        properties.setMaxPendingDeltas(3);
+        meterRegistry = new SimpleMeterRegistry();
+
+        store = new PolicyGraphStore(loader, mock(HandlerPermissionService.class), redisTemplate, properties, meterRegistry);
+    }
+
+    private static PolicyDelta delta(long version) {
+        return new PolicyDelta(version, Type.USER_ROLES, List.of(100L));
+    }
+
+    private double reloads(String reason) {
+        var counter = meterRegistry.find("rbac.policy.reloads").tag("reason", reason).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test
+    void check_initialLoadAtRemoteVersion() {
+        assertNull(store.current());
+
+        store.check();
+
+        assertEquals(5, store.current().version());
+        assertEquals(1, reloads("initial"));
+    }
+
+    @Test
+    void accept_inOrder_appliedAndStaleDropped() {
+        store.check();
+
+        store.accept(delta(6));
+        store.accept(delta(6));
+        store.accept(delta(4));
+
+        assertEquals(6, store.current().version());
+        verify(loader, times(1)).apply(any(), any(), anyLong());
+    }
+
+    @Test
+    void accept_gap_bufferedThenDrainedInOrder() {
+        store.check();
+
+        store.accept(delta(8));
+        store.accept(delta(7));
+        assertEquals(5, store.current().version());
+
+        store.accept(delta(6));
+
+        assertEquals(8, store.current().version());
+        InOrder inOrder = inOrder(loader);
+        inOrder.verify(loader).apply(any(), any(), eq(6L));
+        inOrder.verify(loader).apply(any(), any(), eq(7L));
+        inOrder.verify(loader).apply(any(), any(), eq(8L));
+    }
+
+    /**
+     * 缺口到下一次检查仍未补齐：全量重新加载，加载结果已包含的增量丢弃，其余接着应用
+     */
+    @Test
+    void check_gapPersists_reloadAndDrain() {
+        store.check();
+        store.accept(delta(7));
+        store.accept(delta(9));
+
+        store.check();
+        assertEquals(0, reloads("gap"));
+
+        when(valueOperations.get(POLICY_VERSION_KEY)).thenReturn("8");
+        store.check();
+
+        assertEquals(1, reloads("gap"));
+        assertEquals(9, store.current().version());
+        verify(loader, never()).apply(any(), any(), eq(7L));
+    }
+
+    @Test
+    void accept_tooManyPending_reload() {
+        store.check();
+        when(valueOperations.get(POLICY_VERSION_KEY)).thenReturn("10");
+
+        for (long v = 7; v <= 10; v++) {
+            store.accept(delta(v));
+        }
+
+        assertEquals(1, reloads("overflow"));
+        assertEquals(10, store.current().version());
+    }
+
+    /**
+     * 增量丢了（本地没有缺口，但全局版本号领先）：连续两次检查都落后才重新加载
+     */
+    @Test
+    void check_lagging_reloadOnSecondCheck() {
+        store.check();
+        when(valueOperations.get(POLICY_VERSION_KEY)).thenReturn("6");
+
+        store.check();
+        assertEquals(5, store.current().version());
+
+        store.check();
+        assertEquals(1, reloads("lagging"));
+        assertEquals(6, store.current().version());
+    }
+
+    @Test
+    void accept_applyFails_reloadOnNextCheck() {
+        store.check();
+        doThrow(new RuntimeException("db down")).when(loader).apply(any(), any(), anyLong());
+
+        store.accept(delta(6));
+        assertEquals(5, store.current().version());
+
+        when(valueOperations.get(POLICY_VERSION_KEY)).thenReturn("6");
+        store.check();
+
+        assertEquals(1, reloads("error"));
+        assertEquals(6, store.current().version());
+    }
+
+    /**
+     * Redis 不可用时本节点的变更不带版本号：立即应用，版本号不变
+     */
+    @Test
+    void accept_unversioned_appliedLocally() {
+        store.check();
+
+        store.accept(delta(0));
+
+        assertEquals(5, store.current().version());
+        verify(loader).apply(any(), any(), eq(5L));
+    }
+
+    @Test
+    void disabled_ignored() {
+        properties.setInMemory(false);
+
+        store.accept(delta(1));
+
+        assertNull(store.current());
+        verifyNoInteractions(loader);
+    }
+}
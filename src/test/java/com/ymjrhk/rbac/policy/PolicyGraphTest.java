@@ -0,0 +1,176 @@
+package com.ymjrhk.rbac.policy;
+
+import com.ymjrhk.rbac.auth.HandlerPermissionIndex;
+import com.ymjrhk.rbac.auth.HandlerPermissionIndex.Route;
+import com.ymjrhk.rbac.entity.Role;
+import com.ymjrhk.rbac.entity.RolePermission;
+import com.ymjrhk.rbac.entity.UserRole;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.ymjrhk.rbac.constant.PermissionTypeConstant.ACTION;
+import static com.ymjrhk.rbac.constant.RoleNameConstant.SUPER_ADMIN;
+import static com.ymjrhk.rbac.constant.StatusConstant.DISABLED;
+import static com.ymjrhk.rbac.constant.StatusConstant.ENABLED;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolicyGraphTest {
+
+    @SuppressWarnings("unused")
+    private static class Handlers {
+        void getUser() {}
+        void other() {}
+    }
+
+    private static final Method GET_USER;
+    private static final Method OTHER;
+
+    static {
+        try {
+            GET_USER = Handlers.class.getDeclaredMethod("getUser");
+            OTHER = Handlers.class.getDeclaredMethod("other");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Role role(long id, String name, int status) {
+        Role role = new Role();
+        role.setRoleId(id);
+        role.setRoleName(name);
+        role.setStatus(status);
+        return role;
+    }
+
+    static PermissionVO permission(long id, String path, String method, int status) {
+        PermissionVO p = new PermissionVO();
+        p.setPermissionId(id);
+        p.setType(ACTION);
+        p.setPath(path);
+        p.setMethod(method);
+        p.setStatus(status);
+        return p;
+    }
+
+    static RolePermission rolePermission(long roleId, long permissionId) {
+        RolePermission rp = new RolePermission();
+        rp.setRoleId(roleId);
+        rp.setPermissionId(permissionId);
+        return rp;
+    }
+
+    static UserRole userRole(long userId, long roleId) {
+        UserRole ur = new UserRole();
+        ur.setUserId(userId);
+        ur.setRoleId(roleId);
+        return ur;
+    }
+
+    /**
+     * 用户 100：角色 1（可查用户）；用户 200：角色 2（禁用）；用户 300：超级管理员
+     */
+    static PolicyGraph sample() {
+        return PolicyGraph.of(1,
+                List.of(role(1, "VIEWER", ENABLED), role(2, "EDITOR", DISABLED), role(9, SUPER_ADMIN, ENABLED)),
+                List.of(permission(10, "/api/users/**", "GET", ENABLED),
+                        permission(11, "/api/users/**", "PUT", ENABLED),
+                        permission(12, "/api/roles/**", "GET", DISABLED)),
+                List.of(rolePermission(1, 10), rolePermission(1, 12), rolePermission(2, 11)),
+                List.of(userRole(100, 1), userRole(200, 2), userRole(300, 9)));
+    }
+
+    @Test
+    void permits_fromGraph() {
+        PolicyGraph graph = sample();
+
+        assertTrue(graph.permits(100L, GET_USER, "/api/users/1", "GET"));
+        assertFalse(graph.permits(100L, GET_USER, "/api/users/1", "PUT"));
+        // 禁用的权限不算
+        assertFalse(graph.permits(100L, OTHER, "/api/roles/1", "GET"));
+        // 禁用的角色不算
+        assertFalse(graph.permits(200L, GET_USER, "/api/users/1", "PUT"));
+        // 超级管理员直接放行；没有角色的用户一律拒绝
+        assertTrue(graph.permits(300L, OTHER, "/api/anything", "DELETE"));
+        assertFalse(graph.permits(999L, GET_USER, "/api/users/1", "GET"));
+    }
+
+    @Test
+    void roleSetOf_sameRolesShareEntry() {
+        PolicyGraph graph = PolicyGraph.of(1,
+                List.of(role(1, "VIEWER", ENABLED), role(2, "EDITOR", DISABLED)),
+                List.of(permission(10, "/api/users/**", "GET", ENABLED)),
+                List.of(rolePermission(1, 10)),
+                List.of(userRole(100, 1), userRole(101, 1), userRole(101, 2)));
+
+        // 禁用角色不计入角色组合
+        assertSame(graph.roleSetOf(100L), graph.roleSetOf(101L));
+        assertEquals("1", graph.roleSetOf(101L).getRoleSet());
+    }
+
+    @Test
+    void superAdmin_holdsAllActiveActions() {
+        PolicyGraph graph = sample();
+
+        assertTrue(graph.roleSetOf(300L).isSuperAdmin());
+        assertEquals(List.of(10L, 11L), graph.roleSetOf(300L).getPermissions().stream()
+                                              .map(PermissionVO::getPermissionId).toList());
+    }
+
+    /**
+     * 每次变更生成新实例，旧实例不受影响
+     */
+    @Test
+    void copyOnWrite_oldGraphUnchanged() {
+        PolicyGraph v1 = sample();
+
+        PolicyGraph v2 = v1.withUserRoles(Map.of(100L, List.of(2L), 200L, List.of()), 2)
+                           .withRoles(Map.of(2L, role(2, "EDITOR", ENABLED)), 3)
+                           .withRolePermissions(Map.of(2L, List.of(10L, 11L)), 4);
+
+        assertEquals(4, v2.version());
+        assertTrue(v2.permits(100L, GET_USER, "/api/users/1", "PUT"));
+        assertFalse(v2.permits(200L, GET_USER, "/api/users/1", "GET"));
+
+        assertEquals(1, v1.version());
+        assertFalse(v1.permits(100L, GET_USER, "/api/users/1", "PUT"));
+        assertTrue(v1.permits(100L, GET_USER, "/api/users/1", "GET"));
+    }
+
+    @Test
+    void withPermissions_disableAndDelete() {
+        PolicyGraph graph = sample().withPermissions(Map.of(12L, permission(12, "/api/roles/**", "GET", ENABLED)), 2);
+        assertTrue(graph.permits(100L, OTHER, "/api/roles/1", "GET"));
+
+        Map<Long, PermissionVO> deleted = new HashMap<>();
+        deleted.put(10L, null);
+        graph = graph.withPermissions(deleted, 3);
+        assertFalse(graph.permits(100L, GET_USER, "/api/users/1", "GET"));
+        assertEquals(List.of(11L, 12L), graph.activeActionPermissions().stream()
+                                             .map(PermissionVO::getPermissionId).toList());
+    }
+
+    /**
+     * 处理方法在索引中时按位图判定，结果与模式匹配一致；权限变化后索引作废
+     */
+    @Test
+    void handlerIndex_usedAndResetOnPermissionChange() {
+        PolicyGraph graph = sample();
+        HandlerPermissionIndex index = HandlerPermissionIndex.build(
+                List.of(new Route(GET_USER, Set.of("/api/users/{userId}"), Set.of("GET", "PUT"))),
+                graph.activeActionPermissions());
+        graph = graph.withHandlerIndex(index);
+
+        assertSame(index, graph.handlerIndex());
+        assertTrue(graph.permits(100L, GET_USER, "/api/users/1", "GET"));
+        assertFalse(graph.permits(100L, GET_USER, "/api/users/1", "PUT"));
+
+        assertSame(index, graph.withUserRoles(Map.of(100L, List.of()), 2).handlerIndex());
+        assertNull(graph.withPermissions(Map.of(), 2).handlerIndex());
+    }
+}
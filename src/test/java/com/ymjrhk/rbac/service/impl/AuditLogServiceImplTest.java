@@ -1,6 +1,7 @@
 package com.ymjrhk.rbac.service.impl;
 
 import com.github.pagehelper.Page;
+import com.ymjrhk.rbac.audit.AuditLogWriter;
 import com.ymjrhk.rbac.constant.SuccessConstant;
 import com.ymjrhk.rbac.dto.AuditLogPageQueryDTO;
 import com.ymjrhk.rbac.dto.AuditLogRealPageQueryDTO;
@@ -37,6 +38,9 @@ class AuditLogServiceImplTest {
     @Mock
     private UserMapper userMapper; // 构造器需要，但 pageQuery 用不到
 
+    @Mock
+    private AuditLogWriter auditLogWriter;
+
     // ========================= pageQuery() =========================
 
     /**
@@ -138,10 +142,10 @@ class AuditLogServiceImplTest {
     // ========================= save() =========================
 
     /**
-     * 测试插入日志
+     * 测试插入日志（交给批量写入器）
      */
     @Test
-    void save_success_callInsert() {
+    void save_success_submitToWriter() {
         // given
         AuditLog auditLog = new AuditLog();
         auditLog.setUserId(1L);
@@ -151,7 +155,8 @@ class AuditLogServiceImplTest {
         auditLogService.save(auditLog);
 
         // then
-        verify(auditLogMapper).insert(auditLog);
+        verify(auditLogWriter).submit(auditLog);
+        verify(auditLogMapper, never()).insert(any()); // 请求线程不直接写库
     }
 
     // ========================= saveLoginLog() =========================
@@ -176,7 +181,7 @@ class AuditLogServiceImplTest {
         );
 
         // then
-        verify(auditLogMapper).insert(argThat(log ->
+        verify(auditLogWriter).submit(argThat(log ->
                 log.getUserId().equals(userId)
                         && log.getUsername().equals(username)
                         && log.getPermissionName().equals(AUTH_LOGIN)
@@ -216,7 +221,7 @@ class AuditLogServiceImplTest {
         );
 
         // then
-        verify(auditLogMapper).insert(argThat(log ->
+        verify(auditLogWriter).submit(argThat(log ->
                 log.getUserId().equals(2L)
                         && log.getUsername().equals(username)
                         && log.getSuccess() == SuccessConstant.FAIL
@@ -249,7 +254,7 @@ class AuditLogServiceImplTest {
         );
 
         // then
-        verify(auditLogMapper).insert(argThat(log ->
+        verify(auditLogWriter).submit(argThat(log ->
                 log.getUserId() == null
                         && log.getUsername().equals(username)
                         && log.getSuccess() == SuccessConstant.FAIL
@@ -288,7 +293,7 @@ class AuditLogServiceImplTest {
         auditLogService.saveForbiddenLog(auditLog);
 
         // then
-        verify(auditLogMapper).insert(argThat(log ->
+        verify(auditLogWriter).submit(argThat(log ->
                 log.getUserId().equals(userId)
                         && log.getUsername().equals(username)
                         && log.getPath().equals(requestURI)
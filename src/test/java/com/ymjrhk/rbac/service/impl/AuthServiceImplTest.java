@@ -1,5 +1,7 @@
 package com.ymjrhk.rbac.service.impl;
 
+import com.ymjrhk.rbac.auth.JwtCodec;
+import com.ymjrhk.rbac.constant.JwtClaimsConstant;
 import com.ymjrhk.rbac.constant.StatusConstant;
 import com.ymjrhk.rbac.context.LoginUser;
 import com.ymjrhk.rbac.context.UserContext;
@@ -9,7 +11,6 @@ import com.ymjrhk.rbac.exception.AccountOrPasswordErrorException;
 import com.ymjrhk.rbac.exception.UserForbiddenException;
 import com.ymjrhk.rbac.exception.UserNotLoginException;
 import com.ymjrhk.rbac.mapper.UserMapper;
-import com.ymjrhk.rbac.properties.JwtProperties;
 import com.ymjrhk.rbac.service.UserService;
 import com.ymjrhk.rbac.vo.UserLoginVO;
 import org.junit.jupiter.api.AfterEach;
@@ -20,6 +21,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -37,7 +40,7 @@ class AuthServiceImplTest {
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private JwtProperties jwtProperties;
+    private JwtCodec jwtCodec;
 
     // login() 中没用到，但构造器需要
     @Mock
@@ -72,10 +75,11 @@ class AuthServiceImplTest {
                 .thenReturn(user);
         when(passwordEncoder.matches("123456#1", "ENCODED"))
                 .thenReturn(true);
-        when(jwtProperties.getSecretKey())
-                .thenReturn("test-jwt-secret-key-32-bytes!!!!");
-        when(jwtProperties.getTtl())
-                .thenReturn(3600000L);
+        when(jwtCodec.encode(Map.of(
+                JwtClaimsConstant.USER_ID, 1L,
+                JwtClaimsConstant.USERNAME, "zhangsan",
+                JwtClaimsConstant.AUTH_VERSION, 2)))
+                .thenReturn("jwt-token");
 
         // when
         UserLoginVO result = authService.login(dto);
@@ -85,7 +89,7 @@ class AuthServiceImplTest {
         assertEquals(1L, result.getUserId());
         assertEquals("zhangsan", result.getUsername());
         assertEquals("张三", result.getNickname());
-        assertNotNull(result.getToken());
+        assertEquals("jwt-token", result.getToken());
 
         verify(userMapper).getByUsername("zhangsan");
         verify(passwordEncoder)
@@ -0,0 +1,75 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.ymjrhk.rbac.auth.AuthorizationSnapshot;
+import com.ymjrhk.rbac.exception.UserNotExistException;
+import com.ymjrhk.rbac.mapper.UserMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static com.ymjrhk.rbac.constant.StatusConstant.ENABLED;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthorizationSnapshotServiceImplTest {
+
+    @InjectMocks
+    private AuthorizationSnapshotServiceImpl authorizationSnapshotService;
+
+    @Mock
+    private UserMapper userMapper;
+
+    // ========================= getSnapshot() =========================
+
+    /**
+     * 用户不存在
+     */
+    @Test
+    void getSnapshot_userNotExist_throwException() {
+        when(userMapper.selectAuthorizationSnapshot(1L))
+                .thenReturn(null);
+
+        assertThrows(UserNotExistException.class,
+                () -> authorizationSnapshotService.getSnapshot(1L));
+    }
+
+    /**
+     * 快照只带非禁用 roleId，权限按角色组合签名另外取
+     */
+    @Test
+    void getSnapshot_roleSetSignature() {
+        when(userMapper.selectAuthorizationSnapshot(2L))
+                .thenReturn(snapshot(2L, List.of(2L, 5L)));
+
+        AuthorizationSnapshot result = authorizationSnapshotService.getSnapshot(2L);
+
+        assertEquals("zhangsan", result.getUsername());
+        assertEquals("2,5", result.roleSet());
+    }
+
+    /**
+     * 没有非禁用角色：签名为空串
+     */
+    @Test
+    void getSnapshot_noRole_emptyRoleSet() {
+        when(userMapper.selectAuthorizationSnapshot(3L))
+                .thenReturn(snapshot(3L, List.of()));
+
+        assertEquals("", authorizationSnapshotService.getSnapshot(3L).roleSet());
+    }
+
+    private static AuthorizationSnapshot snapshot(Long userId, List<Long> roleIds) {
+        AuthorizationSnapshot snapshot = new AuthorizationSnapshot();
+        snapshot.setUserId(userId);
+        snapshot.setUsername("zhangsan");
+        snapshot.setStatus(ENABLED);
+        snapshot.setAuthVersion(1);
+        snapshot.setRoleIds(roleIds);
+        return snapshot;
+    }
+}
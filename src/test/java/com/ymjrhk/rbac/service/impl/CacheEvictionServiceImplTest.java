@@ -0,0 +1,139 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.ymjrhk.rbac.auth.IdSet;
+import com.ymjrhk.rbac.cache.TwoLevelCacheManager;
+import com.ymjrhk.rbac.mapper.RoleMapper;
+import com.ymjrhk.rbac.service.AuthorizationIndexService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.ymjrhk.rbac.constant.CacheConstant.*;
+import static com.ymjrhk.rbac.constant.RoleNameConstant.SUPER_ADMIN;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheEvictionServiceImplTest {
+
+    @InjectMocks
+    private CacheEvictionServiceImpl cacheEvictionService;
+
+    @Mock
+    private TwoLevelCacheManager cacheManager;
+
+    @Mock
+    private AuthorizationIndexService authorizationIndexService;
+
+    @Mock
+    private RoleMapper roleMapper;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * 角色变更：只清持有这些角色的用户（去重）
+     */
+    @Test
+    void evictUsersOfRoles_onlyHolders() {
+        when(authorizationIndexService.getUserIdsByRoleId(1L)).thenReturn(new IdSet(Set.of(10L, 11L)));
+        when(authorizationIndexService.getUserIdsByRoleId(2L)).thenReturn(new IdSet(Set.of(11L, 12L)));
+
+        cacheEvictionService.evictUsersOfRoles(List.of(1L, 2L), USER_AUTHZ, USER_ME);
+
+        verify(cacheManager).evictAll(List.of(USER_AUTHZ, USER_ME), Set.of(10L, 11L, 12L));
+    }
+
+    /**
+     * 权限变更：持有该权限的角色 + 超级管理员角色
+     */
+    @Test
+    void evictHoldersOfPermission_includeSuperAdmin() {
+        when(authorizationIndexService.getRoleIdsByPermissionId(5L)).thenReturn(new IdSet(Set.of(2L)));
+        when(roleMapper.selectRoleIdByRoleName(SUPER_ADMIN)).thenReturn(1L);
+        when(authorizationIndexService.getUserIdsByRoleId(1L)).thenReturn(new IdSet(Set.of(10L)));
+        when(authorizationIndexService.getUserIdsByRoleId(2L)).thenReturn(new IdSet(Set.of(20L)));
+
+        Cache roleSets = mock(Cache.class);
+        Cache actions = mock(Cache.class);
+        when(cacheManager.getCache(ROLE_SET_PERMISSIONS)).thenReturn(roleSets);
+        when(cacheManager.getCache(PERMISSION_ACTIONS)).thenReturn(actions);
+
+        cacheEvictionService.evictHoldersOfPermission(5L, USER_ME);
+
+        verify(cacheManager).evictAll(List.of(ROLE_PERMISSIONS), Set.of(1L, 2L));
+        verify(roleSets).clear();
+        // path / method / 状态可能变了，各节点重建处理方法 -> 权限索引
+        verify(actions).clear();
+        verify(cacheManager).evictAll(List.of(USER_ME), Set.of(10L, 20L));
+    }
+
+    /**
+     * 角色权限变化：只删这些角色的 ROLE_PERMISSIONS 并清空角色组合，不逐个失效用户
+     */
+    @Test
+    void evictRolePermissions_clearRoleSets() {
+        Cache roleSets = mock(Cache.class);
+        when(cacheManager.getCache(ROLE_SET_PERMISSIONS)).thenReturn(roleSets);
+
+        cacheEvictionService.evictRolePermissions(List.of(3L));
+
+        verify(cacheManager).evictAll(List.of(ROLE_PERMISSIONS), List.of(3L));
+        verify(roleSets).clear();
+        verify(cacheManager, never()).evictAll(eq(List.of(USER_ME)), anyCollection());
+        verifyNoInteractions(authorizationIndexService);
+    }
+
+    /**
+     * 事务中：提交后才失效，回滚不失效
+     */
+    @Test
+    void evict_inTransaction_afterCommitOnly() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheEvictionService.evictRoleUsersIndex(List.of(1L));
+        verify(cacheManager, never()).evictAll(anyCollection(), anyCollection());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        verify(cacheManager).evictAll(List.of(ROLE_USERS), List.of(1L));
+    }
+
+    /**
+     * 新建数据：删掉新 ID 下可能缓存的“不存在”哨兵
+     */
+    @Test
+    void evictCreated_newIdInGivenCaches() {
+        cacheEvictionService.evictCreated(7L, USER_BASIC, USER_AUTH);
+
+        verify(cacheManager).evictAll(List.of(USER_BASIC, USER_AUTH), List.of(7L));
+    }
+
+    /**
+     * 失效失败不影响业务（事务已提交）
+     */
+    @Test
+    void evict_redisFail_swallow() {
+        doThrow(new IllegalStateException("Redis 不可用")).when(cacheManager).evictAll(any(), any());
+
+        cacheEvictionService.evictPermissionRolesIndex(List.of(3L));
+
+        verify(cacheManager).evictAll(List.of(PERMISSION_ROLES), List.of(3L));
+    }
+}
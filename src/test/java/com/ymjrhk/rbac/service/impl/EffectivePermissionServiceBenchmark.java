@@ -0,0 +1,152 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.ymjrhk.rbac.service.RolePermissionService;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 10 万用户 / 1000 角色：按角色缓存的权限在内存中合并 vs 每个用户一次 distinct 联表
+ * <p>
+ * 联表一侧在内存中模拟（sys_user_role → sys_role_permission → sys_permission 哈希连接 + 去重，
+ * 每行新建一个 PermissionVO，与 MyBatis 映射结果相同），不含网络和数据库本身的开销，只是下限；
+ * 另外统计两种方式每个用户从数据库取回的行数。
+ * <p>
+ * 默认不运行：mvn test -Dtest=EffectivePermissionServiceBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class EffectivePermissionServiceBenchmark {
+
+    private static final int USERS = 100_000;
+
+    private static final int ROLES = 1_000;
+
+    private static final int PERMISSIONS = 2_000;
+
+    private static final int ROUNDS = 5;
+
+    @Test
+    void unionVsJoin() {
+        Random random = new Random(42);
+
+        // 权限：10% 禁用
+        Map<Long, PermissionVO> permissionTable = new HashMap<>();
+        for (long p = 1; p <= PERMISSIONS; p++) {
+            PermissionVO permission = new PermissionVO();
+            permission.setPermissionId(p);
+            permission.setPermissionName("PERMISSION:" + p);
+            permission.setPath("/api/module" + p + "/**");
+            permission.setMethod("GET");
+            permission.setStatus(random.nextInt(10) == 0 ? 0 : 1);
+            permissionTable.put(p, permission);
+        }
+
+        // 角色 → 权限：每个角色 20 ~ 200 个（sys_role_permission）
+        Map<Long, List<Long>> rolePermissionTable = new HashMap<>();
+        for (long r = 1; r <= ROLES; r++) {
+            Set<Long> ids = new HashSet<>();
+            int size = 20 + random.nextInt(181);
+            while (ids.size() < size) {
+                ids.add(1L + random.nextInt(PERMISSIONS));
+            }
+            rolePermissionTable.put(r, new ArrayList<>(ids));
+        }
+
+        // 用户 → 角色：1 ~ 4 个，偏向前 50 个常用角色（sys_user_role）
+        long[][] userRoles = new long[USERS][];
+        for (int u = 0; u < USERS; u++) {
+            Set<Long> ids = new HashSet<>();
+            int size = 1 + random.nextInt(4);
+            while (ids.size() < size) {
+                ids.add(random.nextInt(10) < 8 ? 1L + random.nextInt(50) : 1L + random.nextInt(ROLES));
+            }
+            userRoles[u] = ids.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        // ROLE_PERMISSIONS 缓存（只含非禁用权限）
+        Map<Long, List<PermissionVO>> rolePermissionCache = new HashMap<>();
+        rolePermissionTable.forEach((roleId, ids) -> rolePermissionCache.put(roleId,
+                ids.stream().map(permissionTable::get).filter(p -> p.getStatus() == 1).toList()));
+        EffectivePermissionServiceImpl service = new EffectivePermissionServiceImpl(new RolePermissionService() {
+            @Override
+            public void assignPermissionsToRole(Long roleId, List<Long> permissionIds) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public List<PermissionVO> getRolePermissions(Long roleId) {
+                return rolePermissionCache.get(roleId);
+            }
+        });
+
+        long joinRows = 0;
+        long roleRows = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int u = 0; u < USERS; u++) {
+                List<PermissionVO> joined = join(userRoles[u], rolePermissionTable, permissionTable);
+                sink += joined.size();
+            }
+            long join = System.nanoTime() - start;
+            joinRows = sink;
+
+            sink = 0;
+            start = System.nanoTime();
+            for (int u = 0; u < USERS; u++) {
+                List<Long> roleIds = new ArrayList<>(userRoles[u].length);
+                for (long roleId : userRoles[u]) {
+                    roleIds.add(roleId);
+                }
+                sink += service.unionOfRoles(roleIds).size();
+                roleRows += roleIds.size();
+            }
+            long union = System.nanoTime() - start;
+            if (sink != joinRows) {
+                throw new IllegalStateException("结果不一致：join=" + joinRows + ", union=" + sink);
+            }
+
+            System.out.printf("round=%d users=%d join(in-memory)=%5d ns/user  union=%5d ns/user%n",
+                    round, USERS, join / USERS, union / USERS);
+        }
+        System.out.printf("rows fetched from DB per user: join=%.1f (full permission rows)  union=%.1f (role ids)%n",
+                (double) joinRows / USERS, (double) roleRows / ROUNDS / USERS);
+    }
+
+    /**
+     * 模拟 select distinct ... from sys_user_role ⋈ sys_role_permission ⋈ sys_permission where p.status = 1
+     */
+    private static List<PermissionVO> join(long[] roleIds,
+                                           Map<Long, List<Long>> rolePermissionTable,
+                                           Map<Long, PermissionVO> permissionTable) {
+        Set<Long> seen = new HashSet<>();
+        List<PermissionVO> rows = new ArrayList<>();
+        for (long roleId : roleIds) {
+            for (Long permissionId : rolePermissionTable.get(roleId)) {
+                PermissionVO p = permissionTable.get(permissionId);
+                if (p.getStatus() == 1 && seen.add(permissionId)) {
+                    rows.add(copy(p));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static PermissionVO copy(PermissionVO p) {
+        PermissionVO row = new PermissionVO();
+        row.setPermissionId(p.getPermissionId());
+        row.setPermissionName(p.getPermissionName());
+        row.setPath(p.getPath());
+        row.setMethod(p.getMethod());
+        row.setStatus(p.getStatus());
+        return row;
+    }
+}
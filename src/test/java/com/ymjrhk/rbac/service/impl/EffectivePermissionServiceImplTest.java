@@ -0,0 +1,97 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.ymjrhk.rbac.service.RolePermissionService;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EffectivePermissionServiceImplTest {
+
+    @InjectMocks
+    private EffectivePermissionServiceImpl effectivePermissionService;
+
+    @Mock
+    private RolePermissionService rolePermissionService;
+
+    /**
+     * 多个角色的权限合并，按 permissionId 去重，保持顺序
+     */
+    @Test
+    void unionOfRoles_distinctInOrder() {
+        // given
+        PermissionVO view = permission(1L, "USER:VIEW");
+        PermissionVO create = permission(2L, "USER:CREATE");
+        PermissionVO assign = permission(3L, "ROLE:ASSIGN");
+
+        when(rolePermissionService.getRolePermissions(10L))
+                .thenReturn(List.of(view, create));
+        when(rolePermissionService.getRolePermissions(20L))
+                .thenReturn(List.of(create, assign));
+
+        // when
+        List<PermissionVO> result = effectivePermissionService.unionOfRoles(List.of(10L, 20L));
+
+        // then
+        assertEquals(List.of(view, create, assign), result);
+    }
+
+    /**
+     * 超级管理员角色的权限集合（ROLE_PERMISSIONS 中即全部非禁用权限）与其他角色合并
+     */
+    @Test
+    void unionOfRoles_superAdminRole_allPermissions() {
+        // given
+        List<PermissionVO> all = List.of(permission(1L, "USER:VIEW"), permission(2L, "USER:CREATE"));
+
+        when(rolePermissionService.getRolePermissions(1L)).thenReturn(all);
+        when(rolePermissionService.getRolePermissions(10L)).thenReturn(List.of(all.getFirst()));
+
+        // when
+        List<PermissionVO> result = effectivePermissionService.unionOfRoles(List.of(1L, 10L));
+
+        // then
+        assertEquals(all, result);
+    }
+
+    /**
+     * 没有非禁用角色：空列表，不查角色权限
+     */
+    @Test
+    void unionOfRoles_noRole_empty() {
+        assertTrue(effectivePermissionService.unionOfRoles(List.of()).isEmpty());
+        verifyNoInteractions(rolePermissionService);
+    }
+
+    /**
+     * 单个角色：返回副本，修改结果不影响缓存中的角色权限
+     */
+    @Test
+    void unionOfRoles_singleRole_copy() {
+        // given
+        List<PermissionVO> cached = List.of(permission(1L, "USER:VIEW"));
+        when(rolePermissionService.getRolePermissions(10L)).thenReturn(cached);
+
+        // when
+        List<PermissionVO> result = effectivePermissionService.unionOfRoles(List.of(10L));
+        result.clear();
+
+        // then
+        assertEquals(1, cached.size());
+    }
+
+    static PermissionVO permission(Long permissionId, String permissionName) {
+        PermissionVO permission = new PermissionVO();
+        permission.setPermissionId(permissionId);
+        permission.setPermissionName(permissionName);
+        return permission;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ymjrhk.rbac.service.impl;
 
+import com.ymjrhk.rbac.auth.RoleSetPermissions;
 import com.ymjrhk.rbac.constant.OperateTypeConstant;
 import com.ymjrhk.rbac.constant.StatusConstant;
 import com.ymjrhk.rbac.context.LoginUser;
@@ -12,8 +13,8 @@ import com.ymjrhk.rbac.exception.UpdateFailedException;
 import com.ymjrhk.rbac.exception.UserForbiddenException;
 import com.ymjrhk.rbac.exception.UserNotExistException;
 import com.ymjrhk.rbac.mapper.MeMapper;
-import com.ymjrhk.rbac.mapper.PermissionMapper;
 import com.ymjrhk.rbac.mapper.UserMapper;
+import com.ymjrhk.rbac.service.RoleSetPermissionService;
 import com.ymjrhk.rbac.service.UserHistoryService;
 import com.ymjrhk.rbac.vo.MePermissionVO;
 import com.ymjrhk.rbac.vo.MeRoleVO;
@@ -52,7 +53,7 @@ class MeServiceImplTest {
     private PasswordEncoder passwordEncoder; // 构造器需要
 
     @Mock
-    private PermissionMapper permissionMapper;
+    private RoleSetPermissionService roleSetPermissionService;
 
     @AfterEach
     void tearDown() {
@@ -75,17 +76,20 @@ class MeServiceImplTest {
         meViewVO.setUsername("zhangsan");
 
         MeRoleVO role = new MeRoleVO();
+        role.setRoleId(2L);
         role.setRoleName("USER");
 
-        MePermissionVO permission = new MePermissionVO();
+        PermissionVO permission = new PermissionVO();
+        permission.setPermissionId(10L);
         permission.setPermissionName("USER:VIEW");
+        permission.setPath("/api/users");
 
         when(meMapper.getByUserId(userId))
                 .thenReturn(meViewVO);
         when(meMapper.selectRolesByUserId(userId))
                 .thenReturn(List.of(role));
-        when(meMapper.selectPermissionsByUserId(userId))
-                .thenReturn(List.of(permission));
+        when(roleSetPermissionService.getRoleSetPermissions("2"))
+                .thenReturn(roleSet(List.of(permission)));
 
         // when
         MeViewVO result = meService.query();
@@ -96,10 +100,11 @@ class MeServiceImplTest {
         assertEquals(1, result.getRoles().size());
         assertEquals("USER", result.getRoles().get(0).getRoleName());
 
+        // 角色组合的权限转成 MePermissionVO
         assertEquals(1, result.getPermissions().size());
-        assertEquals("USER:VIEW", result.getPermissions().get(0).getPermissionName());
-
-        verify(permissionMapper, never()).listAllActivePermissions();
+        MePermissionVO mePermission = result.getPermissions().get(0);
+        assertEquals(10L, mePermission.getPermissionId());
+        assertEquals("USER:VIEW", mePermission.getPermissionName());
     }
 
     /**
@@ -116,6 +121,7 @@ class MeServiceImplTest {
         meViewVO.setUsername("admin");
 
         MeRoleVO superAdminRole = new MeRoleVO();
+        superAdminRole.setRoleId(1L);
         superAdminRole.setRoleName(SUPER_ADMIN);
 
         PermissionVO permissionVO = new PermissionVO();
@@ -125,8 +131,9 @@ class MeServiceImplTest {
                 .thenReturn(meViewVO);
         when(meMapper.selectRolesByUserId(userId))
                 .thenReturn(List.of(superAdminRole));
-        when(permissionMapper.listAllActivePermissions())
-                .thenReturn(List.of(permissionVO));
+        // 超级管理员角色的权限集合即全部非禁用权限
+        when(roleSetPermissionService.getRoleSetPermissions("1"))
+                .thenReturn(roleSet(List.of(permissionVO)));
 
         // when
         MeViewVO result = meService.query();
@@ -136,8 +143,7 @@ class MeServiceImplTest {
         assertEquals(1, result.getPermissions().size());
         assertEquals("USER:VIEW", result.getPermissions().get(0).getPermissionName());
 
-        verify(permissionMapper).listAllActivePermissions();
-        verify(meMapper, never()).selectPermissionsByUserId(anyLong());
+        verify(roleSetPermissionService).getRoleSetPermissions("1");
     }
 
     /**
@@ -449,13 +455,9 @@ class MeServiceImplTest {
                 .recordHistory(anyLong(), anyInt());
     }
 
-
-
-
-
-
-
-
-
-
+    private static RoleSetPermissions roleSet(List<PermissionVO> permissions) {
+        RoleSetPermissions roleSet = new RoleSetPermissions();
+        roleSet.setPermissions(permissions);
+        return roleSet;
+    }
 }
@@ -13,6 +13,8 @@ import com.ymjrhk.rbac.entity.Permission;
 import com.ymjrhk.rbac.exception.*;
 import com.ymjrhk.rbac.mapper.PermissionMapper;
 import com.ymjrhk.rbac.result.PageResult;
+import com.ymjrhk.rbac.service.CacheEvictionService;
+import com.ymjrhk.rbac.service.PolicyChangeService;
 import com.ymjrhk.rbac.service.PermissionHistoryService;
 import com.ymjrhk.rbac.vo.PermissionVO;
 import org.junit.jupiter.api.AfterEach;
@@ -25,6 +27,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
 
+import static com.ymjrhk.rbac.constant.CacheConstant.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
@@ -42,6 +45,12 @@ class PermissionServiceImplTest {
     @Mock
     private PermissionHistoryService permissionHistoryService;
 
+    @Mock
+    private CacheEvictionService cacheEvictionService;
+
+    @Mock
+    private PolicyChangeService policyChangeService;
+
     @BeforeEach
     void setUp() {
         UserContext.set(new LoginUser(100L, "admin"));
@@ -90,6 +99,7 @@ class PermissionServiceImplTest {
 
         verify(permissionHistoryService)
                 .recordHistory(10L, OperateTypeConstant.CREATE);
+        verify(cacheEvictionService).evictCreated(10L, PERMISSION_BASIC, PERMISSION_ROLES);
     }
 
     /**
@@ -465,6 +475,31 @@ class PermissionServiceImplTest {
                 .recordHistory(anyLong(), any());
     }
 
+    /**
+     * 构建处理方法 -> 权限索引用的列表只含 ACTION 权限
+     */
+    @Test
+    void listActiveActionPermissions_onlyAction() {
+        // given
+        PermissionVO module = new PermissionVO();
+        module.setPermissionId(1L);
+        module.setType(PermissionTypeConstant.MODULE);
+        PermissionVO action = new PermissionVO();
+        action.setPermissionId(2L);
+        action.setType(PermissionTypeConstant.ACTION);
+        action.setPath("/api/users/**");
+        action.setMethod("GET");
+
+        when(permissionMapper.listAllActivePermissions())
+                .thenReturn(List.of(module, action));
+
+        // when
+        List<PermissionVO> result = permissionService.listActiveActionPermissions();
+
+        // then
+        assertEquals(List.of(action), result);
+    }
+
 
 
 
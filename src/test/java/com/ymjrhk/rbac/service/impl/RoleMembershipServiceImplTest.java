@@ -0,0 +1,61 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.ymjrhk.rbac.mapper.UserRoleMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.ymjrhk.rbac.constant.RoleNameConstant.SUPER_ADMIN;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleMembershipServiceImplTest {
+
+    @InjectMocks
+    private RoleMembershipServiceImpl roleMembershipService;
+
+    @Mock
+    private UserRoleMapper userRoleMapper;
+
+    // ========================= getEnabledRoleNames() =========================
+
+    /**
+     * 查询结果转成集合
+     */
+    @Test
+    void getEnabledRoleNames_returnSet() {
+        // given
+        when(userRoleMapper.selectEnabledRoleNamesByUserId(1L))
+                .thenReturn(List.of(SUPER_ADMIN, "ADMIN"));
+
+        // when
+        Set<String> roleNames = roleMembershipService.getEnabledRoleNames(1L);
+
+        // then
+        assertEquals(Set.of(SUPER_ADMIN, "ADMIN"), roleNames);
+        verify(userRoleMapper).selectEnabledRoleNamesByUserId(1L);
+    }
+
+    /**
+     * 没有角色（或用户不存在）→ 空集合，不返回 null
+     */
+    @Test
+    void getEnabledRoleNames_noRole_returnEmptySet() {
+        // given
+        when(userRoleMapper.selectEnabledRoleNamesByUserId(2L))
+                .thenReturn(List.of());
+
+        // when
+        Set<String> roleNames = roleMembershipService.getEnabledRoleNames(2L);
+
+        // then
+        assertNotNull(roleNames);
+        assertTrue(roleNames.isEmpty());
+    }
+}
@@ -5,6 +5,9 @@ import com.ymjrhk.rbac.context.UserContext;
 import com.ymjrhk.rbac.entity.Role;
 import com.ymjrhk.rbac.exception.*;
 import com.ymjrhk.rbac.mapper.*;
+import com.ymjrhk.rbac.service.CacheEvictionService;
+import com.ymjrhk.rbac.service.PolicyChangeService;
+import com.ymjrhk.rbac.service.RoleMembershipService;
 import com.ymjrhk.rbac.vo.PermissionVO;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +20,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.List;
 import java.util.Set;
 
+import static com.ymjrhk.rbac.constant.CacheConstant.*;
 import static com.ymjrhk.rbac.constant.RoleNameConstant.SUPER_ADMIN;
 import static com.ymjrhk.rbac.constant.StatusConstant.DISABLED;
 import static com.ymjrhk.rbac.constant.StatusConstant.ENABLED;
@@ -45,7 +49,13 @@ class RolePermissionServiceImplTest {
     private UserMapper userMapper;
 
     @Mock
-    private UserRoleMapper userRoleMapper;
+    private RoleMembershipService roleMembershipService;
+
+    @Mock
+    private CacheEvictionService cacheEvictionService;
+
+    @Mock
+    private PolicyChangeService policyChangeService;
 
     @BeforeEach
     void setUp() {
@@ -158,8 +168,8 @@ class RolePermissionServiceImplTest {
         when(permissionMapper.selectEnabledPermissionIds(List.of(10L)))
                 .thenReturn(List.of(10L));
 
-        when(userRoleMapper.userHasRole(100L, SUPER_ADMIN))
-                .thenReturn(false);
+        when(roleMembershipService.getEnabledRoleNames(100L))
+                .thenReturn(Set.of("ADMIN"));
 
         // 我只拥有 permissionId = 20
         when(userMapper.selectPermissionIdsByUserIdAndStatus(100L, ENABLED))
@@ -183,8 +193,8 @@ class RolePermissionServiceImplTest {
 
         when(roleMapper.getByRoleId(1L)).thenReturn(role);
 
-        when(userRoleMapper.userHasRole(100L, SUPER_ADMIN))
-                .thenReturn(true);
+        when(roleMembershipService.getEnabledRoleNames(100L))
+                .thenReturn(Set.of(SUPER_ADMIN));
 
         when(permissionMapper.selectAllEnabledPermissionIds())
                 .thenReturn(List.of(1L, 2L));
@@ -215,8 +225,8 @@ class RolePermissionServiceImplTest {
         when(permissionMapper.selectEnabledPermissionIds(List.of(10L)))
                 .thenReturn(List.of(10L));
 
-        when(userRoleMapper.userHasRole(100L, SUPER_ADMIN))
-                .thenReturn(false);
+        when(roleMembershipService.getEnabledRoleNames(100L))
+                .thenReturn(Set.of("ADMIN"));
 
         when(userMapper.selectPermissionIdsByUserIdAndStatus(100L, ENABLED))
                 .thenReturn(List.of(10L));
@@ -235,6 +245,11 @@ class RolePermissionServiceImplTest {
                         list.getFirst().getPermissionId().equals(10L) &&
                         list.getFirst().getCreateUserId().equals(100L)
         ));
+        // 清该角色的权限和角色组合，只清持有该角色的用户的 /me，并维护权限 -> 角色索引
+        verify(cacheEvictionService).evictRolePermissions(List.of(1L));
+        verify(cacheEvictionService).evictUsersOfRoles(List.of(1L), USER_ME);
+        verify(cacheEvictionService).evictPermissionRolesIndex(List.of(10L));
+        verify(policyChangeService).rolePermissionsChanged(1L);
     }
 
     /**
@@ -252,8 +267,8 @@ class RolePermissionServiceImplTest {
         when(permissionMapper.selectEnabledPermissionIds(List.of(1L, 2L)))
                 .thenReturn(List.of(1L, 2L));
 
-        when(userRoleMapper.userHasRole(100L, SUPER_ADMIN))
-                .thenReturn(true);
+        when(roleMembershipService.getEnabledRoleNames(100L))
+                .thenReturn(Set.of(SUPER_ADMIN));
 
         when(permissionMapper.selectAllEnabledPermissionIds())
                 .thenReturn(List.of(1L, 2L, 3L));
@@ -285,8 +300,8 @@ class RolePermissionServiceImplTest {
         when(permissionMapper.selectEnabledPermissionIds(List.of(1L)))
                 .thenReturn(List.of(1L));
 
-        when(userRoleMapper.userHasRole(100L, SUPER_ADMIN))
-                .thenReturn(false);
+        when(roleMembershipService.getEnabledRoleNames(100L))
+                .thenReturn(Set.of("ADMIN"));
 
         when(userMapper.selectPermissionIdsByUserIdAndStatus(100L, ENABLED))
                 .thenReturn(List.of(1L));
@@ -12,6 +12,8 @@ import com.ymjrhk.rbac.entity.Role;
 import com.ymjrhk.rbac.exception.*;
 import com.ymjrhk.rbac.mapper.RoleMapper;
 import com.ymjrhk.rbac.result.PageResult;
+import com.ymjrhk.rbac.service.CacheEvictionService;
+import com.ymjrhk.rbac.service.PolicyChangeService;
 import com.ymjrhk.rbac.service.RoleHistoryService;
 import com.ymjrhk.rbac.vo.RoleVO;
 import org.junit.jupiter.api.AfterEach;
@@ -24,6 +26,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
 
+import static com.ymjrhk.rbac.constant.CacheConstant.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
@@ -41,6 +44,12 @@ class RoleServiceImplTest {
     @Mock
     private RoleHistoryService roleHistoryService;
 
+    @Mock
+    private CacheEvictionService cacheEvictionService;
+
+    @Mock
+    private PolicyChangeService policyChangeService;
+
     @BeforeEach
     void setUp() {
         // 模拟当前登录用户
@@ -86,6 +95,7 @@ class RoleServiceImplTest {
 
         verify(roleHistoryService)
                 .recordHistory(10L, OperateTypeConstant.CREATE);
+        verify(cacheEvictionService).evictCreated(10L, ROLE_BASIC, ROLE_PERMISSIONS, ROLE_USERS);
     }
 
     /**
@@ -369,6 +379,11 @@ class RoleServiceImplTest {
         // when
         roleService.changeStatus(roleId, newStatus);
 
+        verify(cacheEvictionService).evictUsersOfRoles(List.of(roleId),
+                USER_ROLES, USER_ROLE_NAMES, USER_AUTHZ, USER_ME);
+        verify(cacheEvictionService).evictRolePermissions(List.of(roleId));
+        verify(policyChangeService).roleChanged(roleId);
+
         // then
         verify(roleMapper).update(argThat(role ->
                 role.getRoleId().equals(roleId)
@@ -0,0 +1,107 @@
+package com.ymjrhk.rbac.service.impl;
+
+import com.ymjrhk.rbac.auth.RoleSetPermissions;
+import com.ymjrhk.rbac.constant.PermissionTypeConstant;
+import com.ymjrhk.rbac.mapper.RoleMapper;
+import com.ymjrhk.rbac.service.EffectivePermissionService;
+import com.ymjrhk.rbac.vo.PermissionVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static com.ymjrhk.rbac.constant.RoleNameConstant.SUPER_ADMIN;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleSetPermissionServiceImplTest {
+
+    @InjectMocks
+    private RoleSetPermissionServiceImpl roleSetPermissionService;
+
+    @Mock
+    private EffectivePermissionService effectivePermissionService;
+
+    @Mock
+    private RoleMapper roleMapper;
+
+    /**
+     * 签名与 roleId 顺序、重复无关
+     */
+    @Test
+    void signature_sortedAndDistinct() {
+        assertEquals("1,5,9", RoleSetPermissions.signature(List.of(9L, 1L, 5L, 1L)));
+        assertEquals("", RoleSetPermissions.signature(List.of()));
+        assertEquals(List.of(1L, 5L, 9L), RoleSetPermissions.roleIds("1,5,9"));
+        assertEquals(List.of(), RoleSetPermissions.roleIds(""));
+    }
+
+    /**
+     * 普通角色组合：按合并后的接口权限判定
+     */
+    @Test
+    void getRoleSetPermissions_normalRoles_matchByPermissions() {
+        when(effectivePermissionService.unionOfRoles(List.of(2L, 3L)))
+                .thenReturn(List.of(action("/api/users/**", "GET")));
+        when(roleMapper.selectRoleIdByRoleName(SUPER_ADMIN)).thenReturn(1L);
+
+        RoleSetPermissions result = roleSetPermissionService.getRoleSetPermissions("2,3");
+
+        assertEquals("2,3", result.getRoleSet());
+        assertFalse(result.isSuperAdmin());
+        assertTrue(result.permits("/api/users/1", "GET"));
+        assertFalse(result.permits("/api/users/1", "DELETE"));
+        assertFalse(result.permits("/api/roles", "GET"));
+    }
+
+    /**
+     * 包含超级管理员角色：直接放行
+     */
+    @Test
+    void getRoleSetPermissions_superAdmin_permitAll() {
+        when(effectivePermissionService.unionOfRoles(List.of(1L, 2L))).thenReturn(List.of());
+        when(roleMapper.selectRoleIdByRoleName(SUPER_ADMIN)).thenReturn(1L);
+
+        RoleSetPermissions result = roleSetPermissionService.getRoleSetPermissions("1,2");
+
+        assertTrue(result.isSuperAdmin());
+        assertTrue(result.permits("/api/anything", "DELETE"));
+    }
+
+    /**
+     * 没有角色：不查超级管理员角色，全部拒绝
+     */
+    @Test
+    void getRoleSetPermissions_noRole_denyAll() {
+        when(effectivePermissionService.unionOfRoles(List.of())).thenReturn(List.of());
+
+        RoleSetPermissions result = roleSetPermissionService.getRoleSetPermissions("");
+
+        assertFalse(result.permits("/api/users", "GET"));
+        verifyNoInteractions(roleMapper);
+    }
+
+    /**
+     * 从 Redis 反序列化出来的条目没有匹配器，首次判定时编译
+     */
+    @Test
+    void roleSetPermissions_withoutCompiledMatcher_compileLazily() {
+        RoleSetPermissions fromRedis = new RoleSetPermissions();
+        fromRedis.setPermissions(List.of(action("/api/roles/*", "POST")));
+
+        assertTrue(fromRedis.permits("/api/roles/1", "post"));
+        assertFalse(fromRedis.permits("/api/roles/1/permissions", "POST"));
+    }
+
+    private static PermissionVO action(String path, String method) {
+        PermissionVO p = new PermissionVO();
+        p.setType(PermissionTypeConstant.ACTION);
+        p.setPath(path);
+        p.setMethod(method);
+        return p;
+    }
+}
@@ -7,6 +7,9 @@ import com.ymjrhk.rbac.exception.*;
 import com.ymjrhk.rbac.mapper.RoleMapper;
 import com.ymjrhk.rbac.mapper.UserMapper;
 import com.ymjrhk.rbac.mapper.UserRoleMapper;
+import com.ymjrhk.rbac.service.CacheEvictionService;
+import com.ymjrhk.rbac.service.PolicyChangeService;
+import com.ymjrhk.rbac.service.RoleMembershipService;
 import com.ymjrhk.rbac.vo.RoleVO;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -41,6 +44,15 @@ class UserRoleServiceImplTest {
     @Mock
     private RoleMapper roleMapper;
 
+    @Mock
+    private RoleMembershipService roleMembershipService;
+
+    @Mock
+    private CacheEvictionService cacheEvictionService;
+
+    @Mock
+    private PolicyChangeService policyChangeService;
+
     @BeforeEach
     void setUp() {
         // 模拟当前操作人
@@ -141,8 +153,8 @@ class UserRoleServiceImplTest {
                 .thenReturn(List.of(1L));
 
         // 当前操作人不是超级管理员
-        when(userRoleMapper.userHasRole(100L, SUPER_ADMIN))
-                .thenReturn(false);
+        when(roleMembershipService.getEnabledRoleNames(100L))
+                .thenReturn(Set.of("ADMIN"));
 
         // 我自己只拥有 roleId = 2
         when(userRoleMapper.selectRoleIdsByUserIdAndStatus(100L, ENABLED))
@@ -167,8 +179,8 @@ class UserRoleServiceImplTest {
 
         when(userMapper.getByUserId(1L)).thenReturn(user);
 
-        when(userRoleMapper.userHasRole(100L, SUPER_ADMIN))
-                .thenReturn(true);
+        when(roleMembershipService.getEnabledRoleNames(100L))
+                .thenReturn(Set.of(SUPER_ADMIN));
 
         when(roleMapper.selectAllEnabledRoleIds())
                 .thenReturn(List.of(1L, 2L));
@@ -201,8 +213,8 @@ class UserRoleServiceImplTest {
         when(roleMapper.selectEnabledRoleIds(List.of(1L)))
                 .thenReturn(List.of(1L));
 
-        when(userRoleMapper.userHasRole(100L, SUPER_ADMIN))
-                .thenReturn(false);
+        when(roleMembershipService.getEnabledRoleNames(100L))
+                .thenReturn(Set.of("ADMIN"));
 
         when(userRoleMapper.selectRoleIdsByUserIdAndStatus(100L, ENABLED))
                 .thenReturn(List.of(1L));
@@ -242,8 +254,8 @@ class UserRoleServiceImplTest {
                 .thenReturn(List.of(1L, 2L));
 
         // 当前操作人是超级管理员
-        when(userRoleMapper.userHasRole(100L, SUPER_ADMIN))
-                .thenReturn(true);
+        when(roleMembershipService.getEnabledRoleNames(100L))
+                .thenReturn(Set.of(SUPER_ADMIN));
 
         // 超级管理员：A = 所有启用角色
         when(roleMapper.selectAllEnabledRoleIds())
@@ -287,8 +299,8 @@ class UserRoleServiceImplTest {
         when(roleMapper.selectEnabledRoleIds(List.of(1L)))
                 .thenReturn(List.of(1L));
 
-        when(userRoleMapper.userHasRole(100L, SUPER_ADMIN))
-                .thenReturn(false);
+        when(roleMembershipService.getEnabledRoleNames(100L))
+                .thenReturn(Set.of("ADMIN"));
 
         when(userRoleMapper.selectRoleIdsByUserIdAndStatus(100L, ENABLED))
                 .thenReturn(List.of(1L));
@@ -363,21 +375,17 @@ class UserRoleServiceImplTest {
 
     // ========================= userHasRole() =========================
     @Test
-    void userHasRole_delegateToMapper_returnTrue() {
+    void userHasRole_answeredFromCachedRoleNames() {
         // given
         Long userId = 1L;
-        String roleName = "ADMIN";
 
-        when(userRoleMapper.userHasRole(userId, roleName))
-                .thenReturn(true);
+        when(roleMembershipService.getEnabledRoleNames(userId))
+                .thenReturn(Set.of("ADMIN", "USER"));
 
-        // when
-        boolean result = userRoleService.userHasRole(userId, roleName);
-
-        // then
-        assertTrue(result);
-        verify(userRoleMapper).userHasRole(userId, roleName);
+        // when & then
+        assertTrue(userRoleService.userHasRole(userId, "ADMIN"));
+        assertFalse(userRoleService.userHasRole(userId, SUPER_ADMIN));
+        verifyNoInteractions(userRoleMapper);
     }
 
-
 }
@@ -1,9 +1,11 @@
 package com.ymjrhk.rbac.service.impl;
 
 import com.github.pagehelper.Page;
+import com.ymjrhk.rbac.auth.AuthorizationSnapshot;
+import com.ymjrhk.rbac.auth.RoleSetPermissions;
+import com.ymjrhk.rbac.constant.MessageConstant;
 import com.ymjrhk.rbac.constant.OperateTypeConstant;
 import com.ymjrhk.rbac.constant.PermissionTypeConstant;
-import com.ymjrhk.rbac.constant.RoleNameConstant;
 import com.ymjrhk.rbac.context.LoginUser;
 import com.ymjrhk.rbac.context.UserContext;
 import com.ymjrhk.rbac.dto.UserCreateDTO;
@@ -12,11 +14,12 @@ import com.ymjrhk.rbac.dto.UserPageQueryDTO;
 import com.ymjrhk.rbac.dto.auth.UserAuthInfo;
 import com.ymjrhk.rbac.entity.User;
 import com.ymjrhk.rbac.exception.*;
-import com.ymjrhk.rbac.mapper.PermissionMapper;
 import com.ymjrhk.rbac.mapper.UserMapper;
 import com.ymjrhk.rbac.result.PageResult;
+import com.ymjrhk.rbac.service.AuthorizationSnapshotService;
+import com.ymjrhk.rbac.service.CacheEvictionService;
+import com.ymjrhk.rbac.service.RoleSetPermissionService;
 import com.ymjrhk.rbac.service.UserHistoryService;
-import com.ymjrhk.rbac.service.UserRoleService;
 import com.ymjrhk.rbac.vo.PermissionVO;
 import com.ymjrhk.rbac.vo.UserVO;
 import org.junit.jupiter.api.AfterEach;
@@ -32,9 +35,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.util.AntPathMatcher;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
+import static com.ymjrhk.rbac.constant.CacheConstant.*;
 import static com.ymjrhk.rbac.constant.StatusConstant.DISABLED;
 import static com.ymjrhk.rbac.constant.StatusConstant.ENABLED;
 import static org.junit.jupiter.api.Assertions.*;
@@ -57,10 +62,13 @@ class UserServiceImplTest {
     private UserHistoryService userHistoryService;
 
     @Mock
-    private PermissionMapper permissionMapper;
+    private AuthorizationSnapshotService authorizationSnapshotService;
 
     @Mock
-    private UserRoleService userRoleService;
+    private RoleSetPermissionService roleSetPermissionService;
+
+    @Mock
+    private CacheEvictionService cacheEvictionService;
 
     @Mock
     private AntPathMatcher matcher;
@@ -116,6 +124,10 @@ class UserServiceImplTest {
         // 验证历史表记录
         verify(userHistoryService)
                 .recordHistory(200L, OperateTypeConstant.CREATE);
+
+        // 验证删除新 userId 下可能缓存的“用户不存在”哨兵
+        verify(cacheEvictionService)
+                .evictCreated(200L, USER_BASIC, USER_AUTH, USER_AUTHZ, USER_ROLES, USER_ROLE_NAMES, USER_ME);
     }
 
     /**
@@ -693,67 +705,24 @@ class UserServiceImplTest {
         // given
         Long userId = 1L;
 
-        when(userMapper.getByUserId(userId)).thenReturn(null);
+        when(authorizationSnapshotService.getSnapshot(userId))
+                .thenThrow(new UserNotExistException(MessageConstant.USER_NOT_EXIST));
 
         // then
         assertThrows(UserNotExistException.class,
                 () -> userService.getUserPermissions(userId));
 
-        verify(userMapper).getByUserId(userId);
-        verify(permissionMapper, never()).listAllActivePermissions();
-        verify(userMapper, never()).selectPermissionsByUserId(anyLong());
-    }
-
-    /**
-     * 超级管理员
-     */
-    @Test
-    void getUserPermissions_superAdmin_returnAllPermissions() {
-        // given
-        Long userId = 1L;
-
-        User user = new User();
-        user.setUserId(userId);
-
-        PermissionVO p1 = new PermissionVO();
-        p1.setPermissionId(1L);
-        p1.setPermissionName("USER:VIEW");
-
-        PermissionVO p2 = new PermissionVO();
-        p2.setPermissionId(2L);
-        p2.setPermissionName("USER:CREATE");
-
-        List<PermissionVO> allPermissions = List.of(p1, p2);
-
-        when(userMapper.getByUserId(userId)).thenReturn(user);
-        when(userRoleService.userHasRole(userId, RoleNameConstant.SUPER_ADMIN))
-                .thenReturn(true);
-        when(permissionMapper.listAllActivePermissions())
-                .thenReturn(allPermissions);
-
-        // when
-        List<PermissionVO> result =
-                userService.getUserPermissions(userId);
-
-        // then
-        assertEquals(2, result.size());
-        assertEquals("USER:VIEW", result.getFirst().getPermissionName());
-
-        verify(permissionMapper).listAllActivePermissions();
-        verify(userMapper, never()).selectPermissionsByUserId(anyLong());
+        verifyNoInteractions(roleSetPermissionService);
     }
 
     /**
-     * 普通用户（非超级管理员）
+     * 返回用户角色组合的有效权限（超级管理员同样走角色合并，见 RoleSetPermissionServiceImplTest）
      */
     @Test
-    void getUserPermissions_normalUser_returnUserPermissions() {
+    void getUserPermissions_returnRoleSetPermissions() {
         // given
         Long userId = 2L;
 
-        User user = new User();
-        user.setUserId(userId);
-
         PermissionVO p1 = new PermissionVO();
         p1.setPermissionId(10L);
         p1.setPermissionName("ROLE:ASSIGN");
@@ -762,13 +731,10 @@ class UserServiceImplTest {
         p2.setPermissionId(11L);
         p2.setPermissionName("USER:UPDATE");
 
-        List<PermissionVO> userPermissions = List.of(p1, p2);
-
-        when(userMapper.getByUserId(userId)).thenReturn(user);
-        when(userRoleService.userHasRole(userId, RoleNameConstant.SUPER_ADMIN))
-                .thenReturn(false);
-        when(userMapper.selectPermissionsByUserId(userId))
-                .thenReturn(userPermissions);
+        when(authorizationSnapshotService.getSnapshot(userId))
+                .thenReturn(snapshot(userId, List.of(5L, 2L)));
+        when(roleSetPermissionService.getRoleSetPermissions("2,5"))
+                .thenReturn(roleSet("2,5", false, List.of(p1, p2)));
 
         // when
         List<PermissionVO> result =
@@ -778,8 +744,7 @@ class UserServiceImplTest {
         assertEquals(2, result.size());
         assertEquals("ROLE:ASSIGN", result.getFirst().getPermissionName());
 
-        verify(userMapper).selectPermissionsByUserId(userId);
-        verify(permissionMapper, never()).listAllActivePermissions();
+        verifyNoInteractions(userMapper);
     }
     //endregion
 
@@ -792,8 +757,8 @@ class UserServiceImplTest {
         // given
         Long userId = 1L;
 
-        when(userRoleService.userHasRole(userId, RoleNameConstant.SUPER_ADMIN))
-                .thenReturn(true);
+        when(authorizationSnapshotService.getSnapshot(userId)).thenReturn(snapshot(userId, List.of(1L)));
+        when(roleSetPermissionService.getRoleSetPermissions("1")).thenReturn(roleSet("1", true, List.of()));
 
         // when
         boolean result = userService.hasPermission(
@@ -802,8 +767,8 @@ class UserServiceImplTest {
         // then
         assertTrue(result);
 
-        // 超管不会查用户、不会查权限
-        verify(userMapper, never()).selectPermissionsByUserId(anyLong());
+        // 超管不会查用户、不会匹配路径
+        verifyNoInteractions(userMapper);
         verify(matcher, never()).match(anyString(), anyString());
     }
 
@@ -815,20 +780,13 @@ class UserServiceImplTest {
         // given
         Long userId = 2L;
 
-        User user = new User();
-        user.setUserId(userId);
-
         PermissionVO p = new PermissionVO();
         p.setPermissionName("USER:VIEW");
         p.setType(PermissionTypeConstant.ACTION);
         p.setPath("/api/users/**");
         p.setMethod("GET");
 
-        when(userRoleService.userHasRole(userId, RoleNameConstant.SUPER_ADMIN))
-                .thenReturn(false);
-        when(userMapper.getByUserId(userId)).thenReturn(user);
-        when(userMapper.selectPermissionsByUserId(userId))
-                .thenReturn(List.of(p));
+        givenPermissions(userId, List.of(p));
 
         // when
         boolean result = userService.hasPermission(
@@ -836,6 +794,7 @@ class UserServiceImplTest {
 
         // then
         assertTrue(result);
+        verifyNoInteractions(userMapper);
     }
 
     /**
@@ -846,14 +805,7 @@ class UserServiceImplTest {
         // given
         Long userId = 3L;
 
-        User user = new User();
-        user.setUserId(userId);
-
-        when(userRoleService.userHasRole(userId, RoleNameConstant.SUPER_ADMIN))
-                .thenReturn(false);
-        when(userMapper.getByUserId(userId)).thenReturn(user);
-        when(userMapper.selectPermissionsByUserId(userId))
-                .thenReturn(List.of());
+        givenPermissions(userId, List.of());
 
         // when
         boolean result = userService.hasPermission(
@@ -871,19 +823,12 @@ class UserServiceImplTest {
         // given
         Long userId = 4L;
 
-        User user = new User();
-        user.setUserId(userId);
-
         PermissionVO p = new PermissionVO();
         p.setType(PermissionTypeConstant.MODULE); // 非 ACTION
         p.setPath("/api/users/**");
         p.setMethod("GET");
 
-        when(userRoleService.userHasRole(userId, RoleNameConstant.SUPER_ADMIN))
-                .thenReturn(false);
-        when(userMapper.getByUserId(userId)).thenReturn(user);
-        when(userMapper.selectPermissionsByUserId(userId))
-                .thenReturn(List.of(p));
+        givenPermissions(userId, List.of(p));
 
         // when
         boolean result = userService.hasPermission(
@@ -901,19 +846,12 @@ class UserServiceImplTest {
         // given
         Long userId = 5L;
 
-        User user = new User();
-        user.setUserId(userId);
-
         PermissionVO p = new PermissionVO();
         p.setType(PermissionTypeConstant.ACTION);
         p.setPath("/api/admin/**");
         p.setMethod("POST");
 
-        when(userRoleService.userHasRole(userId, RoleNameConstant.SUPER_ADMIN))
-                .thenReturn(false);
-        when(userMapper.getByUserId(userId)).thenReturn(user);
-        when(userMapper.selectPermissionsByUserId(userId))
-                .thenReturn(List.of(p));
+        givenPermissions(userId, List.of(p));
 
         // when
         boolean result = userService.hasPermission(
@@ -931,15 +869,34 @@ class UserServiceImplTest {
         // given
         Long userId = 6L;
 
-        when(userRoleService.userHasRole(userId, RoleNameConstant.SUPER_ADMIN))
-                .thenReturn(false);
-        when(userMapper.getByUserId(userId)).thenReturn(null);
+        when(authorizationSnapshotService.getSnapshot(userId))
+                .thenThrow(new UserNotExistException(MessageConstant.USER_NOT_EXIST));
 
         // then
         assertThrows(UserNotExistException.class,
                 () -> userService.hasPermission(
                         userId, "/api/users/1", "GET"));
     }
+
+    private void givenPermissions(Long userId, List<PermissionVO> permissions) {
+        when(authorizationSnapshotService.getSnapshot(userId)).thenReturn(snapshot(userId, List.of(2L)));
+        when(roleSetPermissionService.getRoleSetPermissions("2")).thenReturn(roleSet("2", false, permissions));
+    }
+
+    private static AuthorizationSnapshot snapshot(Long userId, List<Long> roleIds) {
+        AuthorizationSnapshot snapshot = new AuthorizationSnapshot();
+        snapshot.setUserId(userId);
+        snapshot.setRoleIds(new ArrayList<>(roleIds));
+        return snapshot;
+    }
+
+    private static RoleSetPermissions roleSet(String signature, boolean superAdmin, List<PermissionVO> permissions) {
+        RoleSetPermissions roleSet = new RoleSetPermissions();
+        roleSet.setRoleSet(signature);
+        roleSet.setSuperAdmin(superAdmin);
+        roleSet.setPermissions(permissions);
+        return roleSet;
+    }
     //endregion
 
     //region getUserAuthInfo
@@ -0,0 +1,159 @@
+package com.ymjrhk.rbac.trace;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.ymjrhk.rbac.context.TraceContext;
+import com.ymjrhk.rbac.properties.TraceProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTraceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        TraceContext.clear();
+    }
+
+    /**
+     * 第一个阶段开始时记下过滤器耗时；同一阶段多次出现时累加
+     */
+    @Test
+    void beginEnd_filterRecordedAndStagesAccumulate() {
+        RequestTrace trace = new RequestTrace(1_000);
+
+        trace.begin(Stage.AUTH, 1_300);
+        trace.end(Stage.AUTH, 1_500);
+        trace.begin(Stage.PERMISSION, 1_500);
+        trace.end(Stage.PERMISSION, 1_520);
+        trace.add(Stage.AUDIT, 40);
+        trace.add(Stage.AUDIT, 60);
+        trace.finish(2_000);
+
+        assertEquals(300, trace.getElapsedNanos(Stage.FILTER));
+        assertEquals(200, trace.getElapsedNanos(Stage.AUTH));
+        assertEquals(20, trace.getElapsedNanos(Stage.PERMISSION));
+        assertEquals(100, trace.getElapsedNanos(Stage.AUDIT));
+        assertFalse(trace.isRecorded(Stage.CONTROLLER));
+        assertEquals(1_000, trace.getTotalNanos());
+    }
+
+    /**
+     * 没有 begin 的 end 忽略
+     */
+    @Test
+    void end_withoutBegin_ignore() {
+        RequestTrace trace = new RequestTrace(1_000);
+
+        trace.end(Stage.CONTROLLER, 5_000);
+
+        assertFalse(trace.isRecorded(Stage.CONTROLLER));
+    }
+
+    /**
+     * 不在请求线程内（没有轨迹）时记录方法不报错
+     */
+    @Test
+    void traceContext_withoutTrace_noop() {
+        TraceContext.begin(Stage.AUTH);
+        TraceContext.end(Stage.AUTH);
+        TraceContext.add(Stage.AUDIT, 10);
+        TraceContext.auth("ok", 1L);
+        TraceContext.permission("allow");
+
+        assertNull(TraceContext.get());
+    }
+
+    @Test
+    void traceContext_recordDecisions() {
+        RequestTrace trace = TraceContext.start();
+
+        TraceContext.auth("ok", 7L);
+        TraceContext.permission("deny");
+
+        assertSame(trace, TraceContext.get());
+        assertEquals(7L, trace.getUserId());
+        assertEquals("ok", trace.getAuth());
+        assertEquals("deny", trace.getPermission());
+    }
+
+    /**
+     * 出现过的阶段和整个请求记入直方图
+     */
+    @Test
+    void report_recordStageTimers() {
+        RequestTraceReporter reporter = new RequestTraceReporter(properties(0, Duration.ofSeconds(1)), registry);
+        RequestTrace trace = new RequestTrace(1_000);
+        trace.begin(Stage.AUTH, 2_000);
+        trace.end(Stage.AUTH, 5_000);
+        trace.finish(9_000);
+
+        reporter.report(trace, "GET", "/api/users", 200);
+
+        Timer auth = registry.get("rbac.request.stage").tag("stage", "auth").timer();
+        assertEquals(1, auth.count());
+        assertEquals(3_000, auth.totalTime(TimeUnit.NANOSECONDS));
+        assertEquals(8_000, registry.get("rbac.request.stage").tag("stage", "total").timer()
+                                    .totalTime(TimeUnit.NANOSECONDS));
+        assertEquals(1, registry.get("rbac.request.stage").tag("stage", "filter").timer().count());
+        assertEquals(0, registry.get("rbac.request.stage").tag("stage", "controller").timer().count());
+    }
+
+    /**
+     * 采样率为 0 时只输出慢请求
+     */
+    @Test
+    void shouldEmit_slowOrSampled() {
+        RequestTraceReporter reporter = new RequestTraceReporter(properties(0, Duration.ofNanos(1_000)), registry);
+
+        RequestTrace fast = new RequestTrace(0);
+        fast.finish(999);
+        RequestTrace slow = new RequestTrace(0);
+        slow.finish(1_000);
+
+        assertFalse(reporter.shouldEmit(fast));
+        assertTrue(reporter.shouldEmit(slow));
+
+        RequestTraceReporter always = new RequestTraceReporter(properties(1, Duration.ofSeconds(1)), registry);
+        assertTrue(always.shouldEmit(fast));
+    }
+
+    @Test
+    void format_jsonLine() {
+        RequestTrace trace = new RequestTrace(0);
+        trace.setUserId(3L);
+        trace.setAuth("ok-cached");
+        trace.setPermission("allow");
+        trace.begin(Stage.AUTH, 2_000);
+        trace.end(Stage.AUTH, 12_000);
+        trace.finish(50_000);
+
+        JSONObject line = JSON.parseObject(RequestTraceReporter.format(trace, "POST", "/api/roles", 403));
+
+        assertEquals("POST", line.getString("method"));
+        assertEquals("/api/roles", line.getString("path"));
+        assertEquals(403, line.getIntValue("status"));
+        assertEquals(3L, line.getLong("userId"));
+        assertEquals("ok-cached", line.getString("auth"));
+        assertEquals("allow", line.getString("permission"));
+        assertEquals(50, line.getLongValue("totalUs"));
+        assertEquals(2, line.getLongValue("filterUs"));
+        assertEquals(10, line.getLongValue("authUs"));
+        assertFalse(line.containsKey("controllerUs"));
+    }
+
+    private static TraceProperties properties(double sampleRate, Duration slowThreshold) {
+        TraceProperties properties = new TraceProperties();
+        properties.setSampleRate(sampleRate);
+        properties.setSlowThreshold(slowThreshold);
+        return properties;
+    }
+}